@@ -0,0 +1,270 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.accession;
+
+/**
+ * INSDC or RefSeq accession parsed into two longs, such as "GCA_000001405.10", "NC_000001.11", "CM000663.2" or
+ * "NZ_ABCD01000001.1".
+ * <p>
+ * An accession is made of 1 to 7 upper case letters, optionally interrupted or followed by a single underscore, then
+ * 1 to 18 digits and optionally a dot followed by a version of at most {@value #MAX_VERSION} without leading zeros.
+ * Accessions of any other shape are rejected, so that formatting a parsed accession always returns the original
+ * string.
+ * </p>
+ * <p>
+ * The letters, the position of the underscore, the number of digits and the version are packed into one long, and the
+ * numeric body into another, so that parsed accessions are compared and hashed without going back to the string.
+ * </p>
+ */
+public final class Accession {
+
+    /**
+     * Value returned by {@link #parseHigh(CharSequence)} for strings that are not valid accessions. No valid accession
+     * packs to this value.
+     */
+    private static final long INVALID = 0;
+
+    static final int MAX_LETTERS = 7;
+
+    static final int MAX_DIGITS = 18;
+
+    static final int MAX_VERSION = (1 << 17) - 1;
+
+    private static final int BITS_PER_LETTER = 5;
+
+    private static final int LETTER_COUNT_SHIFT = 61;
+
+    private static final int UNDERSCORE_SHIFT = 58;
+
+    private static final int DIGIT_COUNT_SHIFT = 53;
+
+    private static final int LETTERS_SHIFT = 18;
+
+    private static final int HAS_VERSION_SHIFT = 17;
+
+    private static final long[] POWERS_OF_TEN = new long[MAX_DIGITS];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < MAX_DIGITS; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final long high;
+
+    private final long low;
+
+    private Accession(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * @throws IllegalArgumentException If the string is not a valid accession.
+     */
+    public static Accession parse(CharSequence accession) {
+        long high = parseHigh(accession);
+        if (high == INVALID) {
+            throw new IllegalArgumentException("Invalid accession: " + accession);
+        }
+        return new Accession(high, parseLow(accession));
+    }
+
+    /**
+     * @return The letters, underscore position, number of digits and version of the accession, or {@link #INVALID}.
+     */
+    private static long parseHigh(CharSequence accession) {
+        if (accession == null) {
+            return INVALID;
+        }
+        int length = accession.length();
+        int i = 0;
+        int letterCount = 0;
+        long letters = 0;
+        int underscore = 0;
+        while (i < length) {
+            char c = accession.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                if (++letterCount > MAX_LETTERS) {
+                    return INVALID;
+                }
+                letters = (letters << BITS_PER_LETTER) | (c - 'A' + 1);
+            } else if (c == '_' && underscore == 0 && letterCount > 0) {
+                underscore = letterCount;
+            } else {
+                break;
+            }
+            i++;
+        }
+        if (letterCount == 0) {
+            return INVALID;
+        }
+        int digitCount = 0;
+        while (i < length && isDigit(accession.charAt(i))) {
+            if (++digitCount > MAX_DIGITS) {
+                return INVALID;
+            }
+            i++;
+        }
+        if (digitCount == 0) {
+            return INVALID;
+        }
+        long version = 0;
+        boolean hasVersion = false;
+        if (i < length) {
+            if (accession.charAt(i++) != '.' || i == length) {
+                return INVALID;
+            }
+            // Leading zeros would not survive a round-trip
+            if (accession.charAt(i) == '0' && i + 1 < length) {
+                return INVALID;
+            }
+            while (i < length) {
+                char c = accession.charAt(i++);
+                if (!isDigit(c)) {
+                    return INVALID;
+                }
+                version = version * 10 + (c - '0');
+                if (version > MAX_VERSION) {
+                    return INVALID;
+                }
+            }
+            hasVersion = true;
+        }
+        letters <<= BITS_PER_LETTER * (MAX_LETTERS - letterCount);
+        return ((long) letterCount << LETTER_COUNT_SHIFT) | ((long) underscore << UNDERSCORE_SHIFT) |
+                ((long) digitCount << DIGIT_COUNT_SHIFT) | (letters << LETTERS_SHIFT) |
+                ((hasVersion ? 1L : 0L) << HAS_VERSION_SHIFT) | version;
+    }
+
+    /**
+     * @return The numeric body of the accession. Only meaningful if {@link #parseHigh(CharSequence)} is valid.
+     */
+    private static long parseLow(CharSequence accession) {
+        int length = accession.length();
+        int i = 0;
+        while (i < length && !isDigit(accession.charAt(i))) {
+            i++;
+        }
+        long body = 0;
+        while (i < length && isDigit(accession.charAt(i))) {
+            body = body * 10 + (accession.charAt(i++) - '0');
+        }
+        return body;
+    }
+
+    private static StringBuilder format(long high, long low, StringBuilder builder) {
+        int letterCount = letterCount(high);
+        int underscore = (int) (high >>> UNDERSCORE_SHIFT) & 0x7;
+        for (int i = 0; i < letterCount; i++) {
+            if (underscore != 0 && i == underscore) {
+                builder.append('_');
+            }
+            builder.append(letterAt(high, i));
+        }
+        if (underscore == letterCount) {
+            builder.append('_');
+        }
+        for (int i = digitCount(high) - 1; i >= 0; i--) {
+            builder.append((char) ('0' + (low / POWERS_OF_TEN[i]) % 10));
+        }
+        if (hasVersion(high)) {
+            builder.append('.').append(version(high));
+        }
+        return builder;
+    }
+
+    /**
+     * @return The letters of the accession up to the underscore, such as "GCA" or "NC", or all the letters if there is
+     * no underscore, such as "CM".
+     */
+    public String getPrefix() {
+        int underscore = (int) (high >>> UNDERSCORE_SHIFT) & 0x7;
+        int end = underscore == 0 ? letterCount(high) : underscore;
+        StringBuilder builder = new StringBuilder(end);
+        for (int i = 0; i < end; i++) {
+            builder.append(letterAt(high, i));
+        }
+        return builder.toString();
+    }
+
+    public long getNumber() {
+        return low;
+    }
+
+    public boolean hasVersion() {
+        return hasVersion(high);
+    }
+
+    /**
+     * @return True if this is a GenBank (GCA) or RefSeq (GCF) assembly accession.
+     */
+    public boolean isAssembly() {
+        return letterCount(high) == 3 && ((high >>> UNDERSCORE_SHIFT) & 0x7) == 3 && digitCount(high) == 9 &&
+                letterAt(high, 0) == 'G' && letterAt(high, 1) == 'C' &&
+                (letterAt(high, 2) == 'A' || letterAt(high, 2) == 'F');
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Accession accession = (Accession) o;
+        return high == accession.high && low == accession.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(high) + Long.hashCode(low);
+    }
+
+    @Override
+    public String toString() {
+        return format(high, low, new StringBuilder(32)).toString();
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int letterCount(long high) {
+        return (int) (high >>> LETTER_COUNT_SHIFT);
+    }
+
+    private static char letterAt(long high, int index) {
+        int shift = LETTERS_SHIFT + BITS_PER_LETTER * (MAX_LETTERS - 1 - index);
+        return (char) ('A' - 1 + ((high >>> shift) & 0x1F));
+    }
+
+    private static int digitCount(long high) {
+        return (int) (high >>> DIGIT_COUNT_SHIFT) & 0x1F;
+    }
+
+    private static boolean hasVersion(long high) {
+        return ((high >>> HAS_VERSION_SHIFT) & 1) != 0;
+    }
+
+    private static int version(long high) {
+        return (int) (high & MAX_VERSION);
+    }
+
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
+import uk.ac.ebi.eva.contigalias.event.AssemblyDeletedEvent;
+import uk.ac.ebi.eva.contigalias.event.DataVersionChangedEvent;
+import uk.ac.ebi.eva.contigalias.repo.AssemblyRepository;
+import uk.ac.ebi.eva.contigalias.repo.PrimaryReads;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Least recently used eviction policy for the assemblies stored in the database, which acts as a cache of the
+ * assemblies fetched from the remote data sources.
+ * <p>
+ * Reads and insertions of assemblies are recorded in access order. Once an insertion takes the number of tracked
+ * assemblies above the configured maximum, the least recently used assemblies are returned to the caller to be
+ * evicted. At least {@code eviction-batch-size} assemblies are evicted at once so that the following inserts do not
+ * need to evict anything.
+ * </p>
+ * <p>
+ * Reads served from the {@link ResponseCache} or answered with an HTTP 304 do not reach the services. The accessions
+ * of the assemblies read while computing a response are therefore captured, so that they can be recorded again
+ * whenever the response is reused.
+ * </p>
+ * <p>
+ * The access order is kept in the memory of each node, so this policy is only meant for deployments with a single
+ * node. With several nodes sharing the database, a node only knows about the reads it served and would evict
+ * assemblies that are in use on the other nodes. Assemblies inserted or deleted by other nodes are picked up when the
+ * {@link DataVersion} shows changes, the former being tracked as most recently used.
+ * </p>
+ */
+@Component
+public class AssemblyCachePolicy {
+
+    private final Logger logger = LoggerFactory.getLogger(AssemblyCachePolicy.class);
+
+    private final AssemblyRepository repository;
+
+    private final boolean enabled;
+
+    private final int maxAssemblies;
+
+    private final int evictionBatchSize;
+
+    /**
+     * Assembly IDs ordered from least to most recently used, mapped to the accessions of the assembly.
+     */
+    private final LinkedHashMap<Long, String[]> accessOrder = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Map<String, Long> idsByAccession = new HashMap<>();
+
+    /**
+     * Accessions of the assemblies read by the thread since it called {@link #startCapture()}.
+     */
+    private final ThreadLocal<Set<String>> capturedAccessions = new ThreadLocal<>();
+
+    @Autowired
+    public AssemblyCachePolicy(AssemblyRepository repository,
+                               @Value("${config.assembly-cache.enabled:false}") boolean enabled,
+                               @Value("${config.assembly-cache.max-assemblies:10}") int maxAssemblies,
+                               @Value("${config.assembly-cache.eviction-batch-size:3}") int evictionBatchSize) {
+        if (enabled && maxAssemblies < 1) {
+            throw new IllegalArgumentException("The maximum number of cached assemblies must be at least 1");
+        }
+        this.repository = repository;
+        this.enabled = enabled;
+        this.maxAssemblies = maxAssemblies;
+        this.evictionBatchSize = Math.max(1, evictionBatchSize);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts tracking the assemblies already present in the database, oldest insertions being the least recently
+     * used. They are read from the primary, so that assemblies just inserted by other nodes are tracked too.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        if (!enabled) {
+            return;
+        }
+        accessOrder.clear();
+        idsByAccession.clear();
+        for (Object[] row : PrimaryReads.call(repository::findAllIdsAndAccessionsOrderById)) {
+            track((Long) row[0], (String) row[1], (String) row[2]);
+        }
+        logger.info("Tracking " + accessOrder.size() + " assemblies for cache eviction");
+    }
+
+    public synchronized void recordAccess(AssemblyEntity entity) {
+        if (enabled) {
+            track(entity.getId(), entity.getGenbank(), entity.getRefseq());
+            capture(entity.getGenbank() != null ? entity.getGenbank() : entity.getRefseq());
+        }
+    }
+
+    /**
+     * Records a read of the tracked assembly having the given GenBank or RefSeq accession, if any.
+     */
+    public synchronized void recordAccess(String accession) {
+        if (enabled) {
+            Long id = idsByAccession.get(accession);
+            if (id != null) {
+                // Getting an entry moves it to the most recently used end
+                accessOrder.get(id);
+                capture(accession);
+            }
+        }
+    }
+
+    /**
+     * Records a read of every tracked assembly having one of the given GenBank or RefSeq accessions.
+     */
+    public synchronized void recordAccess(Collection<String> accessions) {
+        accessions.forEach(this::recordAccess);
+    }
+
+    /**
+     * Starts capturing the accessions of the assemblies whose reads are recorded by the current thread.
+     */
+    public void startCapture() {
+        if (enabled) {
+            capturedAccessions.set(new HashSet<>());
+        }
+    }
+
+    /**
+     * @return Accessions of the assemblies read by the current thread since it called {@link #startCapture()}.
+     */
+    public Set<String> stopCapture() {
+        Set<String> accessions = capturedAccessions.get();
+        capturedAccessions.remove();
+        return accessions == null ? Collections.emptySet() : accessions;
+    }
+
+    private void capture(String accession) {
+        Set<String> accessions = capturedAccessions.get();
+        if (accessions != null && accession != null) {
+            accessions.add(accession);
+        }
+    }
+
+    /**
+     * Records the insertion of an assembly and selects the assemblies to evict, if any.
+     *
+     * @param entity Assembly that was just inserted.
+     * @return IDs of the least recently used assemblies that have to be deleted to keep the cache within its limit.
+     * These are no longer tracked by the policy.
+     */
+    public synchronized List<Long> recordInsertion(AssemblyEntity entity) {
+        if (!enabled) {
+            return Collections.emptyList();
+        }
+        track(entity.getId(), entity.getGenbank(), entity.getRefseq());
+        int size = accessOrder.size();
+        if (size <= maxAssemblies) {
+            return Collections.emptyList();
+        }
+        // Never evict the assembly that has just been inserted
+        int toEvict = Math.min(size - 1, Math.max(size - maxAssemblies, evictionBatchSize));
+        List<Long> evicted = new ArrayList<>(toEvict);
+        Iterator<Map.Entry<Long, String[]>> iterator = accessOrder.entrySet().iterator();
+        while (evicted.size() < toEvict) {
+            Map.Entry<Long, String[]> eldest = iterator.next();
+            iterator.remove();
+            untrackAccessions(eldest.getValue());
+            evicted.add(eldest.getKey());
+        }
+        return evicted;
+    }
+
+    @EventListener
+    public synchronized void onAssemblyDeleted(AssemblyDeletedEvent event) {
+        Long id = idsByAccession.get(event.getGenbank());
+        if (id == null) {
+            id = idsByAccession.get(event.getRefseq());
+        }
+        if (id != null) {
+            untrackAccessions(accessOrder.remove(id));
+        }
+    }
+
+    /**
+     * Stops tracking the assemblies deleted by other nodes and starts tracking those they inserted.
+     */
+    @EventListener
+    public void onDataVersionChanged(DataVersionChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        List<Object[]> rows = PrimaryReads.call(repository::findAllIdsAndAccessionsOrderById);
+        synchronized (this) {
+            Set<Long> stored = new HashSet<>();
+            for (Object[] row : rows) {
+                Long id = (Long) row[0];
+                stored.add(id);
+                if (!accessOrder.containsKey(id)) {
+                    track(id, (String) row[1], (String) row[2]);
+                }
+            }
+            Iterator<Map.Entry<Long, String[]>> iterator = accessOrder.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Long, String[]> entry = iterator.next();
+                if (!stored.contains(entry.getKey())) {
+                    iterator.remove();
+                    untrackAccessions(entry.getValue());
+                }
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return accessOrder.size();
+    }
+
+    private void track(long id, String genbank, String refseq) {
+        if (accessOrder.put(id, new String[]{genbank, refseq}) == null) {
+            if (genbank != null) {
+                idsByAccession.put(genbank, id);
+            }
+            if (refseq != null) {
+                idsByAccession.put(refseq, id);
+            }
+        }
+    }
+
+    private void untrackAccessions(String[] accessions) {
+        if (accessions != null) {
+            for (String accession : accessions) {
+                if (accession != null) {
+                    idsByAccession.remove(accession);
+                }
+            }
+        }
+    }
+
+}
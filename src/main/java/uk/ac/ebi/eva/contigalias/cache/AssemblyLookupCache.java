@@ -0,0 +1,181 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
+import uk.ac.ebi.eva.contigalias.event.AssemblyChecksumsUpdatedEvent;
+import uk.ac.ebi.eva.contigalias.event.AssemblyDeletedEvent;
+import uk.ac.ebi.eva.contigalias.event.AssemblyInsertedEvent;
+import uk.ac.ebi.eva.contigalias.event.DataVersionChangedEvent;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of the assemblies returned by the public lookups by accession, keyed by the accession used to
+ * look them up and the authority of that accession. Assemblies are cached without their chromosomes and scaffolds, as
+ * read by the projection queries, and every caller receives the same instance, which must not be modified.
+ * <p>
+ * The cache is bounded by number of entries, the least recently used entries being evicted first. An assembly can
+ * only be cached under its own GenBank and RefSeq accessions, so an insertion, deletion or checksum update of an
+ * assembly removes these few keys instead of scanning the entries. Updates of sequence checksums do not concern the
+ * cached assemblies. The cache is local to each node, and is cleared whenever another node changes the data.
+ * </p>
+ * <p>
+ * Hits, misses, evictions and size are registered as the standard Micrometer cache meters under the name
+ * {@value #CACHE_NAME}.
+ * </p>
+ */
+@Component
+public class AssemblyLookupCache {
+
+    public enum Authority {ACCESSION, GENBANK, REFSEQ}
+
+    static final String CACHE_NAME = "assemblies";
+
+    private final boolean enabled;
+
+    private final int maxEntries;
+
+    private final LinkedHashMap<String, AssemblyEntity> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Counter evictions;
+
+    /**
+     * Incremented on every invalidation, so that assemblies loaded before an invalidation are not cached after it.
+     */
+    private long generation = 0;
+
+    @Autowired
+    public AssemblyLookupCache(MeterRegistry meterRegistry,
+                               @Value("${config.assembly-lookup-cache.enabled:false}") boolean enabled,
+                               @Value("${config.assembly-lookup-cache.max-entries:10000}") int maxEntries) {
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        Tags tags = Tags.of("cache", CACHE_NAME);
+        this.hits = Counter.builder("cache.gets").tags(tags).tag("result", "hit")
+                           .description("Assembly lookups answered from the cache").register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tags(tags).tag("result", "miss")
+                             .description("Assembly lookups that had to query the database").register(meterRegistry);
+        this.evictions = Counter.builder("cache.evictions").tags(tags)
+                                .description("Assemblies evicted from the cache").register(meterRegistry);
+        Gauge.builder("cache.size", this, AssemblyLookupCache::size).tags(tags)
+             .description("Assemblies in the cache").register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached assembly, or loads it and caches it if absent. Missing assemblies are not cached.
+     *
+     * @param authority Authority of the accession, or {@link Authority#ACCESSION} if it can be of either authority.
+     * @param accession Accession used to look up the assembly.
+     * @param loader    Loads the assembly, without its chromosomes and scaffolds, from the database.
+     */
+    public Optional<AssemblyEntity> get(Authority authority, String accession,
+                                        Supplier<Optional<AssemblyEntity>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        String key = key(authority, accession);
+        long loadGeneration;
+        synchronized (this) {
+            AssemblyEntity assembly = entries.get(key);
+            if (assembly != null) {
+                hits.increment();
+                return Optional.of(assembly);
+            }
+            loadGeneration = generation;
+        }
+        misses.increment();
+        Optional<AssemblyEntity> loaded = loader.get();
+        loaded.ifPresent(it -> put(key, it, loadGeneration));
+        return loaded;
+    }
+
+    private static String key(Authority authority, String accession) {
+        return authority.name() + ':' + accession;
+    }
+
+    private synchronized void put(String key, AssemblyEntity assembly, long loadGeneration) {
+        if (loadGeneration != generation) {
+            return;
+        }
+        entries.put(key, assembly);
+        Iterator<AssemblyEntity> iterator = entries.values().iterator();
+        while (entries.size() > maxEntries) {
+            iterator.next();
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    @EventListener
+    public void onAssemblyInserted(AssemblyInsertedEvent event) {
+        AssemblyEntity assembly = event.getAssembly();
+        invalidate(assembly.getGenbank(), assembly.getRefseq());
+    }
+
+    @EventListener
+    public void onAssemblyDeleted(AssemblyDeletedEvent event) {
+        invalidate(event.getGenbank(), event.getRefseq());
+    }
+
+    @EventListener
+    public void onAssemblyChecksumsUpdated(AssemblyChecksumsUpdatedEvent event) {
+        invalidate(event.getGenbank(), event.getRefseq());
+    }
+
+    @EventListener
+    public synchronized void onDataVersionChanged(DataVersionChangedEvent event) {
+        generation++;
+        entries.clear();
+    }
+
+    private synchronized void invalidate(String genbank, String refseq) {
+        if (!enabled) {
+            return;
+        }
+        generation++;
+        if (genbank != null) {
+            entries.remove(key(Authority.ACCESSION, genbank));
+            entries.remove(key(Authority.GENBANK, genbank));
+        }
+        if (refseq != null) {
+            entries.remove(key(Authority.ACCESSION, refseq));
+            entries.remove(key(Authority.REFSEQ, refseq));
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import uk.ac.ebi.eva.contigalias.entities.DataVersionEntity;
+import uk.ac.ebi.eva.contigalias.event.AssemblyChecksumsUpdatedEvent;
+import uk.ac.ebi.eva.contigalias.event.AssemblyDeletedEvent;
+import uk.ac.ebi.eva.contigalias.event.AssemblyInsertedEvent;
+import uk.ac.ebi.eva.contigalias.event.DataVersionChangedEvent;
+import uk.ac.ebi.eva.contigalias.event.SequenceChecksumsUpdatedEvent;
+import uk.ac.ebi.eva.contigalias.repo.DataVersionRepository;
+import uk.ac.ebi.eva.contigalias.repo.PrimaryReads;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Version of the assembly data held by the database, bumped whenever an assembly is inserted or deleted or the
+ * checksums of an assembly or sequence are updated. Responses computed while the version stays the same are identical,
+ * so the version can be used as an entity tag for all of them.
+ * <p>
+ * The version is kept in memory, so that tagging a response never queries the database. It mirrors a counter stored
+ * in the database, which every node increments on its own mutations and reads back periodically. Nodes therefore hand
+ * out the same tags for the same data, tags stay valid across restarts, and changes made by other nodes are noticed
+ * within the refresh interval, at which point a {@link DataVersionChangedEvent} is published.
+ * </p>
+ */
+@Component
+public class DataVersion implements InitializingBean, DisposableBean {
+
+    private final Logger logger = LoggerFactory.getLogger(DataVersion.class);
+
+    private final DataVersionRepository repository;
+
+    private final ApplicationEventPublisher publisher;
+
+    private final long refreshIntervalSeconds;
+
+    private ScheduledExecutorService refreshExecutor;
+
+    private volatile long version;
+
+    @Autowired
+    public DataVersion(DataVersionRepository repository, ApplicationEventPublisher publisher,
+                       @Value("${config.data-version.refresh-interval-seconds:10}") long refreshIntervalSeconds) {
+        this.repository = repository;
+        this.publisher = publisher;
+        this.refreshIntervalSeconds = refreshIntervalSeconds;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        version = PrimaryReads.call(this::findOrCreateVersion);
+        if (refreshIntervalSeconds > 0) {
+            refreshExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "data-version-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+            refreshExecutor.scheduleWithFixedDelay(this::refresh, refreshIntervalSeconds, refreshIntervalSeconds,
+                                                   TimeUnit.SECONDS);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return Strong entity tag, including the surrounding quotes, identifying the current version.
+     */
+    public String getEtag() {
+        return "\"" + Long.toHexString(version) + "\"";
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    @EventListener
+    public void onAssemblyInserted(AssemblyInsertedEvent event) {
+        increment();
+    }
+
+    @EventListener
+    public void onAssemblyDeleted(AssemblyDeletedEvent event) {
+        increment();
+    }
+
+    @EventListener
+    public void onAssemblyChecksumsUpdated(AssemblyChecksumsUpdatedEvent event) {
+        increment();
+    }
+
+    @EventListener
+    public void onSequenceChecksumsUpdated(SequenceChecksumsUpdatedEvent event) {
+        increment();
+    }
+
+    /**
+     * Reads the version stored in the database, publishing a {@link DataVersionChangedEvent} if it moved since this
+     * node last saw it.
+     */
+    public void refresh() {
+        try {
+            update(PrimaryReads.call(this::findVersion), 0);
+        } catch (RuntimeException e) {
+            logger.warn("Could not refresh the data version", e);
+        }
+    }
+
+    private void increment() {
+        update(PrimaryReads.call(() -> {
+            repository.incrementVersion();
+            return findVersion();
+        }), 1);
+    }
+
+    /**
+     * @param expectedIncrement Number of changes to the version that this node already published events for.
+     */
+    private void update(long current, long expectedIncrement) {
+        long previous;
+        synchronized (this) {
+            previous = version;
+            // Concurrent increments may read their results back in any order
+            version = Math.max(previous, current);
+        }
+        // Published outside the lock, since listeners may reload a lot of data
+        if (current > previous + expectedIncrement) {
+            publisher.publishEvent(new DataVersionChangedEvent(current));
+        }
+    }
+
+    private long findVersion() {
+        return repository.findVersion().orElseThrow(() -> new IllegalStateException("Missing data version"));
+    }
+
+    /**
+     * The version starts from the time at which it is first stored, so that tags handed out before the database was
+     * recreated are never mistaken for current ones.
+     */
+    private long findOrCreateVersion() {
+        if (!repository.findVersion().isPresent()) {
+            try {
+                repository.save(new DataVersionEntity().setId(DataVersionEntity.ID)
+                                                       .setVersion(System.currentTimeMillis()));
+            } catch (DataIntegrityViolationException e) {
+                // Stored by another node starting at the same time
+            }
+        }
+        return findVersion();
+    }
+
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import uk.ac.ebi.eva.contigalias.event.AssemblyChecksumsUpdatedEvent;
+import uk.ac.ebi.eva.contigalias.event.AssemblyDeletedEvent;
+import uk.ac.ebi.eva.contigalias.event.AssemblyInsertedEvent;
+import uk.ac.ebi.eva.contigalias.event.DataVersionChangedEvent;
+import uk.ac.ebi.eva.contigalias.event.SequenceChecksumsUpdatedEvent;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache of serialised response bodies keyed by normalised request, bounded by the total number of bytes of the cached
+ * bodies. The least recently used responses are evicted first, and responses expire after a fixed time to live.
+ * <p>
+ * The cache is local to each node. Any mutation, whether made through this node or detected as made by another node,
+ * clears the whole cache. Mutations are rare compared to lookups, and a response can depend on an accession without
+ * mentioning it, so working out which responses a mutation affects is not worth its cost. The time to live bounds how
+ * long a response can outlive a change that the data version has not reported yet.
+ * </p>
+ */
+@Component
+public class ResponseCache {
+
+    private final boolean enabled;
+
+    private final long maxBytes;
+
+    private final long ttlNanos;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long bytes = 0;
+
+    /**
+     * Incremented on every invalidation, so that responses computed before an invalidation are not cached after it.
+     */
+    private long generation = 0;
+
+    @Autowired
+    public ResponseCache(@Value("${config.response-cache.enabled:false}") boolean enabled,
+                         @Value("${config.response-cache.max-size-mb:64}") long maxSizeMb,
+                         @Value("${config.response-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.enabled = enabled;
+        this.maxBytes = maxSizeMb * 1024 * 1024;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized Optional<CachedResponse> get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (System.nanoTime() - entry.createdAt >= ttlNanos) {
+            entries.remove(key);
+            bytes -= entry.response.getBody().length;
+            return Optional.empty();
+        }
+        return Optional.of(entry.response);
+    }
+
+    /**
+     * @return Generation to pass to {@link #put} once the response of a request that missed the cache is computed.
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    public synchronized void put(String key, CachedResponse response, long computeGeneration) {
+        if (!enabled || computeGeneration != generation || response.getBody().length > maxBytes) {
+            return;
+        }
+        Entry previous = entries.put(key, new Entry(response, System.nanoTime()));
+        if (previous != null) {
+            bytes -= previous.response.getBody().length;
+        }
+        bytes += response.getBody().length;
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (bytes > maxBytes) {
+            bytes -= iterator.next().response.getBody().length;
+            iterator.remove();
+        }
+    }
+
+    @EventListener
+    public void onAssemblyInserted(AssemblyInsertedEvent event) {
+        invalidate();
+    }
+
+    @EventListener
+    public void onAssemblyDeleted(AssemblyDeletedEvent event) {
+        invalidate();
+    }
+
+    @EventListener
+    public void onAssemblyChecksumsUpdated(AssemblyChecksumsUpdatedEvent event) {
+        invalidate();
+    }
+
+    @EventListener
+    public void onSequenceChecksumsUpdated(SequenceChecksumsUpdatedEvent event) {
+        invalidate();
+    }
+
+    @EventListener
+    public void onDataVersionChanged(DataVersionChangedEvent event) {
+        invalidate();
+    }
+
+    private synchronized void invalidate() {
+        generation++;
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    private static class Entry {
+
+        private final CachedResponse response;
+
+        private final long createdAt;
+
+        Entry(CachedResponse response, long createdAt) {
+            this.response = response;
+            this.createdAt = createdAt;
+        }
+
+    }
+
+    public static class CachedResponse {
+
+        private final String contentType;
+
+        private final byte[] body;
+
+        private final Set<String> assemblyAccessions;
+
+        public CachedResponse(String contentType, byte[] body) {
+            this(contentType, body, Collections.emptySet());
+        }
+
+        /**
+         * @param assemblyAccessions Accessions of the assemblies whose reads were recorded while computing the
+         *                           response, to be recorded again whenever it is reused.
+         */
+        public CachedResponse(String contentType, byte[] body, Set<String> assemblyAccessions) {
+            this.contentType = contentType;
+            this.body = body;
+            this.assemblyAccessions = assemblyAccessions;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public Set<String> getAssemblyAccessions() {
+            return assemblyAccessions;
+        }
+
+    }
+
+}
@@ -19,11 +19,17 @@ package uk.ac.ebi.eva.contigalias.controller;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.PagedModel;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import uk.ac.ebi.eva.contigalias.repo.SequenceCursor;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 public class BaseController {
 
@@ -31,19 +37,42 @@ public class BaseController {
 
     public static final int DEFAULT_PAGE_SIZE = 10;
 
+    /**
+     * Largest number of results returned at once, the same as the default maximum page size of Spring Data.
+     */
+    public static final int MAX_PAGE_SIZE = 2000;
+
     public static final String PAGE_NUMBER_DESCRIPTION = "You can provide a page index to return only a subset of" +
             " the data. Page numbers start from 0 and if not specified then default page number is 0.";
 
     public static final String PAGE_SIZE_DESCRIPTION = "You can provide a page size to return only a subset of"
             + " the data. Page size should be greater than 0 and if not specified then default page size is 10 " +
-            "results per page.";
+            "results per page. Page size should be at most " + MAX_PAGE_SIZE + ", larger pages are rejected with an " +
+            "HTTP status code of 400.";
+
+    public static final String PARAM_CURSOR = "cursor";
+
+    public static final String CURSOR_DESCRIPTION = "You can provide a cursor instead of a page index to read the " +
+            "results in order, one page after the other. Leave the cursor empty to get the first page, then follow " +
+            "the next link of each response until there is none. Pages read this way have no total count and stay " +
+            "fast however far the results go.";
 
     public static final PageRequest DEFAULT_PAGE_REQUEST = PageRequest.of(DEFAULT_PAGE_NUMBER, DEFAULT_PAGE_SIZE);
 
+    /**
+     * Request headers that responses depend on: the accepted media types and the headers from which absolute links
+     * are built.
+     */
+    public static final String[] VARY_HEADERS = {HttpHeaders.ACCEPT, HttpHeaders.HOST, "Forwarded",
+            "X-Forwarded-Host", "X-Forwarded-Port", "X-Forwarded-Proto", "X-Forwarded-Prefix", "X-Forwarded-Ssl"};
+
     public static final String REL_CHROMOSOMES = "chromosomes";
 
     public static final String REL_ASSEMBLY = "assembly";
 
+    /**
+     * @throws ResponseStatusException With status 400 if the size is larger than {@link #MAX_PAGE_SIZE}.
+     */
     public static PageRequest createPageRequest(Integer page, Integer size) {
 
         int pagex = DEFAULT_PAGE_NUMBER, sizex = DEFAULT_PAGE_SIZE;
@@ -52,6 +81,10 @@ public class BaseController {
             pagex = page;
         }
         if (size != null) {
+            if (size > MAX_PAGE_SIZE) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                                  "Page size should be at most " + MAX_PAGE_SIZE);
+            }
             sizex = size;
         }
 
@@ -85,4 +118,78 @@ public class BaseController {
         return (page == null || page == 0) && (size == null || size > 1);
     }
 
+    /**
+     * @return True if the cursor is empty or a valid token, and the request does not also ask for a page index, for
+     * an empty page or for a page larger than {@link #MAX_PAGE_SIZE}.
+     */
+    public static boolean paramsValidForCursorQuery(String cursor, Integer page, Integer size) {
+        if (page != null || (size != null && (size < 1 || size > MAX_PAGE_SIZE))) {
+            return false;
+        }
+        try {
+            createCursor(cursor);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param cursor Token of a cursor, or an empty string to start from the first result.
+     * @throws IllegalArgumentException If the token is not valid.
+     */
+    public static Optional<SequenceCursor> createCursor(String cursor) {
+        return cursor.isEmpty() ? Optional.empty() : Optional.of(SequenceCursor.fromToken(cursor));
+    }
+
+    /**
+     * @param maxAgeSeconds Number of seconds during which clients and shared caches may reuse a response without
+     *                      revalidating it, or 0 if it always has to be revalidated.
+     */
+    public static CacheControl createCacheControl(long maxAgeSeconds) {
+        if (maxAgeSeconds <= 0) {
+            return CacheControl.noCache();
+        }
+        return CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).cachePublic();
+    }
+
+    /**
+     * @param ifNoneMatch Value of the If-None-Match request header, may be null.
+     * @param etag        Current entity tag of the requested resource, including the surrounding quotes.
+     * @return True if the client already holds the current representation and can be answered with HTTP 304.
+     */
+    public static boolean isNotModified(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            // If-None-Match uses the weak comparison function, so weak tags match their strong counterparts
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param acceptEncoding Value of the Accept-Encoding request header, may be null.
+     * @return True if the client accepts gzip encoded responses.
+     */
+    public static boolean isGzipAccepted(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.trim().split(";");
+            if (parameters[0].trim().equalsIgnoreCase("gzip")) {
+                return parameters.length == 1 || !parameters[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
 }
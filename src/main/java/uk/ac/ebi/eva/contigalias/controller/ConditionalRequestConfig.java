@@ -0,0 +1,44 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class ConditionalRequestConfig implements WebMvcConfigurer {
+
+    @Autowired
+    PrimaryReadInterceptor primaryReadInterceptor;
+
+    @Autowired
+    ConditionalRequestInterceptor interceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Registered first, so that every read made while handling the request is routed accordingly
+        registry.addInterceptor(primaryReadInterceptor)
+                .addPathPatterns("/v1/**");
+        // Admin endpoints may fetch and insert assemblies, and alias tables carry their own tags
+        registry.addInterceptor(interceptor)
+                .addPathPatterns("/v1/**")
+                .excludePathPatterns("/v1/admin/**", "/v1/assemblies/*/alias-table");
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import uk.ac.ebi.eva.contigalias.cache.AssemblyCachePolicy;
+import uk.ac.ebi.eva.contigalias.cache.DataVersion;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static uk.ac.ebi.eva.contigalias.controller.BaseController.createCacheControl;
+import static uk.ac.ebi.eva.contigalias.controller.BaseController.VARY_HEADERS;
+import static uk.ac.ebi.eva.contigalias.controller.BaseController.isNotModified;
+
+/**
+ * Tags every GET response with the current {@link DataVersion} and answers requests whose If-None-Match header holds
+ * that tag with an HTTP 304 before the request reaches any controller, without querying the database. Responses hold
+ * absolute links, so they vary with the headers these are built from. A 304 to a request about a single assembly is
+ * recorded as a read of that assembly by the {@link AssemblyCachePolicy}.
+ */
+@Component
+public class ConditionalRequestInterceptor extends HandlerInterceptorAdapter {
+
+    private static final String VARY = String.join(", ", VARY_HEADERS);
+
+    private final DataVersion dataVersion;
+
+    private final AssemblyCachePolicy cachePolicy;
+
+    private final CacheControl cacheControl;
+
+    @Autowired
+    public ConditionalRequestInterceptor(DataVersion dataVersion, AssemblyCachePolicy cachePolicy,
+                                         @Value("${config.http-cache.max-age-seconds:300}") long maxAgeSeconds) {
+        this.dataVersion = dataVersion;
+        this.cachePolicy = cachePolicy;
+        this.cacheControl = createCacheControl(maxAgeSeconds);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+                             Object handler) {
+        String method = request.getMethod();
+        if (!HttpMethod.GET.matches(method) && !HttpMethod.HEAD.matches(method)) {
+            return true;
+        }
+        String etag = dataVersion.getEtag();
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        response.setHeader(HttpHeaders.VARY, VARY);
+        if (isNotModified(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            // The client still uses the assembly, even though the request does not reach the services
+            String assemblyAccession = getAssemblyAccession(
+                    request.getRequestURI().substring(request.getContextPath().length()));
+            if (assemblyAccession != null) {
+                cachePolicy.recordAccess(assemblyAccession);
+            }
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return Accession of the assembly that the response to a request for the given path is solely about, or null
+     * when it is about any number of assemblies.
+     */
+    static String getAssemblyAccession(String path) {
+        String[] segments = path.split("/");
+        if (segments.length < 4 || !"assemblies".equals(segments[2])) {
+            return null;
+        }
+        switch (segments[3]) {
+            case "insdc":
+            case "genbank":
+            case "refseq":
+                return segments.length > 4 ? segments[4] : null;
+            case "taxid":
+                return null;
+            default:
+                return segments[3];
+        }
+    }
+
+}
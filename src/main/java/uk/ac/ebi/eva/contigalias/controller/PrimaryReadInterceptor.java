@@ -0,0 +1,65 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import uk.ac.ebi.eva.contigalias.repo.PrimaryReads;
+import uk.ac.ebi.eva.contigalias.repo.RecentWrites;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Serves the reads of a request from the primary database when the request is an admin request, or when it is received
+ * during the primary read window following a write. Requests look data up by accession, name, taxonomic ID or page,
+ * and whether a write affects them cannot be told from the request, so every lookup made shortly after a write reads
+ * from the primary.
+ */
+@Component
+public class PrimaryReadInterceptor extends HandlerInterceptorAdapter {
+
+    private static final String ADMIN_PATH = "/v1/admin/";
+
+    private final RecentWrites recentWrites;
+
+    @Autowired
+    public PrimaryReadInterceptor(RecentWrites recentWrites) {
+        this.recentWrites = recentWrites;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (recentWrites.isEnabled() && (isAdminRequest(request) || recentWrites.isWithinWindow())) {
+            PrimaryReads.require();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception exception) {
+        PrimaryReads.release();
+    }
+
+    private static boolean isAdminRequest(HttpServletRequest request) {
+        return request.getRequestURI().contains(ADMIN_PATH);
+    }
+
+}
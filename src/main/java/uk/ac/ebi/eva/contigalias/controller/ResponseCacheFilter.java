@@ -0,0 +1,141 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import uk.ac.ebi.eva.contigalias.cache.AssemblyCachePolicy;
+import uk.ac.ebi.eva.contigalias.cache.ResponseCache;
+import uk.ac.ebi.eva.contigalias.cache.ResponseCache.CachedResponse;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static uk.ac.ebi.eva.contigalias.controller.BaseController.DEFAULT_PAGE_NUMBER;
+import static uk.ac.ebi.eva.contigalias.controller.BaseController.DEFAULT_PAGE_SIZE;
+import static uk.ac.ebi.eva.contigalias.controller.BaseController.VARY_HEADERS;
+
+/**
+ * Answers GET requests to the public endpoints from the {@link ResponseCache} when possible, skipping the database
+ * queries, link building and serialisation of the controllers. Successful responses of requests that missed the cache
+ * are stored in it, along with the assemblies read to compute them, whose reads are recorded by the
+ * {@link AssemblyCachePolicy} again whenever the response is reused.
+ */
+@Component
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+    private final ResponseCache cache;
+
+    private final ConditionalRequestInterceptor conditionalRequestInterceptor;
+
+    private final AssemblyCachePolicy cachePolicy;
+
+    @Autowired
+    public ResponseCacheFilter(ResponseCache cache, ConditionalRequestInterceptor conditionalRequestInterceptor,
+                               AssemblyCachePolicy cachePolicy) {
+        this.cache = cache;
+        this.conditionalRequestInterceptor = conditionalRequestInterceptor;
+        this.cachePolicy = cachePolicy;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!cache.isEnabled() || !HttpMethod.GET.matches(request.getMethod())) {
+            return true;
+        }
+        // Admin endpoints may fetch and insert assemblies, and alias tables are already stored precomputed
+        String path = getPath(request);
+        return !path.startsWith("/v1/") || path.startsWith("/v1/admin/") || path.endsWith("/alias-table");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String key = createKey(request);
+        Optional<CachedResponse> cached = cache.get(key);
+        if (cached.isPresent()) {
+            CachedResponse cachedResponse = cached.get();
+            cachePolicy.recordAccess(cachedResponse.getAssemblyAccessions());
+            // Cached responses get the same conditional request handling and headers as computed ones
+            if (conditionalRequestInterceptor.preHandle(request, response, null)) {
+                response.setContentType(cachedResponse.getContentType());
+                response.setContentLength(cachedResponse.getBody().length);
+                response.getOutputStream().write(cachedResponse.getBody());
+            }
+            return;
+        }
+        long generation = cache.getGeneration();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        Set<String> assemblyAccessions;
+        cachePolicy.startCapture();
+        try {
+            filterChain.doFilter(request, wrapper);
+        } finally {
+            assemblyAccessions = cachePolicy.stopCapture();
+        }
+        if (wrapper.getStatus() == HttpServletResponse.SC_OK) {
+            cache.put(key, new CachedResponse(wrapper.getContentType(), wrapper.getContentAsByteArray(),
+                                              assemblyAccessions), generation);
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    /**
+     * Creates a key made of the path, which holds the endpoint and its path variables, followed by the request
+     * parameters sorted by name, with the paging parameters always present, and by the accepted media types. Responses
+     * hold absolute links built from the scheme, the Host header and the forwarding headers, so those are part of the
+     * key as well.
+     */
+    static String createKey(HttpServletRequest request) {
+        Map<String, String> parameters = new TreeMap<>();
+        parameters.put("page", String.valueOf(DEFAULT_PAGE_NUMBER));
+        parameters.put("size", String.valueOf(DEFAULT_PAGE_SIZE));
+        for (Map.Entry<String, String[]> parameter : request.getParameterMap().entrySet()) {
+            String[] values = parameter.getValue();
+            parameters.put(parameter.getKey(), values.length == 1 ? values[0] : Arrays.toString(values));
+        }
+        StringBuilder key = new StringBuilder(getPath(request));
+        char separator = '?';
+        for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+            key.append(separator).append(parameter.getKey()).append('=').append(parameter.getValue());
+            separator = '&';
+        }
+        key.append('|').append(request.getScheme());
+        for (String header : VARY_HEADERS) {
+            String value = request.getHeader(header);
+            key.append('|').append(value == null ? "" : value);
+        }
+        return key.toString();
+    }
+
+    private static String getPath(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+}
@@ -20,19 +20,24 @@ import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.PagedModel;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
+import uk.ac.ebi.eva.contigalias.service.SequenceChecksumsUpdateReport;
 
+import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
 import java.util.List;
 
@@ -157,6 +162,41 @@ public class AdminController {
         handler.putScaffoldChecksumsByAccession(accession, md5, trunc512);
     }
 
+    @ApiOperation(value = "Add MD5 and TRUNC512 checksums to many chromosomes and scaffolds by accession.",
+            notes = "Given a request body listing INSDC or RefSeq accessions along with their MD5 and TRUNC512 " +
+                    "checksums, this endpoint will add the given checksums to all chromosomes and scaffolds that " +
+                    "match each accession. The body is either tab separated values, one accession, MD5 checksum " +
+                    "and TRUNC512 checksum per line, or newline delimited JSON objects with the fields accession, md5" +
+                    " and trunc512. A missing or empty checksum leaves the stored one unchanged, but each line " +
+                    "must give at least one. Checksums are applied in batches as the body is read, each batch in " +
+                    "its own transaction, so a malformed line leaves the batches before it applied. This endpoint " +
+                    "returns the number of sequences updated and the accessions that matched no sequence.")
+    @PutMapping(value = "sequences/checksums",
+            consumes = {SequenceChecksumsReader.TSV, SequenceChecksumsReader.NDJSON},
+            produces = "application/json")
+    public ResponseEntity<?> putSequenceChecksums(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, HttpServletRequest request)
+            throws IOException {
+        String format = contentType.getType() + "/" + contentType.getSubtype();
+        SequenceChecksumsUpdateReport report;
+        try {
+            report = handler.putSequenceChecksums(request.getReader(), format);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(report, HttpStatus.OK);
+    }
+
+    @ApiOperation(value = "Store the alias tables of all assemblies that have none.",
+            notes = "Alias tables are stored when an assembly is inserted and stored again in the background a few " +
+                    "seconds after the endpoints updating checksums last changed the assembly. Assemblies inserted " +
+                    "before alias tables existed have none until their table is first requested or this endpoint " +
+                    "stores it. This endpoint returns the number of tables stored.")
+    @PutMapping(value = "alias-tables", produces = "application/json")
+    public ResponseEntity<Integer> saveMissingAliasTables() {
+        return new ResponseEntity<>(handler.saveMissingAliasTables(), HttpStatus.OK);
+    }
+
     @ApiOperation(value = "Delete an assembly from local database using its GenBank or RefSeq accession.",
             notes = "Given an assembly's accession this endpoint will delete the assembly that matches that " +
                     "accession from the local database. The accession can be either a INSDC or RefSeq accession and" +
@@ -170,4 +210,25 @@ public class AdminController {
         handler.deleteAssemblyByAccession(asmAccession);
     }
 
+    @ApiOperation(value = "Delete many assemblies from local database, either by accession or by taxonomic ID.",
+            notes = "Given either a list of GenBank or RefSeq accessions in the request body or a taxonomic ID, this " +
+                    "endpoint will delete every matching assembly along with all of its sequences. Exactly one of " +
+                    "the two must be given. Assemblies are deleted in batches, each in its own transaction, so a " +
+                    "failure midway leaves the batches already deleted out of the database. This endpoint returns " +
+                    "the number of assemblies deleted.")
+    @DeleteMapping(value = "assemblies")
+    public ResponseEntity<Integer> deleteAssemblies(
+            @RequestParam(required = false, name = "taxid") @ApiParam(value = "Taxonomic ID of the assemblies to " +
+                    "delete. Eg: 9606") Long taxid,
+            @RequestBody(required = false) @ApiParam(value = "A JSON array of GenBank or RefSeq assembly accessions." +
+                    " Eg: [\"GCA_000001405.10\",\"GCA_000001405.11\"]") List<String> accessions) {
+        boolean byAccessions = accessions != null && accessions.size() > 0;
+        if ((taxid == null) == !byAccessions) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        int deleted = byAccessions ? handler.deleteAssembliesByAccessions(accessions)
+                : handler.deleteAssembliesByTaxid(taxid);
+        return new ResponseEntity<>(deleted, HttpStatus.OK);
+    }
+
 }
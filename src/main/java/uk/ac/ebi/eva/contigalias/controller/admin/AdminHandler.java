@@ -23,10 +23,14 @@ import org.springframework.hateoas.PagedModel;
 import org.springframework.stereotype.Service;
 
 import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
+import uk.ac.ebi.eva.contigalias.service.AliasTableService;
 import uk.ac.ebi.eva.contigalias.service.AssemblyService;
 import uk.ac.ebi.eva.contigalias.service.ChromosomeService;
 import uk.ac.ebi.eva.contigalias.service.ScaffoldService;
+import uk.ac.ebi.eva.contigalias.service.SequenceChecksumsUpdateReport;
+import uk.ac.ebi.eva.contigalias.service.SequenceService;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
@@ -43,16 +47,24 @@ public class AdminHandler {
 
     private final ScaffoldService scaffoldService;
 
+    private final SequenceService sequenceService;
+
+    private final AliasTableService aliasTableService;
+
     private final PagedResourcesAssembler<AssemblyEntity> assemblyAssembler;
 
     @Autowired
     public AdminHandler(AssemblyService assemblyService,
                         ChromosomeService chromosomeService,
                         ScaffoldService scaffoldService,
+                        SequenceService sequenceService,
+                        AliasTableService aliasTableService,
                         PagedResourcesAssembler<AssemblyEntity> assemblyAssembler) {
         this.assemblyService = assemblyService;
         this.chromosomeService = chromosomeService;
         this.scaffoldService = scaffoldService;
+        this.sequenceService = sequenceService;
+        this.aliasTableService = aliasTableService;
         this.assemblyAssembler = assemblyAssembler;
     }
 
@@ -74,10 +86,22 @@ public class AdminHandler {
         assemblyService.deleteAssemblyByAccession(accession);
     }
 
+    public int deleteAssembliesByAccessions(List<String> accessions) {
+        return assemblyService.deleteAssembliesByAccessions(accessions);
+    }
+
+    public int deleteAssembliesByTaxid(long taxid) {
+        return assemblyService.deleteAssembliesByTaxid(taxid);
+    }
+
     public void putAssemblyChecksumsByAccession(String accession, String md5, String trunc512) {
         assemblyService.putAssemblyChecksumsByAccession(accession, md5, trunc512);
     }
 
+    /**
+     * Sets the checksums. The alias tables of the assemblies of the updated chromosomes are stored again in the
+     * background by {@link AliasTableService}. The same goes for the other checksum updates.
+     */
     public void putChromosomeChecksumsByAccession(String accession, String md5, String trunc512) {
         chromosomeService.putChromosomeChecksumsByAccession(accession, md5, trunc512);
     }
@@ -85,4 +109,15 @@ public class AdminHandler {
     public void putScaffoldChecksumsByAccession(String accession, String md5, String trunc512) {
         scaffoldService.putScaffoldChecksumsByAccession(accession, md5, trunc512);
     }
+
+    /**
+     * @param format Either {@link SequenceChecksumsReader#TSV} or {@link SequenceChecksumsReader#NDJSON}.
+     */
+    public SequenceChecksumsUpdateReport putSequenceChecksums(BufferedReader reader, String format) {
+        return sequenceService.putSequenceChecksums(new SequenceChecksumsReader(reader, format));
+    }
+
+    public int saveMissingAliasTables() {
+        return aliasTableService.saveMissingAliasTables();
+    }
 }
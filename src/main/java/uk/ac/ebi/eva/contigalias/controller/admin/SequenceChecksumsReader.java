@@ -0,0 +1,140 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.controller.admin;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import uk.ac.ebi.eva.contigalias.repo.SequenceChecksums;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads checksums line by line from a request body, so that the body never has to fit in memory. Two formats are
+ * supported:
+ * <ul>
+ *     <li>{@value #TSV}: an accession, a MD5 checksum and a TRUNC512 checksum separated by tabs. Blank lines, lines
+ *     starting with {@code #} and a header line starting with {@code accession} are skipped.</li>
+ *     <li>{@value #NDJSON}: one JSON object per line with the fields {@code accession}, {@code md5} and
+ *     {@code trunc512}, the last two being optional. Blank lines are skipped.</li>
+ * </ul>
+ * Missing or empty checksums are read as null, which leaves the stored checksums unchanged, but every line must give
+ * at least one checksum. Malformed lines throw an {@link IllegalArgumentException} naming the line, when they are
+ * reached.
+ */
+public class SequenceChecksumsReader implements Iterator<SequenceChecksums> {
+
+    public static final String TSV = "text/tab-separated-values";
+
+    public static final String NDJSON = "application/x-ndjson";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final BufferedReader reader;
+
+    private final boolean ndjson;
+
+    private SequenceChecksums next;
+
+    private int lineNumber;
+
+    /**
+     * @param format Either {@link #TSV} or {@link #NDJSON}.
+     */
+    public SequenceChecksumsReader(BufferedReader reader, String format) {
+        if (!TSV.equals(format) && !NDJSON.equals(format)) {
+            throw new IllegalArgumentException("Checksums can only be read as " + TSV + " or " + NDJSON);
+        }
+        this.reader = reader;
+        this.ndjson = NDJSON.equals(format);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null) {
+            String line;
+            try {
+                line = reader.readLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (line == null) {
+                return false;
+            }
+            lineNumber++;
+            next = ndjson ? parseJson(line) : parseTsv(line);
+            if (next != null && next.getMd5checksum() == null && next.getTrunc512checksum() == null) {
+                throw new IllegalArgumentException("Line " + lineNumber + " has neither a MD5 nor a TRUNC512 " +
+                                                           "checksum");
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public SequenceChecksums next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        SequenceChecksums current = next;
+        next = null;
+        return current;
+    }
+
+    private SequenceChecksums parseTsv(String line) {
+        if (line.trim().isEmpty() || line.startsWith("#") || (lineNumber == 1 && line.startsWith("accession"))) {
+            return null;
+        }
+        String[] fields = line.split("\t", -1);
+        if (fields.length > 3 || fields[0].isEmpty()) {
+            throw new IllegalArgumentException("Line " + lineNumber + " is not an accession followed by up to two " +
+                                                       "checksums separated by tabs");
+        }
+        return new SequenceChecksums(fields[0], field(fields, 1), field(fields, 2));
+    }
+
+    private static String field(String[] fields, int index) {
+        return index < fields.length && !fields[index].isEmpty() ? fields[index] : null;
+    }
+
+    private SequenceChecksums parseJson(String line) {
+        if (line.trim().isEmpty()) {
+            return null;
+        }
+        JsonNode node;
+        try {
+            node = MAPPER.readTree(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Line " + lineNumber + " is not valid JSON", e);
+        }
+        if (!node.isObject() || !node.path("accession").isTextual() || node.path("accession").asText().isEmpty()) {
+            throw new IllegalArgumentException("Line " + lineNumber + " is not a JSON object with an accession");
+        }
+        return new SequenceChecksums(node.get("accession").asText(), text(node, "md5"), text(node, "trunc512"));
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() || value.asText().isEmpty() ? null : value.asText();
+    }
+
+}
@@ -19,32 +19,46 @@ package uk.ac.ebi.eva.contigalias.controller.contigalias;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.PagedModel;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import uk.ac.ebi.eva.contigalias.entities.AliasTableEntity;
 import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
 import uk.ac.ebi.eva.contigalias.entities.SequenceEntity;
+import uk.ac.ebi.eva.contigalias.repo.SequenceCursor;
+import uk.ac.ebi.eva.contigalias.service.AliasTableService;
 
 import java.util.Optional;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+import static uk.ac.ebi.eva.contigalias.controller.BaseController.CURSOR_DESCRIPTION;
 import static uk.ac.ebi.eva.contigalias.controller.BaseController.DEFAULT_PAGE_NUMBER;
 import static uk.ac.ebi.eva.contigalias.controller.BaseController.DEFAULT_PAGE_SIZE;
 import static uk.ac.ebi.eva.contigalias.controller.BaseController.PAGE_NUMBER_DESCRIPTION;
 import static uk.ac.ebi.eva.contigalias.controller.BaseController.PAGE_SIZE_DESCRIPTION;
+import static uk.ac.ebi.eva.contigalias.controller.BaseController.PARAM_CURSOR;
 import static uk.ac.ebi.eva.contigalias.controller.BaseController.REL_ASSEMBLY;
 import static uk.ac.ebi.eva.contigalias.controller.BaseController.REL_CHROMOSOMES;
 import static uk.ac.ebi.eva.contigalias.controller.BaseController.createAppropriateResponseEntity;
+import static uk.ac.ebi.eva.contigalias.controller.BaseController.createCacheControl;
+import static uk.ac.ebi.eva.contigalias.controller.BaseController.createCursor;
 import static uk.ac.ebi.eva.contigalias.controller.BaseController.createPageRequest;
+import static uk.ac.ebi.eva.contigalias.controller.BaseController.isGzipAccepted;
+import static uk.ac.ebi.eva.contigalias.controller.BaseController.isNotModified;
+import static uk.ac.ebi.eva.contigalias.controller.BaseController.paramsValidForCursorQuery;
 import static uk.ac.ebi.eva.contigalias.controller.BaseController.paramsValidForSingleResponseQuery;
 
 @RequestMapping("/v1")
@@ -63,8 +77,15 @@ public class ContigAliasController {
 
     public static final String NAME_UCSC_TYPE = "ucsc";
 
+    public static final String NAME_ANY_TYPE = "any";
+
+    public static final String ALIAS_TABLE_MEDIA_TYPE = "text/tab-separated-values";
+
     private final ContigAliasHandler handler;
 
+    @Value("${config.http-cache.max-age-seconds:300}")
+    private long cacheMaxAgeSeconds;
+
     @Autowired
     public ContigAliasController(ContigAliasHandler handler) {
         this.handler = handler;
@@ -81,7 +102,7 @@ public class ContigAliasController {
         }
         pagedModel.add(linkTo(methodOn(ContigAliasController.class)
                                       .getSequencesByAssemblyAccession(
-                                              accession, authority, pageNumber, pageSize))
+                                              accession, authority, pageNumber, pageSize, null))
                                .withRel(REL_CHROMOSOMES));
     }
 
@@ -104,6 +125,50 @@ public class ContigAliasController {
         } else return new ResponseEntity<>(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
     }
 
+    @ApiOperation(value = "Get the accessions, names and checksums of every sequence of an assembly as a single " +
+            "tab separated table.",
+            notes = "Given an assembly's GenBank or RefSeq accession, this endpoint returns one row for each of its " +
+                    "chromosomes and scaffolds listing their GenBank and RefSeq accessions, GenBank sequence " +
+                    "name, ENA sequence name, UCSC style name and checksums, with missing values written as " +
+                    AliasTableService.MISSING_VALUE + ". The table is precomputed when the assembly is inserted " +
+                    "and is sent gzip encoded to clients that accept it. The response carries an ETag, and " +
+                    "requests whose If-None-Match header matches it are answered with an HTTP 304. The endpoint " +
+                    "returns an HTTP error code 404 if the assembly is not present in the database.")
+    @GetMapping(value = "assemblies/{accession}/alias-table", produces = ALIAS_TABLE_MEDIA_TYPE)
+    public ResponseEntity<byte[]> getAliasTableByAssemblyAccession(
+            @PathVariable(name = "accession") @ApiParam(value = "INSDC or Refseq assembly accession. Eg: " +
+                    "GCA_000001405.10") String asmAccession,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        Optional<AliasTableEntity> optional = handler.getAliasTableByAssemblyAccession(asmAccession);
+        if (!optional.isPresent()) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        AliasTableEntity table = optional.get();
+        boolean gzip = isGzipAccepted(acceptEncoding);
+        // Both encodings of the table are different byte sequences, so they need distinct strong tags
+        String etag = gzip ? toGzipEtag(table.getEtag()) : table.getEtag();
+        if (isNotModified(ifNoneMatch, table.getEtag()) || isNotModified(ifNoneMatch, toGzipEtag(table.getEtag()))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                                 .eTag(etag)
+                                 .cacheControl(createCacheControl(cacheMaxAgeSeconds))
+                                 .build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                                                            .eTag(etag)
+                                                            .cacheControl(createCacheControl(cacheMaxAgeSeconds))
+                                                            .contentType(MediaType.valueOf(ALIAS_TABLE_MEDIA_TYPE))
+                                                            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(table.getContent());
+        }
+        return response.body(AliasTableService.decompress(table.getContent()));
+    }
+
+    private static String toGzipEtag(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+
     @ApiOperation(value = "Get an assembly using its INSDC accession.",
             notes = "Given an assembly's INSDC accession, this endpoint will return an assembly that matches that " +
                     "accession. This endpoint will either return a list containing a single result or an HTTP status " +
@@ -226,24 +291,33 @@ public class ContigAliasController {
                     "the given accession as either their INSDC or RefSeq accession are returned. This includes " +
                     "cases where the INSDC and RefSeq accessions are the same.") String asmAuthority,
             @RequestParam(required = false, name = "page") @ApiParam(value = PAGE_NUMBER_DESCRIPTION) Integer pageNumber,
-            @RequestParam(required = false, name = "size") @ApiParam(value = PAGE_SIZE_DESCRIPTION) Integer pageSize) {
+            @RequestParam(required = false, name = "size") @ApiParam(value = PAGE_SIZE_DESCRIPTION) Integer pageSize,
+            @RequestParam(required = false, name = PARAM_CURSOR) @ApiParam(value = CURSOR_DESCRIPTION) String cursor) {
         if (asmAccession == null || asmAccession.isEmpty()) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
+        if (cursor != null && !paramsValidForCursorQuery(cursor, pageNumber, pageSize)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        SequenceCursor after = cursor == null ? null : createCursor(cursor).orElse(null);
+        int size = pageSize == null ? DEFAULT_PAGE_SIZE : pageSize;
         PageRequest pageRequest = createPageRequest(pageNumber, pageSize);
         PagedModel<EntityModel<SequenceEntity>> pagedModel;
         if (asmAuthority != null && !asmAuthority.isEmpty()) {
             if (asmAuthority.toLowerCase().equals(AUTHORITY_INSDC)) {
-                pagedModel = handler.getSequencesByAssemblyGenbank(asmAccession, pageRequest);
+                pagedModel = cursor == null ? handler.getSequencesByAssemblyGenbank(asmAccession, pageRequest)
+                        : handler.getSequencesByAssemblyGenbank(asmAccession, after, size);
                 linkPagedModelGetAssemblyByAuthority(asmAccession, AUTHORITY_INSDC, pagedModel);
             } else if (asmAuthority.toLowerCase().equals(AUTHORITY_REFSEQ)) {
-                pagedModel = handler.getSequencesByAssemblyRefseq(asmAccession, pageRequest);
+                pagedModel = cursor == null ? handler.getSequencesByAssemblyRefseq(asmAccession, pageRequest)
+                        : handler.getSequencesByAssemblyRefseq(asmAccession, after, size);
                 linkPagedModelGetAssemblyByAuthority(asmAccession, AUTHORITY_REFSEQ, pagedModel);
             } else {
                 return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
             }
         } else {
-            pagedModel = handler.getSequencesByAssemblyAccession(asmAccession, pageRequest);
+            pagedModel = cursor == null ? handler.getSequencesByAssemblyAccession(asmAccession, pageRequest)
+                    : handler.getSequencesByAssemblyAccession(asmAccession, after, size);
             linkPagedModelGetAssemblyByAuthority(asmAccession, AUTHORITY_NONE, pagedModel);
         }
         return createAppropriateResponseEntity(pagedModel);
@@ -296,19 +370,38 @@ public class ContigAliasController {
             @RequestParam(required = false, name = "name") @ApiParam(value = "Specify if the provided name is an " +
                     "GenBank chromosome name, ENA name, or a UCSC style name. The acceptable param values are " +
                     NAME_GENBANK_TYPE + ", " + NAME_ENA_TYPE + ", and " +
-                    NAME_UCSC_TYPE + " respectively. If this parameter is omitted then the name is assumed " +
-                    "to be a " + NAME_GENBANK_TYPE + " name by default.") Optional<String> nameTypeOpt,
+                    NAME_UCSC_TYPE + " respectively, or " + NAME_ANY_TYPE + " to match a name of any of these " +
+                    "types. If this parameter is omitted then the name is assumed to be a " + NAME_GENBANK_TYPE +
+                    " name by default.") Optional<String> nameTypeOpt,
             @RequestParam(required = false, name = "page") @ApiParam(value = PAGE_NUMBER_DESCRIPTION) Integer pageNumber,
-            @RequestParam(required = false, name = "size") @ApiParam(value = PAGE_SIZE_DESCRIPTION) Integer pageSize) {
+            @RequestParam(required = false, name = "size") @ApiParam(value = PAGE_SIZE_DESCRIPTION) Integer pageSize,
+            @RequestParam(required = false, name = PARAM_CURSOR) @ApiParam(value = CURSOR_DESCRIPTION) String cursor) {
         boolean isNameValid = name != null && !name.isEmpty();
         boolean isTaxidValid = taxid.isPresent();
         boolean isAccessionValid = asmAccession.isPresent() && !asmAccession.get().isEmpty();
         if (!isNameValid || (isTaxidValid && isAccessionValid)) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
-        PageRequest pageRequest = createPageRequest(pageNumber, pageSize);
         PagedModel<EntityModel<SequenceEntity>> pagedModel;
         String nameType = nameTypeOpt.orElse(NAME_GENBANK_TYPE);
+        if (cursor != null) {
+            if (!paramsValidForCursorQuery(cursor, pageNumber, pageSize)) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            SequenceCursor after = createCursor(cursor).orElse(null);
+            int size = pageSize == null ? DEFAULT_PAGE_SIZE : pageSize;
+            if (!isTaxidValid && !isAccessionValid) {
+                pagedModel = handler.getSequencesByName(name, nameType, after, size);
+            } else if (isTaxidValid) {
+                pagedModel = handler.getSequencesBySequenceNameAndAssemblyTaxid(name, taxid.get(), nameType, after,
+                                                                                size);
+            } else {
+                pagedModel = handler.getSequencesBySequenceNameAndAssemblyAccession(name, asmAccession.get(),
+                                                                                    nameType, after, size);
+            }
+            return createAppropriateResponseEntity(pagedModel);
+        }
+        PageRequest pageRequest = createPageRequest(pageNumber, pageSize);
         if (!isTaxidValid && !isAccessionValid) {
             pagedModel = handler.getSequencesByName(name, nameType, pageRequest);
         } else if (isTaxidValid) {
@@ -322,6 +415,47 @@ public class ContigAliasController {
 
     }
 
+    @ApiOperation(value = "Autocomplete the names of chromosomes, optionally restricted to an assembly or to a " +
+            "Taxonomic ID.",
+            notes = "Given the beginning of a chromosome's name, this endpoint will return a list of chromosomes " +
+                    "whose GenBank sequence name, ENA sequence name or UCSC style name starts with it, ordered by " +
+                    "the matching name. The results can be restricted to the chromosomes of the assembly having " +
+                    "the given GenBank/RefSeq accession or to those of the assemblies having the given Taxonomic " +
+                    "ID, but not both. Each chromosome will also have its parent assembly nested inside it. The " +
+                    "search is served from an in-memory index, if that index is disabled or not built yet then " +
+                    "the endpoint returns an HTTP error code 503. It returns an HTTP error code 400 if invalid " +
+                    "parameters are found.")
+    @GetMapping(value = "chromosomes/name/{prefix}/autocomplete")
+    public ResponseEntity<PagedModel<EntityModel<SequenceEntity>>> getSequencesByNamePrefix(
+            @PathVariable @ApiParam(value = "Beginning of the sequence name or UCSC style name of chromosomes. Eg: " +
+                    "chr1") String prefix,
+            @RequestParam(required = false) @ApiParam(value = "Taxonomic ID of a group of accessions. Eg: 9606") Optional<Long> taxid,
+            @RequestParam(required = false, name = "accession") @ApiParam(value = "Genbank or Refseq assembly " +
+                    "accession. Eg: GCA_000001405.10") Optional<String> asmAccession,
+            @RequestParam(required = false, name = "page") @ApiParam(value = PAGE_NUMBER_DESCRIPTION) Integer pageNumber,
+            @RequestParam(required = false, name = "size") @ApiParam(value = PAGE_SIZE_DESCRIPTION) Integer pageSize) {
+        boolean isPrefixValid = prefix != null && !prefix.isEmpty();
+        boolean isTaxidValid = taxid.isPresent();
+        boolean isAccessionValid = asmAccession.isPresent() && !asmAccession.get().isEmpty();
+        if (!isPrefixValid || (isTaxidValid && isAccessionValid)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (!handler.isSequenceNamePrefixSearchAvailable()) {
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        PageRequest pageRequest = createPageRequest(pageNumber, pageSize);
+        PagedModel<EntityModel<SequenceEntity>> pagedModel;
+        if (!isTaxidValid && !isAccessionValid) {
+            pagedModel = handler.getSequencesByNamePrefix(prefix, pageRequest);
+        } else if (isTaxidValid) {
+            pagedModel = handler.getSequencesByNamePrefixAndAssemblyTaxid(prefix, taxid.get(), pageRequest);
+        } else {
+            pagedModel = handler.getSequencesByNamePrefixAndAssemblyAccession(prefix, asmAccession.get(),
+                                                                              pageRequest);
+        }
+        return createAppropriateResponseEntity(pagedModel);
+    }
+
     private void linkPagedModelGetAssemblyByAuthority(
             String accession, String authority, PagedModel pagedModel) {
         ResponseEntity<PagedModel<EntityModel<AssemblyEntity>>> method;
@@ -19,23 +19,32 @@ package uk.ac.ebi.eva.contigalias.controller.contigalias;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PagedResourcesAssembler;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.PagedModel;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import uk.ac.ebi.eva.contigalias.entities.AliasTableEntity;
 import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
 import uk.ac.ebi.eva.contigalias.entities.SequenceEntity;
+import uk.ac.ebi.eva.contigalias.index.AliasType;
+import uk.ac.ebi.eva.contigalias.index.NegativeLookupFilter;
+import uk.ac.ebi.eva.contigalias.index.SequenceAliasIndex;
+import uk.ac.ebi.eva.contigalias.repo.SequenceCursor;
+import uk.ac.ebi.eva.contigalias.repo.SequenceSlice;
+import uk.ac.ebi.eva.contigalias.service.AliasTableService;
 import uk.ac.ebi.eva.contigalias.service.AssemblyService;
-import uk.ac.ebi.eva.contigalias.service.ChromosomeService;
-import uk.ac.ebi.eva.contigalias.service.ScaffoldService;
+import uk.ac.ebi.eva.contigalias.service.SequenceService;
 
-import java.util.LinkedList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
+import static uk.ac.ebi.eva.contigalias.controller.BaseController.PARAM_CURSOR;
 import static uk.ac.ebi.eva.contigalias.controller.BaseHandler.convertToPage;
 import static uk.ac.ebi.eva.contigalias.controller.BaseHandler.generatePagedModelFromPage;
 
@@ -44,276 +53,357 @@ public class ContigAliasHandler {
 
     private final AssemblyService assemblyService;
 
-    private final ChromosomeService chromosomeService;
+    private final SequenceService sequenceService;
 
-    private final ScaffoldService scaffoldService;
+    private static final SequenceSlice EMPTY_SLICE = new SequenceSlice(Collections.emptyList(), null);
 
     private final PagedResourcesAssembler<AssemblyEntity> assemblyAssembler;
 
     private final PagedResourcesAssembler<SequenceEntity> sequenceAssembler;
 
+    private final SequenceAliasIndex aliasIndex;
+
+    private final NegativeLookupFilter lookupFilter;
+
+    private final AliasTableService aliasTableService;
+
     @Autowired
     public ContigAliasHandler(AssemblyService assemblyService,
-                              ChromosomeService chromosomeService,
-                              ScaffoldService scaffoldService,
+                              SequenceService sequenceService,
                               PagedResourcesAssembler<AssemblyEntity> assemblyAssembler,
-                              PagedResourcesAssembler<SequenceEntity> sequenceAssembler) {
+                              PagedResourcesAssembler<SequenceEntity> sequenceAssembler,
+                              SequenceAliasIndex aliasIndex,
+                              NegativeLookupFilter lookupFilter,
+                              AliasTableService aliasTableService) {
         this.assemblyService = assemblyService;
-        this.chromosomeService = chromosomeService;
-        this.scaffoldService = scaffoldService;
+        this.sequenceService = sequenceService;
         this.assemblyAssembler = assemblyAssembler;
         this.sequenceAssembler = sequenceAssembler;
+        this.aliasIndex = aliasIndex;
+        this.lookupFilter = lookupFilter;
+        this.aliasTableService = aliasTableService;
     }
 
     public PagedModel<EntityModel<AssemblyEntity>> getAssemblyByAccession(String accession) {
-        Optional<AssemblyEntity> entity = assemblyService.getAssemblyByAccession(accession);
-        entity.ifPresent(it -> it.setChromosomes(null));
+        if (!lookupFilter.mightContain(accession)) {
+            return generatePagedModelFromPage(Page.empty(), assemblyAssembler);
+        }
+        Optional<AssemblyEntity> entity = assemblyService.getAssemblyWithoutSequencesByAccession(accession);
         return generatePagedModelFromPage(convertToPage(entity), assemblyAssembler);
     }
 
     public PagedModel<EntityModel<AssemblyEntity>> getAssemblyByGenbank(String genbank) {
-        Optional<AssemblyEntity> entity = assemblyService.getAssemblyByGenbank(genbank);
-        entity.ifPresent(it -> it.setChromosomes(null));
+        if (!lookupFilter.mightContain(genbank)) {
+            return generatePagedModelFromPage(Page.empty(), assemblyAssembler);
+        }
+        Optional<AssemblyEntity> entity = assemblyService.getAssemblyWithoutSequencesByGenbank(genbank);
         return generatePagedModelFromPage(convertToPage(entity), assemblyAssembler);
     }
 
     public PagedModel<EntityModel<AssemblyEntity>> getAssemblyByRefseq(String refseq) {
-        Optional<AssemblyEntity> entity = assemblyService.getAssemblyByRefseq(refseq);
-        entity.ifPresent(it -> it.setChromosomes(null));
+        if (!lookupFilter.mightContain(refseq)) {
+            return generatePagedModelFromPage(Page.empty(), assemblyAssembler);
+        }
+        Optional<AssemblyEntity> entity = assemblyService.getAssemblyWithoutSequencesByRefseq(refseq);
         return generatePagedModelFromPage(convertToPage(entity), assemblyAssembler);
 
     }
 
+    public Optional<AliasTableEntity> getAliasTableByAssemblyAccession(String accession) {
+        if (!lookupFilter.mightContain(accession)) {
+            return Optional.empty();
+        }
+        Optional<AliasTableEntity> table = aliasTableService.getAliasTableByAccession(accession);
+        table.ifPresent(found -> assemblyService.recordAccessByAccession(accession));
+        return table;
+    }
+
     public PagedModel<EntityModel<AssemblyEntity>> getAssembliesByTaxid(long taxid, Pageable request) {
         Page<AssemblyEntity> page = assemblyService.getAssembliesByTaxid(taxid, request);
         return generatePagedModelFromPage(page, assemblyAssembler);
     }
 
     public PagedModel<EntityModel<AssemblyEntity>> getAssembliesBySequenceGenbank(String genbank) {
-        List<AssemblyEntity> assemblies = chromosomeService.getAssembliesByChromosomeGenbank(genbank);
-        assemblies.addAll(scaffoldService.getAssembliesByScaffoldGenbank(genbank));
+        if (!lookupFilter.mightContain(genbank)) {
+            return generatePagedModelFromPage(Page.empty(), assemblyAssembler);
+        }
+        if (aliasIndex.isAvailable()) {
+            List<AssemblyEntity> assemblies = aliasIndex.getAssembliesBySequenceAlias(AliasType.GENBANK, genbank);
+            assemblyService.recordAccess(assemblies);
+            return generatePagedModelFromPage(new PageImpl<>(assemblies), assemblyAssembler);
+        }
+        List<AssemblyEntity> assemblies = sequenceService.getAssembliesBySequenceGenbank(genbank);
+        assemblyService.recordAccess(assemblies);
         return generatePagedModelFromPage(new PageImpl<>(assemblies), assemblyAssembler);
     }
 
     public PagedModel<EntityModel<AssemblyEntity>> getAssembliesBySequenceRefseq(String refseq) {
-        List<AssemblyEntity> assemblies = chromosomeService.getAssembliesByChromosomeRefseq(refseq);
-        assemblies.addAll(scaffoldService.getAssembliesByScaffoldRefseq(refseq));
+        if (!lookupFilter.mightContain(refseq)) {
+            return generatePagedModelFromPage(Page.empty(), assemblyAssembler);
+        }
+        if (aliasIndex.isAvailable()) {
+            List<AssemblyEntity> assemblies = aliasIndex.getAssembliesBySequenceAlias(AliasType.REFSEQ, refseq);
+            assemblyService.recordAccess(assemblies);
+            return generatePagedModelFromPage(new PageImpl<>(assemblies), assemblyAssembler);
+        }
+        List<AssemblyEntity> assemblies = sequenceService.getAssembliesBySequenceRefseq(refseq);
+        assemblyService.recordAccess(assemblies);
         return generatePagedModelFromPage(new PageImpl<>(assemblies), assemblyAssembler);
     }
 
     public PagedModel<EntityModel<SequenceEntity>> getSequencesByGenbank(String genbank, Pageable request) {
-        long count = chromosomeService.countChromosomeEntitiesByGenbank(genbank);
-        List<Pageable>[] pageRequests = createScaffoldsPageRequest(count, request);
-        List<Page<? extends SequenceEntity>> pages = new LinkedList<>();
-        for (Pageable pageable : pageRequests[0]) {
-            pages.add(chromosomeService.getChromosomesByGenbank(genbank, pageable));
+        if (!lookupFilter.mightContain(genbank)) {
+            return generatePagedModelFromPage(Page.empty(), sequenceAssembler);
         }
-        for (Pageable pageable : pageRequests[1]) {
-            pages.add(scaffoldService.getScaffoldsByGenbank(genbank, pageable));
+        if (aliasIndex.isAvailable()) {
+            Page<SequenceEntity> page = aliasIndex.getSequencesByAlias(AliasType.GENBANK, genbank, request);
+            return generatePagedModelFromPage(recordAccess(page), sequenceAssembler);
         }
-        return generatePagedModelFromPage(createSequencePage(pages), sequenceAssembler);
+        return generatePagedModelFromPage(recordAccess(sequenceService.getSequencesByGenbank(genbank, request)),
+                                          sequenceAssembler);
     }
 
     public PagedModel<EntityModel<SequenceEntity>> getSequencesByRefseq(String refseq, Pageable request) {
-        long count = chromosomeService.countChromosomeEntitiesByRefseq(refseq);
-        List<Pageable>[] pageRequests = createScaffoldsPageRequest(count, request);
-        List<Page<? extends SequenceEntity>> pages = new LinkedList<>();
-        for (Pageable pageable : pageRequests[0]) {
-            pages.add(chromosomeService.getChromosomesByRefseq(refseq, pageable));
+        if (!lookupFilter.mightContain(refseq)) {
+            return generatePagedModelFromPage(Page.empty(), sequenceAssembler);
         }
-        for (Pageable pageable : pageRequests[1]) {
-            pages.add(scaffoldService.getScaffoldsByRefseq(refseq, pageable));
+        if (aliasIndex.isAvailable()) {
+            Page<SequenceEntity> page = aliasIndex.getSequencesByAlias(AliasType.REFSEQ, refseq, request);
+            return generatePagedModelFromPage(recordAccess(page), sequenceAssembler);
         }
-        return generatePagedModelFromPage(createSequencePage(pages), sequenceAssembler);
+        return generatePagedModelFromPage(recordAccess(sequenceService.getSequencesByRefseq(refseq, request)),
+                                          sequenceAssembler);
     }
 
     public PagedModel<EntityModel<SequenceEntity>> getSequencesByAssemblyGenbank(String genbank, Pageable request) {
-        long count = chromosomeService.countChromosomeEntitiesByAssembly_Genbank(genbank);
-        List<Pageable>[] pageRequests = createScaffoldsPageRequest(count, request);
-        List<Page<? extends SequenceEntity>> pages = new LinkedList<>();
-        for (Pageable pageable : pageRequests[0]) {
-            pages.add(chromosomeService.getChromosomesByAssemblyGenbank(genbank, pageable));
+        if (!lookupFilter.mightContain(genbank)) {
+            return generatePagedModelFromPage(Page.empty(), sequenceAssembler);
         }
-        for (Pageable pageable : pageRequests[1]) {
-            pages.add(scaffoldService.getScaffoldsByAssemblyGenbank(genbank, pageable));
+        if (aliasIndex.isAvailable()) {
+            Page<SequenceEntity> page = aliasIndex.getSequencesByAssemblyGenbank(genbank, request);
+            return generatePagedModelFromPage(recordAccess(page, genbank), sequenceAssembler);
         }
-        return generatePagedModelFromPage(createSequencePage(pages), sequenceAssembler);
+        return generatePagedModelFromPage(
+                recordAccess(sequenceService.getSequencesByAssemblyGenbank(genbank, request), genbank),
+                sequenceAssembler);
     }
 
     public PagedModel<EntityModel<SequenceEntity>> getSequencesByAssemblyRefseq(String refseq, Pageable request) {
-        long count = chromosomeService.countChromosomeEntitiesByAssembly_Refseq(refseq);
-        List<Pageable>[] pageRequests = createScaffoldsPageRequest(count, request);
-        List<Page<? extends SequenceEntity>> pages = new LinkedList<>();
-        for (Pageable pageable : pageRequests[0]) {
-            pages.add(chromosomeService.getChromosomesByAssemblyRefseq(refseq, pageable));
+        if (!lookupFilter.mightContain(refseq)) {
+            return generatePagedModelFromPage(Page.empty(), sequenceAssembler);
         }
-        for (Pageable pageable : pageRequests[1]) {
-            pages.add(scaffoldService.getScaffoldsByAssemblyRefseq(refseq, pageable));
+        if (aliasIndex.isAvailable()) {
+            Page<SequenceEntity> page = aliasIndex.getSequencesByAssemblyRefseq(refseq, request);
+            return generatePagedModelFromPage(recordAccess(page, refseq), sequenceAssembler);
         }
-        return generatePagedModelFromPage(createSequencePage(pages), sequenceAssembler);
+        return generatePagedModelFromPage(
+                recordAccess(sequenceService.getSequencesByAssemblyRefseq(refseq, request), refseq),
+                sequenceAssembler);
     }
 
     public PagedModel<EntityModel<SequenceEntity>> getSequencesByAssemblyAccession(String accession,
                                                                                    Pageable request) {
-        long count = chromosomeService.countChromosomeEntitiesByAssemblyGenbankOrAssemblyRefseq(accession, accession);
-        List<Pageable>[] pageRequests = createScaffoldsPageRequest(count, request);
-        List<Page<? extends SequenceEntity>> pages = new LinkedList<>();
-        for (Pageable pageable : pageRequests[0]) {
-            pages.add(chromosomeService.getChromosomesByAssemblyAccession(accession, pageable));
+        if (!lookupFilter.mightContain(accession)) {
+            return generatePagedModelFromPage(Page.empty(), sequenceAssembler);
         }
-        for (Pageable pageable : pageRequests[1]) {
-            pages.add(scaffoldService.getScaffoldsByAssemblyAccession(accession, pageable));
+        if (aliasIndex.isAvailable()) {
+            Page<SequenceEntity> page = aliasIndex.getSequencesByAssemblyAccession(accession, request);
+            return generatePagedModelFromPage(recordAccess(page, accession), sequenceAssembler);
         }
-        return generatePagedModelFromPage(createSequencePage(pages), sequenceAssembler);
+        return generatePagedModelFromPage(
+                recordAccess(sequenceService.getSequencesByAssemblyAccession(accession, request), accession),
+                sequenceAssembler);
     }
 
     public PagedModel<EntityModel<SequenceEntity>> getSequencesBySequenceNameAndAssemblyTaxid(
             String name, long taxid, String nameType, Pageable request) {
-        List<Page<? extends SequenceEntity>> pages = new LinkedList<>();
-        if (nameType.equals(ContigAliasController.NAME_UCSC_TYPE)) {
-            long count = chromosomeService.countChromosomeEntitiesByUcscNameAndAssembly_Taxid(name, taxid);
-            List<Pageable>[] pageRequests = createScaffoldsPageRequest(count, request);
-            for (Pageable pageable : pageRequests[0]) {
-                pages.add(chromosomeService.getChromosomesByUcscNameAndAssemblyTaxid(name, taxid, pageable));
-            }
-            for (Pageable pageable : pageRequests[1]) {
-                pages.add(scaffoldService.getScaffoldsByUcscNameAndAssemblyTaxid(name, taxid, pageable));
-            }
-        } else if (nameType.equals(ContigAliasController.NAME_ENA_TYPE)) {
-            long count = chromosomeService.countChromosomeEntitiesByEnaNameAndAssembly_Taxid(name, taxid);
-            List<Pageable>[] pageRequests = createScaffoldsPageRequest(count, request);
-            for (Pageable pageable : pageRequests[0]) {
-                pages.add(chromosomeService.getChromosomesByEnaNameAndAssemblyTaxid(name, taxid, pageable));
-            }
-            for (Pageable pageable : pageRequests[1]) {
-                pages.add(scaffoldService.getScaffoldsByEnaNameAndAssemblyTaxid(name, taxid, pageable));
-            }
-        } else {
-            long count = chromosomeService.countChromosomeEntitiesByNameAndAssembly_Taxid(name, taxid);
-            List<Pageable>[] pageRequests = createScaffoldsPageRequest(count, request);
-            for (Pageable pageable : pageRequests[0]) {
-                pages.add(chromosomeService.getChromosomesByNameAndAssemblyTaxid(name, taxid, pageable));
-            }
-            for (Pageable pageable : pageRequests[1]) {
-                pages.add(scaffoldService.getScaffoldsByNameAndAssemblyTaxid(name, taxid, pageable));
-            }
+        if (!lookupFilter.mightContain(name)) {
+            return generatePagedModelFromPage(Page.empty(), sequenceAssembler);
         }
-        return generatePagedModelFromPage(createSequencePage(pages), sequenceAssembler);
+        AliasType type = toAliasType(nameType);
+        if (aliasIndex.isAvailable() && type != null) {
+            return generatePagedModelFromPage(
+                    recordAccess(aliasIndex.getSequencesByAliasAndAssemblyTaxid(type, name, taxid, request)),
+                    sequenceAssembler);
+        }
+        return generatePagedModelFromPage(
+                recordAccess(sequenceService.getSequencesByNameAndAssemblyTaxid(name, type, taxid, request)),
+                sequenceAssembler);
     }
 
     public PagedModel<EntityModel<SequenceEntity>> getSequencesBySequenceNameAndAssemblyAccession(
             String name, String accession, String nameType, Pageable request) {
-        List<Page<? extends SequenceEntity>> pages = new LinkedList<>();
-        Optional<AssemblyEntity> assembly = assemblyService.getAssemblyByAccession(accession);
-        if (assembly.isPresent()) {
-            AssemblyEntity assemblyEntity = assembly.get();
-            if (nameType.equals(ContigAliasController.NAME_UCSC_TYPE)) {
-                long count = chromosomeService.countChromosomeEntitiesByUcscNameAndAssembly(name, assemblyEntity);
-                List<Pageable>[] pageRequests = createScaffoldsPageRequest(count, request);
-                for (Pageable pageable : pageRequests[0]) {
-                    pages.add(chromosomeService.getChromosomesByUcscNameAndAssembly(name, assemblyEntity, pageable));
-                }
-                for (Pageable pageable : pageRequests[1]) {
-                    pages.add(scaffoldService.getScaffoldsByUcscNameAndAssembly(name, assemblyEntity, pageable));
-                }
-            } else if (nameType.equals(ContigAliasController.NAME_ENA_TYPE)) {
-                long count = chromosomeService.countChromosomeEntitiesByEnaNameAndAssembly(name, assemblyEntity);
-                List<Pageable>[] pageRequests = createScaffoldsPageRequest(count, request);
-                for (Pageable pageable : pageRequests[0]) {
-                    pages.add(chromosomeService.getChromosomesByEnaNameAndAssembly(name, assemblyEntity, pageable));
-                }
-                for (Pageable pageable : pageRequests[1]) {
-                    pages.add(scaffoldService.getScaffoldsByEnaNameAndAssembly(name, assemblyEntity, pageable));
-                }
-            } else {
-                long count = chromosomeService.countChromosomeEntitiesByNameAndAssembly(name, assemblyEntity);
-                List<Pageable>[] pageRequests = createScaffoldsPageRequest(count, request);
-                for (Pageable pageable : pageRequests[0]) {
-                    pages.add(chromosomeService.getChromosomesByNameAndAssembly(name, assemblyEntity, pageable));
-                }
-                for (Pageable pageable : pageRequests[1]) {
-                    pages.add(scaffoldService.getScaffoldsByNameAndAssembly(name, assemblyEntity, pageable));
-                }
-            }
-        }
-        return generatePagedModelFromPage(createSequencePage(pages), sequenceAssembler);
+        if (!lookupFilter.mightContain(name) || !lookupFilter.mightContain(accession)) {
+            return generatePagedModelFromPage(Page.empty(), sequenceAssembler);
+        }
+        AliasType type = toAliasType(nameType);
+        if (aliasIndex.isAvailable() && type != null) {
+            return generatePagedModelFromPage(
+                    recordAccess(aliasIndex.getSequencesByAliasAndAssemblyAccession(type, name, accession, request),
+                                 accession), sequenceAssembler);
+        }
+        return generatePagedModelFromPage(
+                recordAccess(sequenceService.getSequencesByNameAndAssemblyAccession(name, type, accession, request),
+                             accession), sequenceAssembler);
     }
 
     public PagedModel<EntityModel<SequenceEntity>> getSequencesByName(
             String name, String nameType, Pageable request) {
-        List<Page<? extends SequenceEntity>> pages = new LinkedList<>();
-        if (nameType.equals(ContigAliasController.NAME_UCSC_TYPE)) {
-            long count = chromosomeService.countChromosomeEntitiesByUcscName(name);
-            List<Pageable>[] pageRequests = createScaffoldsPageRequest(count, request);
-            for (Pageable pageable : pageRequests[0]) {
-                pages.add(chromosomeService.getChromosomesByUcscName(name, pageable));
-            }
-            for (Pageable pageable : pageRequests[1]) {
-                pages.add(scaffoldService.getScaffoldsByUcscName(name, pageable));
-            }
+        if (!lookupFilter.mightContain(name)) {
+            return generatePagedModelFromPage(Page.empty(), sequenceAssembler);
+        }
+        AliasType type = toAliasType(nameType);
+        if (aliasIndex.isAvailable() && type != null) {
+            return generatePagedModelFromPage(recordAccess(aliasIndex.getSequencesByAlias(type, name, request)),
+                                              sequenceAssembler);
+        }
+        return generatePagedModelFromPage(recordAccess(sequenceService.getSequencesByName(name, type, request)),
+                                          sequenceAssembler);
+    }
+
+    public PagedModel<EntityModel<SequenceEntity>> getSequencesByAssemblyGenbank(
+            String genbank, SequenceCursor after, int size) {
+        if (!lookupFilter.mightContain(genbank)) {
+            return generatePagedModelFromSlice(EMPTY_SLICE);
+        }
+        return generatePagedModelFromSlice(
+                recordAccess(sequenceService.getSequencesByAssemblyGenbank(genbank, after, size), genbank));
+    }
+
+    public PagedModel<EntityModel<SequenceEntity>> getSequencesByAssemblyRefseq(
+            String refseq, SequenceCursor after, int size) {
+        if (!lookupFilter.mightContain(refseq)) {
+            return generatePagedModelFromSlice(EMPTY_SLICE);
+        }
+        return generatePagedModelFromSlice(
+                recordAccess(sequenceService.getSequencesByAssemblyRefseq(refseq, after, size), refseq));
+    }
+
+    public PagedModel<EntityModel<SequenceEntity>> getSequencesByAssemblyAccession(
+            String accession, SequenceCursor after, int size) {
+        if (!lookupFilter.mightContain(accession)) {
+            return generatePagedModelFromSlice(EMPTY_SLICE);
+        }
+        return generatePagedModelFromSlice(
+                recordAccess(sequenceService.getSequencesByAssemblyAccession(accession, after, size), accession));
+    }
+
+    public PagedModel<EntityModel<SequenceEntity>> getSequencesBySequenceNameAndAssemblyTaxid(
+            String name, long taxid, String nameType, SequenceCursor after, int size) {
+        if (!lookupFilter.mightContain(name)) {
+            return generatePagedModelFromSlice(EMPTY_SLICE);
+        }
+        return generatePagedModelFromSlice(recordAccess(
+                sequenceService.getSequencesByNameAndAssemblyTaxid(name, toAliasType(nameType), taxid, after, size)));
+    }
+
+    public PagedModel<EntityModel<SequenceEntity>> getSequencesBySequenceNameAndAssemblyAccession(
+            String name, String accession, String nameType, SequenceCursor after, int size) {
+        if (!lookupFilter.mightContain(name) || !lookupFilter.mightContain(accession)) {
+            return generatePagedModelFromSlice(EMPTY_SLICE);
+        }
+        return generatePagedModelFromSlice(recordAccess(sequenceService.getSequencesByNameAndAssemblyAccession(
+                name, toAliasType(nameType), accession, after, size), accession));
+    }
+
+    public PagedModel<EntityModel<SequenceEntity>> getSequencesByName(
+            String name, String nameType, SequenceCursor after, int size) {
+        if (!lookupFilter.mightContain(name)) {
+            return generatePagedModelFromSlice(EMPTY_SLICE);
+        }
+        return generatePagedModelFromSlice(
+                recordAccess(sequenceService.getSequencesByName(name, toAliasType(nameType), after, size)));
+    }
+
+    /**
+     * @return True if sequences can be searched by name prefix, which is only supported by the in-memory
+     * {@link SequenceAliasIndex}.
+     */
+    public boolean isSequenceNamePrefixSearchAvailable() {
+        return aliasIndex.isAvailable();
+    }
+
+    public PagedModel<EntityModel<SequenceEntity>> getSequencesByNamePrefix(String prefix, Pageable request) {
+        return generatePagedModelFromPage(recordAccess(aliasIndex.getSequencesByNamePrefix(prefix, request)),
+                                          sequenceAssembler);
+    }
+
+    public PagedModel<EntityModel<SequenceEntity>> getSequencesByNamePrefixAndAssemblyTaxid(
+            String prefix, long taxid, Pageable request) {
+        return generatePagedModelFromPage(
+                recordAccess(aliasIndex.getSequencesByNamePrefixAndAssemblyTaxid(prefix, taxid, request)),
+                sequenceAssembler);
+    }
+
+    public PagedModel<EntityModel<SequenceEntity>> getSequencesByNamePrefixAndAssemblyAccession(
+            String prefix, String accession, Pageable request) {
+        if (!lookupFilter.mightContain(accession)) {
+            return generatePagedModelFromPage(Page.empty(), sequenceAssembler);
+        }
+        return generatePagedModelFromPage(
+                recordAccess(aliasIndex.getSequencesByNamePrefixAndAssemblyAccession(prefix, accession, request),
+                             accession), sequenceAssembler);
+    }
+
+    /**
+     * @return Type of the names to look up, or null to look up names of any type. The in-memory
+     * {@link SequenceAliasIndex} only looks up names of a given type, so names of any type are always looked up in
+     * the database.
+     */
+    private static AliasType toAliasType(String nameType) {
+        if (nameType.equals(ContigAliasController.NAME_ANY_TYPE)) {
+            return null;
+        } else if (nameType.equals(ContigAliasController.NAME_UCSC_TYPE)) {
+            return AliasType.UCSC_NAME;
         } else if (nameType.equals(ContigAliasController.NAME_ENA_TYPE)) {
-            long count = chromosomeService.countChromosomeEntitiesByEnaName(name);
-            List<Pageable>[] pageRequests = createScaffoldsPageRequest(count, request);
-            for (Pageable pageable : pageRequests[0]) {
-                pages.add(chromosomeService.getChromosomesByEnaName(name, pageable));
-            }
-            for (Pageable pageable : pageRequests[1]) {
-                pages.add(scaffoldService.getScaffoldsByEnaName(name, pageable));
-            }
-        } else {
-            long count = chromosomeService.countChromosomeEntitiesByName(name);
-            List<Pageable>[] pageRequests = createScaffoldsPageRequest(count, request);
-            for (Pageable pageable : pageRequests[0]) {
-                pages.add(chromosomeService.getChromosomesByName(name, pageable));
-            }
-            for (Pageable pageable : pageRequests[1]) {
-                pages.add(scaffoldService.getScaffoldsByName(name, pageable));
-            }
-        }
-        return generatePagedModelFromPage(createSequencePage(pages), sequenceAssembler);
-    }
-
-    private Page<SequenceEntity> createSequencePage(List<Page<? extends SequenceEntity>> pages) {
-        List<SequenceEntity> sequenceEntities = new LinkedList<>();
-        if (pages != null && pages.size() > 0) {
-            for (Page<? extends SequenceEntity> page : pages) {
-                if (page != null) {
-                    sequenceEntities.addAll(page.toList());
-                }
-            }
-        }
-        return new PageImpl<>(sequenceEntities);
-    }
-
-    List<Pageable>[] createScaffoldsPageRequest(long totalChromosomes, Pageable request) {
-        List<Pageable>[] result = new List[2];
-        result[0] = new LinkedList<>();
-        result[1] = new LinkedList<>();
-
-        int currentPageSize = request.getPageSize(); // 10
-        long maxFilledPageSize = request.getOffset() + currentPageSize; //30
-
-        if (maxFilledPageSize > totalChromosomes/*27*/) {
-
-            int totalChrPages = (int) ((totalChromosomes / currentPageSize) + 1); // 3
-            int maxFilledChrPageSize = (totalChrPages) * currentPageSize; //30
-            int chrResultOffset = (int) (totalChromosomes % currentPageSize); // 7
-            int secondPageOffset = currentPageSize - chrResultOffset;
-
-            if (maxFilledPageSize <= maxFilledChrPageSize) {
-                if (chrResultOffset != 0) {
-                    result[0].add(PageRequest.of(request.getPageNumber(), chrResultOffset));
-                }
-                result[1].add(PageRequest.of(0, secondPageOffset));
-            } else {
-                int scaffoldPageNumber = (int) ((maxFilledPageSize - maxFilledChrPageSize) / currentPageSize);
-                result[1].add(PageRequest.of(scaffoldPageNumber - 1, chrResultOffset));
-                result[1].add(PageRequest.of(scaffoldPageNumber, secondPageOffset));
-            }
+            return AliasType.ENA_SEQUENCE_NAME;
         } else {
-            result[0].add(request);
+            return AliasType.GENBANK_SEQUENCE_NAME;
+        }
+    }
+
+    /**
+     * Records a read of the assemblies of the sequences found, so that assemblies only looked up through their
+     * sequences are not evicted as unused.
+     */
+    private Page<SequenceEntity> recordAccess(Page<SequenceEntity> page) {
+        assemblyService.recordAccessBySequences(page.getContent());
+        return page;
+    }
+
+    /**
+     * Sequences looked up within an assembly are not returned with it, so the assembly is recorded by its accession.
+     */
+    private Page<SequenceEntity> recordAccess(Page<SequenceEntity> page, String assemblyAccession) {
+        if (page.hasContent()) {
+            assemblyService.recordAccessByAccession(assemblyAccession);
+        }
+        return recordAccess(page);
+    }
+
+    private SequenceSlice recordAccess(SequenceSlice slice) {
+        assemblyService.recordAccessBySequences(slice.getContent());
+        return slice;
+    }
+
+    private SequenceSlice recordAccess(SequenceSlice slice, String assemblyAccession) {
+        if (!slice.getContent().isEmpty()) {
+            assemblyService.recordAccessByAccession(assemblyAccession);
         }
-        return result;
+        return recordAccess(slice);
+    }
+
+    /**
+     * Slices have no page metadata since their total is never counted. Instead, unless the slice is the last one, the
+     * model links to the next slice by setting the cursor of the current request.
+     */
+    private static PagedModel<EntityModel<SequenceEntity>> generatePagedModelFromSlice(SequenceSlice slice) {
+        PagedModel<EntityModel<SequenceEntity>> pagedModel = PagedModel.wrap(slice.getContent(), null);
+        ServletUriComponentsBuilder uri = ServletUriComponentsBuilder.fromCurrentRequest();
+        pagedModel.add(new Link(uri.toUriString(), IanaLinkRelations.SELF));
+        slice.getNext().ifPresent(next -> pagedModel.add(
+                new Link(uri.replaceQueryParam(PARAM_CURSOR, next.toToken()).toUriString(), IanaLinkRelations.NEXT)));
+        return pagedModel;
     }
 
 }
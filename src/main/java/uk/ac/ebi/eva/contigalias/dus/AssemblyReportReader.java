@@ -34,6 +34,11 @@ public abstract class AssemblyReportReader {
 
     protected boolean reportParsed = false;
 
+    /**
+     * Pool of the values stored in the parsed entities, shared by every line of the report.
+     */
+    protected final StringPool stringPool = new StringPool();
+
     public AssemblyReportReader(InputStreamReader inputStreamReader, boolean isScaffoldsEnabled) {
         this.reader = new BufferedReader(inputStreamReader);
         this.isScaffoldsEnabled = isScaffoldsEnabled;
@@ -22,7 +22,7 @@ import uk.ac.ebi.eva.contigalias.entities.ScaffoldEntity;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 public class ENAAssemblyReportReader extends AssemblyReportReader {
@@ -64,8 +64,8 @@ public class ENAAssemblyReportReader extends AssemblyReportReader {
     protected void parseChromosomeLine(String[] columns) {
         ChromosomeEntity chromosomeEntity = new ChromosomeEntity();
 
-        chromosomeEntity.setGenbank(columns[0]);
-        chromosomeEntity.setEnaSequenceName(columns[1]);
+        chromosomeEntity.setGenbank(stringPool.get(columns[0]));
+        chromosomeEntity.setEnaSequenceName(stringPool.get(columns[1]));
 
         if (assemblyEntity == null) {
             assemblyEntity = new AssemblyEntity();
@@ -74,7 +74,7 @@ public class ENAAssemblyReportReader extends AssemblyReportReader {
 
         List<ChromosomeEntity> chromosomes = this.assemblyEntity.getChromosomes();
         if (chromosomes == null) {
-            chromosomes = new LinkedList<>();
+            chromosomes = new ArrayList<>();
             assemblyEntity.setChromosomes(chromosomes);
         }
         chromosomes.add(chromosomeEntity);
@@ -83,8 +83,8 @@ public class ENAAssemblyReportReader extends AssemblyReportReader {
     protected void parseScaffoldLine(String[] columns) {
         ScaffoldEntity scaffoldEntity = new ScaffoldEntity();
 
-        scaffoldEntity.setGenbank(columns[0]);
-        scaffoldEntity.setEnaSequenceName(columns[1]);
+        scaffoldEntity.setGenbank(stringPool.get(columns[0]));
+        scaffoldEntity.setEnaSequenceName(stringPool.get(columns[1]));
 
         if (assemblyEntity == null) {
             assemblyEntity = new AssemblyEntity();
@@ -93,7 +93,7 @@ public class ENAAssemblyReportReader extends AssemblyReportReader {
 
         List<ScaffoldEntity> scaffolds = this.assemblyEntity.getScaffolds();
         if (scaffolds == null) {
-            scaffolds = new LinkedList<>();
+            scaffolds = new ArrayList<>();
             assemblyEntity.setScaffolds(scaffolds);
         }
         scaffolds.add(scaffoldEntity);
@@ -22,7 +22,7 @@ import uk.ac.ebi.eva.contigalias.entities.ScaffoldEntity;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 public class NCBIAssemblyReportReader extends AssemblyReportReader {
@@ -96,12 +96,12 @@ public class NCBIAssemblyReportReader extends AssemblyReportReader {
     protected void parseChromosomeLine(String[] columns) {
         ChromosomeEntity chromosomeEntity = new ChromosomeEntity();
 
-        chromosomeEntity.setGenbankSequenceName(columns[0]);
-        chromosomeEntity.setGenbank(columns[4]);
-        chromosomeEntity.setRefseq(columns[6]);
+        chromosomeEntity.setGenbankSequenceName(stringPool.get(columns[0]));
+        chromosomeEntity.setGenbank(stringPool.get(columns[4]));
+        chromosomeEntity.setRefseq(stringPool.get(columns[6]));
 
         if (columns.length > 9 && !columns[9].equals("na")) {
-            chromosomeEntity.setUcscName(columns[9]);
+            chromosomeEntity.setUcscName(stringPool.get(columns[9]));
         }
 
         if (assemblyEntity == null) {
@@ -111,7 +111,7 @@ public class NCBIAssemblyReportReader extends AssemblyReportReader {
 
         List<ChromosomeEntity> chromosomes = this.assemblyEntity.getChromosomes();
         if (chromosomes == null) {
-            chromosomes = new LinkedList<>();
+            chromosomes = new ArrayList<>();
             assemblyEntity.setChromosomes(chromosomes);
         }
         chromosomes.add(chromosomeEntity);
@@ -120,14 +120,14 @@ public class NCBIAssemblyReportReader extends AssemblyReportReader {
     protected void parseScaffoldLine(String[] columns) {
         ScaffoldEntity scaffoldEntity = new ScaffoldEntity();
 
-        scaffoldEntity.setGenbankSequenceName(columns[0]);
-        scaffoldEntity.setGenbank(columns[4]);
-        scaffoldEntity.setRefseq(columns[6]);
+        scaffoldEntity.setGenbankSequenceName(stringPool.get(columns[0]));
+        scaffoldEntity.setGenbank(stringPool.get(columns[4]));
+        scaffoldEntity.setRefseq(stringPool.get(columns[6]));
 
         if (columns.length >= 10) {
             String ucscName = columns[9];
             if (!ucscName.equals("na")) {
-                scaffoldEntity.setUcscName(ucscName);
+                scaffoldEntity.setUcscName(stringPool.get(ucscName));
             }
         }
 
@@ -138,7 +138,7 @@ public class NCBIAssemblyReportReader extends AssemblyReportReader {
 
         List<ScaffoldEntity> scaffolds = this.assemblyEntity.getScaffolds();
         if (scaffolds == null) {
-            scaffolds = new LinkedList<>();
+            scaffolds = new ArrayList<>();
             assemblyEntity.setScaffolds(scaffolds);
         }
         scaffolds.add(scaffoldEntity);
@@ -18,6 +18,8 @@ package uk.ac.ebi.eva.contigalias.dus;
 
 import org.apache.commons.net.ftp.FTPFile;
 
+import uk.ac.ebi.eva.contigalias.accession.Accession;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.InetSocketAddress;
@@ -60,37 +62,27 @@ public class NCBIBrowser extends PassiveAnonymousFTPClient {
      */
     public Optional<String> getGenomeReportDirectory(String accession) throws IOException, IllegalArgumentException {
 
-        if (accession.length() < 15) {
-            throw new IllegalArgumentException("Accession should be at least 15 characters long!");
-        }
-
         //GCA_004051055.1
-        String rawQuery = accession;
-        String path = "";
-
-        // path = "GCA/"
-        path += accession.substring(0, 3) + "/";
-        // accession = "004051055.1"
-        accession = accession.substring(4);
-
-        // path = "GCA/004/"
-        path += accession.substring(0, 3) + "/";
-        // accession = "051055.1"
-        accession = accession.substring(3);
-
-        // path = "GCA/004/051/"
-        path += accession.substring(0, 3) + "/";
-        // accession = "055.1"
-        accession = accession.substring(3);
+        Accession parsed = Accession.parse(accession);
+        if (!parsed.isAssembly() || !parsed.hasVersion()) {
+            throw new IllegalArgumentException(
+                    "Accession should be a versioned GCA or GCF accession with a 9 digit number!");
+        }
 
         // path = "GCA/004/051/055/"
-        path += accession.substring(0, 3) + "/";
+        long number = parsed.getNumber();
+        String path = String.format("%s/%03d/%03d/%03d/", parsed.getPrefix(), number / 1000000, number / 1000 % 1000,
+                                    number % 1000);
 
         String currPath = PATH_GENOMES_ALL + path;
         FTPFile[] ftpFiles = super.listDirectories(currPath);
 
         if (ftpFiles.length > 0) {
-            Optional<FTPFile> dir = Arrays.stream(ftpFiles).filter(it -> it.getName().contains(rawQuery)).findFirst();
+            // Directories are named after the accession and the assembly name, "GCA_004051055.1" being a prefix of
+            // "GCA_004051055.10_..." as well
+            String directoryPrefix = accession + "_";
+            Optional<FTPFile> dir = Arrays.stream(ftpFiles).filter(it -> it.getName().startsWith(directoryPrefix))
+                                          .findFirst();
             if (dir.isPresent()) {
                 // path = "GCA/004/051/055/GCA_004051055.1_ASM405105v1/"
                 path += dir.get().getName() + "/";
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.dus;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Deduplicates the strings parsed from an assembly report, so that equal values such as a sequence name identical to
+ * its accession, or the same assigned molecule repeated on every line, are stored once. A pool only lives as long as
+ * the report reader using it.
+ */
+class StringPool {
+
+    private final Map<String, String> pool = new HashMap<>();
+
+    /**
+     * @return The pooled instance equal to the given value, or the value itself if none was pooled before.
+     */
+    String get(String value) {
+        if (value == null) {
+            return null;
+        }
+        String pooled = pool.putIfAbsent(value, value);
+        return pooled == null ? value : pooled;
+    }
+
+    int size() {
+        return pool.size();
+    }
+
+}
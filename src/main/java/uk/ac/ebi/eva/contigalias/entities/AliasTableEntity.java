@@ -0,0 +1,110 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.entities;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * Gzip compressed tab separated table of the accessions, names and checksums of every chromosome and scaffold of an
+ * assembly, precomputed so that clients can download the whole mapping of an assembly in a single request.
+ */
+@Entity
+@Table(name = "assembly_alias_table", indexes = {
+        @Index(name = "assembly_alias_table_genbank_idx", columnList = "genbank"),
+        @Index(name = "assembly_alias_table_refseq_idx", columnList = "refseq")})
+public class AliasTableEntity {
+
+    @Id
+    @Column(nullable = false)
+    private long assemblyId;
+
+    private String genbank;
+
+    private String refseq;
+
+    private String etag;
+
+    private int sequenceCount;
+
+    @Column(nullable = false, columnDefinition = "bytea")
+    private byte[] content;
+
+    public long getAssemblyId() {
+        return assemblyId;
+    }
+
+    public AliasTableEntity setAssemblyId(long assemblyId) {
+        this.assemblyId = assemblyId;
+        return this;
+    }
+
+    public String getGenbank() {
+        return genbank;
+    }
+
+    public AliasTableEntity setGenbank(String genbank) {
+        this.genbank = genbank;
+        return this;
+    }
+
+    public String getRefseq() {
+        return refseq;
+    }
+
+    public AliasTableEntity setRefseq(String refseq) {
+        this.refseq = refseq;
+        return this;
+    }
+
+    /**
+     * @return Strong entity tag, including the surrounding quotes, derived from the uncompressed content.
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    public AliasTableEntity setEtag(String etag) {
+        this.etag = etag;
+        return this;
+    }
+
+    public int getSequenceCount() {
+        return sequenceCount;
+    }
+
+    public AliasTableEntity setSequenceCount(int sequenceCount) {
+        this.sequenceCount = sequenceCount;
+        return this;
+    }
+
+    /**
+     * @return Gzip compressed content of the table.
+     */
+    public byte[] getContent() {
+        return content;
+    }
+
+    public AliasTableEntity setContent(byte[] content) {
+        this.content = content;
+        return this;
+    }
+
+}
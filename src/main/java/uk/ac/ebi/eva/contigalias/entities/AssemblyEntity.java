@@ -19,26 +19,45 @@ package uk.ac.ebi.eva.contigalias.entities;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.annotations.ApiModelProperty;
-import org.hibernate.annotations.LazyCollection;
-import org.hibernate.annotations.LazyCollectionOption;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
 import java.util.List;
 
 @Entity
-@Table(name = "assembly")
+@Table(name = "assembly", uniqueConstraints = {
+        @UniqueConstraint(name = AssemblyEntity.GENBANK_CONSTRAINT, columnNames = "genbank"),
+        @UniqueConstraint(name = AssemblyEntity.REFSEQ_CONSTRAINT, columnNames = "refseq")}, indexes = {
+        @Index(name = "assembly_taxid_idx", columnList = "taxid, id")})
 public class AssemblyEntity {
 
+    /**
+     * Names of the unique constraints on the accessions, which also index them. An assembly whose insertion violates
+     * either of them is already present.
+     */
+    public static final String GENBANK_CONSTRAINT = "assembly_genbank_key";
+
+    public static final String REFSEQ_CONSTRAINT = "assembly_refseq_key";
+
+    /**
+     * Allocated in blocks from the same database sequence as chromosome and scaffold ids, see {@link SequenceEntity}.
+     */
     @JsonIgnore
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "assembly_id")
+    @GenericGenerator(name = "assembly_id", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+            parameters = {@Parameter(name = "sequence_name", value = "hibernate_sequence"),
+                    @Parameter(name = "increment_size", value = "50"),
+                    @Parameter(name = "optimizer", value = "hilo")})
     @Column(nullable = false)
     @ApiModelProperty(value = "Autogenerated Primary Key.")
     private long id;
@@ -67,21 +86,46 @@ public class AssemblyEntity {
     @ApiModelProperty(value = "Assembly's TRUNC512 checksum value.")
     private String trunc512checksum;
 
+    /**
+     * Numbers of chromosomes and scaffolds of the assembly, kept up to date when sequences are inserted and deleted so
+     * that pages of sequences are counted without reading them. They are null until counted.
+     */
+    @JsonIgnore
+    private Integer chromosomeCount;
+
+    @JsonIgnore
+    private Integer scaffoldCount;
+
     @JsonInclude(JsonInclude.Include.NON_NULL)
     @ApiModelProperty(value = "List of all chromosomes of the assembly present in the database.")
-    @LazyCollection(LazyCollectionOption.FALSE)
     @OneToMany(mappedBy = "assembly", cascade = CascadeType.ALL)
     private List<ChromosomeEntity> chromosomes;
 
     @JsonIgnore
     @ApiModelProperty(value = "List of all scaffolds of the assembly present in the database.")
-    @LazyCollection(LazyCollectionOption.FALSE)
     @OneToMany(mappedBy = "assembly", cascade = CascadeType.ALL)
     private List<ScaffoldEntity> scaffolds;
 
     public AssemblyEntity() {
     }
 
+    /**
+     * Creates a detached assembly without any chromosomes or scaffolds. Used by projection queries, which select the
+     * columns of an assembly instead of loading it into the persistence context.
+     */
+    public AssemblyEntity(long id, String name, String organism, Long taxid, String genbank, String refseq,
+                          boolean isGenbankRefseqIdentical, String md5checksum, String trunc512checksum) {
+        this.id = id;
+        this.name = name;
+        this.organism = organism;
+        this.taxid = taxid;
+        this.genbank = genbank;
+        this.refseq = refseq;
+        this.isGenbankRefseqIdentical = isGenbankRefseqIdentical;
+        this.md5checksum = md5checksum;
+        this.trunc512checksum = trunc512checksum;
+    }
+
     public long getId() {
         return id;
     }
@@ -158,6 +202,24 @@ public class AssemblyEntity {
         return this;
     }
 
+    public Integer getChromosomeCount() {
+        return chromosomeCount;
+    }
+
+    public AssemblyEntity setChromosomeCount(Integer chromosomeCount) {
+        this.chromosomeCount = chromosomeCount;
+        return this;
+    }
+
+    public Integer getScaffoldCount() {
+        return scaffoldCount;
+    }
+
+    public AssemblyEntity setScaffoldCount(Integer scaffoldCount) {
+        this.scaffoldCount = scaffoldCount;
+        return this;
+    }
+
     public List<ChromosomeEntity> getChromosomes() {
         return chromosomes;
     }
@@ -17,11 +17,25 @@
 package uk.ac.ebi.eva.contigalias.entities;
 
 import javax.persistence.Entity;
+import javax.persistence.Index;
 import javax.persistence.Table;
 
-
+/**
+ * Indexes match the finders of the repositories: accessions alone, names together with the assembly or the taxonomic ID
+ * they are looked up in, and the assembly with the id so that the sequences of an assembly are read in id order.
+ */
 @Entity
-@Table(name = "chromosome")
+@Table(name = "chromosome", indexes = {
+        @Index(name = "chromosome_genbank_idx", columnList = "genbank"),
+        @Index(name = "chromosome_refseq_idx", columnList = "refseq"),
+        @Index(name = "chromosome_assembly_id_idx", columnList = "assembly_id, id"),
+        @Index(name = "chromosome_taxid_assembly_id_idx", columnList = "taxid, assembly_id"),
+        @Index(name = "chromosome_genbank_sequence_name_idx", columnList = "genbankSequenceName, assembly_id"),
+        @Index(name = "chromosome_ucsc_name_idx", columnList = "ucscName, assembly_id"),
+        @Index(name = "chromosome_ena_sequence_name_idx", columnList = "enaSequenceName, assembly_id"),
+        @Index(name = "chromosome_genbank_sequence_name_taxid_idx", columnList = "genbankSequenceName, taxid, id"),
+        @Index(name = "chromosome_ucsc_name_taxid_idx", columnList = "ucscName, taxid, id"),
+        @Index(name = "chromosome_ena_sequence_name_taxid_idx", columnList = "enaSequenceName, taxid, id")})
 public class ChromosomeEntity extends SequenceEntity {
 
     public ChromosomeEntity() {
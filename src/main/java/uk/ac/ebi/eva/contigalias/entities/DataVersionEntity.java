@@ -0,0 +1,59 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.entities;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Single row counting the changes made to the assembly data by any node, so that each node can tell when the data it
+ * holds in memory was changed by another one.
+ */
+@Entity
+@Table(name = "data_version")
+public class DataVersionEntity {
+
+    public static final int ID = 1;
+
+    @Id
+    @Column(nullable = false)
+    private int id;
+
+    @Column(nullable = false)
+    private long version;
+
+    public int getId() {
+        return id;
+    }
+
+    public DataVersionEntity setId(int id) {
+        this.id = id;
+        return this;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public DataVersionEntity setVersion(long version) {
+        this.version = version;
+        return this;
+    }
+
+}
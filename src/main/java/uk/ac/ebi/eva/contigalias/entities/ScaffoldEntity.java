@@ -17,10 +17,25 @@
 package uk.ac.ebi.eva.contigalias.entities;
 
 import javax.persistence.Entity;
+import javax.persistence.Index;
 import javax.persistence.Table;
 
+/**
+ * Indexes match the finders of the repositories: accessions alone, names together with the assembly or the taxonomic ID
+ * they are looked up in, and the assembly with the id so that the sequences of an assembly are read in id order.
+ */
 @Entity
-@Table(name = "scaffold")
+@Table(name = "scaffold", indexes = {
+        @Index(name = "scaffold_genbank_idx", columnList = "genbank"),
+        @Index(name = "scaffold_refseq_idx", columnList = "refseq"),
+        @Index(name = "scaffold_assembly_id_idx", columnList = "assembly_id, id"),
+        @Index(name = "scaffold_taxid_assembly_id_idx", columnList = "taxid, assembly_id"),
+        @Index(name = "scaffold_genbank_sequence_name_idx", columnList = "genbankSequenceName, assembly_id"),
+        @Index(name = "scaffold_ucsc_name_idx", columnList = "ucscName, assembly_id"),
+        @Index(name = "scaffold_ena_sequence_name_idx", columnList = "enaSequenceName, assembly_id"),
+        @Index(name = "scaffold_genbank_sequence_name_taxid_idx", columnList = "genbankSequenceName, taxid, id"),
+        @Index(name = "scaffold_ucsc_name_taxid_idx", columnList = "ucscName, taxid, id"),
+        @Index(name = "scaffold_ena_sequence_name_taxid_idx", columnList = "enaSequenceName, taxid, id")})
 public class ScaffoldEntity extends SequenceEntity {
 
     public ScaffoldEntity() {
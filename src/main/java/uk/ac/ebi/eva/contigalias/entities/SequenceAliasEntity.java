@@ -0,0 +1,128 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.entities;
+
+import uk.ac.ebi.eva.contigalias.index.AliasType;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * One name of a chromosome or scaffold, along with the assembly it belongs to and the taxonomic ID of that assembly.
+ * Every name of every sequence is stored in this single table, so that a sequence is found by any of its names, with or
+ * without a type, a taxonomic ID or an assembly, by probing one index that covers all of these columns.
+ * <p>
+ * Rows are written by set-based statements when an assembly is inserted and deleted along with it. They are never
+ * loaded as entities.
+ * </p>
+ */
+@Entity
+@IdClass(SequenceAliasEntity.Key.class)
+@Table(name = "sequence_alias", indexes = {
+        @Index(name = "sequence_alias_alias_idx",
+                columnList = "alias, aliasType, taxid, assemblyId, sequenceKind, sequenceId"),
+        @Index(name = "sequence_alias_assembly_id_idx", columnList = "assemblyId")})
+public class SequenceAliasEntity {
+
+    /**
+     * Values of {@link #getSequenceKind()}, which tells the table {@link #getSequenceId()} refers to.
+     */
+    public static final int CHROMOSOME = 0;
+
+    public static final int SCAFFOLD = 1;
+
+    @Id
+    @Column(nullable = false)
+    private int sequenceKind;
+
+    @Id
+    @Column(nullable = false)
+    private long sequenceId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private AliasType aliasType;
+
+    @Column(nullable = false)
+    private String alias;
+
+    @Column(nullable = false)
+    private long assemblyId;
+
+    private Long taxid;
+
+    public int getSequenceKind() {
+        return sequenceKind;
+    }
+
+    public long getSequenceId() {
+        return sequenceId;
+    }
+
+    public AliasType getAliasType() {
+        return aliasType;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    public long getAssemblyId() {
+        return assemblyId;
+    }
+
+    public Long getTaxid() {
+        return taxid;
+    }
+
+    public static class Key implements Serializable {
+
+        private int sequenceKind;
+
+        private long sequenceId;
+
+        private AliasType aliasType;
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return sequenceKind == key.sequenceKind && sequenceId == key.sequenceId && aliasType == key.aliasType;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sequenceKind, sequenceId, aliasType);
+        }
+
+    }
+
+}
@@ -19,21 +19,32 @@ package uk.ac.ebi.eva.contigalias.entities;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.annotations.ApiModelProperty;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.ManyToOne;
 import javax.persistence.MappedSuperclass;
+import javax.persistence.PrePersist;
 
 @MappedSuperclass
 public class SequenceEntity {
 
+    /**
+     * Ids are allocated in blocks of 50 by the hi/lo algorithm, so that inserting the sequences of an assembly costs
+     * one call to the database sequence per block instead of one per row. The database sequence itself still
+     * increments by one, as it did when ids were allocated one at a time, so blocks never overlap existing ids.
+     */
     @JsonIgnore
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "sequence_id")
+    @GenericGenerator(name = "sequence_id", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+            parameters = {@Parameter(name = "sequence_name", value = "hibernate_sequence"),
+                    @Parameter(name = "increment_size", value = "50"),
+                    @Parameter(name = "optimizer", value = "hilo")})
     @Column(nullable = false)
     @ApiModelProperty(value = "Autogenerated Primary Key.")
     private long id;
@@ -59,15 +70,34 @@ public class SequenceEntity {
     @ApiModelProperty(value = "Sequence's TRUNC512 checksum value.")
     private String trunc512checksum;
 
+    /**
+     * Taxonomic ID of the assembly, copied when the sequence is inserted so that sequences are looked up by name within
+     * a taxonomy without joining their assembly.
+     */
+    @JsonIgnore
+    private Long taxid;
+
     @JsonInclude(JsonInclude.Include.NON_NULL)
     @ApiModelProperty(value = "Assembly that this sequence belongs to.")
     @ManyToOne(cascade = CascadeType.ALL)
     private AssemblyEntity assembly;
 
+    @PrePersist
+    void copyAssemblyTaxid() {
+        if (assembly != null) {
+            taxid = assembly.getTaxid();
+        }
+    }
+
     public long getId() {
         return id;
     }
 
+    public SequenceEntity setId(long id) {
+        this.id = id;
+        return this;
+    }
+
     public String getGenbankSequenceName() {
         return genbankSequenceName;
     }
@@ -132,6 +162,10 @@ public class SequenceEntity {
         return this;
     }
 
+    public Long getTaxid() {
+        return taxid;
+    }
+
     public AssemblyEntity getAssembly() {
         return assembly;
     }
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.event;
+
+/**
+ * Published after the checksums of an assembly have been updated in the database.
+ */
+public class AssemblyChecksumsUpdatedEvent {
+
+    private final String genbank;
+
+    private final String refseq;
+
+    private final String md5checksum;
+
+    private final String trunc512checksum;
+
+    public AssemblyChecksumsUpdatedEvent(String genbank, String refseq, String md5checksum,
+                                         String trunc512checksum) {
+        this.genbank = genbank;
+        this.refseq = refseq;
+        this.md5checksum = md5checksum;
+        this.trunc512checksum = trunc512checksum;
+    }
+
+    public String getGenbank() {
+        return genbank;
+    }
+
+    public String getRefseq() {
+        return refseq;
+    }
+
+    public String getMd5checksum() {
+        return md5checksum;
+    }
+
+    public String getTrunc512checksum() {
+        return trunc512checksum;
+    }
+
+}
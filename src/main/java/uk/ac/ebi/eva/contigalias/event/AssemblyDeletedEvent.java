@@ -0,0 +1,42 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.event;
+
+/**
+ * Published after an assembly and all of its sequences have been deleted from the database. Depending on how the
+ * deletion was requested only one of the two accessions may be known, in which case the other one is null.
+ */
+public class AssemblyDeletedEvent {
+
+    private final String genbank;
+
+    private final String refseq;
+
+    public AssemblyDeletedEvent(String genbank, String refseq) {
+        this.genbank = genbank;
+        this.refseq = refseq;
+    }
+
+    public String getGenbank() {
+        return genbank;
+    }
+
+    public String getRefseq() {
+        return refseq;
+    }
+
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.event;
+
+/**
+ * Published when the shared data version shows changes to the assembly data that this node published no event for,
+ * typically because another node made them. Receivers holding assembly data in memory can no longer tell what changed,
+ * so they have to reload it.
+ */
+public class DataVersionChangedEvent {
+
+    private final long version;
+
+    public DataVersionChangedEvent(long version) {
+        this.version = version;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+}
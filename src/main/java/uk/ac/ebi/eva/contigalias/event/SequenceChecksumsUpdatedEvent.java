@@ -0,0 +1,61 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.event;
+
+import uk.ac.ebi.eva.contigalias.repo.SequenceChecksums;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Published after the checksums of every chromosome or scaffold having one of the given INSDC or RefSeq accessions
+ * have been updated in the database. Checksums set in bulk are published once per batch of accessions, so listeners
+ * are expected to invalidate whatever depends on all of them at once.
+ */
+public class SequenceChecksumsUpdatedEvent {
+
+    private final List<SequenceChecksums> checksums;
+
+    private final Set<Long> assemblyIds;
+
+    /**
+     * @param checksums   Checksums set, leaving out accessions matching no sequence.
+     * @param assemblyIds Ids of the assemblies of the updated sequences.
+     */
+    public SequenceChecksumsUpdatedEvent(List<SequenceChecksums> checksums, Set<Long> assemblyIds) {
+        this.checksums = checksums;
+        this.assemblyIds = assemblyIds;
+    }
+
+    public List<SequenceChecksums> getChecksums() {
+        return checksums;
+    }
+
+    public Set<String> getAccessions() {
+        Set<String> accessions = new LinkedHashSet<>();
+        for (SequenceChecksums it : checksums) {
+            accessions.add(it.getAccession());
+        }
+        return accessions;
+    }
+
+    public Set<Long> getAssemblyIds() {
+        return assemblyIds;
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.index;
+
+import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
+
+/**
+ * Immutable copy of the metadata of an {@link AssemblyEntity} kept by {@link SequenceAliasIndex}. Only the checksums
+ * can change after the record has been created.
+ */
+class AssemblyRecord {
+
+    private final long id;
+
+    private final String name;
+
+    private final String organism;
+
+    private final Long taxid;
+
+    private final String genbank;
+
+    private final String refseq;
+
+    private final boolean isGenbankRefseqIdentical;
+
+    private volatile String md5checksum;
+
+    private volatile String trunc512checksum;
+
+    AssemblyRecord(AssemblyEntity entity) {
+        this.id = entity.getId();
+        this.name = entity.getName();
+        this.organism = entity.getOrganism();
+        this.taxid = entity.getTaxid();
+        this.genbank = entity.getGenbank();
+        this.refseq = entity.getRefseq();
+        this.isGenbankRefseqIdentical = entity.isGenbankRefseqIdentical();
+        this.md5checksum = entity.getMd5checksum();
+        this.trunc512checksum = entity.getTrunc512checksum();
+    }
+
+    long getId() {
+        return id;
+    }
+
+    Long getTaxid() {
+        return taxid;
+    }
+
+    String getGenbank() {
+        return genbank;
+    }
+
+    String getRefseq() {
+        return refseq;
+    }
+
+    boolean hasAccession(String accession) {
+        return accession.equals(genbank) || accession.equals(refseq);
+    }
+
+    void setChecksums(String md5checksum, String trunc512checksum) {
+        this.md5checksum = md5checksum;
+        this.trunc512checksum = trunc512checksum;
+    }
+
+    String getMd5checksum() {
+        return md5checksum;
+    }
+
+    String getTrunc512checksum() {
+        return trunc512checksum;
+    }
+
+    /**
+     * @return A detached {@link AssemblyEntity} without any chromosomes or scaffolds.
+     */
+    AssemblyEntity toEntity() {
+        return new AssemblyEntity()
+                .setName(name)
+                .setOrganism(organism)
+                .setTaxid(taxid)
+                .setGenbank(genbank)
+                .setRefseq(refseq)
+                .setGenbankRefseqIdentical(isGenbankRefseqIdentical)
+                .setMd5checksum(md5checksum)
+                .setTrunc512checksum(trunc512checksum)
+                .setChromosomes(null)
+                .setScaffolds(null);
+    }
+
+    long estimateSize() {
+        return SequenceAliasIndex.OBJECT_OVERHEAD_BYTES + SequenceAliasIndex.estimateSize(name) +
+                SequenceAliasIndex.estimateSize(organism) + SequenceAliasIndex.estimateSize(genbank) +
+                SequenceAliasIndex.estimateSize(refseq) + SequenceAliasIndex.estimateSize(md5checksum) +
+                SequenceAliasIndex.estimateSize(trunc512checksum);
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.index;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of strings sized for an expected number of elements and false positive rate. Elements can be added
+ * concurrently with lookups, but never removed.
+ */
+class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray bits;
+
+    private final long bitCount;
+
+    private final int hashCount;
+
+    private final long capacity;
+
+    private final AtomicLong elementCount = new AtomicLong();
+
+    BloomFilter(long expectedElements, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("The false positive rate must be between 0 and 1 exclusive");
+        }
+        this.capacity = Math.max(1, expectedElements);
+        long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (LN2 * LN2));
+        int words = (int) Math.min(Integer.MAX_VALUE, Math.max(1, (optimalBits + 63) / 64));
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * LN2));
+    }
+
+    void put(String element) {
+        long hash1 = hash(element, 0x9E3779B97F4A7C15L);
+        long hash2 = hash(element, 0xC2B2AE3D27D4EB4FL) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            if ((bits.get(word) & mask) == 0) {
+                bits.accumulateAndGet(word, mask, (current, set) -> current | set);
+            }
+        }
+        elementCount.incrementAndGet();
+    }
+
+    boolean mightContain(String element) {
+        long hash1 = hash(element, 0x9E3779B97F4A7C15L);
+        long hash2 = hash(element, 0xC2B2AE3D27D4EB4FL) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Number of elements the filter was sized for.
+     */
+    long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return Number of calls to {@link #put(String)}, counting duplicates.
+     */
+    long getElementCount() {
+        return elementCount.get();
+    }
+
+    /**
+     * @return Probability of {@link #mightContain(String)} returning true for an element that was never added, given
+     * the number of elements added so far.
+     */
+    double getExpectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-(double) hashCount * elementCount.get() / bitCount), hashCount);
+    }
+
+    /**
+     * @return Number of bytes used by the bit array of the filter.
+     */
+    long getSizeInBytes() {
+        return bitCount / 8;
+    }
+
+    /**
+     * 64-bit hash of the characters of a string, finished with the MurmurHash3 mixing function.
+     */
+    private static long hash(String element, long seed) {
+        long hash = seed;
+        for (int i = 0; i < element.length(); i++) {
+            hash = (hash ^ element.charAt(i)) * 0x100000001B3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.index;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
+import uk.ac.ebi.eva.contigalias.entities.SequenceEntity;
+import uk.ac.ebi.eva.contigalias.event.AssemblyDeletedEvent;
+import uk.ac.ebi.eva.contigalias.event.AssemblyInsertedEvent;
+import uk.ac.ebi.eva.contigalias.event.DataVersionChangedEvent;
+import uk.ac.ebi.eva.contigalias.repo.AssemblyRepository;
+import uk.ac.ebi.eva.contigalias.repo.ChromosomeRepository;
+import uk.ac.ebi.eva.contigalias.repo.PrimaryReads;
+import uk.ac.ebi.eva.contigalias.repo.ScaffoldRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Bloom filter over every assembly accession and every sequence accession and name stored in the database, used to
+ * reject lookups of unknown identifiers before querying the repositories.
+ * <p>
+ * The filter is built from the primary database once the application has started, so that it does not miss what a
+ * lagging replica has not received yet. Inserted assemblies are added to it as they are published by
+ * {@link uk.ac.ebi.eva.contigalias.service.AssemblyService}. Deleted assemblies cannot be removed from a Bloom filter
+ * and only increase its false positive rate, so the filter is rebuilt in the background once enough assemblies have
+ * been deleted or once more elements than it was sized for have been added.
+ * </p>
+ * <p>
+ * Assemblies inserted by other nodes are not published on this one. The filter is dropped and rebuilt when the
+ * {@link uk.ac.ebi.eva.contigalias.cache.DataVersion} shows such changes, so they are rejected for at most the refresh
+ * interval of the data version. Until the filter is built or rebuilt, every identifier is reported as possibly
+ * present and lookups fall through to the database.
+ * </p>
+ */
+@Component
+public class NegativeLookupFilter implements DisposableBean {
+
+    /**
+     * Headroom left in the filter for insertions before it has to be rebuilt.
+     */
+    private static final int GROWTH_FACTOR = 2;
+
+    /**
+     * Fraction of the assemblies that have to be deleted before the filter is rebuilt.
+     */
+    private static final double STALE_ASSEMBLIES_RATIO = 0.1;
+
+    private static final int BUILD_PAGE_SIZE = 10000;
+
+    private static final int ALIASES_PER_SEQUENCE = 5;
+
+    private final Logger logger = LoggerFactory.getLogger(NegativeLookupFilter.class);
+
+    private final AssemblyRepository assemblyRepository;
+
+    private final ChromosomeRepository chromosomeRepository;
+
+    private final ScaffoldRepository scaffoldRepository;
+
+    private final boolean enabled;
+
+    private final double falsePositiveRate;
+
+    private final Counter rejections;
+
+    private final ExecutorService buildExecutor;
+
+    private final AtomicBoolean buildScheduled = new AtomicBoolean();
+
+    /**
+     * Held for the whole of a build, so that builds do not overlap, whereas the monitor of the filter is only held
+     * while it is modified, so that insertions do not wait for a build to read the whole database.
+     */
+    private final Object buildLock = new Object();
+
+    private volatile BloomFilter filter;
+
+    private long assemblyCount;
+
+    private long deletedAssemblyCount;
+
+    /**
+     * Assemblies inserted while a build is reading the database, which it may have missed.
+     */
+    private List<AssemblyEntity> insertedDuringBuild;
+
+    /**
+     * Incremented whenever other nodes are found to have changed the data, so that a build that started before the
+     * change does not install a filter missing it.
+     */
+    private long generation;
+
+    @Autowired
+    public NegativeLookupFilter(AssemblyRepository assemblyRepository,
+                                ChromosomeRepository chromosomeRepository,
+                                ScaffoldRepository scaffoldRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${config.lookup-filter.enabled:false}") boolean enabled,
+                                @Value("${config.lookup-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.assemblyRepository = assemblyRepository;
+        this.chromosomeRepository = chromosomeRepository;
+        this.scaffoldRepository = scaffoldRepository;
+        this.enabled = enabled;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rejections = Counter.builder("contigalias.lookup.filter.rejections")
+                                 .description("Lookups rejected by the negative lookup filter")
+                                 .register(meterRegistry);
+        this.buildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "lookup-filter-build");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (enabled) {
+            registerGauge(meterRegistry, "contigalias.lookup.filter.false.positive.rate", null,
+                          "Expected false positive rate of the negative lookup filter",
+                          BloomFilter::getExpectedFalsePositiveRate);
+            registerGauge(meterRegistry, "contigalias.lookup.filter.size", "bytes",
+                          "Memory used by the bit array of the negative lookup filter",
+                          BloomFilter::getSizeInBytes);
+            registerGauge(meterRegistry, "contigalias.lookup.filter.elements", null,
+                          "Identifiers added to the negative lookup filter",
+                          BloomFilter::getElementCount);
+        }
+    }
+
+    private void registerGauge(MeterRegistry meterRegistry, String name, String baseUnit, String description,
+                               Function<BloomFilter, Number> value) {
+        Gauge.builder(name, this, it -> {
+            BloomFilter current = it.filter;
+            return current == null ? 0 : value.apply(current).doubleValue();
+        }).baseUnit(baseUnit).description(description).register(meterRegistry);
+    }
+
+    /**
+     * @param identifier Accession or name of an assembly or sequence.
+     * @return False only if the identifier is definitely not present in the database.
+     */
+    public boolean mightContain(String identifier) {
+        BloomFilter current = filter;
+        if (current == null || identifier == null || current.mightContain(identifier)) {
+            return true;
+        }
+        rejections.increment();
+        return false;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (buildLock) {
+            long buildGeneration;
+            synchronized (this) {
+                buildGeneration = generation;
+                insertedDuringBuild = new ArrayList<>();
+            }
+            try {
+                long start = System.currentTimeMillis();
+                List<Object[]> assemblies = PrimaryReads.call(assemblyRepository::findAllIdsAndAccessionsOrderById);
+                BloomFilter built = PrimaryReads.call(() -> read(assemblies));
+                synchronized (this) {
+                    if (buildGeneration != generation) {
+                        return;
+                    }
+                    insertedDuringBuild.forEach(assembly -> putAll(built, assembly));
+                    assemblyCount = assemblies.size() + insertedDuringBuild.size();
+                    deletedAssemblyCount = 0;
+                    filter = built;
+                }
+                logger.info("Built negative lookup filter of " + built.getElementCount() + " identifiers (" +
+                                    built.getSizeInBytes() / 1024 + " KB) in " +
+                                    (System.currentTimeMillis() - start) + "ms");
+            } finally {
+                synchronized (this) {
+                    insertedDuringBuild = null;
+                }
+            }
+        }
+    }
+
+    private BloomFilter read(List<Object[]> assemblies) {
+        long sequences = chromosomeRepository.count() + scaffoldRepository.count();
+        long expectedElements = (assemblies.size() * 2L + sequences * ALIASES_PER_SEQUENCE) * GROWTH_FACTOR;
+        BloomFilter built = new BloomFilter(Math.max(expectedElements, BUILD_PAGE_SIZE), falsePositiveRate);
+        for (Object[] assembly : assemblies) {
+            put(built, (String) assembly[1]);
+            put(built, (String) assembly[2]);
+        }
+        Pageable request = PageRequest.of(0, BUILD_PAGE_SIZE);
+        Slice<Object[]> slice;
+        do {
+            slice = chromosomeRepository.findAllAliases(request);
+            slice.forEach(aliases -> putAll(built, aliases));
+            request = request.next();
+        } while (slice.hasNext());
+        request = PageRequest.of(0, BUILD_PAGE_SIZE);
+        do {
+            slice = scaffoldRepository.findAllAliases(request);
+            slice.forEach(aliases -> putAll(built, aliases));
+            request = request.next();
+        } while (slice.hasNext());
+        return built;
+    }
+
+    /**
+     * Builds the filter again on a background thread, unless a build is already waiting to start.
+     */
+    void scheduleBuild() {
+        if (buildScheduled.compareAndSet(false, true)) {
+            buildExecutor.execute(() -> {
+                buildScheduled.set(false);
+                try {
+                    build();
+                } catch (RuntimeException e) {
+                    logger.warn("Could not build negative lookup filter", e);
+                }
+            });
+        }
+    }
+
+    @EventListener
+    public synchronized void onAssemblyInserted(AssemblyInsertedEvent event) {
+        AssemblyEntity assembly = event.getAssembly();
+        if (insertedDuringBuild != null) {
+            insertedDuringBuild.add(assembly);
+        }
+        BloomFilter current = filter;
+        if (current == null) {
+            return;
+        }
+        putAll(current, assembly);
+        assemblyCount++;
+        if (current.getElementCount() > current.getCapacity()) {
+            scheduleBuild();
+        }
+    }
+
+    @EventListener
+    public synchronized void onAssemblyDeleted(AssemblyDeletedEvent event) {
+        if (filter == null) {
+            return;
+        }
+        deletedAssemblyCount++;
+        if (deletedAssemblyCount > assemblyCount * STALE_ASSEMBLIES_RATIO) {
+            scheduleBuild();
+        }
+    }
+
+    @EventListener
+    public void onDataVersionChanged(DataVersionChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            generation++;
+            filter = null;
+        }
+        scheduleBuild();
+    }
+
+    /**
+     * @return Expected false positive rate of the filter given the identifiers added to it, or 0 if not built.
+     */
+    public double getExpectedFalsePositiveRate() {
+        BloomFilter current = filter;
+        return current == null ? 0 : current.getExpectedFalsePositiveRate();
+    }
+
+    @Override
+    public void destroy() {
+        buildExecutor.shutdownNow();
+    }
+
+    private static void putAll(BloomFilter filter, AssemblyEntity assembly) {
+        put(filter, assembly.getGenbank());
+        put(filter, assembly.getRefseq());
+        if (assembly.getChromosomes() != null) {
+            assembly.getChromosomes().forEach(it -> putAll(filter, it));
+        }
+        if (assembly.getScaffolds() != null) {
+            assembly.getScaffolds().forEach(it -> putAll(filter, it));
+        }
+    }
+
+    private static void putAll(BloomFilter filter, SequenceEntity sequence) {
+        put(filter, sequence.getGenbank());
+        put(filter, sequence.getRefseq());
+        put(filter, sequence.getGenbankSequenceName());
+        put(filter, sequence.getEnaSequenceName());
+        put(filter, sequence.getUcscName());
+    }
+
+    private static void putAll(BloomFilter filter, Object[] aliases) {
+        for (Object alias : aliases) {
+            put(filter, (String) alias);
+        }
+    }
+
+    private static void put(BloomFilter filter, String identifier) {
+        if (identifier != null) {
+            filter.put(identifier);
+        }
+    }
+
+}
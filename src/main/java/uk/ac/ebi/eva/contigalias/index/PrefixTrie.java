@@ -0,0 +1,255 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Radix trie associating string keys with any number of values and supporting enumeration of every value whose key
+ * starts with a given prefix. Chains of nodes having a single child are collapsed into one edge so that the number of
+ * nodes stays proportional to the number of distinct keys rather than to their total length.
+ * <p>
+ * This class is not thread safe, callers are expected to guard it with their own lock.
+ * </p>
+ */
+class PrefixTrie<V> {
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private static class Node<V> {
+
+        private String label;
+
+        private Node<V>[] children;
+
+        private List<V> values;
+
+        @SuppressWarnings("unchecked")
+        Node(String label) {
+            this.label = label;
+            this.children = NO_CHILDREN;
+        }
+
+    }
+
+    private final Node<V> root = new Node<>("");
+
+    private int nodeCount = 1;
+
+    /**
+     * @return Number of nodes currently making up the trie, including the root.
+     */
+    int getNodeCount() {
+        return nodeCount;
+    }
+
+    void put(String key, V value) {
+        Node<V> node = root;
+        int position = 0;
+        while (position < key.length()) {
+            int index = indexOfChild(node, key.charAt(position));
+            if (index < 0) {
+                Node<V> leaf = new Node<>(key.substring(position));
+                insertChild(node, -(index + 1), leaf);
+                node = leaf;
+                break;
+            }
+            Node<V> child = node.children[index];
+            int common = commonPrefixLength(child.label, key, position);
+            if (common < child.label.length()) {
+                split(child, common);
+            }
+            node = child;
+            position += common;
+        }
+        if (node.values == null) {
+            node.values = new ArrayList<>(1);
+        }
+        node.values.add(value);
+    }
+
+    /**
+     * Removes one association between the key and the value, pruning and merging the nodes that are no longer needed.
+     *
+     * @return True if the association was present.
+     */
+    boolean remove(String key, V value) {
+        List<Node<V>> path = new ArrayList<>();
+        Node<V> node = root;
+        int position = 0;
+        while (position < key.length()) {
+            int index = indexOfChild(node, key.charAt(position));
+            if (index < 0) {
+                return false;
+            }
+            Node<V> child = node.children[index];
+            if (!key.startsWith(child.label, position)) {
+                return false;
+            }
+            path.add(node);
+            node = child;
+            position += child.label.length();
+        }
+        if (node.values == null || !node.values.remove(value)) {
+            return false;
+        }
+        if (node.values.isEmpty()) {
+            node.values = null;
+        }
+        for (int i = path.size() - 1; i >= 0 && node != root; i--) {
+            Node<V> parent = path.get(i);
+            if (node.values == null && node.children.length == 0) {
+                removeChild(parent, node);
+            } else if (node.values == null && node.children.length == 1) {
+                merge(node);
+                break;
+            } else {
+                break;
+            }
+            node = parent;
+        }
+        return true;
+    }
+
+    /**
+     * Passes every value whose key starts with the given prefix to the visitor, in the lexicographic order of the
+     * keys and in insertion order for values sharing a key, until the visitor returns false.
+     */
+    void visitPrefix(String prefix, Predicate<V> visitor) {
+        Node<V> node = root;
+        int position = 0;
+        while (position < prefix.length()) {
+            int index = indexOfChild(node, prefix.charAt(position));
+            if (index < 0) {
+                return;
+            }
+            Node<V> child = node.children[index];
+            int remaining = prefix.length() - position;
+            if (remaining <= child.label.length()) {
+                if (!child.label.regionMatches(0, prefix, position, remaining)) {
+                    return;
+                }
+            } else if (!prefix.startsWith(child.label, position)) {
+                return;
+            }
+            node = child;
+            position += child.label.length();
+        }
+        visitSubtree(node, visitor);
+    }
+
+    void clear() {
+        root.children = NO_CHILDREN;
+        root.values = null;
+        nodeCount = 1;
+    }
+
+    private boolean visitSubtree(Node<V> node, Predicate<V> visitor) {
+        if (node.values != null) {
+            for (V value : node.values) {
+                if (!visitor.test(value)) {
+                    return false;
+                }
+            }
+        }
+        for (Node<V> child : node.children) {
+            if (!visitSubtree(child, visitor)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Splits the label of the node at the given length, moving the rest of the label, the children and the values
+     * into a new single child.
+     */
+    @SuppressWarnings("unchecked")
+    private void split(Node<V> node, int length) {
+        Node<V> tail = new Node<>(node.label.substring(length));
+        tail.children = node.children;
+        tail.values = node.values;
+        node.label = node.label.substring(0, length);
+        node.children = new Node[]{tail};
+        node.values = null;
+        nodeCount++;
+    }
+
+    /**
+     * Absorbs the only child of a node without values into the node itself.
+     */
+    private void merge(Node<V> node) {
+        Node<V> child = node.children[0];
+        node.label = node.label + child.label;
+        node.children = child.children;
+        node.values = child.values;
+        nodeCount--;
+    }
+
+    private void insertChild(Node<V> parent, int index, Node<V> child) {
+        Node<V>[] children = Arrays.copyOf(parent.children, parent.children.length + 1);
+        System.arraycopy(children, index, children, index + 1, parent.children.length - index);
+        children[index] = child;
+        parent.children = children;
+        nodeCount++;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void removeChild(Node<V> parent, Node<V> child) {
+        int index = indexOfChild(parent, child.label.charAt(0));
+        Node<V>[] children = new Node[parent.children.length - 1];
+        System.arraycopy(parent.children, 0, children, 0, index);
+        System.arraycopy(parent.children, index + 1, children, index, children.length - index);
+        parent.children = children;
+        nodeCount--;
+    }
+
+    /**
+     * Children are kept sorted by the first character of their labels, which is unique among siblings.
+     *
+     * @return Index of the child whose label starts with the character, or (-(insertion point) - 1) if there is none.
+     */
+    private static int indexOfChild(Node<?> node, char first) {
+        int low = 0;
+        int high = node.children.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            char current = node.children[middle].label.charAt(0);
+            if (current < first) {
+                low = middle + 1;
+            } else if (current > first) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static int commonPrefixLength(String label, String key, int offset) {
+        int length = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < length && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+}
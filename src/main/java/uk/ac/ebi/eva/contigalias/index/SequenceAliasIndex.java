@@ -0,0 +1,690 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.index;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
+import uk.ac.ebi.eva.contigalias.entities.SequenceEntity;
+import uk.ac.ebi.eva.contigalias.event.AssemblyChecksumsUpdatedEvent;
+import uk.ac.ebi.eva.contigalias.event.AssemblyDeletedEvent;
+import uk.ac.ebi.eva.contigalias.event.AssemblyInsertedEvent;
+import uk.ac.ebi.eva.contigalias.event.DataVersionChangedEvent;
+import uk.ac.ebi.eva.contigalias.event.SequenceChecksumsUpdatedEvent;
+import uk.ac.ebi.eva.contigalias.repo.AssemblyRepository;
+import uk.ac.ebi.eva.contigalias.repo.PrimaryReads;
+import uk.ac.ebi.eva.contigalias.repo.SequenceChecksums;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory index mapping every GenBank, RefSeq, GenBank sequence name, ENA sequence name and UCSC name of the
+ * chromosomes and scaffolds in the database to compact copies of those sequences.
+ * <p>
+ * The index is built from the primary database once the application has started and is kept up to date by listening
+ * to the events published by the services whenever assemblies are inserted or deleted or checksums are updated. If
+ * the estimated size of the index grows beyond the configured memory budget, the index is dropped and
+ * {@link #isAvailable()} returns false for the rest of the application's lifetime, so that callers fall back to
+ * querying the repositories.
+ * </p>
+ * <p>
+ * Changes made by other nodes are not published on this one. When the
+ * {@link uk.ac.ebi.eva.contigalias.cache.DataVersion} shows such changes, the index is dropped and rebuilt on a
+ * background thread, during which callers query the repositories. The write lock is only held while each page of
+ * assemblies read by a build is added, so inserts do not wait for the whole build. Deletions and checksum updates
+ * published during a build may concern assemblies it has already read, so they restart it.
+ * </p>
+ * <p>
+ * The GenBank sequence names, ENA sequence names and UCSC names are additionally stored in a {@link PrefixTrie} so
+ * that sequences can be looked up by the beginning of any of their names without scanning the database.
+ * </p>
+ */
+@Component
+public class SequenceAliasIndex implements DisposableBean {
+
+    static final long OBJECT_OVERHEAD_BYTES = 48;
+
+    private static final long STRING_OVERHEAD_BYTES = 40;
+
+    private static final long MAP_ENTRY_OVERHEAD_BYTES = 64;
+
+    private static final int BUILD_PAGE_SIZE = 10;
+
+    private static final AliasType[] NAME_TYPES = {AliasType.GENBANK_SEQUENCE_NAME, AliasType.ENA_SEQUENCE_NAME,
+            AliasType.UCSC_NAME};
+
+    private enum State {NOT_BUILT, BUILDING, AVAILABLE, OVER_BUDGET}
+
+    private final Logger logger = LoggerFactory.getLogger(SequenceAliasIndex.class);
+
+    private final AssemblyRepository repository;
+
+    private final boolean enabled;
+
+    private final long maxMemoryBytes;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Held for the whole of a build, so that builds do not overlap.
+     */
+    private final Object buildLock = new Object();
+
+    private final ExecutorService buildExecutor;
+
+    private final AtomicBoolean buildScheduled = new AtomicBoolean();
+
+    private final Map<Long, AssemblyRecord> assembliesById = new HashMap<>();
+
+    private final Map<String, AssemblyRecord> assembliesByGenbank = new HashMap<>();
+
+    private final Map<String, AssemblyRecord> assembliesByRefseq = new HashMap<>();
+
+    private final Map<Long, List<SequenceRecord>> sequencesByAssemblyId = new HashMap<>();
+
+    private final Map<AliasType, Map<String, List<SequenceRecord>>> sequencesByAlias = new EnumMap<>(AliasType.class);
+
+    private final PrefixTrie<SequenceRecord> sequencesByNamePrefix = new PrefixTrie<>();
+
+    private volatile State state = State.NOT_BUILT;
+
+    private long estimatedSize = 0;
+
+    @Autowired
+    public SequenceAliasIndex(AssemblyRepository repository,
+                              @Value("${config.alias-index.enabled:false}") boolean enabled,
+                              @Value("${config.alias-index.max-memory-mb:512}") long maxMemoryMb) {
+        this.repository = repository;
+        this.enabled = enabled;
+        this.maxMemoryBytes = maxMemoryMb * 1024 * 1024;
+        for (AliasType type : AliasType.values()) {
+            sequencesByAlias.put(type, new HashMap<>());
+        }
+        this.buildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "alias-index-build");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return True if the index has been fully built and can be used to answer lookups instead of the repositories.
+     */
+    public boolean isAvailable() {
+        return state == State.AVAILABLE;
+    }
+
+    /**
+     * @return Estimated number of bytes of heap used by the records and lookup tables of the index.
+     */
+    public long getEstimatedSize() {
+        lock.readLock().lock();
+        try {
+            return estimatedSize;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (buildLock) {
+            lock.writeLock().lock();
+            try {
+                if (state == State.OVER_BUDGET) {
+                    return;
+                }
+                state = State.BUILDING;
+                clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            long start = System.currentTimeMillis();
+            if (!PrimaryReads.call(this::addAllAssemblies)) {
+                return;
+            }
+            lock.writeLock().lock();
+            try {
+                if (state != State.BUILDING) {
+                    return;
+                }
+                state = State.AVAILABLE;
+                logger.info("Built sequence alias index of " + assembliesById.size() + " assemblies using an " +
+                                    "estimated " + estimatedSize + " bytes in " +
+                                    (System.currentTimeMillis() - start) + " ms");
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Reads every assembly page by page, taking the write lock only to add each page.
+     *
+     * @return False if the build was abandoned, because the index went over budget or must be built again.
+     */
+    private boolean addAllAssemblies() {
+        Page<Long> page;
+        int pageNumber = 0;
+        do {
+            // Ids are paged first, since paging a query fetching collections would happen in memory
+            page = repository.findAllIds(PageRequest.of(pageNumber++, BUILD_PAGE_SIZE, Sort.by("id")));
+            List<AssemblyEntity> assemblies = repository.findAssembliesWithSequencesByIdIn(page.getContent());
+            lock.writeLock().lock();
+            try {
+                if (state != State.BUILDING) {
+                    return false;
+                }
+                for (AssemblyEntity assembly : assemblies) {
+                    if (!addAssembly(assembly)) {
+                        return false;
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } while (page.hasNext());
+        return true;
+    }
+
+    /**
+     * Builds the index again on a background thread, unless a build is already waiting to start.
+     */
+    void scheduleBuild() {
+        if (buildScheduled.compareAndSet(false, true)) {
+            buildExecutor.execute(() -> {
+                buildScheduled.set(false);
+                try {
+                    build();
+                } catch (RuntimeException e) {
+                    logger.warn("Could not build sequence alias index", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Drops the index, unless it is over budget or not built yet, and builds it again. Must be called holding the
+     * write lock.
+     */
+    private void rebuild() {
+        if (state == State.AVAILABLE || state == State.BUILDING) {
+            clear();
+            state = State.NOT_BUILT;
+            scheduleBuild();
+        }
+    }
+
+    @EventListener
+    public void onAssemblyInserted(AssemblyInsertedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            // Assemblies read by a build are only added once, whether the build or the event comes first
+            if (state == State.AVAILABLE || state == State.BUILDING) {
+                addAssembly(event.getAssembly());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onDataVersionChanged(DataVersionChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            rebuild();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onAssemblyDeleted(AssemblyDeletedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (state == State.BUILDING) {
+                rebuild();
+            }
+            if (state != State.AVAILABLE) {
+                return;
+            }
+            AssemblyRecord assembly = null;
+            if (event.getGenbank() != null) {
+                assembly = assembliesByGenbank.get(event.getGenbank());
+            }
+            if (assembly == null && event.getRefseq() != null) {
+                assembly = assembliesByRefseq.get(event.getRefseq());
+            }
+            if (assembly != null) {
+                removeAssembly(assembly);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onAssemblyChecksumsUpdated(AssemblyChecksumsUpdatedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (state == State.BUILDING) {
+                rebuild();
+            }
+            if (state != State.AVAILABLE) {
+                return;
+            }
+            AssemblyRecord record = null;
+            if (event.getGenbank() != null) {
+                record = assembliesByGenbank.get(event.getGenbank());
+            }
+            if (record == null && event.getRefseq() != null) {
+                record = assembliesByRefseq.get(event.getRefseq());
+            }
+            if (record != null) {
+                estimatedSize -= estimateSize(record.getMd5checksum()) + estimateSize(record.getTrunc512checksum());
+                record.setChecksums(event.getMd5checksum(), event.getTrunc512checksum());
+                estimatedSize += estimateSize(record.getMd5checksum()) + estimateSize(record.getTrunc512checksum());
+                checkBudget();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onSequenceChecksumsUpdated(SequenceChecksumsUpdatedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (state == State.BUILDING) {
+                rebuild();
+            }
+            if (state != State.AVAILABLE) {
+                return;
+            }
+            for (SequenceChecksums checksums : event.getChecksums()) {
+                String accession = checksums.getAccession();
+                List<SequenceRecord> records = new LinkedList<>();
+                records.addAll(sequencesByAlias.get(AliasType.GENBANK)
+                                               .getOrDefault(accession, Collections.emptyList()));
+                records.addAll(sequencesByAlias.get(AliasType.REFSEQ)
+                                               .getOrDefault(accession, Collections.emptyList()));
+                for (SequenceRecord record : records) {
+                    estimatedSize -= estimateSize(record.getMd5checksum()) +
+                            estimateSize(record.getTrunc512checksum());
+                    record.setChecksums(checksums.getMd5checksum(), checksums.getTrunc512checksum());
+                    estimatedSize += estimateSize(record.getMd5checksum()) +
+                            estimateSize(record.getTrunc512checksum());
+                }
+            }
+            checkBudget();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Optional<AssemblyEntity> getAssemblyByAccession(String accession) {
+        lock.readLock().lock();
+        try {
+            return findAssemblyByAccession(accession).map(AssemblyRecord::toEntity);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns all chromosomes, followed by all scaffolds, having the given alias. Each sequence has its parent
+     * assembly nested inside it.
+     */
+    public Page<SequenceEntity> getSequencesByAlias(AliasType type, String alias, Pageable request) {
+        return getSequencesByAlias(type, alias, record -> true, true, request);
+    }
+
+    public Page<SequenceEntity> getSequencesByAliasAndAssemblyTaxid(AliasType type, String alias, long taxid,
+                                                                   Pageable request) {
+        Long asmTaxid = taxid;
+        return getSequencesByAlias(type, alias, record -> asmTaxid.equals(record.getAssembly().getTaxid()), true,
+                                   request);
+    }
+
+    public Page<SequenceEntity> getSequencesByAliasAndAssemblyAccession(AliasType type, String alias,
+                                                                       String accession, Pageable request) {
+        return getSequencesByAlias(type, alias, record -> record.getAssembly().hasAccession(accession), true,
+                                   request);
+    }
+
+    /**
+     * Returns all chromosomes, followed by all scaffolds, of the assembly having the given GenBank accession. The
+     * sequences do not have their parent assembly nested inside them.
+     */
+    public Page<SequenceEntity> getSequencesByAssemblyGenbank(String genbank, Pageable request) {
+        lock.readLock().lock();
+        try {
+            return getSequencesOfAssembly(assembliesByGenbank.get(genbank), request);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Page<SequenceEntity> getSequencesByAssemblyRefseq(String refseq, Pageable request) {
+        lock.readLock().lock();
+        try {
+            return getSequencesOfAssembly(assembliesByRefseq.get(refseq), request);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Page<SequenceEntity> getSequencesByAssemblyAccession(String accession, Pageable request) {
+        lock.readLock().lock();
+        try {
+            return getSequencesOfAssembly(findAssemblyByAccession(accession).orElse(null), request);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the parent assembly of every chromosome, followed by that of every scaffold, having the given alias.
+     * An assembly is repeated once for each of its sequences that matched.
+     */
+    public List<AssemblyEntity> getAssembliesBySequenceAlias(AliasType type, String alias) {
+        lock.readLock().lock();
+        try {
+            return sortChromosomesFirst(sequencesByAlias.get(type).get(alias), record -> true)
+                    .stream()
+                    .map(record -> record.getAssembly().toEntity())
+                    .collect(Collectors.toCollection(LinkedList::new));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the sequences having a GenBank sequence name, ENA sequence name or UCSC name that starts with the given
+     * prefix, in the lexicographic order of the matching names. A sequence matching through more than one of its
+     * names is only returned once. Each sequence has its parent assembly nested inside it.
+     */
+    public Page<SequenceEntity> getSequencesByNamePrefix(String prefix, Pageable request) {
+        return getSequencesByNamePrefix(prefix, record -> true, request);
+    }
+
+    public Page<SequenceEntity> getSequencesByNamePrefixAndAssemblyTaxid(String prefix, long taxid,
+                                                                        Pageable request) {
+        Long asmTaxid = taxid;
+        return getSequencesByNamePrefix(prefix, record -> asmTaxid.equals(record.getAssembly().getTaxid()), request);
+    }
+
+    public Page<SequenceEntity> getSequencesByNamePrefixAndAssemblyAccession(String prefix, String accession,
+                                                                            Pageable request) {
+        return getSequencesByNamePrefix(prefix, record -> record.getAssembly().hasAccession(accession), request);
+    }
+
+    private Page<SequenceEntity> getSequencesByNamePrefix(String prefix, Predicate<SequenceRecord> filter,
+                                                          Pageable request) {
+        lock.readLock().lock();
+        try {
+            // Only the records up to the first one after the requested page are collected, so short prefixes
+            // matching most of the index stay cheap as long as the requested page is near the start. The total is
+            // then only a lower bound, but it is enough to tell that there is a next page.
+            long limit = request.isPaged() ? request.getOffset() + request.getPageSize() + 1 : Long.MAX_VALUE;
+            Set<SequenceRecord> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            List<SequenceRecord> records = new ArrayList<>();
+            sequencesByNamePrefix.visitPrefix(prefix, record -> {
+                if (filter.test(record) && seen.add(record)) {
+                    records.add(record);
+                }
+                return records.size() < limit;
+            });
+            return createPage(records, true, request);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Page<SequenceEntity> getSequencesByAlias(AliasType type, String alias, Predicate<SequenceRecord> filter,
+                                                     boolean includeAssembly, Pageable request) {
+        lock.readLock().lock();
+        try {
+            List<SequenceRecord> records = sortChromosomesFirst(sequencesByAlias.get(type).get(alias), filter);
+            return createPage(records, includeAssembly, request);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Page<SequenceEntity> getSequencesOfAssembly(AssemblyRecord assembly, Pageable request) {
+        if (assembly == null) {
+            return createPage(Collections.emptyList(), false, request);
+        }
+        return createPage(sequencesByAssemblyId.get(assembly.getId()), false, request);
+    }
+
+    private Optional<AssemblyRecord> findAssemblyByAccession(String accession) {
+        AssemblyRecord assembly = assembliesByGenbank.get(accession);
+        if (assembly == null) {
+            assembly = assembliesByRefseq.get(accession);
+        }
+        return Optional.ofNullable(assembly);
+    }
+
+    private List<SequenceRecord> sortChromosomesFirst(List<SequenceRecord> records, Predicate<SequenceRecord> filter) {
+        List<SequenceRecord> sorted = new ArrayList<>();
+        if (records == null) {
+            return sorted;
+        }
+        for (SequenceRecord record : records) {
+            if (record.isChromosome() && filter.test(record)) {
+                sorted.add(record);
+            }
+        }
+        for (SequenceRecord record : records) {
+            if (!record.isChromosome() && filter.test(record)) {
+                sorted.add(record);
+            }
+        }
+        return sorted;
+    }
+
+    /**
+     * Slices the requested page out of the given records, the total of the page being the number of records.
+     */
+    private Page<SequenceEntity> createPage(List<SequenceRecord> records, boolean includeAssembly,
+                                            Pageable request) {
+        int from = 0;
+        int to = records.size();
+        if (request.isPaged()) {
+            from = (int) Math.min(request.getOffset(), records.size());
+            to = (int) Math.min((long) from + request.getPageSize(), records.size());
+        }
+        List<SequenceEntity> content = new LinkedList<>();
+        for (SequenceRecord record : records.subList(from, to)) {
+            content.add(record.toEntity(includeAssembly));
+        }
+        return new PageImpl<>(content, request, records.size());
+    }
+
+    /**
+     * @return False if adding the assembly exceeded the memory budget, in which case the index has been dropped.
+     */
+    private boolean addAssembly(AssemblyEntity entity) {
+        if (assembliesById.containsKey(entity.getId())) {
+            return true;
+        }
+        AssemblyRecord assembly = new AssemblyRecord(entity);
+        assembliesById.put(assembly.getId(), assembly);
+        estimatedSize += assembly.estimateSize() + MAP_ENTRY_OVERHEAD_BYTES;
+        if (assembly.getGenbank() != null) {
+            assembliesByGenbank.put(assembly.getGenbank(), assembly);
+            estimatedSize += MAP_ENTRY_OVERHEAD_BYTES;
+        }
+        if (assembly.getRefseq() != null) {
+            assembliesByRefseq.put(assembly.getRefseq(), assembly);
+            estimatedSize += MAP_ENTRY_OVERHEAD_BYTES;
+        }
+        List<SequenceRecord> sequences = new ArrayList<>();
+        if (entity.getChromosomes() != null) {
+            entity.getChromosomes().forEach(it -> sequences.add(new SequenceRecord(it, assembly)));
+        }
+        if (entity.getScaffolds() != null) {
+            entity.getScaffolds().forEach(it -> sequences.add(new SequenceRecord(it, assembly)));
+        }
+        sequencesByAssemblyId.put(assembly.getId(), sequences);
+        for (SequenceRecord sequence : sequences) {
+            estimatedSize += sequence.estimateSize();
+            for (AliasType type : AliasType.values()) {
+                String alias = sequence.getAlias(type);
+                if (alias != null) {
+                    sequencesByAlias.get(type).computeIfAbsent(alias, key -> new ArrayList<>(1)).add(sequence);
+                    estimatedSize += MAP_ENTRY_OVERHEAD_BYTES;
+                }
+            }
+            for (String name : getDistinctNames(sequence)) {
+                sequencesByNamePrefix.put(name, sequence);
+                estimatedSize += MAP_ENTRY_OVERHEAD_BYTES;
+            }
+        }
+        return checkBudget();
+    }
+
+    private void removeAssembly(AssemblyRecord assembly) {
+        assembliesById.remove(assembly.getId());
+        estimatedSize -= assembly.estimateSize() + MAP_ENTRY_OVERHEAD_BYTES;
+        if (assembly.getGenbank() != null && assembliesByGenbank.remove(assembly.getGenbank(), assembly)) {
+            estimatedSize -= MAP_ENTRY_OVERHEAD_BYTES;
+        }
+        if (assembly.getRefseq() != null && assembliesByRefseq.remove(assembly.getRefseq(), assembly)) {
+            estimatedSize -= MAP_ENTRY_OVERHEAD_BYTES;
+        }
+        List<SequenceRecord> sequences = sequencesByAssemblyId.remove(assembly.getId());
+        if (sequences == null) {
+            return;
+        }
+        for (SequenceRecord sequence : sequences) {
+            estimatedSize -= sequence.estimateSize();
+            for (AliasType type : AliasType.values()) {
+                String alias = sequence.getAlias(type);
+                if (alias == null) {
+                    continue;
+                }
+                Map<String, List<SequenceRecord>> aliases = sequencesByAlias.get(type);
+                List<SequenceRecord> records = aliases.get(alias);
+                if (records != null && records.remove(sequence)) {
+                    estimatedSize -= MAP_ENTRY_OVERHEAD_BYTES;
+                    if (records.isEmpty()) {
+                        aliases.remove(alias);
+                    }
+                }
+            }
+            for (String name : getDistinctNames(sequence)) {
+                if (sequencesByNamePrefix.remove(name, sequence)) {
+                    estimatedSize -= MAP_ENTRY_OVERHEAD_BYTES;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The names of the sequence under which it is stored in the prefix trie, without repetitions.
+     */
+    private static List<String> getDistinctNames(SequenceRecord sequence) {
+        List<String> names = new ArrayList<>(NAME_TYPES.length);
+        for (AliasType type : NAME_TYPES) {
+            String name = sequence.getAlias(type);
+            if (name != null && !names.contains(name)) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    private boolean checkBudget() {
+        if (estimatedSize <= maxMemoryBytes) {
+            return true;
+        }
+        logger.warn("Sequence alias index exceeded its memory budget of " + maxMemoryBytes + " bytes, lookups " +
+                            "will be served from the database instead");
+        clear();
+        state = State.OVER_BUDGET;
+        return false;
+    }
+
+    private void clear() {
+        assembliesById.clear();
+        assembliesByGenbank.clear();
+        assembliesByRefseq.clear();
+        sequencesByAssemblyId.clear();
+        sequencesByAlias.values().forEach(Map::clear);
+        sequencesByNamePrefix.clear();
+        estimatedSize = 0;
+    }
+
+    @Override
+    public void destroy() {
+        buildExecutor.shutdownNow();
+    }
+
+    static long estimateSize(String string) {
+        return string == null ? 0 : STRING_OVERHEAD_BYTES + 2L * string.length();
+    }
+
+}
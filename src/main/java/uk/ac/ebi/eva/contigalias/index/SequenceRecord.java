@@ -0,0 +1,147 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.index;
+
+import uk.ac.ebi.eva.contigalias.entities.ChromosomeEntity;
+import uk.ac.ebi.eva.contigalias.entities.ScaffoldEntity;
+import uk.ac.ebi.eva.contigalias.entities.SequenceEntity;
+
+/**
+ * Compact copy of a {@link ChromosomeEntity} or {@link ScaffoldEntity} kept by {@link SequenceAliasIndex}. Only the
+ * checksums can change after the record has been created.
+ */
+class SequenceRecord {
+
+    private final AssemblyRecord assembly;
+
+    private final boolean isChromosome;
+
+    private final String genbankSequenceName;
+
+    private final String enaSequenceName;
+
+    private final String genbank;
+
+    private final String refseq;
+
+    private final String ucscName;
+
+    private volatile String md5checksum;
+
+    private volatile String trunc512checksum;
+
+    SequenceRecord(SequenceEntity entity, AssemblyRecord assembly) {
+        this.assembly = assembly;
+        this.isChromosome = entity instanceof ChromosomeEntity;
+        this.genbank = entity.getGenbank();
+        this.refseq = entity.getRefseq();
+        // Sequence names are often identical to one of the accessions or to each other, so equal values share a
+        // single instance
+        this.genbankSequenceName = deduplicate(entity.getGenbankSequenceName());
+        this.enaSequenceName = deduplicate(entity.getEnaSequenceName());
+        this.ucscName = deduplicate(entity.getUcscName());
+        this.md5checksum = entity.getMd5checksum();
+        this.trunc512checksum = entity.getTrunc512checksum();
+    }
+
+    private String deduplicate(String name) {
+        if (name == null) {
+            return null;
+        } else if (name.equals(genbank)) {
+            return genbank;
+        } else if (name.equals(refseq)) {
+            return refseq;
+        } else if (name.equals(genbankSequenceName)) {
+            return genbankSequenceName;
+        } else if (name.equals(enaSequenceName)) {
+            return enaSequenceName;
+        }
+        return name;
+    }
+
+    AssemblyRecord getAssembly() {
+        return assembly;
+    }
+
+    boolean isChromosome() {
+        return isChromosome;
+    }
+
+    String getAlias(AliasType type) {
+        switch (type) {
+            case GENBANK:
+                return genbank;
+            case REFSEQ:
+                return refseq;
+            case GENBANK_SEQUENCE_NAME:
+                return genbankSequenceName;
+            case ENA_SEQUENCE_NAME:
+                return enaSequenceName;
+            case UCSC_NAME:
+                return ucscName;
+            default:
+                throw new IllegalArgumentException("Unknown alias type " + type);
+        }
+    }
+
+    void setChecksums(String md5checksum, String trunc512checksum) {
+        this.md5checksum = md5checksum;
+        this.trunc512checksum = trunc512checksum;
+    }
+
+    String getMd5checksum() {
+        return md5checksum;
+    }
+
+    String getTrunc512checksum() {
+        return trunc512checksum;
+    }
+
+    /**
+     * @param includeAssembly Whether the parent assembly should be nested inside the returned sequence.
+     * @return A detached {@link ChromosomeEntity} or {@link ScaffoldEntity} equivalent to this record.
+     */
+    SequenceEntity toEntity(boolean includeAssembly) {
+        SequenceEntity entity = isChromosome ? new ChromosomeEntity() : new ScaffoldEntity();
+        return entity.setGenbankSequenceName(genbankSequenceName)
+                     .setEnaSequenceName(enaSequenceName)
+                     .setGenbank(genbank)
+                     .setRefseq(refseq)
+                     .setUcscName(ucscName)
+                     .setMd5checksum(md5checksum)
+                     .setTrunc512checksum(trunc512checksum)
+                     .setAssembly(includeAssembly ? assembly.toEntity() : null);
+    }
+
+    long estimateSize() {
+        long size = SequenceAliasIndex.OBJECT_OVERHEAD_BYTES + SequenceAliasIndex.estimateSize(genbank) +
+                SequenceAliasIndex.estimateSize(refseq) + SequenceAliasIndex.estimateSize(md5checksum) +
+                SequenceAliasIndex.estimateSize(trunc512checksum);
+        if (genbankSequenceName != genbank && genbankSequenceName != refseq) {
+            size += SequenceAliasIndex.estimateSize(genbankSequenceName);
+        }
+        if (enaSequenceName != genbank && enaSequenceName != refseq && enaSequenceName != genbankSequenceName) {
+            size += SequenceAliasIndex.estimateSize(enaSequenceName);
+        }
+        if (ucscName != genbank && ucscName != refseq && ucscName != genbankSequenceName &&
+                ucscName != enaSequenceName) {
+            size += SequenceAliasIndex.estimateSize(ucscName);
+        }
+        return size;
+    }
+
+}
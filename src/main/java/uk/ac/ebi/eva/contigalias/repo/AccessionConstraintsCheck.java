@@ -0,0 +1,124 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.repo;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reports at startup the unique constraints on the accessions of assemblies that are missing. Duplicate assemblies are
+ * only rejected by these constraints, but the schema update creating them does not fail when the assembly table
+ * already holds duplicates, it only logs a warning, and deployments that do not let Hibernate update the schema never
+ * create them. Missing constraints are logged as an error and counted by the gauge {@value #MISSING_CONSTRAINTS}, so
+ * that they can be alerted on without preventing the application from serving lookups.
+ * <p>
+ * The duplicates must be removed before the constraints can be created, for instance by deleting every assembly but the
+ * first found by
+ * </p>
+ * <pre>
+ * select genbank, min(id) from assembly where genbank is not null group by genbank having count(*) &gt; 1;
+ * select refseq, min(id) from assembly where refseq is not null group by refseq having count(*) &gt; 1;
+ * </pre>
+ * <p>
+ * along with its sequences, then by running
+ * </p>
+ * <pre>
+ * alter table assembly add constraint assembly_genbank_key unique (genbank);
+ * alter table assembly add constraint assembly_refseq_key unique (refseq);
+ * </pre>
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class AccessionConstraintsCheck implements InitializingBean {
+
+    static final String MISSING_CONSTRAINTS = "contigalias.assembly.accession-constraints.missing";
+
+    private static final String TABLE = "assembly";
+
+    private final DataSource dataSource;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Logger logger = LoggerFactory.getLogger(AccessionConstraintsCheck.class);
+
+    @Autowired
+    public AccessionConstraintsCheck(DataSource dataSource, MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws SQLException {
+        List<String> missing = findMissingConstraints();
+        Gauge.builder(MISSING_CONSTRAINTS, missing, List::size).strongReference(true)
+             .description("Unique constraints on the accessions of assemblies missing from the database")
+             .register(meterRegistry);
+        if (!missing.isEmpty()) {
+            logger.error("Unique constraints " + missing + " are missing from table " + TABLE + ", so duplicate " +
+                                 "assemblies can be inserted. If the table already holds assemblies sharing an " +
+                                 "accession, remove them, then create the constraints or start again to let the " +
+                                 "schema update create them");
+        }
+    }
+
+    /**
+     * Constraints are looked up through the unique indexes backing them, some databases only mentioning the name of
+     * the constraint in that of its index.
+     *
+     * @return Names of the constraints on the accessions that no unique index of the assembly table backs.
+     */
+    List<String> findMissingConstraints() throws SQLException {
+        List<String> indexes = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String table = metaData.storesUpperCaseIdentifiers() ? TABLE.toUpperCase(Locale.ROOT) : TABLE;
+            try (ResultSet resultSet = metaData.getIndexInfo(null, null, table, true, false)) {
+                while (resultSet.next()) {
+                    String index = resultSet.getString("INDEX_NAME");
+                    if (index != null) {
+                        indexes.add(index.toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+        }
+        List<String> missing = new ArrayList<>();
+        for (String constraint : new String[]{AssemblyEntity.GENBANK_CONSTRAINT, AssemblyEntity.REFSEQ_CONSTRAINT}) {
+            if (indexes.stream().noneMatch(index -> index.contains(constraint))) {
+                missing.add(constraint);
+            }
+        }
+        return missing;
+    }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.repo;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import uk.ac.ebi.eva.contigalias.entities.AliasTableEntity;
+
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.Optional;
+
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+@Repository
+@Transactional(readOnly = true)
+public interface AliasTableRepository extends JpaRepository<AliasTableEntity, Long> {
+
+    default Optional<AliasTableEntity> findAliasTableEntityByAccession(String accession) {
+        return this.findAliasTableEntityByGenbankOrRefseq(accession, accession);
+    }
+
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    Optional<AliasTableEntity> findAliasTableEntityByGenbankOrRefseq(String genbank, String refseq);
+
+    @Transactional
+    void deleteAliasTableEntityByGenbank(String genbank);
+
+    @Transactional
+    void deleteAliasTableEntityByRefseq(String refseq);
+
+    @Modifying
+    @Transactional
+    @Query("delete from AliasTableEntity t where t.assemblyId in ?1")
+    void deleteAliasTableEntitiesByAssemblyIdIn(Collection<Long> assemblyIds);
+
+}
@@ -18,18 +18,23 @@ package uk.ac.ebi.eva.contigalias.repo;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
 
-import javax.transaction.Transactional;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
+@Transactional(readOnly = true)
 public interface AssemblyRepository extends JpaRepository<AssemblyEntity, Long>,
-        JpaSpecificationExecutor<AssemblyEntity> {
+        JpaSpecificationExecutor<AssemblyEntity>, AssemblyRepositoryCustom {
 
     default Optional<AssemblyEntity> findAssemblyEntityByAccession(String accession) {
         return this.findAssemblyEntityByGenbankOrRefseq(accession, accession);
@@ -37,19 +42,60 @@ public interface AssemblyRepository extends JpaRepository<AssemblyEntity, Long>,
 
     Optional<AssemblyEntity> findAssemblyEntityByGenbankOrRefseq(String genbank, String refseq);
 
+    boolean existsByGenbankOrRefseq(String genbank, String refseq);
+
     long count();
 
-    Optional<AssemblyEntity> findTopByIdNotNullOrderById();
+    @Query("select a.id from AssemblyEntity a")
+    Page<Long> findAllIds(Pageable pageable);
+
+    @Query("select a.id, a.genbank, a.refseq from AssemblyEntity a order by a.id")
+    List<Object[]> findAllIdsAndAccessionsOrderById();
+
+    /**
+     * Ids of the assemblies following the given id that have no sequence aliases, which includes assemblies whose
+     * sequences have no names at all.
+     */
+    @Query("select a.id from AssemblyEntity a where a.id > ?1 and not exists " +
+            "(select x.sequenceId from SequenceAliasEntity x where x.assemblyId = a.id) order by a.id")
+    List<Long> findIdsWithoutSequenceAliasesAfter(long id, Pageable pageable);
+
+    /**
+     * Ids of the assemblies following the given id that have no alias table.
+     */
+    @Query("select a.id from AssemblyEntity a where a.id > ?1 and not exists " +
+            "(select t.assemblyId from AliasTableEntity t where t.assemblyId = a.id) order by a.id")
+    List<Long> findIdsWithoutAliasTableAfter(long id, Pageable pageable);
 
     Optional<AssemblyEntity> findAssemblyEntityByGenbank(String genbank);
 
     Optional<AssemblyEntity> findAssemblyEntityByRefseq(String refseq);
 
-    Page<AssemblyEntity> findAssemblyEntitiesByTaxid(long taxid, Pageable pageable);
+    @Query("select " + Projections.ASSEMBLY + " from AssemblyEntity a where a.genbank = ?1 or a.refseq = ?1")
+    Optional<AssemblyEntity> findAssemblyProjectionByAccession(String accession);
+
+    @Query("select " + Projections.ASSEMBLY + " from AssemblyEntity a where a.genbank = ?1")
+    Optional<AssemblyEntity> findAssemblyProjectionByGenbank(String genbank);
+
+    @Query("select " + Projections.ASSEMBLY + " from AssemblyEntity a where a.refseq = ?1")
+    Optional<AssemblyEntity> findAssemblyProjectionByRefseq(String refseq);
+
+    @Query(value = "select " + Projections.ASSEMBLY + " from AssemblyEntity a where a.taxid = ?1 order by a.id",
+            countQuery = "select count(a) from AssemblyEntity a where a.taxid = ?1")
+    Page<AssemblyEntity> findAssemblyProjectionsByTaxid(long taxid, Pageable pageable);
+
+    @Query("select " + Projections.ASSEMBLY + " from AssemblyEntity a where a.id in ?1")
+    List<AssemblyEntity> findAssemblyProjectionsByIdIn(Collection<Long> ids);
+
+    @Query("select " + Projections.ASSEMBLY + " from AssemblyEntity a where a.genbank in ?1")
+    List<AssemblyEntity> findAssemblyProjectionsByGenbankIn(Collection<String> genbanks);
 
-    @Transactional
-    void deleteAssemblyEntityByGenbank(String genbank);
+    @Query("select " + Projections.ASSEMBLY + " from AssemblyEntity a where a.refseq in ?1")
+    List<AssemblyEntity> findAssemblyProjectionsByRefseqIn(Collection<String> refseqs);
 
-    @Transactional
-    void deleteAssemblyEntityByRefseq(String refseq);
+    /**
+     * Same as {@link #findAssemblyProjectionsByTaxid(long, Pageable)}, without counting the matching assemblies.
+     */
+    @Query("select " + Projections.ASSEMBLY + " from AssemblyEntity a where a.taxid = ?1 order by a.id")
+    Slice<AssemblyEntity> findAssemblyProjectionSliceByTaxid(long taxid, Pageable pageable);
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.repo;
+
+import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Queries loading assemblies together with their chromosomes and scaffolds. Both collections are lazy, so these are
+ * meant for the few callers that actually need the sequences of an assembly. Deleting assemblies, on the other hand,
+ * never loads their sequences.
+ */
+public interface AssemblyRepositoryCustom {
+
+    Optional<AssemblyEntity> findAssemblyWithSequencesByAccession(String accession);
+
+    Optional<AssemblyEntity> findAssemblyWithSequencesByGenbank(String genbank);
+
+    Optional<AssemblyEntity> findAssemblyWithSequencesByRefseq(String refseq);
+
+    /**
+     * @return Assemblies having the given ids, in no particular order.
+     */
+    List<AssemblyEntity> findAssembliesWithSequencesByIdIn(Collection<Long> ids);
+
+    /**
+     * Saves a new assembly along with its chromosomes and scaffolds, and inserts the names of these sequences into the
+     * sequence alias table, in a single transaction.
+     */
+    void insertAssembly(AssemblyEntity assembly);
+
+    /**
+     * Inserts the names of the chromosomes and scaffolds of assemblies that have none in the sequence alias table yet,
+     * such as assemblies inserted before that table existed. Names already present are skipped.
+     *
+     * @return Number of names inserted.
+     */
+    int insertSequenceAliasesByAssemblyIdIn(Collection<Long> ids);
+
+    /**
+     * Ids of the assemblies following the given id that have a taxonomic ID and chromosomes or scaffolds lacking it,
+     * such as the sequences inserted before it was stored on them. Found through the taxonomic ID indexes of the
+     * sequence tables, so this returns at once when there are none.
+     */
+    List<Long> findIdsWithMissingSequenceTaxidsAfter(long id, int limit);
+
+    /**
+     * Copies the taxonomic ID of the given assemblies onto those of their chromosomes and scaffolds that lack it.
+     *
+     * @return Number of sequences updated.
+     */
+    int updateMissingSequenceTaxidsByAssemblyIdIn(Collection<Long> ids);
+
+    /**
+     * Counts the chromosomes and scaffolds of the assemblies whose sequences have not been counted yet, such as the
+     * assemblies inserted before their counts were kept.
+     *
+     * @return Number of assemblies updated.
+     */
+    int updateMissingSequenceCounts();
+
+    /**
+     * Adds to the numbers of chromosomes and scaffolds of an assembly, unless they have not been counted yet.
+     */
+    void addToSequenceCounts(long id, int chromosomes, int scaffolds);
+
+    /**
+     * Deletes assemblies along with their chromosomes, scaffolds and sequence aliases, with one statement per table in
+     * a single transaction.
+     *
+     * @return Number of assemblies deleted.
+     */
+    int deleteAssembliesByIdIn(Collection<Long> ids);
+
+}
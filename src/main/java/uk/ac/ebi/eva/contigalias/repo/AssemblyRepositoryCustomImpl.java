@@ -0,0 +1,193 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.repo;
+
+import org.hibernate.jpa.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
+
+import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Chromosomes and scaffolds are both unordered lists, which Hibernate refuses to fetch join in a single query. They are
+ * instead fetched by two queries run in the same persistence context, so the second one initialises the scaffolds of
+ * the very instances returned by the first one. Assemblies are loaded read-only, so Hibernate keeps no snapshot of
+ * them or of their sequences, and changes made to them are never flushed.
+ */
+public class AssemblyRepositoryCustomImpl implements AssemblyRepositoryCustom {
+
+    private static final String[] SEQUENCE_ENTITY_NAMES = {"ChromosomeEntity", "ScaffoldEntity"};
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<AssemblyEntity> findAssemblyWithSequencesByAccession(String accession) {
+        return findFirst(findAssembliesWithSequences("a.genbank = :accession or a.refseq = :accession", "accession",
+                                                     accession));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<AssemblyEntity> findAssemblyWithSequencesByGenbank(String genbank) {
+        return findFirst(findAssembliesWithSequences("a.genbank = :genbank", "genbank", genbank));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<AssemblyEntity> findAssemblyWithSequencesByRefseq(String refseq) {
+        return findFirst(findAssembliesWithSequences("a.refseq = :refseq", "refseq", refseq));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<AssemblyEntity> findAssembliesWithSequencesByIdIn(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return findAssembliesWithSequences("a.id in :ids", "ids", ids);
+    }
+
+    @Override
+    @Transactional
+    public void insertAssembly(AssemblyEntity assembly) {
+        AssemblyEntity saved = assembly;
+        if (assembly.getId() == 0) {
+            entityManager.persist(assembly);
+        } else {
+            saved = entityManager.merge(assembly);
+        }
+        // The names are copied from the sequence tables, so the sequences must be written first
+        entityManager.flush();
+        SequenceAliases.insertByAssemblyIdIn(entityManager, Collections.singleton(saved.getId()));
+    }
+
+    @Override
+    @Transactional
+    public int insertSequenceAliasesByAssemblyIdIn(Collection<Long> ids) {
+        return SequenceAliases.insertMissingByAssemblyIdIn(entityManager, ids);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Long> findIdsWithMissingSequenceTaxidsAfter(long id, int limit) {
+        SortedSet<Long> ids = new TreeSet<>();
+        for (String entityName : SEQUENCE_ENTITY_NAMES) {
+            ids.addAll(entityManager.createQuery(
+                    "select distinct s.assembly.id from " + entityName + " s where s.taxid is null and " +
+                            "s.assembly.id > :id and s.assembly.taxid is not null order by s.assembly.id", Long.class)
+                                    .setParameter("id", id)
+                                    .setMaxResults(limit)
+                                    .getResultList());
+        }
+        return ids.stream().limit(limit).collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional
+    public int updateMissingSequenceTaxidsByAssemblyIdIn(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int updated = 0;
+        for (String entityName : SEQUENCE_ENTITY_NAMES) {
+            updated += entityManager.createQuery(
+                    "update " + entityName + " s set s.taxid = (select a.taxid from AssemblyEntity a where " +
+                            "a.id = s.assembly.id) where s.taxid is null and s.assembly.id in :ids")
+                                    .setParameter("ids", ids)
+                                    .executeUpdate();
+        }
+        return updated;
+    }
+
+    @Override
+    @Transactional
+    public int updateMissingSequenceCounts() {
+        return entityManager.createQuery(
+                "update AssemblyEntity a set " +
+                        "a.chromosomeCount = (select count(c) from ChromosomeEntity c where c.assembly.id = a.id), " +
+                        "a.scaffoldCount = (select count(s) from ScaffoldEntity s where s.assembly.id = a.id) " +
+                        "where a.chromosomeCount is null or a.scaffoldCount is null")
+                            .executeUpdate();
+    }
+
+    @Override
+    @Transactional
+    public void addToSequenceCounts(long id, int chromosomes, int scaffolds) {
+        entityManager.createQuery("update AssemblyEntity a set a.chromosomeCount = a.chromosomeCount + :chromosomes, " +
+                                          "a.scaffoldCount = a.scaffoldCount + :scaffolds where a.id = :id")
+                     .setParameter("chromosomes", chromosomes)
+                     .setParameter("scaffolds", scaffolds)
+                     .setParameter("id", id)
+                     .executeUpdate();
+    }
+
+    @Override
+    @Transactional
+    public int deleteAssembliesByIdIn(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        // Bulk deletes bypass the persistence context, so the cascade to sequences is done by hand
+        SequenceAliases.deleteByAssemblyIdIn(entityManager, ids);
+        entityManager.createQuery("delete from ChromosomeEntity c where c.assembly.id in :ids")
+                     .setParameter("ids", ids)
+                     .executeUpdate();
+        entityManager.createQuery("delete from ScaffoldEntity s where s.assembly.id in :ids")
+                     .setParameter("ids", ids)
+                     .executeUpdate();
+        return entityManager.createQuery("delete from AssemblyEntity a where a.id in :ids")
+                            .setParameter("ids", ids)
+                            .executeUpdate();
+    }
+
+    private List<AssemblyEntity> findAssembliesWithSequences(String condition, String parameter, Object value) {
+        TypedQuery<AssemblyEntity> chromosomes = entityManager.createQuery(
+                "select distinct a from AssemblyEntity a left join fetch a.chromosomes where " + condition,
+                AssemblyEntity.class);
+        List<AssemblyEntity> assemblies = chromosomes.setParameter(parameter, value)
+                                                     .setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false)
+                                                     .setHint(QueryHints.HINT_READONLY, true)
+                                                     .getResultList();
+        if (!assemblies.isEmpty()) {
+            entityManager.createQuery(
+                    "select distinct a from AssemblyEntity a left join fetch a.scaffolds where a in :assemblies",
+                    AssemblyEntity.class)
+                         .setParameter("assemblies", assemblies)
+                         .setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false)
+                         .setHint(QueryHints.HINT_READONLY, true)
+                         .getResultList();
+        }
+        return assemblies;
+    }
+
+    private static Optional<AssemblyEntity> findFirst(List<AssemblyEntity> assemblies) {
+        return assemblies.isEmpty() ? Optional.empty() : Optional.of(assemblies.get(0));
+    }
+
+}
@@ -18,77 +18,28 @@ package uk.ac.ebi.eva.contigalias.repo;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
-import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
 import uk.ac.ebi.eva.contigalias.entities.ChromosomeEntity;
 
-@Repository
-public interface ChromosomeRepository extends JpaRepository<ChromosomeEntity, Long> {
-
-    Page<ChromosomeEntity> findChromosomeEntitiesByGenbank(String genbank, Pageable request);
-
-    Page<ChromosomeEntity> findChromosomeEntitiesByRefseq(String refseq, Pageable request);
-
-    Page<ChromosomeEntity> findChromosomeEntitiesByGenbankOrRefseq(String genbank, String refseq, Pageable request);
-
-    Page<ChromosomeEntity> findChromosomeEntitiesByAssembly_Genbank(String asmGenbank, Pageable request);
-
-    Page<ChromosomeEntity> findChromosomeEntitiesByAssembly_Refseq(String asmRefseq, Pageable request);
-
-    Page<ChromosomeEntity> findChromosomeEntitiesByGenbankSequenceNameAndAssembly_Taxid(String genbankName, long asmTaxid, Pageable request);
-
-    Page<ChromosomeEntity> findChromosomeEntitiesByUcscNameAndAssembly_Taxid(String ucscName, long asmTaxid,
-                                                                             Pageable request);
-
-    Page<ChromosomeEntity> findChromosomeEntitiesByEnaSequenceNameAndAssembly_Taxid(String enaName, long asmTaxid,
-                                                                                    Pageable request);
-
-    Page<ChromosomeEntity> findChromosomeEntitiesByGenbankSequenceNameAndAssembly(String genbankName, AssemblyEntity assembly,
-                                                                                  Pageable request);
-
-    Page<ChromosomeEntity> findChromosomeEntitiesByUcscNameAndAssembly(String ucscName, AssemblyEntity assembly,
-                                                                       Pageable request);
-
-    Page<ChromosomeEntity> findChromosomeEntitiesByEnaSequenceNameAndAssembly(String enaName, AssemblyEntity assembly,
-                                                                              Pageable request);
-
-    Page<ChromosomeEntity> findChromosomeEntitiesByGenbankSequenceName(String genbankName, Pageable request);
-
-    Page<ChromosomeEntity> findChromosomeEntitiesByEnaSequenceName(String enaSequenceName, Pageable request);
+import javax.persistence.QueryHint;
 
-    Page<ChromosomeEntity> findChromosomeEntitiesByAssemblyGenbankOrAssemblyRefseq(String genbank, String refseq,
-                                                                                   Pageable request);
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
-    Page<ChromosomeEntity> findChromosomeEntitiesByUcscName(String ucscName, Pageable request);
-
-    long countChromosomeEntitiesByGenbank(String genbank);
-
-    long countChromosomeEntitiesByRefseq(String refseq);
-
-    long countChromosomeEntitiesByAssembly_Genbank(String asmGenbank);
-
-    long countChromosomeEntitiesByAssembly_Refseq(String asmRefseq);
-
-    long countChromosomeEntitiesByGenbankSequenceNameAndAssembly_Taxid(String genbankName, long asmTaxid);
-
-    long countChromosomeEntitiesByUcscNameAndAssembly_Taxid(String ucscName, long asmTaxid);
-
-    long countChromosomeEntitiesByEnaSequenceNameAndAssembly_Taxid(String enaName, long asmTaxid);
-
-    long countChromosomeEntitiesByGenbankSequenceNameAndAssembly(String genbankName, AssemblyEntity assembly);
-
-    long countChromosomeEntitiesByUcscNameAndAssembly(String ucscName, AssemblyEntity assembly);
-
-    long countChromosomeEntitiesByEnaSequenceNameAndAssembly(String enaName, AssemblyEntity assembly);
-
-    long countChromosomeEntitiesByGenbankSequenceName(String genbankName);
-
-    long countChromosomeEntitiesByAssemblyGenbankOrAssemblyRefseq(String genbank, String refseq);
+@Repository
+@Transactional(readOnly = true)
+public interface ChromosomeRepository extends JpaRepository<ChromosomeEntity, Long>, ChromosomeRepositoryCustom {
 
-    long countChromosomeEntitiesByUcscName(String ucscName);
+    @Query("select c.genbank, c.refseq, c.genbankSequenceName, c.enaSequenceName, c.ucscName " +
+            "from ChromosomeEntity c order by c.id")
+    Slice<Object[]> findAllAliases(Pageable request);
 
-    long countChromosomeEntitiesByEnaSequenceName(String enaName);
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    Page<ChromosomeEntity> findChromosomeEntitiesByGenbankOrRefseq(String genbank, String refseq, Pageable request);
 
 }
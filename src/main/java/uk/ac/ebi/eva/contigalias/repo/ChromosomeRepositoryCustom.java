@@ -0,0 +1,78 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.repo;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
+import uk.ac.ebi.eva.contigalias.entities.ChromosomeEntity;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Projection queries returning detached chromosomes, see {@link SequenceProjectionQueries}. Unless stated otherwise,
+ * the assembly of the returned chromosomes is selected as well if the results are not filtered by assembly, and is
+ * null otherwise.
+ */
+public interface ChromosomeRepositoryCustom {
+
+    Page<ChromosomeEntity> findChromosomeProjectionsByGenbank(String genbank, Pageable request);
+
+    Page<ChromosomeEntity> findChromosomeProjectionsByRefseq(String refseq, Pageable request);
+
+    Page<ChromosomeEntity> findChromosomeProjectionsByAssemblyGenbank(String asmGenbank, Pageable request);
+
+    Page<ChromosomeEntity> findChromosomeProjectionsByAssemblyRefseq(String asmRefseq, Pageable request);
+
+    Page<ChromosomeEntity> findChromosomeProjectionsByAssemblyAccession(String asmAccession, Pageable request);
+
+    Page<ChromosomeEntity> findChromosomeProjectionsByGenbankSequenceName(String genbankName, Pageable request);
+
+    Page<ChromosomeEntity> findChromosomeProjectionsByUcscName(String ucscName, Pageable request);
+
+    Page<ChromosomeEntity> findChromosomeProjectionsByEnaSequenceName(String enaName, Pageable request);
+
+    Page<ChromosomeEntity> findChromosomeProjectionsByGenbankSequenceNameAndAssemblyTaxid(
+            String genbankName, long asmTaxid, Pageable request);
+
+    Page<ChromosomeEntity> findChromosomeProjectionsByUcscNameAndAssemblyTaxid(
+            String ucscName, long asmTaxid, Pageable request);
+
+    Page<ChromosomeEntity> findChromosomeProjectionsByEnaSequenceNameAndAssemblyTaxid(
+            String enaName, long asmTaxid, Pageable request);
+
+    Page<ChromosomeEntity> findChromosomeProjectionsByGenbankSequenceNameAndAssemblyId(
+            String genbankName, long asmId, Pageable request);
+
+    Page<ChromosomeEntity> findChromosomeProjectionsByUcscNameAndAssemblyId(
+            String ucscName, long asmId, Pageable request);
+
+    Page<ChromosomeEntity> findChromosomeProjectionsByEnaSequenceNameAndAssemblyId(
+            String enaName, long asmId, Pageable request);
+
+    /**
+     * @return Chromosomes of the given assemblies, along with their assembly.
+     */
+    List<ChromosomeEntity> findChromosomeProjectionsByAssemblyIdIn(Collection<Long> asmIds);
+
+    List<AssemblyEntity> findAssemblyProjectionsByChromosomeGenbank(String chrGenbank);
+
+    List<AssemblyEntity> findAssemblyProjectionsByChromosomeRefseq(String chrRefseq);
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.repo;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
+import uk.ac.ebi.eva.contigalias.entities.ChromosomeEntity;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+public class ChromosomeRepositoryCustomImpl extends SequenceProjectionQueries<ChromosomeEntity>
+        implements ChromosomeRepositoryCustom {
+
+    public ChromosomeRepositoryCustomImpl() {
+        super("ChromosomeEntity", "chromosomeCount", ChromosomeEntity::new);
+    }
+
+    @Override
+    public Page<ChromosomeEntity> findChromosomeProjectionsByGenbank(String genbank, Pageable request) {
+        return findSequences("s.genbank = ?1", true, request, genbank);
+    }
+
+    @Override
+    public Page<ChromosomeEntity> findChromosomeProjectionsByRefseq(String refseq, Pageable request) {
+        return findSequences("s.refseq = ?1", true, request, refseq);
+    }
+
+    @Override
+    public Page<ChromosomeEntity> findChromosomeProjectionsByAssemblyGenbank(String asmGenbank, Pageable request) {
+        return findSequencesOfAssemblies("a.genbank = ?1", request, asmGenbank);
+    }
+
+    @Override
+    public Page<ChromosomeEntity> findChromosomeProjectionsByAssemblyRefseq(String asmRefseq, Pageable request) {
+        return findSequencesOfAssemblies("a.refseq = ?1", request, asmRefseq);
+    }
+
+    @Override
+    public Page<ChromosomeEntity> findChromosomeProjectionsByAssemblyAccession(String asmAccession, Pageable request) {
+        return findSequencesOfAssemblies(BY_ASSEMBLY_ACCESSION, request, asmAccession);
+    }
+
+    @Override
+    public Page<ChromosomeEntity> findChromosomeProjectionsByGenbankSequenceName(String genbankName, Pageable request) {
+        return findSequences("s.genbankSequenceName = ?1", true, request, genbankName);
+    }
+
+    @Override
+    public Page<ChromosomeEntity> findChromosomeProjectionsByUcscName(String ucscName, Pageable request) {
+        return findSequences("s.ucscName = ?1", true, request, ucscName);
+    }
+
+    @Override
+    public Page<ChromosomeEntity> findChromosomeProjectionsByEnaSequenceName(String enaName, Pageable request) {
+        return findSequences("s.enaSequenceName = ?1", true, request, enaName);
+    }
+
+    @Override
+    public Page<ChromosomeEntity> findChromosomeProjectionsByGenbankSequenceNameAndAssemblyTaxid(
+            String genbankName, long asmTaxid, Pageable request) {
+        return findSequences("s.genbankSequenceName = ?1 and s.taxid = ?2", true, request, genbankName, asmTaxid);
+    }
+
+    @Override
+    public Page<ChromosomeEntity> findChromosomeProjectionsByUcscNameAndAssemblyTaxid(
+            String ucscName, long asmTaxid, Pageable request) {
+        return findSequences("s.ucscName = ?1 and s.taxid = ?2", true, request, ucscName, asmTaxid);
+    }
+
+    @Override
+    public Page<ChromosomeEntity> findChromosomeProjectionsByEnaSequenceNameAndAssemblyTaxid(
+            String enaName, long asmTaxid, Pageable request) {
+        return findSequences("s.enaSequenceName = ?1 and s.taxid = ?2", true, request, enaName, asmTaxid);
+    }
+
+    @Override
+    public Page<ChromosomeEntity> findChromosomeProjectionsByGenbankSequenceNameAndAssemblyId(
+            String genbankName, long asmId, Pageable request) {
+        return findSequences("s.genbankSequenceName = ?1 and a.id = ?2", false, request, genbankName, asmId);
+    }
+
+    @Override
+    public Page<ChromosomeEntity> findChromosomeProjectionsByUcscNameAndAssemblyId(
+            String ucscName, long asmId, Pageable request) {
+        return findSequences("s.ucscName = ?1 and a.id = ?2", false, request, ucscName, asmId);
+    }
+
+    @Override
+    public Page<ChromosomeEntity> findChromosomeProjectionsByEnaSequenceNameAndAssemblyId(
+            String enaName, long asmId, Pageable request) {
+        return findSequences("s.enaSequenceName = ?1 and a.id = ?2", false, request, enaName, asmId);
+    }
+
+    @Override
+    public List<ChromosomeEntity> findChromosomeProjectionsByAssemblyIdIn(Collection<Long> asmIds) {
+        if (asmIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return findSequences("a.id in ?1", true, Pageable.unpaged(), asmIds).getContent();
+    }
+
+    @Override
+    public List<AssemblyEntity> findAssemblyProjectionsByChromosomeGenbank(String chrGenbank) {
+        return findAssemblies("s.genbank = ?1", chrGenbank);
+    }
+
+    @Override
+    public List<AssemblyEntity> findAssemblyProjectionsByChromosomeRefseq(String chrRefseq) {
+        return findAssemblies("s.refseq = ?1", chrRefseq);
+    }
+
+}
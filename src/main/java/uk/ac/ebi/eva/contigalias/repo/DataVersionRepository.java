@@ -0,0 +1,41 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.repo;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import uk.ac.ebi.eva.contigalias.entities.DataVersionEntity;
+
+import java.util.Optional;
+
+@Repository
+@Transactional(readOnly = true)
+public interface DataVersionRepository extends JpaRepository<DataVersionEntity, Integer> {
+
+    @Query("select v.version from DataVersionEntity v where v.id = " + DataVersionEntity.ID)
+    Optional<Long> findVersion();
+
+    @Modifying
+    @Transactional
+    @Query("update DataVersionEntity v set v.version = v.version + 1 where v.id = " + DataVersionEntity.ID)
+    int incrementVersion();
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.repo;
+
+import java.util.function.Supplier;
+
+/**
+ * Marks the current thread as requiring reads from the primary database, so that {@link ReplicaRoutingDataSource}
+ * does not send its read-only transactions to replicas that may not have caught up with a recent write yet.
+ */
+public final class PrimaryReads {
+
+    private static final ThreadLocal<Boolean> REQUIRED = new ThreadLocal<>();
+
+    private PrimaryReads() {
+    }
+
+    public static void require() {
+        REQUIRED.set(Boolean.TRUE);
+    }
+
+    public static void release() {
+        REQUIRED.remove();
+    }
+
+    public static boolean isRequired() {
+        return REQUIRED.get() != null;
+    }
+
+    /**
+     * Runs a task reading from the primary, then restores the previous marking of the thread, so that it can be used
+     * within a request that already requires primary reads.
+     */
+    public static <T> T call(Supplier<T> task) {
+        boolean required = isRequired();
+        require();
+        try {
+            return task.get();
+        } finally {
+            if (!required) {
+                release();
+            }
+        }
+    }
+
+    public static void run(Runnable task) {
+        call(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.repo;
+
+import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * JPQL fragments shared by the projection queries of the repositories. Projections select only the columns returned by
+ * the API and build detached objects from them, instead of loading managed entities.
+ */
+final class Projections {
+
+    /**
+     * Columns of an assembly aliased {@code a}, in the order expected by {@link #toAssembly(Object[], int)}.
+     */
+    static final String ASSEMBLY_COLUMNS = "a.id, a.name, a.organism, a.taxid, a.genbank, a.refseq, " +
+            "a.isGenbankRefseqIdentical, a.md5checksum, a.trunc512checksum";
+
+    /**
+     * Constructor expression building a detached {@link AssemblyEntity} from an assembly aliased {@code a}.
+     */
+    static final String ASSEMBLY = "new uk.ac.ebi.eva.contigalias.entities.AssemblyEntity(" + ASSEMBLY_COLUMNS + ")";
+
+    private static final Pattern ASSEMBLY_REFERENCE = Pattern.compile("\\ba\\.");
+
+    private Projections() {
+    }
+
+    /**
+     * A condition on the assembly aliased {@code a} only holds for sequences that have an assembly, so such conditions
+     * use an inner join. The results are the same as with an outer join, but the database is then free to start from
+     * the assembly, found through one of its indexes, and reach its sequences through their assembly index.
+     *
+     * @return Join keyword to reach the assembly of a sequence filtered by the given condition.
+     */
+    static String assemblyJoin(String condition) {
+        return ASSEMBLY_REFERENCE.matcher(condition).find() ? "join" : "left join";
+    }
+
+    /**
+     * @param counts Numbers of sequences kept on assemblies, any of which may be null if it has not been counted yet.
+     * @return Sum of the numbers, or null if any of them is null.
+     */
+    static Long sumCounts(List<?> counts) {
+        long sum = 0;
+        for (Object count : counts) {
+            if (count == null) {
+                return null;
+            }
+            sum += ((Number) count).longValue();
+        }
+        return sum;
+    }
+
+    /**
+     * @param row    Row of a query selecting {@link #ASSEMBLY_COLUMNS}, or the equivalent SQL columns. Numeric columns
+     *               are accepted as any {@link Number} because native queries may return them as other types.
+     * @param offset Index of the first assembly column in the row.
+     * @return Detached assembly, or null if the row has no assembly.
+     */
+    static AssemblyEntity toAssembly(Object[] row, int offset) {
+        if (row[offset] == null) {
+            return null;
+        }
+        Number taxid = (Number) row[offset + 3];
+        return new AssemblyEntity(((Number) row[offset]).longValue(), (String) row[offset + 1],
+                                  (String) row[offset + 2], taxid == null ? null : taxid.longValue(),
+                                  (String) row[offset + 4], (String) row[offset + 5], (Boolean) row[offset + 6],
+                                  (String) row[offset + 7], (String) row[offset + 8]);
+    }
+
+}
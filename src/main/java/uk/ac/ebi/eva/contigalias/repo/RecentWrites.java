@@ -0,0 +1,105 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.repo;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import uk.ac.ebi.eva.contigalias.event.AssemblyChecksumsUpdatedEvent;
+import uk.ac.ebi.eva.contigalias.event.AssemblyDeletedEvent;
+import uk.ac.ebi.eva.contigalias.event.AssemblyInsertedEvent;
+import uk.ac.ebi.eva.contigalias.event.DataVersionChangedEvent;
+import uk.ac.ebi.eva.contigalias.event.SequenceChecksumsUpdatedEvent;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of the last write made by this node, or made by another node and detected by this one, when reads are sent to
+ * replicas. Requests received during the primary read window following a write are served by the primary, so that
+ * they see the write whatever they look it up by, even if the replicas have not caught up with it yet.
+ */
+@Component
+public class RecentWrites {
+
+    private final boolean enabled;
+
+    private final long windowNanos;
+
+    private volatile long lastWriteNanos;
+
+    private volatile boolean written = false;
+
+    @Autowired
+    public RecentWrites(@Value("${config.replicas.enabled:false}") boolean enabled,
+                        @Value("${config.replicas.primary-read-window-seconds:5}") long windowSeconds) {
+        this.enabled = enabled;
+        this.windowNanos = TimeUnit.SECONDS.toNanos(windowSeconds);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return Whether data was written during the primary read window.
+     */
+    public boolean isWithinWindow() {
+        return written && System.nanoTime() - lastWriteNanos < windowNanos;
+    }
+
+    @EventListener
+    public void onAssemblyInserted(AssemblyInsertedEvent event) {
+        record();
+    }
+
+    @EventListener
+    public void onAssemblyDeleted(AssemblyDeletedEvent event) {
+        record();
+    }
+
+    @EventListener
+    public void onAssemblyChecksumsUpdated(AssemblyChecksumsUpdatedEvent event) {
+        record();
+    }
+
+    @EventListener
+    public void onSequenceChecksumsUpdated(SequenceChecksumsUpdatedEvent event) {
+        record();
+    }
+
+    @EventListener
+    public void onDataVersionChanged(DataVersionChangedEvent event) {
+        record();
+    }
+
+    private void record() {
+        if (enabled) {
+            lastWriteNanos = System.nanoTime();
+            written = true;
+        }
+    }
+
+    /**
+     * Forgets the last write, as if the primary read window following it had passed.
+     */
+    void clear() {
+        written = false;
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.repo;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Replaces the data source of {@code spring.datasource} with a {@link ReplicaRoutingDataSource} sending read-only
+ * transactions to the replicas listed in {@code config.replicas.urls}. Replicas use the credentials and the Hikari pool
+ * settings of the primary.
+ */
+@Configuration
+@ConditionalOnProperty(name = "config.replicas.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    private static final String HIKARI_PROPERTIES = "spring.datasource.hikari";
+
+    /**
+     * Transactions are only known to be read-only once they have begun, so the routing data source is only asked for a
+     * connection when the first statement runs.
+     */
+    @Bean
+    public DataSource dataSource(
+            DataSourceProperties properties, Environment environment, MeterRegistry meterRegistry,
+            @Value("${config.replicas.urls:}") String[] urls,
+            @Value("${config.replicas.retry-interval-seconds:30}") long retryIntervalSeconds,
+            @Value("${config.replicas.max-lag-seconds:30}") double maxLagSeconds,
+            @Value("${config.replicas.health-check-interval-seconds:10}") long healthCheckSeconds) {
+        Binder binder = Binder.get(environment);
+        HikariDataSource primary = createDataSource(properties, binder, meterRegistry, properties.determineUrl(),
+                                                    "primary");
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : urls) {
+            HikariDataSource replica = createDataSource(properties, binder, meterRegistry, url.trim(),
+                                                        "replica-" + replicas.size());
+            replica.setReadOnly(true);
+            // Connections are attempted when first needed, so that an unreachable replica does not prevent startup
+            replica.setInitializationFailTimeout(-1);
+            replicas.put(replica.getPoolName(), replica);
+        }
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(
+                primary, replicas, retryIntervalSeconds, maxLagSeconds, healthCheckSeconds);
+        Gauge.builder("contigalias.datasource.replicas.available", routingDataSource,
+                      ReplicaRoutingDataSource::getAvailableReplicaCount)
+             .description("Replicas that read-only transactions may be sent to")
+             .register(meterRegistry);
+        return new ClosingDataSourceProxy(routingDataSource);
+    }
+
+    private static HikariDataSource createDataSource(DataSourceProperties properties, Binder binder,
+                                                     MeterRegistry meterRegistry, String url, String poolName) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).url(url)
+                                                .build();
+        binder.bind(HIKARI_PROPERTIES, Bindable.ofInstance(dataSource));
+        dataSource.setPoolName(poolName);
+        // Pools are not beans, so their metrics are not registered by Spring Boot
+        dataSource.setMetricRegistry(meterRegistry);
+        return dataSource;
+    }
+
+    /**
+     * The routing data source is not a bean of its own, which would be initialised as a second data source, so it is
+     * closed along with the proxy.
+     */
+    private static class ClosingDataSourceProxy extends LazyConnectionDataSourceProxy implements Closeable {
+
+        private final ReplicaRoutingDataSource routingDataSource;
+
+        private ClosingDataSourceProxy(ReplicaRoutingDataSource routingDataSource) {
+            super(routingDataSource);
+            this.routingDataSource = routingDataSource;
+        }
+
+        @Override
+        public void close() {
+            routingDataSource.close();
+        }
+
+    }
+
+}
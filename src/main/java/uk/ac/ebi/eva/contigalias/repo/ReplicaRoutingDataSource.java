@@ -0,0 +1,240 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.repo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out connections to read-only transactions from replicas of the primary database, and every other connection
+ * from the primary. Replicas are taken in turn, skipping those that failed to give a connection during the last retry
+ * interval and those found lagging too far behind the primary, or no longer streaming from it, by the periodic health
+ * check. When no replica is available, reads fall back to the primary.
+ * <p>
+ * Threads marked by {@link PrimaryReads} read from the primary, so that requests received shortly after a write, and
+ * the work done at startup, see what was written even if replicas have not caught up yet. The staleness of what other
+ * reads see is bounded by the maximum replication lag.
+ * </p>
+ * <p>
+ * Transactions are only known to be read-only once they have begun, so this data source has to be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, which only obtains a connection when the
+ * first statement runs.
+ * </p>
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    /**
+     * Whether a PostgreSQL server is a standby streaming from its primary, and the seconds since the last transaction
+     * it replayed. A streaming standby that has replayed everything it received is not lagging, however long ago the
+     * primary was last written to. A standby whose WAL receiver is disconnected has replayed everything it received
+     * too, but may be arbitrarily far behind, so it is never considered caught up.
+     */
+    private static final String POSTGRESQL_LAG_QUERY =
+            "select pg_is_in_recovery(), " +
+                    "exists (select 1 from pg_stat_wal_receiver where status = 'streaming'), " +
+                    "case when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0 " +
+                    "else extract(epoch from now() - pg_last_xact_replay_timestamp()) end";
+
+    private static final String POSTGRESQL = "PostgreSQL";
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final DataSource primary;
+
+    private final List<Replica> replicas;
+
+    private final long retryIntervalNanos;
+
+    private final double maxLagSeconds;
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    private final ScheduledExecutorService healthCheckExecutor;
+
+    /**
+     * @param replicas                 Replica data sources by name, in the order in which they are taken in turn.
+     * @param retryIntervalSeconds     Time during which a replica is skipped after failing to give a connection.
+     * @param maxLagSeconds            Replication lag beyond which a replica is skipped until it catches up.
+     * @param healthCheckSeconds       Interval between health checks of the replicas, not run if not positive.
+     */
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, long retryIntervalSeconds,
+                                    double maxLagSeconds, long healthCheckSeconds) {
+        this.primary = primary;
+        this.replicas = new ArrayList<>();
+        replicas.forEach((name, dataSource) -> this.replicas.add(new Replica(name, dataSource)));
+        this.retryIntervalNanos = TimeUnit.SECONDS.toNanos(retryIntervalSeconds);
+        this.maxLagSeconds = maxLagSeconds;
+        if (healthCheckSeconds > 0 && !replicas.isEmpty()) {
+            healthCheckExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "replica-health-check");
+                thread.setDaemon(true);
+                return thread;
+            });
+            healthCheckExecutor.scheduleWithFixedDelay(this::checkReplicas, healthCheckSeconds, healthCheckSeconds,
+                                                       TimeUnit.SECONDS);
+        } else {
+            healthCheckExecutor = null;
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || PrimaryReads.isRequired()) {
+            return primary.getConnection();
+        }
+        int first = nextReplica.getAndIncrement();
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get(Math.floorMod(first + i, replicas.size()));
+            if (!replica.isAvailable()) {
+                continue;
+            }
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException e) {
+                logger.warn("Could not connect to replica " + replica.name + ", skipping it for " +
+                                    TimeUnit.NANOSECONDS.toSeconds(retryIntervalNanos) + " seconds", e);
+                replica.retryAtNanos = System.nanoTime() + retryIntervalNanos;
+            }
+        }
+        return primary.getConnection();
+    }
+
+    /**
+     * Replicas are not given credentials other than their own, so connections with explicit ones come from the primary.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * Connects to every replica, marking those that cannot be connected to as failed and those lagging behind the
+     * primary as unavailable until a later check finds them caught up.
+     */
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                double lag = getReplicationLagSeconds(connection);
+                boolean lagging = lag > maxLagSeconds;
+                if (lagging != replica.lagging) {
+                    String state = Double.isInfinite(lag) ? " is not streaming from" : " is " + lag + " seconds behind";
+                    logger.info("Replica " + replica.name + state + " the primary, " +
+                                        (lagging ? "skipping it" : "using it again"));
+                }
+                replica.lagging = lagging;
+                replica.retryAtNanos = System.nanoTime();
+            } catch (SQLException e) {
+                logger.warn("Health check of replica " + replica.name + " failed", e);
+                replica.retryAtNanos = System.nanoTime() + retryIntervalNanos;
+            }
+        }
+    }
+
+    /**
+     * @return Seconds the replica is behind the primary, infinite if it is a standby not streaming from the primary.
+     */
+    private static double getReplicationLagSeconds(Connection connection) throws SQLException {
+        if (!POSTGRESQL.equals(connection.getMetaData().getDatabaseProductName())) {
+            if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                throw new SQLException("Connection is not valid");
+            }
+            return 0;
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(POSTGRESQL_LAG_QUERY)) {
+            resultSet.next();
+            if (!resultSet.getBoolean(1)) {
+                return 0;
+            }
+            return resultSet.getBoolean(2) ? resultSet.getDouble(3) : Double.POSITIVE_INFINITY;
+        }
+    }
+
+    /**
+     * @return Number of replicas that reads may currently be sent to.
+     */
+    public int getAvailableReplicaCount() {
+        int available = 0;
+        for (Replica replica : replicas) {
+            if (replica.isAvailable()) {
+                available++;
+            }
+        }
+        return available;
+    }
+
+    @Override
+    public void close() {
+        if (healthCheckExecutor != null) {
+            healthCheckExecutor.shutdownNow();
+        }
+        closeIfCloseable(primary);
+        for (Replica replica : replicas) {
+            closeIfCloseable(replica.dataSource);
+        }
+    }
+
+    private void closeIfCloseable(DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) dataSource).close();
+            } catch (Exception e) {
+                logger.warn("Could not close data source", e);
+            }
+        }
+    }
+
+    private static class Replica {
+
+        private final String name;
+
+        private final DataSource dataSource;
+
+        private volatile long retryAtNanos = System.nanoTime();
+
+        private volatile boolean lagging;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        private boolean isAvailable() {
+            return !lagging && System.nanoTime() - retryAtNanos >= 0;
+        }
+
+    }
+
+}
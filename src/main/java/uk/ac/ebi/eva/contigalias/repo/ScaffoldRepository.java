@@ -18,69 +18,28 @@ package uk.ac.ebi.eva.contigalias.repo;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
-import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
 import uk.ac.ebi.eva.contigalias.entities.ScaffoldEntity;
 
-@Repository
-public interface ScaffoldRepository extends JpaRepository<ScaffoldEntity, Long> {
-
-    Page<ScaffoldEntity> findScaffoldEntitiesByGenbank(String genbank, Pageable request);
-
-    Page<ScaffoldEntity> findScaffoldEntitiesByRefseq(String refseq, Pageable request);
-
-    Page<ScaffoldEntity> findScaffoldEntitiesByAssembly_Genbank(String asmGenbank, Pageable request);
-
-    Page<ScaffoldEntity> findScaffoldEntitiesByAssembly_Refseq(String asmRefseq, Pageable request);
-
-    Page<ScaffoldEntity> findScaffoldEntitiesByGenbankSequenceName(String genbankName, Pageable request);
-
-    Page<ScaffoldEntity> findScaffoldEntitiesByGenbankSequenceNameAndAssembly_Taxid(String genbankName, long asmTaxid, Pageable request);
-
-    Page<ScaffoldEntity> findScaffoldEntitiesByGenbankSequenceNameAndAssembly(String genbankName, AssemblyEntity assembly, Pageable request);
-
-    Page<ScaffoldEntity> findScaffoldEntitiesByAssemblyGenbankOrAssemblyRefseq(String accession, String accession1,
-                                                                               Pageable request);
-
-    Page<ScaffoldEntity> findScaffoldEntitiesByUcscName(String ucscName, Pageable request);
-
-    Page<ScaffoldEntity> findScaffoldEntitiesByUcscNameAndAssembly_Taxid(String ucscName, long asmTaxid,
-                                                                         Pageable request);
-
-    Page<ScaffoldEntity> findScaffoldEntitiesByUcscNameAndAssembly(String ucscName, AssemblyEntity assembly,
-                                                                   Pageable request);
+import javax.persistence.QueryHint;
 
-    Page<ScaffoldEntity> findScaffoldEntitiesByEnaSequenceName(String enaName, Pageable request);
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
-    Page<ScaffoldEntity> findScaffoldEntitiesByEnaSequenceNameAndAssembly_Taxid(String enaName, long asmTaxid,
-                                                                                Pageable request);
+@Repository
+@Transactional(readOnly = true)
+public interface ScaffoldRepository extends JpaRepository<ScaffoldEntity, Long>, ScaffoldRepositoryCustom {
 
-    Page<ScaffoldEntity> findScaffoldEntitiesByEnaSequenceNameAndAssembly(String enaName, AssemblyEntity assembly,
-                                                                          Pageable request);
+    @Query("select s.genbank, s.refseq, s.genbankSequenceName, s.enaSequenceName, s.ucscName " +
+            "from ScaffoldEntity s order by s.id")
+    Slice<Object[]> findAllAliases(Pageable request);
 
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
     Page<ScaffoldEntity> findScaffoldEntitiesByGenbankOrRefseq(String accession, String accession1, Pageable request);
 
-    long countScaffoldEntitiesByGenbank(String genbank);
-
-    long countScaffoldEntitiesByRefseq(String refseq);
-
-    long countScaffoldEntitiesByAssembly_Genbank(String asmGenbank);
-
-    long countScaffoldEntitiesByAssembly_Refseq(String asmRefseq);
-
-    long countScaffoldEntitiesByGenbankSequenceNameAndAssembly_Taxid(String genbankName, long asmTaxid);
-
-    long countScaffoldEntitiesByUcscNameAndAssembly_Taxid(String ucscName, long asmTaxid);
-
-    long countScaffoldEntitiesByGenbankSequenceNameAndAssembly(String genbankName, AssemblyEntity assembly);
-
-    long countScaffoldEntitiesByUcscNameAndAssembly(String ucscName, AssemblyEntity assembly);
-
-    long countScaffoldEntitiesByGenbankSequenceName(String genbankName);
-
-    long countScaffoldEntitiesByAssemblyGenbankOrAssemblyRefseq(String genbank, String refseq);
-
-    long countScaffoldEntitiesByUcscName(String ucscName);
 }
\ No newline at end of file
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.repo;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
+import uk.ac.ebi.eva.contigalias.entities.ScaffoldEntity;
+
+import java.util.List;
+
+/**
+ * Projection queries returning detached scaffolds, see {@link SequenceProjectionQueries}. Unless stated otherwise, the
+ * assembly of the returned scaffolds is selected as well if the results are not filtered by assembly, and is null
+ * otherwise.
+ */
+public interface ScaffoldRepositoryCustom {
+
+    Page<ScaffoldEntity> findScaffoldProjectionsByGenbank(String genbank, Pageable request);
+
+    Page<ScaffoldEntity> findScaffoldProjectionsByRefseq(String refseq, Pageable request);
+
+    Page<ScaffoldEntity> findScaffoldProjectionsByAssemblyGenbank(String asmGenbank, Pageable request);
+
+    Page<ScaffoldEntity> findScaffoldProjectionsByAssemblyRefseq(String asmRefseq, Pageable request);
+
+    Page<ScaffoldEntity> findScaffoldProjectionsByAssemblyAccession(String asmAccession, Pageable request);
+
+    Page<ScaffoldEntity> findScaffoldProjectionsByGenbankSequenceName(String genbankName, Pageable request);
+
+    Page<ScaffoldEntity> findScaffoldProjectionsByUcscName(String ucscName, Pageable request);
+
+    Page<ScaffoldEntity> findScaffoldProjectionsByEnaSequenceName(String enaName, Pageable request);
+
+    Page<ScaffoldEntity> findScaffoldProjectionsByGenbankSequenceNameAndAssemblyTaxid(
+            String genbankName, long asmTaxid, Pageable request);
+
+    Page<ScaffoldEntity> findScaffoldProjectionsByUcscNameAndAssemblyTaxid(
+            String ucscName, long asmTaxid, Pageable request);
+
+    Page<ScaffoldEntity> findScaffoldProjectionsByEnaSequenceNameAndAssemblyTaxid(
+            String enaName, long asmTaxid, Pageable request);
+
+    Page<ScaffoldEntity> findScaffoldProjectionsByGenbankSequenceNameAndAssemblyId(
+            String genbankName, long asmId, Pageable request);
+
+    Page<ScaffoldEntity> findScaffoldProjectionsByUcscNameAndAssemblyId(String ucscName, long asmId, Pageable request);
+
+    Page<ScaffoldEntity> findScaffoldProjectionsByEnaSequenceNameAndAssemblyId(
+            String enaName, long asmId, Pageable request);
+
+    List<AssemblyEntity> findAssemblyProjectionsByScaffoldGenbank(String scfGenbank);
+
+    List<AssemblyEntity> findAssemblyProjectionsByScaffoldRefseq(String scfRefseq);
+
+}
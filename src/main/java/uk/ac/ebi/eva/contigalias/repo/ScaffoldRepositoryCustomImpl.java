@@ -0,0 +1,120 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.repo;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
+import uk.ac.ebi.eva.contigalias.entities.ScaffoldEntity;
+
+import java.util.List;
+
+public class ScaffoldRepositoryCustomImpl extends SequenceProjectionQueries<ScaffoldEntity>
+        implements ScaffoldRepositoryCustom {
+
+    public ScaffoldRepositoryCustomImpl() {
+        super("ScaffoldEntity", "scaffoldCount", ScaffoldEntity::new);
+    }
+
+    @Override
+    public Page<ScaffoldEntity> findScaffoldProjectionsByGenbank(String genbank, Pageable request) {
+        return findSequences("s.genbank = ?1", true, request, genbank);
+    }
+
+    @Override
+    public Page<ScaffoldEntity> findScaffoldProjectionsByRefseq(String refseq, Pageable request) {
+        return findSequences("s.refseq = ?1", true, request, refseq);
+    }
+
+    @Override
+    public Page<ScaffoldEntity> findScaffoldProjectionsByAssemblyGenbank(String asmGenbank, Pageable request) {
+        return findSequencesOfAssemblies("a.genbank = ?1", request, asmGenbank);
+    }
+
+    @Override
+    public Page<ScaffoldEntity> findScaffoldProjectionsByAssemblyRefseq(String asmRefseq, Pageable request) {
+        return findSequencesOfAssemblies("a.refseq = ?1", request, asmRefseq);
+    }
+
+    @Override
+    public Page<ScaffoldEntity> findScaffoldProjectionsByAssemblyAccession(String asmAccession, Pageable request) {
+        return findSequencesOfAssemblies(BY_ASSEMBLY_ACCESSION, request, asmAccession);
+    }
+
+    @Override
+    public Page<ScaffoldEntity> findScaffoldProjectionsByGenbankSequenceName(String genbankName, Pageable request) {
+        return findSequences("s.genbankSequenceName = ?1", true, request, genbankName);
+    }
+
+    @Override
+    public Page<ScaffoldEntity> findScaffoldProjectionsByUcscName(String ucscName, Pageable request) {
+        return findSequences("s.ucscName = ?1", true, request, ucscName);
+    }
+
+    @Override
+    public Page<ScaffoldEntity> findScaffoldProjectionsByEnaSequenceName(String enaName, Pageable request) {
+        return findSequences("s.enaSequenceName = ?1", true, request, enaName);
+    }
+
+    @Override
+    public Page<ScaffoldEntity> findScaffoldProjectionsByGenbankSequenceNameAndAssemblyTaxid(
+            String genbankName, long asmTaxid, Pageable request) {
+        return findSequences("s.genbankSequenceName = ?1 and s.taxid = ?2", true, request, genbankName, asmTaxid);
+    }
+
+    @Override
+    public Page<ScaffoldEntity> findScaffoldProjectionsByUcscNameAndAssemblyTaxid(
+            String ucscName, long asmTaxid, Pageable request) {
+        return findSequences("s.ucscName = ?1 and s.taxid = ?2", true, request, ucscName, asmTaxid);
+    }
+
+    @Override
+    public Page<ScaffoldEntity> findScaffoldProjectionsByEnaSequenceNameAndAssemblyTaxid(
+            String enaName, long asmTaxid, Pageable request) {
+        return findSequences("s.enaSequenceName = ?1 and s.taxid = ?2", true, request, enaName, asmTaxid);
+    }
+
+    @Override
+    public Page<ScaffoldEntity> findScaffoldProjectionsByGenbankSequenceNameAndAssemblyId(
+            String genbankName, long asmId, Pageable request) {
+        return findSequences("s.genbankSequenceName = ?1 and a.id = ?2", false, request, genbankName, asmId);
+    }
+
+    @Override
+    public Page<ScaffoldEntity> findScaffoldProjectionsByUcscNameAndAssemblyId(
+            String ucscName, long asmId, Pageable request) {
+        return findSequences("s.ucscName = ?1 and a.id = ?2", false, request, ucscName, asmId);
+    }
+
+    @Override
+    public Page<ScaffoldEntity> findScaffoldProjectionsByEnaSequenceNameAndAssemblyId(
+            String enaName, long asmId, Pageable request) {
+        return findSequences("s.enaSequenceName = ?1 and a.id = ?2", false, request, enaName, asmId);
+    }
+
+    @Override
+    public List<AssemblyEntity> findAssemblyProjectionsByScaffoldGenbank(String scfGenbank) {
+        return findAssemblies("s.genbank = ?1", scfGenbank);
+    }
+
+    @Override
+    public List<AssemblyEntity> findAssemblyProjectionsByScaffoldRefseq(String scfRefseq) {
+        return findAssemblies("s.refseq = ?1", scfRefseq);
+    }
+
+}
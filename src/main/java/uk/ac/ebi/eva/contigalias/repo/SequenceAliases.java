@@ -0,0 +1,103 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.repo;
+
+import uk.ac.ebi.eva.contigalias.entities.SequenceAliasEntity;
+import uk.ac.ebi.eva.contigalias.index.AliasType;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+
+/**
+ * Set-based statements maintaining the {@link SequenceAliasEntity} rows of whole assemblies. Only the names of
+ * sequences are stored there: their accessions are already found through the indexes of the sequence tables.
+ */
+final class SequenceAliases {
+
+    private static final String INSERT = insert(false);
+
+    private static final String INSERT_MISSING = insert(true);
+
+    private SequenceAliases() {
+    }
+
+    /**
+     * Inserts the names of the chromosomes and scaffolds of the given assemblies, which must not have any yet.
+     *
+     * @return Number of names inserted.
+     */
+    static int insertByAssemblyIdIn(EntityManager entityManager, Collection<Long> assemblyIds) {
+        if (assemblyIds.isEmpty()) {
+            return 0;
+        }
+        return entityManager.createNativeQuery(INSERT)
+                            .setParameter("ids", assemblyIds)
+                            .executeUpdate();
+    }
+
+    /**
+     * Inserts the names of the chromosomes and scaffolds of the given assemblies that are not present yet, so that
+     * names inserted concurrently, such as by another node backfilling the same assemblies, are skipped.
+     *
+     * @return Number of names inserted.
+     */
+    static int insertMissingByAssemblyIdIn(EntityManager entityManager, Collection<Long> assemblyIds) {
+        if (assemblyIds.isEmpty()) {
+            return 0;
+        }
+        return entityManager.createNativeQuery(INSERT_MISSING)
+                            .setParameter("ids", assemblyIds)
+                            .executeUpdate();
+    }
+
+    /**
+     * @return Number of names deleted.
+     */
+    static int deleteByAssemblyIdIn(EntityManager entityManager, Collection<Long> assemblyIds) {
+        if (assemblyIds.isEmpty()) {
+            return 0;
+        }
+        return entityManager.createQuery("delete from SequenceAliasEntity x where x.assemblyId in :ids")
+                            .setParameter("ids", assemblyIds)
+                            .executeUpdate();
+    }
+
+    private static String insert(boolean missingOnly) {
+        return "insert into sequence_alias (alias, alias_type, sequence_kind, sequence_id, assembly_id, taxid) " +
+                select("genbank_sequence_name", AliasType.GENBANK_SEQUENCE_NAME, missingOnly) + " union all " +
+                select("ena_sequence_name", AliasType.ENA_SEQUENCE_NAME, missingOnly) + " union all " +
+                select("ucsc_name", AliasType.UCSC_NAME, missingOnly);
+    }
+
+    private static String select(String column, AliasType type, boolean missingOnly) {
+        return select("chromosome", SequenceAliasEntity.CHROMOSOME, column, type, missingOnly) + " union all " +
+                select("scaffold", SequenceAliasEntity.SCAFFOLD, column, type, missingOnly);
+    }
+
+    private static String select(String table, int kind, String column, AliasType type, boolean missingOnly) {
+        String select = "select s." + column + ", '" + type.name() + "', " + kind + ", s.id, s.assembly_id, " +
+                "a.taxid from " + table + " s join assembly a on a.id = s.assembly_id where s." + column +
+                " is not null and s.assembly_id in (:ids)";
+        if (missingOnly) {
+            // Probes the primary key of the alias table
+            select += " and not exists (select 1 from sequence_alias x where x.sequence_kind = " + kind +
+                    " and x.sequence_id = s.id and x.alias_type = '" + type.name() + "')";
+        }
+        return select;
+    }
+
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.repo;
+
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
+import uk.ac.ebi.eva.contigalias.entities.ChromosomeEntity;
+import uk.ac.ebi.eva.contigalias.entities.ScaffoldEntity;
+import uk.ac.ebi.eva.contigalias.entities.SequenceEntity;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Inserts an assembly and its sequences without going through the persistence context. The assembly is persisted as
+ * usual, then its chromosomes and scaffolds are streamed into their tables with {@code COPY} on the same connection
+ * and in the same transaction, so a failure leaves nothing behind. The names of the sequences are then copied into the
+ * sequence alias table by a single statement.
+ * <p>
+ * Databases other than PostgreSQL, such as the H2 database used by tests, are loaded with JDBC batches instead.
+ * Sequence ids come from the same generator as when sequences are persisted, and are set on the given sequences as
+ * persisting them would.
+ * </p>
+ */
+@Repository
+public class SequenceBulkLoader {
+
+    private static final String COLUMNS = "id, genbank_sequence_name, ena_sequence_name, genbank, refseq, ucsc_name, " +
+            "md5checksum, trunc512checksum, assembly_id, taxid";
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final int batchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public SequenceBulkLoader(@Value("${config.ingestion.batch-size:50}") int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    @Transactional
+    public void insertAssembly(AssemblyEntity assembly) {
+        List<ChromosomeEntity> chromosomes = assembly.getChromosomes();
+        List<ScaffoldEntity> scaffolds = assembly.getScaffolds();
+        // Without its sequences, persisting the assembly cascades to nothing
+        assembly.setChromosomes(null).setScaffolds(null);
+        try {
+            entityManager.persist(assembly);
+            entityManager.flush();
+            entityManager.detach(assembly);
+        } finally {
+            assembly.setChromosomes(chromosomes).setScaffolds(scaffolds);
+        }
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        session.doWork(connection -> {
+            insertSequences(session, connection, "chromosome", ChromosomeEntity.class, chromosomes, assembly);
+            insertSequences(session, connection, "scaffold", ScaffoldEntity.class, scaffolds, assembly);
+        });
+        SequenceAliases.insertByAssemblyIdIn(entityManager, Collections.singleton(assembly.getId()));
+    }
+
+    private void insertSequences(SessionImplementor session, Connection connection, String table,
+                                 Class<? extends SequenceEntity> type, List<? extends SequenceEntity> sequences,
+                                 AssemblyEntity assembly) throws SQLException {
+        if (sequences == null || sequences.isEmpty()) {
+            return;
+        }
+        long[] ids = generateIds(session, type, sequences);
+        if (connection.isWrapperFor(PGConnection.class)) {
+            copy(connection.unwrap(PGConnection.class).getCopyAPI().copyIn(
+                    "copy " + table + " (" + COLUMNS + ") from stdin"), sequences, ids, assembly);
+        } else {
+            insertInBatches(connection, table, sequences, ids, assembly);
+        }
+    }
+
+    /**
+     * Ids are generated before any row is written, because the generator may query the database sequence, which is
+     * not possible while a {@code COPY} is in progress on the same connection. They are set on the sequences right
+     * away, so that listeners of the insertion see them.
+     */
+    private static long[] generateIds(SessionImplementor session, Class<? extends SequenceEntity> type,
+                                      List<? extends SequenceEntity> sequences) {
+        IdentifierGenerator generator = session.getFactory().getMetamodel().entityPersister(type)
+                                               .getIdentifierGenerator();
+        long[] ids = new long[sequences.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = ((Number) generator.generate(session, sequences.get(i))).longValue();
+            sequences.get(i).setId(ids[i]);
+        }
+        return ids;
+    }
+
+    /**
+     * Writes the rows of the sequences to a {@code COPY} in progress and ends it, or cancels it on failure.
+     */
+    static void copy(CopyIn copy, List<? extends SequenceEntity> sequences, long[] ids, AssemblyEntity assembly)
+            throws SQLException {
+        String taxid = assembly.getTaxid() == null ? null : assembly.getTaxid().toString();
+        try {
+            StringBuilder buffer = new StringBuilder(COPY_BUFFER_SIZE + 1024);
+            for (int i = 0; i < ids.length; i++) {
+                buffer.append(ids[i]).append('\t');
+                for (String value : values(sequences.get(i))) {
+                    appendCopyValue(buffer, value);
+                    buffer.append('\t');
+                }
+                buffer.append(assembly.getId()).append('\t');
+                appendCopyValue(buffer, taxid);
+                buffer.append('\n');
+                if (buffer.length() >= COPY_BUFFER_SIZE) {
+                    writeToCopy(copy, buffer);
+                }
+            }
+            writeToCopy(copy, buffer);
+            copy.endCopy();
+        } finally {
+            if (copy.isActive()) {
+                copy.cancelCopy();
+            }
+        }
+    }
+
+    private static void writeToCopy(CopyIn copy, StringBuilder buffer) throws SQLException {
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copy.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    /**
+     * Appends a value in the text format of {@code COPY}, where nulls are written {@code \N} and backslashes, tabs and
+     * line breaks are escaped.
+     */
+    private static void appendCopyValue(StringBuilder buffer, String value) {
+        if (value == null) {
+            buffer.append("\\N");
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    buffer.append("\\\\");
+                    break;
+                case '\t':
+                    buffer.append("\\t");
+                    break;
+                case '\n':
+                    buffer.append("\\n");
+                    break;
+                case '\r':
+                    buffer.append("\\r");
+                    break;
+                default:
+                    buffer.append(c);
+            }
+        }
+    }
+
+    private void insertInBatches(Connection connection, String table, List<? extends SequenceEntity> sequences,
+                                 long[] ids, AssemblyEntity assembly) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "insert into " + table + " (" + COLUMNS + ") values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            int batched = 0;
+            for (int i = 0; i < ids.length; i++) {
+                statement.setLong(1, ids[i]);
+                String[] values = values(sequences.get(i));
+                for (int column = 0; column < values.length; column++) {
+                    statement.setString(column + 2, values[column]);
+                }
+                statement.setLong(values.length + 2, assembly.getId());
+                statement.setObject(values.length + 3, assembly.getTaxid(), Types.BIGINT);
+                statement.addBatch();
+                if (++batched == batchSize) {
+                    statement.executeBatch();
+                    batched = 0;
+                }
+            }
+            if (batched > 0) {
+                statement.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * @return Values of the columns between the id and the assembly id, in the order of {@link #COLUMNS}. The assembly
+     * id and the taxonomic ID of the assembly follow them.
+     */
+    private static String[] values(SequenceEntity sequence) {
+        return new String[]{sequence.getGenbankSequenceName(), sequence.getEnaSequenceName(), sequence.getGenbank(),
+                sequence.getRefseq(), sequence.getUcscName(), sequence.getMd5checksum(),
+                sequence.getTrunc512checksum()};
+    }
+
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.repo;
+
+import org.hibernate.Session;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Sets the checksums of chromosomes and scaffolds by accession without loading them. On PostgreSQL each table is
+ * updated by one {@code UPDATE ... FROM (VALUES ...)} statement per chunk of accessions, which returns the accession
+ * and assembly of every row it changed. Other databases, such as the H2 database used by tests, get one JDBC batch of
+ * single-row updates instead, followed by a select of the assemblies of the updated rows. Both keep the stored value
+ * of a checksum given as null.
+ * <p>
+ * The sequences updated here are not refreshed in the persistence context, so callers should not rely on entities
+ * loaded in the same transaction.
+ * </p>
+ */
+@Repository
+public class SequenceChecksumUpdater {
+
+    private static final String CHROMOSOME_TABLE = "chromosome";
+
+    private static final String SCAFFOLD_TABLE = "scaffold";
+
+    /**
+     * Rows of a single {@code VALUES} list, kept well below the limit of 65535 parameters per statement.
+     */
+    private static final int VALUES_ROWS = 1000;
+
+    private final int batchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public SequenceChecksumUpdater(@Value("${config.ingestion.batch-size:50}") int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Updates chromosomes and scaffolds in a single transaction. If the same accession is given more than once, which
+     * of its checksums are kept is undefined.
+     *
+     */
+    @Transactional
+    public SequenceChecksumsUpdate updateSequenceChecksums(Collection<SequenceChecksums> checksums) {
+        return update(checksums, CHROMOSOME_TABLE, SCAFFOLD_TABLE);
+    }
+
+    @Transactional
+    public SequenceChecksumsUpdate updateChromosomeChecksums(Collection<SequenceChecksums> checksums) {
+        return update(checksums, CHROMOSOME_TABLE);
+    }
+
+    @Transactional
+    public SequenceChecksumsUpdate updateScaffoldChecksums(Collection<SequenceChecksums> checksums) {
+        return update(checksums, SCAFFOLD_TABLE);
+    }
+
+    private SequenceChecksumsUpdate update(Collection<SequenceChecksums> checksums, String... tables) {
+        SequenceChecksumsUpdate updated = new SequenceChecksumsUpdate();
+        if (checksums.isEmpty()) {
+            return updated;
+        }
+        List<SequenceChecksums> list = new ArrayList<>(checksums);
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            for (String table : tables) {
+                if (connection.isWrapperFor(PGConnection.class)) {
+                    for (int from = 0; from < list.size(); from += VALUES_ROWS) {
+                        updateFromValues(connection, table, list.subList(from, Math.min(from + VALUES_ROWS,
+                                                                                        list.size())), updated);
+                    }
+                } else {
+                    updateInBatches(connection, table, list, updated);
+                    selectAssemblyIds(connection, table, updated);
+                }
+            }
+        });
+        return updated;
+    }
+
+    private static void updateFromValues(Connection connection, String table, List<SequenceChecksums> checksums,
+                                         SequenceChecksumsUpdate updated) throws SQLException {
+        StringBuilder sql = new StringBuilder("update ").append(table)
+                .append(" s set md5checksum = coalesce(v.md5checksum, s.md5checksum), ")
+                .append("trunc512checksum = coalesce(v.trunc512checksum, s.trunc512checksum) from (values ");
+        for (int i = 0; i < checksums.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+        }
+        sql.append(") as v (accession, md5checksum, trunc512checksum) ")
+           .append("where s.genbank = v.accession or s.refseq = v.accession returning v.accession, s.assembly_id");
+        try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            int parameter = 1;
+            for (SequenceChecksums it : checksums) {
+                statement.setString(parameter++, it.getAccession());
+                statement.setString(parameter++, it.getMd5checksum());
+                statement.setString(parameter++, it.getTrunc512checksum());
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    updated.addUpdated(resultSet.getString(1), 1);
+                    long assemblyId = resultSet.getLong(2);
+                    if (!resultSet.wasNull()) {
+                        updated.addAssemblyId(assemblyId);
+                    }
+                }
+            }
+        }
+    }
+
+    private void updateInBatches(Connection connection, String table, List<SequenceChecksums> checksums,
+                                 SequenceChecksumsUpdate updated) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "update " + table + " set md5checksum = coalesce(?, md5checksum), " +
+                        "trunc512checksum = coalesce(?, trunc512checksum) where genbank = ? or refseq = ?")) {
+            for (int from = 0; from < checksums.size(); from += batchSize) {
+                List<SequenceChecksums> batch = checksums.subList(from, Math.min(from + batchSize, checksums.size()));
+                for (SequenceChecksums it : batch) {
+                    statement.setString(1, it.getMd5checksum());
+                    statement.setString(2, it.getTrunc512checksum());
+                    statement.setString(3, it.getAccession());
+                    statement.setString(4, it.getAccession());
+                    statement.addBatch();
+                }
+                int[] counts = statement.executeBatch();
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] > 0) {
+                        updated.addUpdated(batch.get(i).getAccession(), counts[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Without {@code RETURNING}, the assemblies of the updated sequences are selected afterwards, a chunk of updated
+     * accessions at a time.
+     */
+    private static void selectAssemblyIds(Connection connection, String table, SequenceChecksumsUpdate updated)
+            throws SQLException {
+        List<String> accessions = new ArrayList<>(updated.getUpdatedByAccession().keySet());
+        for (int from = 0; from < accessions.size(); from += VALUES_ROWS) {
+            List<String> chunk = accessions.subList(from, Math.min(from + VALUES_ROWS, accessions.size()));
+            String parameters = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "select distinct assembly_id from " + table + " where assembly_id is not null and (genbank in (" +
+                            parameters + ") or refseq in (" + parameters + "))")) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    statement.setString(i + 1, chunk.get(i));
+                    statement.setString(chunk.size() + i + 1, chunk.get(i));
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        updated.addAssemblyId(resultSet.getLong(1));
+                    }
+                }
+            }
+        }
+    }
+
+}
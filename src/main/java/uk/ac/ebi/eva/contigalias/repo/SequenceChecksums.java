@@ -0,0 +1,52 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.repo;
+
+/**
+ * MD5 and TRUNC512 checksums to set on every chromosome and scaffold having the given GenBank or RefSeq accession.
+ * A null checksum leaves the stored one unchanged.
+ */
+public final class SequenceChecksums {
+
+    private final String accession;
+
+    private final String md5checksum;
+
+    private final String trunc512checksum;
+
+    public SequenceChecksums(String accession, String md5checksum, String trunc512checksum) {
+        if (accession == null || accession.isEmpty()) {
+            throw new IllegalArgumentException("Accession cannot be empty");
+        }
+        this.accession = accession;
+        this.md5checksum = md5checksum;
+        this.trunc512checksum = trunc512checksum;
+    }
+
+    public String getAccession() {
+        return accession;
+    }
+
+    public String getMd5checksum() {
+        return md5checksum;
+    }
+
+    public String getTrunc512checksum() {
+        return trunc512checksum;
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.repo;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Chromosomes and scaffolds whose checksums were set by {@link SequenceChecksumUpdater}, counted by accession, along
+ * with the assemblies they belong to.
+ */
+public final class SequenceChecksumsUpdate {
+
+    private final Map<String, Integer> updatedByAccession = new HashMap<>();
+
+    private final Set<Long> assemblyIds = new HashSet<>();
+
+    void addUpdated(String accession, int count) {
+        updatedByAccession.merge(accession, count, Integer::sum);
+    }
+
+    void addAssemblyId(long assemblyId) {
+        assemblyIds.add(assemblyId);
+    }
+
+    /**
+     * @return Number of sequences updated for each accession, leaving out accessions matching no sequence.
+     */
+    public Map<String, Integer> getUpdatedByAccession() {
+        return updatedByAccession;
+    }
+
+    /**
+     * @return Ids of the assemblies of the updated sequences.
+     */
+    public Set<Long> getAssemblyIds() {
+        return assemblyIds;
+    }
+
+    public boolean isEmpty() {
+        return updatedByAccession.isEmpty();
+    }
+
+}
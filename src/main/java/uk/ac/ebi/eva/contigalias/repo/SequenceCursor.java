@@ -0,0 +1,92 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.repo;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Position of a sequence in the order used by {@link SequenceRepository}: chromosomes before scaffolds, then by id.
+ * A page requested after a cursor starts right after that sequence, so the database seeks to it through an index
+ * instead of skipping every previous row, and no total count is needed. Clients only see the cursor as an opaque
+ * token.
+ */
+public final class SequenceCursor {
+
+    private static final char SEPARATOR = ':';
+
+    private final int kind;
+
+    private final long id;
+
+    SequenceCursor(int kind, long id) {
+        this.kind = kind;
+        this.id = id;
+    }
+
+    /**
+     * @param token Token previously returned by {@link #toToken()}.
+     * @throws IllegalArgumentException If the token was not created by {@link #toToken()}.
+     */
+    public static SequenceCursor fromToken(String token) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor " + token, e);
+        }
+        int separator = decoded.indexOf(SEPARATOR);
+        try {
+            return new SequenceCursor(Integer.parseInt(decoded.substring(0, separator)),
+                                      Long.parseLong(decoded.substring(separator + 1)));
+        } catch (IndexOutOfBoundsException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor " + token, e);
+        }
+    }
+
+    public String toToken() {
+        String decoded = String.valueOf(kind) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(decoded.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SequenceCursor that = (SequenceCursor) o;
+        return kind == that.kind && id == that.id;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(kind, id);
+    }
+
+    int getKind() {
+        return kind;
+    }
+
+    long getId() {
+        return id;
+    }
+
+}
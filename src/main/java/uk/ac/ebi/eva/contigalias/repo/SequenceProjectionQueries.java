@@ -0,0 +1,156 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.repo;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
+import uk.ac.ebi.eva.contigalias.entities.SequenceEntity;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Projection queries over one of the sequence tables. Sequences are built from the selected columns and never become
+ * part of the persistence context, so reading them costs neither entity snapshots nor dirty checking, and they cannot
+ * be written back by accident.
+ * <p>
+ * Conditions are JPQL expressions over the sequence aliased {@code s} and its assembly aliased {@code a}, using
+ * positional parameters. Results are ordered by sequence id so that pages are stable.
+ * </p>
+ */
+@Transactional(readOnly = true)
+abstract class SequenceProjectionQueries<T extends SequenceEntity> {
+
+    private static final String SEQUENCE_COLUMNS = "s.genbankSequenceName, s.enaSequenceName, s.genbank, s.refseq, " +
+            "s.ucscName, s.md5checksum, s.trunc512checksum";
+
+    private static final int ASSEMBLY_OFFSET = 7;
+
+    /**
+     * The assembly is resolved first, so that its sequences are then read through their assembly index instead of
+     * walking the whole table in id order until enough of them match either accession.
+     */
+    static final String BY_ASSEMBLY_ACCESSION =
+            "a.id in (select b.id from AssemblyEntity b where b.genbank = ?1 or b.refseq = ?1)";
+
+    private final String entityName;
+
+    /**
+     * Property of an assembly holding its number of sequences of this kind.
+     */
+    private final String assemblyCount;
+
+    private final Supplier<T> factory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    SequenceProjectionQueries(String entityName, String assemblyCount, Supplier<T> factory) {
+        this.entityName = entityName;
+        this.assemblyCount = assemblyCount;
+        this.factory = factory;
+    }
+
+    /**
+     * The assembly is only joined by the count when the condition refers to it.
+     *
+     * @param withAssembly Whether the assembly of each sequence is selected as well. Otherwise the assembly of the
+     *                     returned sequences is null.
+     */
+    Page<T> findSequences(String condition, boolean withAssembly, Pageable request, Object... parameters) {
+        return findSequences(condition, false, withAssembly, request, parameters);
+    }
+
+    /**
+     * Finds the sequences of the assemblies matching a condition over the assembly only. Pages are totalled from the
+     * numbers of sequences kept on the assemblies, and only counted when an assembly has no such number yet.
+     */
+    Page<T> findSequencesOfAssemblies(String condition, Pageable request, Object... parameters) {
+        return findSequences(condition, true, false, request, parameters);
+    }
+
+    private Page<T> findSequences(String condition, boolean totalFromAssemblies, boolean withAssembly,
+                                  Pageable request, Object... parameters) {
+        String join = Projections.assemblyJoin(condition);
+        String from = " from " + entityName + " s " + join + " s.assembly a where " + condition;
+        String countFrom = join.equals("join") ? from : " from " + entityName + " s where " + condition;
+        String columns = withAssembly ? SEQUENCE_COLUMNS + ", " + Projections.ASSEMBLY_COLUMNS : SEQUENCE_COLUMNS;
+        TypedQuery<Object[]> query = entityManager.createQuery("select " + columns + from + " order by s.id",
+                                                               Object[].class);
+        bind(query, parameters);
+        if (request.isPaged()) {
+            query.setFirstResult((int) request.getOffset()).setMaxResults(request.getPageSize());
+        }
+        List<T> sequences = new ArrayList<>();
+        for (Object[] row : query.getResultList()) {
+            sequences.add(toSequence(row, withAssembly));
+        }
+        return PageableExecutionUtils.getPage(sequences, request, () -> {
+            if (totalFromAssemblies) {
+                TypedQuery<Integer> counts = entityManager.createQuery(
+                        "select a." + assemblyCount + " from AssemblyEntity a where " + condition, Integer.class);
+                bind(counts, parameters);
+                Long total = Projections.sumCounts(counts.getResultList());
+                if (total != null) {
+                    return total;
+                }
+            }
+            TypedQuery<Long> count = entityManager.createQuery("select count(s)" + countFrom, Long.class);
+            bind(count, parameters);
+            return count.getSingleResult();
+        });
+    }
+
+    /**
+     * @return Assembly of every sequence matching the condition, once per matching sequence.
+     */
+    List<AssemblyEntity> findAssemblies(String condition, Object... parameters) {
+        TypedQuery<AssemblyEntity> query = entityManager.createQuery(
+                "select " + Projections.ASSEMBLY + " from " + entityName + " s join s.assembly a where " + condition +
+                        " order by s.id", AssemblyEntity.class);
+        bind(query, parameters);
+        return query.getResultList();
+    }
+
+    private T toSequence(Object[] row, boolean withAssembly) {
+        T sequence = factory.get();
+        sequence.setGenbankSequenceName((String) row[0])
+                .setEnaSequenceName((String) row[1])
+                .setGenbank((String) row[2])
+                .setRefseq((String) row[3])
+                .setUcscName((String) row[4])
+                .setMd5checksum((String) row[5])
+                .setTrunc512checksum((String) row[6])
+                .setAssembly(withAssembly ? Projections.toAssembly(row, ASSEMBLY_OFFSET) : null);
+        return sequence;
+    }
+
+    private static void bind(TypedQuery<?> query, Object[] parameters) {
+        for (int i = 0; i < parameters.length; i++) {
+            query.setParameter(i + 1, parameters[i]);
+        }
+    }
+
+}
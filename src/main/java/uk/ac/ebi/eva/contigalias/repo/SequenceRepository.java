@@ -0,0 +1,370 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.repo;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
+import uk.ac.ebi.eva.contigalias.entities.ChromosomeEntity;
+import uk.ac.ebi.eva.contigalias.entities.ScaffoldEntity;
+import uk.ac.ebi.eva.contigalias.entities.SequenceAliasEntity;
+import uk.ac.ebi.eva.contigalias.entities.SequenceEntity;
+import uk.ac.ebi.eva.contigalias.index.AliasType;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Projection queries over chromosomes and scaffolds together. Both tables are read through a single {@code UNION ALL}
+ * so that one statement with one {@code LIMIT}/{@code OFFSET} returns a page mixing both kinds of sequence, listing
+ * all chromosomes before any scaffold.
+ * <p>
+ * Pages can also be requested after a {@link SequenceCursor}, in which case the rows are found by seeking past the
+ * cursor instead of skipping an offset, and their total is never counted.
+ * </p>
+ * <p>
+ * Conditions are SQL expressions over the sequence aliased {@code s} and its assembly aliased {@code a}, using
+ * positional parameters.
+ * </p>
+ */
+@Repository
+@Transactional(readOnly = true)
+public class SequenceRepository {
+
+    private static final int CHROMOSOME = SequenceAliasEntity.CHROMOSOME;
+
+    private static final String SEQUENCE_COLUMNS = "id, genbank_sequence_name, ena_sequence_name, genbank, refseq, " +
+            "ucsc_name, md5checksum, trunc512checksum, assembly_id";
+
+    private static final String SEQUENCES = "(select " + CHROMOSOME + " as kind, " + SEQUENCE_COLUMNS +
+            " from chromosome union all select 1 as kind, " + SEQUENCE_COLUMNS + " from scaffold) s";
+
+    private static final String SELECTED_SEQUENCE_COLUMNS = "s.kind, s.id, s.genbank_sequence_name, " +
+            "s.ena_sequence_name, s.genbank, s.refseq, s.ucsc_name, s.md5checksum, s.trunc512checksum";
+
+    /**
+     * Assembly columns are aliased because native queries cannot return two columns with the same name.
+     */
+    private static final String SELECTED_ASSEMBLY_COLUMNS = "a.id as asm_id, a.name as asm_name, " +
+            "a.organism as asm_organism, a.taxid as asm_taxid, a.genbank as asm_genbank, a.refseq as asm_refseq, " +
+            "a.is_genbank_refseq_identical as asm_is_genbank_refseq_identical, a.md5checksum as asm_md5checksum, " +
+            "a.trunc512checksum as asm_trunc512checksum";
+
+    private static final int ASSEMBLY_OFFSET = 9;
+
+    /**
+     * Number of sequences of an assembly aliased {@code a}, or null if they have not been counted yet.
+     */
+    private static final String ASSEMBLY_SEQUENCE_COUNT = "a.chromosome_count + a.scaffold_count";
+
+    private static final String BY_GENBANK = "s.genbank = ?1";
+
+    private static final String BY_REFSEQ = "s.refseq = ?1";
+
+    private static final String BY_ASSEMBLY_GENBANK = "a.genbank = ?1";
+
+    private static final String BY_ASSEMBLY_REFSEQ = "a.refseq = ?1";
+
+    private static final String BY_ASSEMBLY_ACCESSION = "(a.genbank = ?1 or a.refseq = ?1)";
+
+    /**
+     * Chromosomes and scaffolds having an alias, found through the index of the sequence alias table. A sequence having
+     * the same name under several types is only selected once. Sequences that no longer exist are selected with a null
+     * id, since their aliases are not deleted along with them, so they are filtered out by {@link #EXISTING}.
+     */
+    private static final String ALIASED_SEQUENCES = "(select m.kind, " + coalesce(SEQUENCE_COLUMNS) +
+            " from (select distinct x.sequence_kind as kind, x.sequence_id as id from sequence_alias x where %s) m " +
+            "left join chromosome c on m.kind = " + SequenceAliasEntity.CHROMOSOME + " and c.id = m.id " +
+            "left join scaffold f on m.kind = " + SequenceAliasEntity.SCAFFOLD + " and f.id = m.id) s";
+
+    private static final String EXISTING = "s.id is not null";
+
+    private static final String BY_ALIAS = "x.alias = ?1";
+
+    private static final String BY_ALIAS_AND_TAXID = "x.alias = ?1 and x.taxid = ?2";
+
+    private static final String BY_ALIAS_AND_ACCESSION = "x.alias = ?1 and x.assembly_id in " +
+            "(select b.id from assembly b where b.genbank = ?2 or b.refseq = ?2)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public Page<SequenceEntity> findSequenceProjectionsByGenbank(String genbank, Pageable request) {
+        return findSequences(BY_GENBANK, true, request, genbank);
+    }
+
+    public Page<SequenceEntity> findSequenceProjectionsByRefseq(String refseq, Pageable request) {
+        return findSequences(BY_REFSEQ, true, request, refseq);
+    }
+
+    public Page<SequenceEntity> findSequenceProjectionsByAssemblyGenbank(String asmGenbank, Pageable request) {
+        return findSequences(SEQUENCES, BY_ASSEMBLY_GENBANK, ASSEMBLY_SEQUENCE_COUNT, false, request, asmGenbank);
+    }
+
+    public Page<SequenceEntity> findSequenceProjectionsByAssemblyRefseq(String asmRefseq, Pageable request) {
+        return findSequences(SEQUENCES, BY_ASSEMBLY_REFSEQ, ASSEMBLY_SEQUENCE_COUNT, false, request, asmRefseq);
+    }
+
+    public Page<SequenceEntity> findSequenceProjectionsByAssemblyAccession(String asmAccession, Pageable request) {
+        return findSequences(SEQUENCES, BY_ASSEMBLY_ACCESSION, ASSEMBLY_SEQUENCE_COUNT, false, request,
+                             asmAccession);
+    }
+
+    /**
+     * @param type Type of the alias, or null to find sequences having the alias under any type.
+     */
+    public Page<SequenceEntity> findSequenceProjectionsByAlias(String alias, AliasType type, Pageable request) {
+        return findAliasedSequences(BY_ALIAS, type, request, alias);
+    }
+
+    public Page<SequenceEntity> findSequenceProjectionsByAliasAndAssemblyTaxid(String alias, AliasType type,
+                                                                              long asmTaxid, Pageable request) {
+        return findAliasedSequences(BY_ALIAS_AND_TAXID, type, request, alias, asmTaxid);
+    }
+
+    public Page<SequenceEntity> findSequenceProjectionsByAliasAndAssemblyAccession(String alias, AliasType type,
+                                                                                  String asmAccession,
+                                                                                  Pageable request) {
+        return findAliasedSequences(BY_ALIAS_AND_ACCESSION, type, request, alias, asmAccession);
+    }
+
+    public SequenceSlice findSequenceProjectionsByAssemblyGenbankAfter(
+            String asmGenbank, SequenceCursor after, int size) {
+        return findSequencesAfter(BY_ASSEMBLY_GENBANK, false, after, size, asmGenbank);
+    }
+
+    public SequenceSlice findSequenceProjectionsByAssemblyRefseqAfter(
+            String asmRefseq, SequenceCursor after, int size) {
+        return findSequencesAfter(BY_ASSEMBLY_REFSEQ, false, after, size, asmRefseq);
+    }
+
+    public SequenceSlice findSequenceProjectionsByAssemblyAccessionAfter(
+            String asmAccession, SequenceCursor after, int size) {
+        return findSequencesAfter(BY_ASSEMBLY_ACCESSION, false, after, size, asmAccession);
+    }
+
+    public SequenceSlice findSequenceProjectionsByAliasAfter(String alias, AliasType type, SequenceCursor after,
+                                                             int size) {
+        return findAliasedSequencesAfter(BY_ALIAS, type, after, size, alias);
+    }
+
+    public SequenceSlice findSequenceProjectionsByAliasAndAssemblyTaxidAfter(String alias, AliasType type,
+                                                                             long asmTaxid, SequenceCursor after,
+                                                                             int size) {
+        return findAliasedSequencesAfter(BY_ALIAS_AND_TAXID, type, after, size, alias, asmTaxid);
+    }
+
+    public SequenceSlice findSequenceProjectionsByAliasAndAssemblyAccessionAfter(String alias, AliasType type,
+                                                                                 String asmAccession,
+                                                                                 SequenceCursor after, int size) {
+        return findAliasedSequencesAfter(BY_ALIAS_AND_ACCESSION, type, after, size, alias, asmAccession);
+    }
+
+    public List<AssemblyEntity> findAssemblyProjectionsBySequenceGenbank(String genbank) {
+        return findAssemblies(BY_GENBANK, genbank);
+    }
+
+    public List<AssemblyEntity> findAssemblyProjectionsBySequenceRefseq(String refseq) {
+        return findAssemblies(BY_REFSEQ, refseq);
+    }
+
+    private Page<SequenceEntity> findSequences(String condition, boolean withAssembly, Pageable request,
+                                               Object... parameters) {
+        return findSequences(SEQUENCES, condition, null, withAssembly, request, parameters);
+    }
+
+    /**
+     * @param aliasCondition Condition over the sequence alias aliased {@code x}.
+     * @param type           Type of the alias, or null for any type.
+     */
+    private Page<SequenceEntity> findAliasedSequences(String aliasCondition, AliasType type, Pageable request,
+                                                      Object... parameters) {
+        Object[] allParameters = withAliasType(type, parameters);
+        return findSequences(aliasedSequences(aliasCondition, type, parameters.length), EXISTING, null, true,
+                             request, allParameters);
+    }
+
+    /**
+     * @param sources       Chromosomes and scaffolds to select from, aliased {@code s}.
+     * @param assemblyCount When the condition is only over the assembly, number of matching sequences of each matching
+     *                      assembly, which totals the page instead of counting the sequences. Null to always count
+     *                      them.
+     * @param withAssembly  Whether the assembly of each sequence is selected as well. Otherwise the assembly of the
+     *                      returned sequences is null.
+     */
+    private Page<SequenceEntity> findSequences(String sources, String condition, String assemblyCount,
+                                               boolean withAssembly, Pageable request, Object... parameters) {
+        String from = " from " + sources + " " + Projections.assemblyJoin(condition) +
+                " assembly a on a.id = s.assembly_id where " + condition;
+        Query query = entityManager.createNativeQuery("select " + columns(withAssembly) + from +
+                                                              " order by s.kind, s.id");
+        bind(query, parameters);
+        if (request.isPaged()) {
+            query.setFirstResult((int) request.getOffset()).setMaxResults(request.getPageSize());
+        }
+        List<SequenceEntity> sequences = new ArrayList<>();
+        for (Object row : query.getResultList()) {
+            sequences.add(toSequence((Object[]) row, withAssembly));
+        }
+        return PageableExecutionUtils.getPage(sequences, request, () -> {
+            if (assemblyCount != null) {
+                Query counts = entityManager.createNativeQuery(
+                        "select " + assemblyCount + " from assembly a where " + condition);
+                bind(counts, parameters);
+                Long total = Projections.sumCounts(counts.getResultList());
+                if (total != null) {
+                    return total;
+                }
+            }
+            Query count = entityManager.createNativeQuery("select count(*)" + from);
+            bind(count, parameters);
+            return ((Number) count.getSingleResult()).longValue();
+        });
+    }
+
+    private SequenceSlice findSequencesAfter(String condition, boolean withAssembly, SequenceCursor after, int size,
+                                             Object... parameters) {
+        return findSequencesAfter(SEQUENCES, condition, withAssembly, after, size, parameters);
+    }
+
+    private SequenceSlice findAliasedSequencesAfter(String aliasCondition, AliasType type, SequenceCursor after,
+                                                    int size, Object... parameters) {
+        Object[] allParameters = withAliasType(type, parameters);
+        return findSequencesAfter(aliasedSequences(aliasCondition, type, parameters.length), EXISTING, true, after,
+                                  size, allParameters);
+    }
+
+    /**
+     * Finds the sequences following a cursor. One more row than requested is read to tell whether there is a next
+     * slice, so that no count is ever needed.
+     *
+     * @param after Cursor of the last sequence already returned, or null to start from the first sequence.
+     * @throws IllegalArgumentException If the size is not positive, or too large for one more row to be read.
+     */
+    private SequenceSlice findSequencesAfter(String sources, String condition, boolean withAssembly,
+                                             SequenceCursor after, int size, Object... parameters) {
+        if (size < 1 || size == Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid slice size " + size);
+        }
+        String where = condition;
+        Object[] allParameters = parameters;
+        if (after != null) {
+            int kind = parameters.length + 1;
+            where = "(" + condition + ") and (s.kind, s.id) > (?" + kind + ", ?" + (kind + 1) + ")";
+            allParameters = Arrays.copyOf(parameters, parameters.length + 2);
+            allParameters[parameters.length] = after.getKind();
+            allParameters[parameters.length + 1] = after.getId();
+        }
+        Query query = entityManager.createNativeQuery(
+                "select " + columns(withAssembly) + " from " + sources + " " + Projections.assemblyJoin(condition) +
+                        " assembly a on a.id = s.assembly_id where " + where + " order by s.kind, s.id");
+        bind(query, allParameters);
+        query.setMaxResults(size + 1);
+        List<?> rows = query.getResultList();
+        List<SequenceEntity> sequences = new ArrayList<>();
+        for (int i = 0; i < rows.size() && i < size; i++) {
+            sequences.add(toSequence((Object[]) rows.get(i), withAssembly));
+        }
+        SequenceCursor next = null;
+        if (rows.size() > size) {
+            Object[] last = (Object[]) rows.get(size - 1);
+            next = new SequenceCursor(((Number) last[0]).intValue(), ((Number) last[1]).longValue());
+        }
+        return new SequenceSlice(sequences, next);
+    }
+
+    /**
+     * @return Assembly of every sequence matching the condition, once per matching sequence.
+     */
+    private List<AssemblyEntity> findAssemblies(String condition, Object... parameters) {
+        Query query = entityManager.createNativeQuery(
+                "select " + SELECTED_ASSEMBLY_COLUMNS + " from " + SEQUENCES + " join assembly a on a.id = " +
+                        "s.assembly_id where " + condition + " order by s.kind, s.id");
+        bind(query, parameters);
+        List<AssemblyEntity> assemblies = new ArrayList<>();
+        for (Object row : query.getResultList()) {
+            assemblies.add(Projections.toAssembly((Object[]) row, 0));
+        }
+        return assemblies;
+    }
+
+    /**
+     * @param parameterCount Number of parameters of the alias condition. The type, if any, is bound to the next one.
+     */
+    private static String aliasedSequences(String aliasCondition, AliasType type, int parameterCount) {
+        String condition = type == null ? aliasCondition : aliasCondition + " and x.alias_type = ?" +
+                (parameterCount + 1);
+        return String.format(ALIASED_SEQUENCES, condition);
+    }
+
+    private static Object[] withAliasType(AliasType type, Object[] parameters) {
+        if (type == null) {
+            return parameters;
+        }
+        Object[] allParameters = Arrays.copyOf(parameters, parameters.length + 1);
+        allParameters[parameters.length] = type.name();
+        return allParameters;
+    }
+
+    /**
+     * @return Columns of a chromosome aliased {@code c} or else of a scaffold aliased {@code f}, named after them.
+     */
+    private static String coalesce(String columns) {
+        StringBuilder coalesced = new StringBuilder();
+        for (String column : columns.split(", ")) {
+            if (coalesced.length() > 0) {
+                coalesced.append(", ");
+            }
+            coalesced.append("coalesce(c.").append(column).append(", f.").append(column).append(") as ")
+                     .append(column);
+        }
+        return coalesced.toString();
+    }
+
+    private static String columns(boolean withAssembly) {
+        return withAssembly ? SELECTED_SEQUENCE_COLUMNS + ", " + SELECTED_ASSEMBLY_COLUMNS : SELECTED_SEQUENCE_COLUMNS;
+    }
+
+    private static SequenceEntity toSequence(Object[] row, boolean withAssembly) {
+        SequenceEntity sequence = ((Number) row[0]).intValue() == CHROMOSOME ? new ChromosomeEntity()
+                : new ScaffoldEntity();
+        sequence.setGenbankSequenceName((String) row[2])
+                .setEnaSequenceName((String) row[3])
+                .setGenbank((String) row[4])
+                .setRefseq((String) row[5])
+                .setUcscName((String) row[6])
+                .setMd5checksum((String) row[7])
+                .setTrunc512checksum((String) row[8])
+                .setAssembly(withAssembly ? Projections.toAssembly(row, ASSEMBLY_OFFSET) : null);
+        return sequence;
+    }
+
+    private static void bind(Query query, Object[] parameters) {
+        for (int i = 0; i < parameters.length; i++) {
+            query.setParameter(i + 1, parameters[i]);
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.repo;
+
+import uk.ac.ebi.eva.contigalias.entities.SequenceEntity;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Sequences found after a {@link SequenceCursor}, along with the cursor to request the following ones.
+ */
+public class SequenceSlice {
+
+    private final List<SequenceEntity> content;
+
+    private final SequenceCursor next;
+
+    public SequenceSlice(List<SequenceEntity> content, SequenceCursor next) {
+        this.content = content;
+        this.next = next;
+    }
+
+    public List<SequenceEntity> getContent() {
+        return content;
+    }
+
+    /**
+     * @return Cursor of the last sequence of this slice, or empty if there are no more sequences after it.
+     */
+    public Optional<SequenceCursor> getNext() {
+        return Optional.ofNullable(next);
+    }
+
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import uk.ac.ebi.eva.contigalias.entities.AliasTableEntity;
+import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
+import uk.ac.ebi.eva.contigalias.entities.SequenceEntity;
+import uk.ac.ebi.eva.contigalias.event.AssemblyDeletedEvent;
+import uk.ac.ebi.eva.contigalias.event.AssemblyInsertedEvent;
+import uk.ac.ebi.eva.contigalias.event.SequenceChecksumsUpdatedEvent;
+import uk.ac.ebi.eva.contigalias.repo.AliasTableRepository;
+import uk.ac.ebi.eva.contigalias.repo.AssemblyRepository;
+import uk.ac.ebi.eva.contigalias.repo.PrimaryReads;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Maintains one {@link AliasTableEntity} per assembly. Tables are computed as soon as an assembly is inserted and
+ * deleted along with their assembly. When the checksums of one of their sequences change, tables are dropped and
+ * stored again on a background thread once the assembly has seen no further updates for the save delay, so that a
+ * series of updates to the sequences of an assembly only computes its table once. A request finding no table, for
+ * instance because the assembly was inserted before tables existed, computes it and has it stored in the background
+ * as well. Public requests never write to the database themselves. {@link #saveMissingAliasTables()} stores every
+ * missing table at once.
+ */
+@Service
+public class AliasTableService implements DisposableBean {
+
+    public static final String MISSING_VALUE = "na";
+
+    static final String HEADER = "# Sequence-Role\tGenBank-Accn\tRefSeq-Accn\tSequence-Name\tENA-Sequence-Name\t" +
+            "UCSC-style-name\tMD5-checksum\tTRUNC512-checksum\n";
+
+    /**
+     * Number of assemblies loaded with their sequences at once when storing missing tables.
+     */
+    private static final int SAVE_BATCH_SIZE = 10;
+
+    private final AliasTableRepository repository;
+
+    private final AssemblyRepository assemblyRepository;
+
+    private final long saveDelaySeconds;
+
+    private final ScheduledExecutorService saveExecutor;
+
+    /**
+     * Saves of the tables of assemblies, by id of the assembly, that the save executor has not started yet.
+     */
+    private final Map<Long, ScheduledFuture<?>> pendingSaves = new ConcurrentHashMap<>();
+
+    private final Logger logger = LoggerFactory.getLogger(AliasTableService.class);
+
+    @Autowired
+    public AliasTableService(AliasTableRepository repository, AssemblyRepository assemblyRepository,
+                             @Value("${config.alias-table.save-delay-seconds:5}") long saveDelaySeconds) {
+        this.repository = repository;
+        this.assemblyRepository = assemblyRepository;
+        this.saveDelaySeconds = saveDelaySeconds;
+        this.saveExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "alias-table-save");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param accession GenBank or RefSeq accession of the assembly.
+     * @return The alias table of the assembly, computed if the assembly exists but has no table yet, in which case the
+     * table is stored in the background.
+     */
+    public Optional<AliasTableEntity> getAliasTableByAccession(String accession) {
+        Optional<AliasTableEntity> table = repository.findAliasTableEntityByAccession(accession);
+        if (table.isPresent()) {
+            return table;
+        }
+        table = assemblyRepository.findAssemblyWithSequencesByAccession(accession)
+                                  .map(AliasTableService::createAliasTable);
+        table.ifPresent(it -> scheduleSave(it.getAssemblyId(), 0));
+        return table;
+    }
+
+    /**
+     * Computes and stores the alias tables of the assemblies that have none, a batch of assemblies at a time.
+     *
+     * @return Number of tables stored.
+     */
+    public int saveMissingAliasTables() {
+        long lastId = 0;
+        int saved = 0;
+        List<Long> ids;
+        do {
+            ids = assemblyRepository.findIdsWithoutAliasTableAfter(lastId, PageRequest.of(0, SAVE_BATCH_SIZE));
+            if (!ids.isEmpty()) {
+                for (AssemblyEntity assembly : assemblyRepository.findAssembliesWithSequencesByIdIn(ids)) {
+                    saveAliasTable(assembly);
+                    saved++;
+                }
+                lastId = ids.get(ids.size() - 1);
+            }
+        } while (ids.size() == SAVE_BATCH_SIZE);
+        return saved;
+    }
+
+    @EventListener
+    public void onAssemblyInserted(AssemblyInsertedEvent event) {
+        saveAliasTable(event.getAssembly());
+    }
+
+    @EventListener
+    public void onAssemblyDeleted(AssemblyDeletedEvent event) {
+        if (event.getGenbank() != null) {
+            repository.deleteAliasTableEntityByGenbank(event.getGenbank());
+        }
+        if (event.getRefseq() != null) {
+            repository.deleteAliasTableEntityByRefseq(event.getRefseq());
+        }
+    }
+
+    @EventListener
+    public void onSequenceChecksumsUpdated(SequenceChecksumsUpdatedEvent event) {
+        if (!event.getAssemblyIds().isEmpty()) {
+            repository.deleteAliasTableEntitiesByAssemblyIdIn(event.getAssemblyIds());
+            event.getAssemblyIds().forEach(id -> scheduleSave(id, saveDelaySeconds));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        saveExecutor.shutdownNow();
+    }
+
+    /**
+     * Stores the table of the assembly after the given delay, replacing any save of it that has not started yet, so
+     * that a series of updates only computes the table once.
+     */
+    private void scheduleSave(long assemblyId, long delaySeconds) {
+        pendingSaves.compute(assemblyId, (id, pending) -> {
+            if (pending != null) {
+                pending.cancel(false);
+            }
+            return saveExecutor.schedule(() -> saveAliasTable(id), delaySeconds, TimeUnit.SECONDS);
+        });
+    }
+
+    /**
+     * The assembly is read from the primary, since a replica may not have received the update that dropped the table
+     * yet. Updates made from now on schedule the table to be stored again.
+     */
+    private void saveAliasTable(long assemblyId) {
+        pendingSaves.remove(assemblyId);
+        try {
+            PrimaryReads.call(() -> assemblyRepository.findAssembliesWithSequencesByIdIn(
+                    Collections.singletonList(assemblyId))).forEach(this::saveAliasTable);
+        } catch (RuntimeException e) {
+            logger.warn("Could not save alias table of assembly " + assemblyId, e);
+        }
+    }
+
+    private AliasTableEntity saveAliasTable(AssemblyEntity assembly) {
+        AliasTableEntity table = createAliasTable(assembly);
+        repository.save(table);
+        logger.debug("Saved alias table of assembly " + assembly.getId() + " with " + table.getSequenceCount() +
+                             " sequences compressed to " + table.getContent().length + " bytes");
+        return table;
+    }
+
+    public static AliasTableEntity createAliasTable(AssemblyEntity assembly) {
+        StringBuilder builder = new StringBuilder(HEADER);
+        int sequenceCount = appendSequences(builder, "chromosome", assembly.getChromosomes());
+        sequenceCount += appendSequences(builder, "scaffold", assembly.getScaffolds());
+        byte[] uncompressed = builder.toString().getBytes(StandardCharsets.UTF_8);
+        return new AliasTableEntity().setAssemblyId(assembly.getId())
+                                     .setGenbank(assembly.getGenbank())
+                                     .setRefseq(assembly.getRefseq())
+                                     .setEtag("\"" + DigestUtils.md5DigestAsHex(uncompressed) + "\"")
+                                     .setSequenceCount(sequenceCount)
+                                     .setContent(compress(uncompressed));
+    }
+
+    private static int appendSequences(StringBuilder builder, String role, List<? extends SequenceEntity> sequences) {
+        if (sequences == null) {
+            return 0;
+        }
+        for (SequenceEntity sequence : sequences) {
+            builder.append(role);
+            appendValue(builder, sequence.getGenbank());
+            appendValue(builder, sequence.getRefseq());
+            appendValue(builder, sequence.getGenbankSequenceName());
+            appendValue(builder, sequence.getEnaSequenceName());
+            appendValue(builder, sequence.getUcscName());
+            appendValue(builder, sequence.getMd5checksum());
+            appendValue(builder, sequence.getTrunc512checksum());
+            builder.append('\n');
+        }
+        return sequences.size();
+    }
+
+    private static void appendValue(StringBuilder builder, String value) {
+        builder.append('\t').append(value == null ? MISSING_VALUE : value);
+    }
+
+    private static byte[] compress(byte[] content) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return The uncompressed content of the table, for clients that do not accept gzip encoded responses.
+     */
+    public static byte[] decompress(byte[] content) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length * 4);
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(content))) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = gzip.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+}
@@ -16,81 +16,219 @@
 
 package uk.ac.ebi.eva.contigalias.service;
 
+import org.hibernate.exception.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
+import uk.ac.ebi.eva.contigalias.cache.AssemblyCachePolicy;
+import uk.ac.ebi.eva.contigalias.cache.AssemblyLookupCache;
+import uk.ac.ebi.eva.contigalias.cache.AssemblyLookupCache.Authority;
 import uk.ac.ebi.eva.contigalias.datasource.ENAAssemblyDataSource;
 import uk.ac.ebi.eva.contigalias.datasource.NCBIAssemblyDataSource;
 import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
 import uk.ac.ebi.eva.contigalias.entities.ChromosomeEntity;
 import uk.ac.ebi.eva.contigalias.entities.ScaffoldEntity;
+import uk.ac.ebi.eva.contigalias.entities.SequenceEntity;
+import uk.ac.ebi.eva.contigalias.event.AssemblyChecksumsUpdatedEvent;
+import uk.ac.ebi.eva.contigalias.event.AssemblyDeletedEvent;
+import uk.ac.ebi.eva.contigalias.event.AssemblyInsertedEvent;
+import uk.ac.ebi.eva.contigalias.index.NegativeLookupFilter;
 import uk.ac.ebi.eva.contigalias.repo.AssemblyRepository;
+import uk.ac.ebi.eva.contigalias.repo.ChromosomeRepository;
+import uk.ac.ebi.eva.contigalias.repo.PrimaryReads;
+import uk.ac.ebi.eva.contigalias.repo.SequenceBulkLoader;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
 
 @Service
 public class AssemblyService {
 
+    /**
+     * Number of assemblies deleted per transaction by bulk deletions, which bounds both the memory they use and the
+     * duration of the locks they hold.
+     */
+    private static final int DELETE_BATCH_SIZE = 100;
+
+    /**
+     * Number of assemblies whose sequence aliases are inserted per transaction when backfilling them.
+     */
+    private static final int ALIAS_BACKFILL_BATCH_SIZE = 100;
+
+    /**
+     * Number of assemblies whose sequences get their taxonomic ID per transaction when backfilling it.
+     */
+    private static final int TAXID_BACKFILL_BATCH_SIZE = 100;
+
     private final AssemblyRepository repository;
 
+    private final ChromosomeRepository chromosomeRepository;
+
     private final NCBIAssemblyDataSource ncbiDataSource;
 
     private final ENAAssemblyDataSource enaDataSource;
 
-    private final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    private final ApplicationEventPublisher publisher;
 
-    private final Logger logger = LoggerFactory.getLogger(AssemblyService.class);
+    private final AssemblyCachePolicy cachePolicy;
+
+    private final NegativeLookupFilter lookupFilter;
 
-    private int CACHE_SIZE = 10;
+    private final AssemblyLookupCache lookupCache;
 
-    // TODO allow configuring this from application.properties, or remove cache limit feature
-    private boolean enableCacheLimit = false;
+    private final SequenceBulkLoader bulkLoader;
+
+    /**
+     * Assemblies with at least this many chromosomes and scaffolds are inserted by the {@link SequenceBulkLoader}.
+     */
+    private final int bulkLoadMinSequences;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+
+    private final Logger logger = LoggerFactory.getLogger(AssemblyService.class);
 
     @Autowired
     public AssemblyService(
-            AssemblyRepository repository, NCBIAssemblyDataSource ncbiDataSource, ENAAssemblyDataSource enaDataSource) {
+            AssemblyRepository repository, ChromosomeRepository chromosomeRepository,
+            NCBIAssemblyDataSource ncbiDataSource, ENAAssemblyDataSource enaDataSource,
+            ApplicationEventPublisher publisher, AssemblyCachePolicy cachePolicy, NegativeLookupFilter lookupFilter,
+            AssemblyLookupCache lookupCache, SequenceBulkLoader bulkLoader,
+            @Value("${config.bulk-load.min-sequences:50000}") int bulkLoadMinSequences) {
         this.repository = repository;
+        this.chromosomeRepository = chromosomeRepository;
         this.ncbiDataSource = ncbiDataSource;
         this.enaDataSource = enaDataSource;
+        this.publisher = publisher;
+        this.cachePolicy = cachePolicy;
+        this.lookupFilter = lookupFilter;
+        this.lookupCache = lookupCache;
+        this.bulkLoader = bulkLoader;
+        this.bulkLoadMinSequences = bulkLoadMinSequences;
     }
 
     public Optional<AssemblyEntity> getAssemblyOrFetchByAccession(String accession) throws IOException {
 
-        Optional<AssemblyEntity> entities = getAssemblyByAccession(accession);
-        if (entities.isPresent()) {
-            enaDataSource.addENASequenceNamesToAssembly(entities);
-            return entities;
+        // Accessions known to be missing from the database are fetched without looking them up first
+        if (lookupFilter.mightContain(accession)) {
+            Optional<AssemblyEntity> entities = getAssemblyByAccession(accession);
+            if (entities.isPresent()) {
+                enaDataSource.addENASequenceNamesToAssembly(entities);
+                return entities;
+            }
         }
         fetchAndInsertAssembly(accession);
 
-        entities = getAssemblyByAccession(accession);
+        Optional<AssemblyEntity> entities = getAssemblyByAccession(accession);
         return entities;
     }
 
     public Optional<AssemblyEntity> getAssemblyByGenbank(String genbank) {
-        Optional<AssemblyEntity> entity = repository.findAssemblyEntityByGenbank(genbank);
+        Optional<AssemblyEntity> entity = repository.findAssemblyWithSequencesByGenbank(genbank);
         stripAssemblyFromChromosomesAndScaffolds(entity);
+        entity.ifPresent(cachePolicy::recordAccess);
         return entity;
     }
 
     public Optional<AssemblyEntity> getAssemblyByRefseq(String refseq) {
-        Optional<AssemblyEntity> entity = repository.findAssemblyEntityByRefseq(refseq);
+        Optional<AssemblyEntity> entity = repository.findAssemblyWithSequencesByRefseq(refseq);
         stripAssemblyFromChromosomesAndScaffolds(entity);
+        entity.ifPresent(cachePolicy::recordAccess);
+        return entity;
+    }
+
+    /**
+     * Same as {@link #getAssemblyByAccession(String)} but leaves the chromosomes and scaffolds of the assembly null
+     * instead of loading them. The assembly is read by a projection query and served from the
+     * {@link AssemblyLookupCache}, so it is shared with other callers and must not be modified.
+     */
+    public Optional<AssemblyEntity> getAssemblyWithoutSequencesByAccession(String accession) {
+        return recordAccess(lookupCache.get(Authority.ACCESSION, accession,
+                                            () -> repository.findAssemblyProjectionByAccession(accession)));
+    }
+
+    public Optional<AssemblyEntity> getAssemblyWithoutSequencesByGenbank(String genbank) {
+        return recordAccess(lookupCache.get(Authority.GENBANK, genbank,
+                                            () -> repository.findAssemblyProjectionByGenbank(genbank)));
+    }
+
+    public Optional<AssemblyEntity> getAssemblyWithoutSequencesByRefseq(String refseq) {
+        return recordAccess(lookupCache.get(Authority.REFSEQ, refseq,
+                                            () -> repository.findAssemblyProjectionByRefseq(refseq)));
+    }
+
+    private Optional<AssemblyEntity> recordAccess(Optional<AssemblyEntity> entity) {
+        entity.ifPresent(cachePolicy::recordAccess);
         return entity;
     }
 
+    /**
+     * Records a read of assemblies found by other means than the lookups of this service, such as those of sequences.
+     */
+    public void recordAccess(Collection<AssemblyEntity> assemblies) {
+        assemblies.forEach(cachePolicy::recordAccess);
+    }
+
+    /**
+     * Records a read of the assemblies that the given sequences were returned with, once per assembly.
+     */
+    public void recordAccessBySequences(Collection<SequenceEntity> sequences) {
+        Map<Long, AssemblyEntity> assemblies = new LinkedHashMap<>();
+        for (SequenceEntity sequence : sequences) {
+            AssemblyEntity assembly = sequence.getAssembly();
+            if (assembly != null) {
+                assemblies.putIfAbsent(assembly.getId(), assembly);
+            }
+        }
+        recordAccess(assemblies.values());
+    }
+
+    /**
+     * Records a read of the assembly with the given GenBank or RefSeq accession, for lookups that do not return it.
+     */
+    public void recordAccessByAccession(String accession) {
+        cachePolicy.recordAccess(accession);
+    }
+
+    /**
+     * Assemblies are returned along with their chromosomes, which are read for the whole page at once. Scaffolds
+     * are left null.
+     */
     public Page<AssemblyEntity> getAssembliesByTaxid(long taxid, Pageable request) {
-        Page<AssemblyEntity> page = repository.findAssemblyEntitiesByTaxid(taxid, request);
-        page.forEach(this::stripAssemblyFromChromosomes);
+        Page<AssemblyEntity> page = repository.findAssemblyProjectionsByTaxid(taxid, request);
+        page.forEach(cachePolicy::recordAccess);
+        Map<Long, AssemblyEntity> assemblies = new HashMap<>();
+        for (AssemblyEntity assembly : page) {
+            assembly.setChromosomes(new ArrayList<>());
+            assemblies.put(assembly.getId(), assembly);
+        }
+        for (ChromosomeEntity chromosome : chromosomeRepository.findChromosomeProjectionsByAssemblyIdIn(
+                assemblies.keySet())) {
+            assemblies.get(chromosome.getAssembly().getId()).getChromosomes().add(chromosome);
+            chromosome.setAssembly(null);
+        }
         return page;
     }
 
@@ -103,11 +241,14 @@ public class AssemblyService {
         AssemblyEntity assemblyEntity = entity.get();
         assemblyEntity.setMd5checksum(md5).setTrunc512checksum(trunc512);
         repository.save(assemblyEntity);
+        publisher.publishEvent(new AssemblyChecksumsUpdatedEvent(assemblyEntity.getGenbank(),
+                                                                 assemblyEntity.getRefseq(), md5, trunc512));
     }
 
     public void fetchAndInsertAssembly(String accession)
             throws IOException, IllegalArgumentException {
-        Optional<AssemblyEntity> entity = repository.findAssemblyEntityByAccession(accession);
+        // Only spares the download of a present assembly, the insertion itself is guarded by the unique constraints
+        Optional<AssemblyEntity> entity = repository.findAssemblyProjectionByAccession(accession);
         if (entity.isPresent()) {
             throw duplicateAssemblyInsertionException(accession, entity.get());
         }
@@ -117,8 +258,9 @@ public class AssemblyService {
     }
 
     public Optional<AssemblyEntity> getAssemblyByAccession(String accession) {
-        Optional<AssemblyEntity> entity = repository.findAssemblyEntityByAccession(accession);
+        Optional<AssemblyEntity> entity = repository.findAssemblyWithSequencesByAccession(accession);
         stripAssemblyFromChromosomesAndScaffolds(entity);
+        entity.ifPresent(cachePolicy::recordAccess);
         return entity;
     }
 
@@ -148,34 +290,142 @@ public class AssemblyService {
         }
     }
 
+    /**
+     * Inserts an assembly along with its sequences. An assembly with the same GenBank or RefSeq accession is not looked
+     * up first: inserting one violates the unique constraints on accessions, which also holds when the same assembly is
+     * inserted concurrently, and rolls back the whole insertion.
+     *
+     * @throws IllegalArgumentException If an assembly with the same accession is already present.
+     */
     public void insertAssembly(AssemblyEntity entity) {
-        setCacheSizeLimit();
+        entity.setChromosomeCount(size(entity.getChromosomes())).setScaffoldCount(size(entity.getScaffolds()));
+        try {
+            if (entity.getChromosomeCount() + entity.getScaffoldCount() >= bulkLoadMinSequences) {
+                bulkLoader.insertAssembly(entity);
+            } else {
+                repository.insertAssembly(entity);
+            }
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateAccession(e)) {
+                throw duplicateAssemblyInsertionException(null, entity);
+            }
+            throw e;
+        }
+        publisher.publishEvent(new AssemblyInsertedEvent(entity));
+        evictAssemblies(cachePolicy.recordInsertion(entity));
+    }
 
-        if (isEntityPresent(entity)) {
-            throw duplicateAssemblyInsertionException(null, entity);
-        } else {
-            repository.save(entity);
+    private static boolean isDuplicateAccession(DataIntegrityViolationException e) {
+        if (!(e.getCause() instanceof ConstraintViolationException)) {
+            return false;
+        }
+        // Some databases report the index backing the constraint, so its name is only required to be mentioned
+        String constraint = ((ConstraintViolationException) e.getCause()).getConstraintName();
+        if (constraint == null) {
+            return false;
         }
+        constraint = constraint.toLowerCase(Locale.ROOT);
+        return constraint.contains(AssemblyEntity.GENBANK_CONSTRAINT) ||
+                constraint.contains(AssemblyEntity.REFSEQ_CONSTRAINT);
+    }
+
+    /**
+     * Completes the data stored before the application kept it up to date. Replicas may lag behind the primary, and
+     * data backfilled by another node starting at the same time would then look missing, so the backfills read from
+     * the primary.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        PrimaryReads.run(() -> {
+            updateMissingSequenceTaxids();
+            updateMissingSequenceCounts();
+            insertMissingSequenceAliases();
+        });
     }
 
     /**
-     * Limits the size of the cache to a maximum of CACHE_SIZE assemblies
+     * Copies the taxonomic ID of assemblies onto the chromosomes and scaffolds inserted before it was stored on them,
+     * a batch of assemblies per transaction. Once every sequence has it, finding the first batch returns at once.
+     */
+    public void updateMissingSequenceTaxids() {
+        long start = System.currentTimeMillis();
+        long lastId = 0;
+        int updated = 0;
+        List<Long> ids;
+        do {
+            ids = repository.findIdsWithMissingSequenceTaxidsAfter(lastId, TAXID_BACKFILL_BATCH_SIZE);
+            if (!ids.isEmpty()) {
+                updated += repository.updateMissingSequenceTaxidsByAssemblyIdIn(ids);
+                lastId = ids.get(ids.size() - 1);
+            }
+        } while (ids.size() == TAXID_BACKFILL_BATCH_SIZE);
+        if (updated > 0) {
+            logger.info("Copied the taxonomic ID of " + updated + " sequences from their assembly in " +
+                                (System.currentTimeMillis() - start) + "ms");
+        }
+    }
+
+    /**
+     * Counts the chromosomes and scaffolds of the assemblies inserted before their counts were kept.
+     */
+    public void updateMissingSequenceCounts() {
+        long start = System.currentTimeMillis();
+        int updated = repository.updateMissingSequenceCounts();
+        if (updated > 0) {
+            logger.info("Counted the sequences of " + updated + " assemblies in " +
+                                (System.currentTimeMillis() - start) + "ms");
+        }
+    }
+
+    /**
+     * Inserts the sequence aliases of the assemblies that have none, such as the assemblies inserted before the
+     * sequence alias table existed. Assemblies are visited in the order of their ids, so the ones whose sequences have
+     * no names are only visited once.
      * <p>
-     * I'm using a while loop instead of an if statement because
-     * if two requests reach at once, they both might read cache
-     * size < CACHE_SIZE and add an entry leading to cache having more than
-     * 10 entries. While loop on next run deletes entities till cache
-     * size < CACHE_SIZE. Now of course the same problem can arise if two
-     * requests start deleting at the same time but all that will lead
-     * to is the cache getting completely emptied.
+     * Nodes starting together may backfill the same assemblies. Names already inserted by another node are skipped,
+     * and a batch that fails all the same is logged and left for the next start, instead of aborting this one.
      * </p>
      */
-    private void setCacheSizeLimit() {
-        if (enableCacheLimit) {
-            while (repository.count() >= CACHE_SIZE) {
-                repository.findTopByIdNotNullOrderById().ifPresent(it -> repository.deleteById(it.getId()));
+    public void insertMissingSequenceAliases() {
+        long start = System.currentTimeMillis();
+        long lastId = 0;
+        int assemblies = 0;
+        int aliases = 0;
+        List<Long> ids;
+        do {
+            ids = repository.findIdsWithoutSequenceAliasesAfter(lastId, PageRequest.of(0, ALIAS_BACKFILL_BATCH_SIZE));
+            if (!ids.isEmpty()) {
+                try {
+                    aliases += repository.insertSequenceAliasesByAssemblyIdIn(ids);
+                    assemblies += ids.size();
+                } catch (DataAccessException e) {
+                    logger.warn("Could not insert the sequence aliases of assemblies " + ids.get(0) + " to " +
+                                        ids.get(ids.size() - 1) + ", they are left for the next start", e);
+                }
+                lastId = ids.get(ids.size() - 1);
             }
+        } while (ids.size() == ALIAS_BACKFILL_BATCH_SIZE);
+        if (assemblies > 0) {
+            logger.info("Inserted " + aliases + " sequence aliases of " + assemblies + " assemblies in " +
+                                (System.currentTimeMillis() - start) + "ms");
+        }
+    }
+
+    private static int size(List<?> sequences) {
+        return sequences == null ? 0 : sequences.size();
+    }
+
+    /**
+     * Deletes the assemblies selected for eviction by the {@link AssemblyCachePolicy}. The policy hands out evictions
+     * in batches, so most inserts return without touching the database here.
+     */
+    private void evictAssemblies(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
         }
+        List<AssemblyEntity> evicted = repository.findAssemblyProjectionsByIdIn(ids);
+        deleteAssemblies(evicted);
+        logger.debug("Evicted " + evicted.size() + " least recently used assemblies");
     }
 
     public boolean isEntityPresent(AssemblyEntity entity) {
@@ -184,11 +434,10 @@ public class AssemblyService {
         if (genbank == null && refseq == null) {
             return false;
         }
-        Optional<AssemblyEntity> existingAssembly = repository.findAssemblyEntityByGenbankOrRefseq(
+        return repository.existsByGenbankOrRefseq(
                 // Setting to invalid prevents finding random accessions with null GCA/GCF
                 genbank == null ? "##########" : genbank,
                 refseq == null ? "##########" : refseq);
-        return existingAssembly.isPresent();
     }
 
     public void fetchAndInsertAssembly(List<String> accessions) {
@@ -202,20 +451,73 @@ public class AssemblyService {
     }
 
     public void deleteAssemblyByGenbank(String genbank) {
-        repository.deleteAssemblyEntityByGenbank(genbank);
+        // The other accession is looked up first so that listeners can invalidate data keyed by either of them
+        Optional<AssemblyEntity> assembly = repository.findAssemblyProjectionByGenbank(genbank);
+        assembly.ifPresent(it -> repository.deleteAssembliesByIdIn(Collections.singleton(it.getId())));
+        publisher.publishEvent(new AssemblyDeletedEvent(genbank, assembly.map(AssemblyEntity::getRefseq).orElse(null)));
     }
 
     public void deleteAssemblyByRefseq(String refseq) {
-        repository.deleteAssemblyEntityByRefseq(refseq);
+        Optional<AssemblyEntity> assembly = repository.findAssemblyProjectionByRefseq(refseq);
+        assembly.ifPresent(it -> repository.deleteAssembliesByIdIn(Collections.singleton(it.getId())));
+        publisher.publishEvent(new AssemblyDeletedEvent(assembly.map(AssemblyEntity::getGenbank).orElse(null), refseq));
     }
 
     public void deleteAssemblyByAccession(String accession) {
-        Optional<AssemblyEntity> assembly = getAssemblyByAccession(accession);
-        assembly.ifPresent(this::deleteAssembly);
+        repository.findAssemblyProjectionByAccession(accession).ifPresent(this::deleteAssembly);
     }
 
+    /**
+     * Deletes the assembly having the id of the given one, whatever sequences the given instance holds.
+     */
     public void deleteAssembly(AssemblyEntity entity) {
-        repository.delete(entity);
+        repository.deleteAssembliesByIdIn(Collections.singleton(entity.getId()));
+        publisher.publishEvent(new AssemblyDeletedEvent(entity.getGenbank(), entity.getRefseq()));
+    }
+
+    /**
+     * Deletes the assemblies matching any of the given INSDC or RefSeq accessions, {@link #DELETE_BATCH_SIZE}
+     * accessions at a time.
+     *
+     * @return Number of assemblies deleted.
+     */
+    public int deleteAssembliesByAccessions(List<String> accessions) {
+        int deleted = 0;
+        for (int from = 0; from < accessions.size(); from += DELETE_BATCH_SIZE) {
+            List<String> batch = accessions.subList(from, Math.min(from + DELETE_BATCH_SIZE, accessions.size()));
+            Map<Long, AssemblyEntity> assemblies = new HashMap<>();
+            repository.findAssemblyProjectionsByGenbankIn(batch).forEach(it -> assemblies.put(it.getId(), it));
+            repository.findAssemblyProjectionsByRefseqIn(batch).forEach(it -> assemblies.put(it.getId(), it));
+            deleted += deleteAssemblies(assemblies.values());
+        }
+        return deleted;
+    }
+
+    /**
+     * Deletes all assemblies of a taxonomy, {@link #DELETE_BATCH_SIZE} assemblies at a time.
+     *
+     * @return Number of assemblies deleted.
+     */
+    public int deleteAssembliesByTaxid(long taxid) {
+        int deleted = 0;
+        Slice<AssemblyEntity> batch;
+        int deletedFromBatch;
+        do {
+            // Deleted assemblies no longer match, so the next batch is always the first page
+            batch = repository.findAssemblyProjectionSliceByTaxid(taxid, PageRequest.of(0, DELETE_BATCH_SIZE));
+            deletedFromBatch = deleteAssemblies(batch.getContent());
+            deleted += deletedFromBatch;
+        } while (batch.hasNext() && deletedFromBatch > 0);
+        return deleted;
+    }
+
+    private int deleteAssemblies(Collection<AssemblyEntity> assemblies) {
+        List<Long> ids = assemblies.stream().map(AssemblyEntity::getId).collect(Collectors.toList());
+        int deleted = repository.deleteAssembliesByIdIn(ids);
+        for (AssemblyEntity it : assemblies) {
+            publisher.publishEvent(new AssemblyDeletedEvent(it.getGenbank(), it.getRefseq()));
+        }
+        return deleted;
     }
 
     private IllegalArgumentException duplicateAssemblyInsertionException(String accession, AssemblyEntity present) {
@@ -234,20 +536,4 @@ public class AssemblyService {
         }
         return new IllegalArgumentException(exception.toString());
     }
-
-    public int getCacheSize() {
-        return CACHE_SIZE;
-    }
-
-    public void setCacheSize(int CACHE_SIZE) {
-        this.CACHE_SIZE = CACHE_SIZE;
-    }
-
-    public boolean isEnableCacheLimit() {
-        return enableCacheLimit;
-    }
-
-    public void setEnableCacheLimit(boolean enableCacheLimit) {
-        this.enableCacheLimit = enableCacheLimit;
-    }
-}
\ No newline at end of file
+}
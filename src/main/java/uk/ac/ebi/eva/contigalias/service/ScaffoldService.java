@@ -17,14 +17,21 @@
 package uk.ac.ebi.eva.contigalias.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
 import uk.ac.ebi.eva.contigalias.entities.ScaffoldEntity;
+import uk.ac.ebi.eva.contigalias.event.SequenceChecksumsUpdatedEvent;
+import uk.ac.ebi.eva.contigalias.repo.AssemblyRepository;
 import uk.ac.ebi.eva.contigalias.repo.ScaffoldRepository;
+import uk.ac.ebi.eva.contigalias.repo.SequenceChecksumUpdater;
+import uk.ac.ebi.eva.contigalias.repo.SequenceChecksums;
+import uk.ac.ebi.eva.contigalias.repo.SequenceChecksumsUpdate;
 
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -33,222 +40,123 @@ public class ScaffoldService {
 
     private final ScaffoldRepository repository;
 
+    private final AssemblyRepository assemblyRepository;
+
+    private final SequenceChecksumUpdater checksumUpdater;
+
+    private final ApplicationEventPublisher publisher;
+
     @Autowired
-    public ScaffoldService(ScaffoldRepository repository) {
+    public ScaffoldService(ScaffoldRepository repository, AssemblyRepository assemblyRepository,
+                           SequenceChecksumUpdater checksumUpdater, ApplicationEventPublisher publisher) {
         this.repository = repository;
+        this.assemblyRepository = assemblyRepository;
+        this.checksumUpdater = checksumUpdater;
+        this.publisher = publisher;
     }
 
     public Page<ScaffoldEntity> getScaffoldsByGenbank(String genbank, Pageable request) {
-        Page<ScaffoldEntity> page = repository.findScaffoldEntitiesByGenbank(genbank, request);
-        return stripChromosomesAndScaffoldsFromAssembly(page);
+        return repository.findScaffoldProjectionsByGenbank(genbank, request);
     }
 
     public Page<ScaffoldEntity> getScaffoldsByRefseq(String refseq, Pageable request) {
-        Page<ScaffoldEntity> page = repository.findScaffoldEntitiesByRefseq(refseq, request);
-        return stripChromosomesAndScaffoldsFromAssembly(page);
+        return repository.findScaffoldProjectionsByRefseq(refseq, request);
     }
 
     public Page<ScaffoldEntity> getScaffoldsByAssemblyGenbank(String asmGenbank, Pageable request) {
-        Page<ScaffoldEntity> page = repository.findScaffoldEntitiesByAssembly_Genbank(asmGenbank, request);
-        return stripAssembliesFromScaffolds(page);
+        return repository.findScaffoldProjectionsByAssemblyGenbank(asmGenbank, request);
     }
 
     public Page<ScaffoldEntity> getScaffoldsByAssemblyRefseq(String asmRefseq, Pageable request) {
-        Page<ScaffoldEntity> page = repository.findScaffoldEntitiesByAssembly_Refseq(asmRefseq, request);
-        return stripAssembliesFromScaffolds(page);
+        return repository.findScaffoldProjectionsByAssemblyRefseq(asmRefseq, request);
     }
 
     public Page<ScaffoldEntity> getScaffoldsByName(String name, Pageable request) {
-        Page<ScaffoldEntity> page = repository.findScaffoldEntitiesByGenbankSequenceName(name, request);
-        return stripChromosomesAndScaffoldsFromAssembly(page);
+        return repository.findScaffoldProjectionsByGenbankSequenceName(name, request);
     }
 
     public Page<ScaffoldEntity> getScaffoldsByNameAndAssemblyTaxid(String name, long asmTaxid, Pageable request) {
-        Page<ScaffoldEntity> page = repository.findScaffoldEntitiesByGenbankSequenceNameAndAssembly_Taxid(name, asmTaxid, request);
-        return stripChromosomesAndScaffoldsFromAssembly(page);
+        return repository.findScaffoldProjectionsByGenbankSequenceNameAndAssemblyTaxid(name, asmTaxid, request);
     }
 
     public Page<ScaffoldEntity> getScaffoldsByNameAndAssembly(
             String name, AssemblyEntity assembly, Pageable request) {
-        Page<ScaffoldEntity> page = repository.findScaffoldEntitiesByGenbankSequenceNameAndAssembly(name, assembly, request);
-        assembly.setScaffolds(null);
-        return injectAssemblyIntoScaffolds(page, assembly);
+        Page<ScaffoldEntity> page = repository.findScaffoldProjectionsByGenbankSequenceNameAndAssemblyId(
+                name, assembly.getId(), request);
+        page.forEach(it -> it.setAssembly(assembly));
+        return page;
     }
 
     public Page<ScaffoldEntity> getScaffoldsByAssemblyAccession(String accession, Pageable request) {
-        Page<ScaffoldEntity> Scaffolds = repository.findScaffoldEntitiesByAssemblyGenbankOrAssemblyRefseq(
-                accession, accession, request);
-        return stripAssembliesFromScaffolds(Scaffolds);
+        return repository.findScaffoldProjectionsByAssemblyAccession(accession, request);
     }
 
     public Page<ScaffoldEntity> getScaffoldsByUcscName(String ucscName, Pageable request) {
-        Page<ScaffoldEntity> page = repository.findScaffoldEntitiesByUcscName(ucscName, request);
-        return stripChromosomesAndScaffoldsFromAssembly(page);
+        return repository.findScaffoldProjectionsByUcscName(ucscName, request);
     }
 
     public Page<ScaffoldEntity> getScaffoldsByUcscNameAndAssemblyTaxid(
             String ucscName, long asmTaxid, Pageable request) {
-        Page<ScaffoldEntity> page
-                = repository.findScaffoldEntitiesByUcscNameAndAssembly_Taxid(ucscName, asmTaxid, request);
-        return stripChromosomesAndScaffoldsFromAssembly(page);
+        return repository.findScaffoldProjectionsByUcscNameAndAssemblyTaxid(ucscName, asmTaxid, request);
     }
 
     public Page<ScaffoldEntity> getScaffoldsByUcscNameAndAssembly(String ucscName, AssemblyEntity assembly,
                                                                   Pageable request) {
-        Page<ScaffoldEntity> page
-                = repository.findScaffoldEntitiesByUcscNameAndAssembly(ucscName, assembly, request);
-        assembly.setScaffolds(null);
-        return injectAssemblyIntoScaffolds(page, assembly);
+        Page<ScaffoldEntity> page = repository.findScaffoldProjectionsByUcscNameAndAssemblyId(
+                ucscName, assembly.getId(), request);
+        page.forEach(it -> it.setAssembly(assembly));
+        return page;
     }
 
-    public Page<ScaffoldEntity> getScaffoldsByEnaName(String enaSequenceName, Pageable request) {
-        Page<ScaffoldEntity> page = repository.findScaffoldEntitiesByEnaSequenceName(enaSequenceName, request);
-        return stripChromosomesAndScaffoldsFromAssembly(page);
+    public Page<ScaffoldEntity> getScaffoldsByEnaName(String enaName, Pageable request) {
+        return repository.findScaffoldProjectionsByEnaSequenceName(enaName, request);
     }
 
     public Page<ScaffoldEntity> getScaffoldsByEnaNameAndAssemblyTaxid(String enaName, long asmTaxid, Pageable request) {
-        Page<ScaffoldEntity> page
-                = repository.findScaffoldEntitiesByEnaSequenceNameAndAssembly_Taxid(enaName, asmTaxid, request);
-        return stripChromosomesAndScaffoldsFromAssembly(page);
+        return repository.findScaffoldProjectionsByEnaSequenceNameAndAssemblyTaxid(enaName, asmTaxid, request);
     }
 
     public Page<ScaffoldEntity> getScaffoldsByEnaNameAndAssembly(
             String enaName, AssemblyEntity assembly, Pageable request) {
-        Page<ScaffoldEntity> page
-                = repository.findScaffoldEntitiesByEnaSequenceNameAndAssembly(enaName, assembly, request);
-        assembly.setScaffolds(null);
-        return injectAssemblyIntoScaffolds(page, assembly);
+        Page<ScaffoldEntity> page = repository.findScaffoldProjectionsByEnaSequenceNameAndAssemblyId(
+                enaName, assembly.getId(), request);
+        page.forEach(it -> it.setAssembly(assembly));
+        return page;
     }
 
     public List<AssemblyEntity> getAssembliesByScaffoldGenbank(String chrGenbank) {
-        Page<ScaffoldEntity> page = repository.findScaffoldEntitiesByGenbank(chrGenbank, Pageable.unpaged());
-        return extractAssembliesFromScaffolds(page);
+        return repository.findAssemblyProjectionsByScaffoldGenbank(chrGenbank);
     }
 
     public List<AssemblyEntity> getAssembliesByScaffoldRefseq(String chrRefseq) {
-        Page<ScaffoldEntity> page = repository.findScaffoldEntitiesByRefseq(chrRefseq, Pageable.unpaged());
-        return extractAssembliesFromScaffolds(page);
-    }
-
-    public List<AssemblyEntity> extractAssembliesFromScaffolds(Page<ScaffoldEntity> page) {
-        List<AssemblyEntity> list = new LinkedList<>();
-        if (page != null && page.getTotalElements() > 0) {
-            for (ScaffoldEntity scaffoldEntity : page) {
-                AssemblyEntity assembly = scaffoldEntity.getAssembly();
-                assembly.setChromosomes(null);
-                list.add(assembly);
-            }
-        }
-        return list;
-    }
-
-    private Page<ScaffoldEntity> injectAssemblyIntoScaffolds(Page<ScaffoldEntity> page, AssemblyEntity assembly) {
-        if (page != null && page.getTotalElements() > 0) {
-            page.forEach(it -> it.setAssembly(assembly));
-        }
-        return page;
-    }
-
-    private Page<ScaffoldEntity> stripChromosomesAndScaffoldsFromAssembly(Page<ScaffoldEntity> page) {
-        if (page != null && page.getTotalElements() > 0) {
-            page.forEach(it -> {
-                stripChromosomeFromAssembly(it);
-                stripScaffoldFromAssembly(it);
-            });
-        }
-        return page;
-    }
-
-    private void stripScaffoldFromAssembly(ScaffoldEntity scaffold) {
-        AssemblyEntity assembly = scaffold.getAssembly();
-        if (assembly != null) {
-            assembly.setScaffolds(null);
-        }
-    }
-
-    private void stripChromosomeFromAssembly(ScaffoldEntity scaffold) {
-        AssemblyEntity assembly = scaffold.getAssembly();
-        if (assembly != null) {
-            assembly.setChromosomes(null);
-        }
-    }
-
-    private Page<ScaffoldEntity> stripAssembliesFromScaffolds(Page<ScaffoldEntity> page) {
-        if (page != null && page.getTotalElements() > 0) {
-            page.forEach(this::stripAssemblyFromChromosome);
-        }
-        return page;
+        return repository.findAssemblyProjectionsByScaffoldRefseq(chrRefseq);
     }
 
     public void putScaffoldChecksumsByAccession(String accession, String md5, String trunc512) {
-        Page<ScaffoldEntity> page = repository.findScaffoldEntitiesByGenbankOrRefseq(
-                accession, accession, Pageable.unpaged());
-        if (page.isEmpty()) {
+        SequenceChecksums checksums = new SequenceChecksums(accession, md5, trunc512);
+        SequenceChecksumsUpdate update = checksumUpdater.updateScaffoldChecksums(Collections.singletonList(checksums));
+        if (update.isEmpty()) {
             throw new IllegalArgumentException(
                     "No scaffolds corresponding to accession " + accession + " found in the database");
         }
-        page.forEach(it -> {
-            it.setMd5checksum(md5).setTrunc512checksum(trunc512);
-            repository.save(it);
-        });
-    }
-
-    private void stripAssemblyFromChromosome(ScaffoldEntity scaffold) {
-        scaffold.setAssembly(null);
+        publisher.publishEvent(new SequenceChecksumsUpdatedEvent(Collections.singletonList(checksums),
+                                                                 update.getAssemblyIds()));
     }
 
     public void insertScaffold(ScaffoldEntity entity) {
         // TODO check if entity already exists in db
         repository.save(entity);
+        if (entity.getAssembly() != null) {
+            assemblyRepository.addToSequenceCounts(entity.getAssembly().getId(), 0, 1);
+        }
     }
 
     public void deleteScaffold(ScaffoldEntity entity) {
         // TODO check if entity already exists in db
         repository.delete(entity);
-    }
-
-    public long countScaffoldEntitiesByGenbank(String genbank) {
-        return repository.countScaffoldEntitiesByGenbank(genbank);
-    }
-
-    public long countScaffoldEntitiesByRefseq(String refseq) {
-        return repository.countScaffoldEntitiesByRefseq(refseq);
-    }
-
-    public long countScaffoldEntitiesByAssembly_Genbank(String asmGenbank) {
-        return repository.countScaffoldEntitiesByAssembly_Genbank(asmGenbank);
-    }
-
-    public long countScaffoldEntitiesByAssembly_Refseq(String asmRefseq) {
-        return repository.countScaffoldEntitiesByAssembly_Refseq(asmRefseq);
-    }
-
-    public long countScaffoldEntitiesByNameAndAssembly_Taxid(String name, long asmTaxid) {
-        return repository.countScaffoldEntitiesByGenbankSequenceNameAndAssembly_Taxid(name, asmTaxid);
-    }
-
-    public long countScaffoldEntitiesByUcscNameAndAssembly_Taxid(String ucscName, long asmTaxid) {
-        return repository.countScaffoldEntitiesByUcscNameAndAssembly_Taxid(ucscName, asmTaxid);
-    }
-
-    public long countScaffoldEntitiesByNameAndAssembly(String name, AssemblyEntity assembly) {
-        return repository.countScaffoldEntitiesByGenbankSequenceNameAndAssembly(name, assembly);
-    }
-
-    public long countScaffoldEntitiesByUcscNameAndAssembly(String ucscName, AssemblyEntity assembly) {
-        return repository.countScaffoldEntitiesByUcscNameAndAssembly(ucscName, assembly);
-    }
-
-    public long countScaffoldEntitiesByName(String name) {
-        return repository.countScaffoldEntitiesByGenbankSequenceName(name);
-    }
-
-    public long countScaffoldEntitiesByAssemblyGenbankOrAssemblyRefseq(String genbank, String refseq) {
-        return repository.countScaffoldEntitiesByAssemblyGenbankOrAssemblyRefseq(genbank, refseq);
-    }
-
-    public long countScaffoldEntitiesByUcscName(String ucscName) {
-        return repository.countScaffoldEntitiesByUcscName(ucscName);
+        if (entity.getAssembly() != null) {
+            assemblyRepository.addToSequenceCounts(entity.getAssembly().getId(), 0, -1);
+        }
     }
 
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.service;
+
+import java.util.List;
+
+/**
+ * Outcome of setting the checksums of many sequences at once.
+ */
+public class SequenceChecksumsUpdateReport {
+
+    private final long updated;
+
+    private final List<String> notFound;
+
+    public SequenceChecksumsUpdateReport(long updated, List<String> notFound) {
+        this.updated = updated;
+        this.notFound = notFound;
+    }
+
+    /**
+     * @return Number of chromosomes and scaffolds whose checksums were set.
+     */
+    public long getUpdated() {
+        return updated;
+    }
+
+    /**
+     * @return Accessions matching no chromosome or scaffold, in the order they were given.
+     */
+    public List<String> getNotFound() {
+        return notFound;
+    }
+
+}
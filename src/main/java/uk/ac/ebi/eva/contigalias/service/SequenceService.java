@@ -0,0 +1,187 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
+import uk.ac.ebi.eva.contigalias.entities.SequenceEntity;
+import uk.ac.ebi.eva.contigalias.event.SequenceChecksumsUpdatedEvent;
+import uk.ac.ebi.eva.contigalias.index.AliasType;
+import uk.ac.ebi.eva.contigalias.repo.SequenceChecksumUpdater;
+import uk.ac.ebi.eva.contigalias.repo.SequenceChecksums;
+import uk.ac.ebi.eva.contigalias.repo.SequenceChecksumsUpdate;
+import uk.ac.ebi.eva.contigalias.repo.SequenceCursor;
+import uk.ac.ebi.eva.contigalias.repo.SequenceRepository;
+import uk.ac.ebi.eva.contigalias.repo.SequenceSlice;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lookups of chromosomes and scaffolds together. Each page is returned by a single query, with chromosomes listed
+ * before scaffolds. Lookups that can return many sequences can also be read in slices following a
+ * {@link SequenceCursor}, which never count their results. Sequences are found by name through the sequence alias
+ * table, which holds every name of every sequence. Checksums of many sequences can be set at once, without
+ * loading them.
+ */
+@Service
+public class SequenceService {
+
+    private static final int CHECKSUM_BATCH_SIZE = 1000;
+
+    private final SequenceRepository repository;
+
+    private final SequenceChecksumUpdater checksumUpdater;
+
+    private final ApplicationEventPublisher publisher;
+
+    @Autowired
+    public SequenceService(SequenceRepository repository, SequenceChecksumUpdater checksumUpdater,
+                           ApplicationEventPublisher publisher) {
+        this.repository = repository;
+        this.checksumUpdater = checksumUpdater;
+        this.publisher = publisher;
+    }
+
+    public Page<SequenceEntity> getSequencesByGenbank(String genbank, Pageable request) {
+        return repository.findSequenceProjectionsByGenbank(genbank, request);
+    }
+
+    public Page<SequenceEntity> getSequencesByRefseq(String refseq, Pageable request) {
+        return repository.findSequenceProjectionsByRefseq(refseq, request);
+    }
+
+    public Page<SequenceEntity> getSequencesByAssemblyGenbank(String asmGenbank, Pageable request) {
+        return repository.findSequenceProjectionsByAssemblyGenbank(asmGenbank, request);
+    }
+
+    public Page<SequenceEntity> getSequencesByAssemblyRefseq(String asmRefseq, Pageable request) {
+        return repository.findSequenceProjectionsByAssemblyRefseq(asmRefseq, request);
+    }
+
+    public Page<SequenceEntity> getSequencesByAssemblyAccession(String asmAccession, Pageable request) {
+        return repository.findSequenceProjectionsByAssemblyAccession(asmAccession, request);
+    }
+
+    public List<AssemblyEntity> getAssembliesBySequenceGenbank(String genbank) {
+        return repository.findAssemblyProjectionsBySequenceGenbank(genbank);
+    }
+
+    public List<AssemblyEntity> getAssembliesBySequenceRefseq(String refseq) {
+        return repository.findAssemblyProjectionsBySequenceRefseq(refseq);
+    }
+
+    /**
+     * @param type Type of the name, or null to find sequences having the name under any type.
+     */
+    public Page<SequenceEntity> getSequencesByName(String name, AliasType type, Pageable request) {
+        return repository.findSequenceProjectionsByAlias(name, type, request);
+    }
+
+    public Page<SequenceEntity> getSequencesByNameAndAssemblyTaxid(String name, AliasType type, long asmTaxid,
+                                                                   Pageable request) {
+        return repository.findSequenceProjectionsByAliasAndAssemblyTaxid(name, type, asmTaxid, request);
+    }
+
+    public Page<SequenceEntity> getSequencesByNameAndAssemblyAccession(String name, AliasType type,
+                                                                       String asmAccession, Pageable request) {
+        return repository.findSequenceProjectionsByAliasAndAssemblyAccession(name, type, asmAccession, request);
+    }
+
+    public SequenceSlice getSequencesByAssemblyGenbank(String asmGenbank, SequenceCursor after, int size) {
+        return repository.findSequenceProjectionsByAssemblyGenbankAfter(asmGenbank, after, size);
+    }
+
+    public SequenceSlice getSequencesByAssemblyRefseq(String asmRefseq, SequenceCursor after, int size) {
+        return repository.findSequenceProjectionsByAssemblyRefseqAfter(asmRefseq, after, size);
+    }
+
+    public SequenceSlice getSequencesByAssemblyAccession(String asmAccession, SequenceCursor after, int size) {
+        return repository.findSequenceProjectionsByAssemblyAccessionAfter(asmAccession, after, size);
+    }
+
+    public SequenceSlice getSequencesByName(String name, AliasType type, SequenceCursor after, int size) {
+        return repository.findSequenceProjectionsByAliasAfter(name, type, after, size);
+    }
+
+    public SequenceSlice getSequencesByNameAndAssemblyTaxid(String name, AliasType type, long asmTaxid,
+                                                            SequenceCursor after, int size) {
+        return repository.findSequenceProjectionsByAliasAndAssemblyTaxidAfter(name, type, asmTaxid, after, size);
+    }
+
+    public SequenceSlice getSequencesByNameAndAssemblyAccession(String name, AliasType type, String asmAccession,
+                                                                SequenceCursor after, int size) {
+        return repository.findSequenceProjectionsByAliasAndAssemblyAccessionAfter(name, type, asmAccession, after,
+                                                                                  size);
+    }
+
+    /**
+     * Sets the checksums of every chromosome and scaffold matching each accession. The checksums are read and applied
+     * in batches, each in its own transaction, so a failure midway leaves the batches already applied in the
+     * database. One {@link SequenceChecksumsUpdatedEvent} is published per batch. When an accession is given more
+     * than once, the last checksums given for it are kept.
+     */
+    public SequenceChecksumsUpdateReport putSequenceChecksums(Iterator<SequenceChecksums> checksums) {
+        long updated = 0;
+        Set<String> notFound = new LinkedHashSet<>();
+        Map<String, SequenceChecksums> batch = new LinkedHashMap<>();
+        while (checksums.hasNext()) {
+            SequenceChecksums next = checksums.next();
+            batch.put(next.getAccession(), next);
+            if (batch.size() == CHECKSUM_BATCH_SIZE) {
+                updated += putSequenceChecksums(batch.values(), notFound);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            updated += putSequenceChecksums(batch.values(), notFound);
+        }
+        return new SequenceChecksumsUpdateReport(updated, new ArrayList<>(notFound));
+    }
+
+    private long putSequenceChecksums(Collection<SequenceChecksums> batch, Set<String> notFound) {
+        SequenceChecksumsUpdate update = checksumUpdater.updateSequenceChecksums(batch);
+        long updated = 0;
+        List<SequenceChecksums> found = new ArrayList<>();
+        for (SequenceChecksums it : batch) {
+            Integer count = update.getUpdatedByAccession().get(it.getAccession());
+            if (count == null) {
+                notFound.add(it.getAccession());
+            } else {
+                updated += count;
+                notFound.remove(it.getAccession());
+                found.add(it);
+            }
+        }
+        if (!found.isEmpty()) {
+            publisher.publishEvent(new SequenceChecksumsUpdatedEvent(found, update.getAssemblyIds()));
+        }
+        return updated;
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.accession;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AccessionTest {
+
+    private static final String[] VALID_ACCESSIONS = {"GCA_000001405.10", "GCF_000001405.39", "GCA_004051055.1",
+            "NC_000001.11", "NT_187361.1", "NW_003315950.2", "NZ_ABCD01000001.1", "CM000663.2", "KI270728.1",
+            "AADB02037551.1", "JAAAAA010000001.1", "CM000663", "A1", "ABCDEFG_123456789012345678.0",
+            "GCA_000001405.131071", "AB_1", "X_000000000.7"};
+
+    private static final String[] INVALID_ACCESSIONS = {"", "1", "_A1", "GCA_", "GCA_000001405.", "GCA_000001405.01",
+            "gca_000001405.10", "GCA__000001405.1", "GCA_000001405.1.1", "ABCDEFGH1", "A1234567890123456789",
+            "GCA_000001405.131072", "GCA 000001405.1", "CM000663.2a", "chr1", "A_B_1", "A1B"};
+
+    @Test
+    void roundTrip() {
+        for (String accession : VALID_ACCESSIONS) {
+            assertEquals(accession, Accession.parse(accession).toString());
+        }
+    }
+
+    @Test
+    void randomRoundTrip() {
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            StringBuilder builder = new StringBuilder();
+            int letters = 1 + random.nextInt(Accession.MAX_LETTERS);
+            int underscore = random.nextInt(letters + 1);
+            for (int j = 0; j < letters; j++) {
+                builder.append((char) ('A' + random.nextInt(26)));
+                if (j + 1 == underscore) {
+                    builder.append('_');
+                }
+            }
+            int digits = 1 + random.nextInt(Accession.MAX_DIGITS);
+            for (int j = 0; j < digits; j++) {
+                builder.append((char) ('0' + random.nextInt(10)));
+            }
+            if (random.nextBoolean()) {
+                builder.append('.').append(random.nextInt(Accession.MAX_VERSION + 1));
+            }
+            String accession = builder.toString();
+            assertEquals(accession, Accession.parse(accession).toString());
+        }
+    }
+
+    @Test
+    void rejectInvalid() {
+        for (String accession : INVALID_ACCESSIONS) {
+            assertThrows(IllegalArgumentException.class, () -> Accession.parse(accession), accession);
+        }
+        assertThrows(IllegalArgumentException.class, () -> Accession.parse(null));
+    }
+
+    @Test
+    void distinctAccessionsPackDifferently() {
+        Set<Accession> parsed = new HashSet<>();
+        for (String accession : VALID_ACCESSIONS) {
+            parsed.add(Accession.parse(accession));
+        }
+        assertEquals(VALID_ACCESSIONS.length, parsed.size());
+        assertNotEquals(Accession.parse("CM000663.2"), Accession.parse("CM00663.2"));
+        assertNotEquals(Accession.parse("NC_000001.1"), Accession.parse("NC000001.1"));
+        assertNotEquals(Accession.parse("CM000663"), Accession.parse("CM000663.0"));
+    }
+
+    @Test
+    void components() {
+        Accession accession = Accession.parse("GCA_004051055.1");
+        assertEquals("GCA", accession.getPrefix());
+        assertEquals(4051055, accession.getNumber());
+        assertTrue(accession.hasVersion());
+        assertTrue(accession.isAssembly());
+        assertTrue(Accession.parse("GCF_000001405.39").isAssembly());
+
+        Accession sequence = Accession.parse("CM000663");
+        assertEquals("CM", sequence.getPrefix());
+        assertFalse(sequence.hasVersion());
+        assertFalse(sequence.isAssembly());
+        assertEquals("NZ", Accession.parse("NZ_ABCD01000001.1").getPrefix());
+        assertFalse(Accession.parse("GCA_04051055.1").isAssembly());
+        assertFalse(Accession.parse("GCX_004051055.1").isAssembly());
+    }
+
+}
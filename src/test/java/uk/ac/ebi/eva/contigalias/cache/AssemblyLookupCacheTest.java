@@ -0,0 +1,144 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import uk.ac.ebi.eva.contigalias.cache.AssemblyLookupCache.Authority;
+import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
+import uk.ac.ebi.eva.contigalias.entitygenerator.AssemblyGenerator;
+import uk.ac.ebi.eva.contigalias.event.AssemblyChecksumsUpdatedEvent;
+import uk.ac.ebi.eva.contigalias.event.AssemblyDeletedEvent;
+import uk.ac.ebi.eva.contigalias.event.AssemblyInsertedEvent;
+import uk.ac.ebi.eva.contigalias.event.DataVersionChangedEvent;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AssemblyLookupCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AssemblyLookupCache cache;
+
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new AssemblyLookupCache(meterRegistry, true, 3);
+        loads = new AtomicInteger();
+    }
+
+    private Supplier<Optional<AssemblyEntity>> loader(AssemblyEntity assembly) {
+        return () -> {
+            loads.incrementAndGet();
+            return Optional.ofNullable(assembly);
+        };
+    }
+
+    @Test
+    void readThrough() {
+        AssemblyEntity assembly = AssemblyGenerator.generate(1);
+        Optional<AssemblyEntity> first = cache.get(Authority.GENBANK, assembly.getGenbank(), loader(assembly));
+        Optional<AssemblyEntity> second = cache.get(Authority.GENBANK, assembly.getGenbank(), loader(assembly));
+        assertEquals(1, loads.get());
+        assertTrue(second.isPresent());
+        // Cached assemblies are shared rather than copied
+        assertSame(first.get(), second.get());
+
+        // Authorities are cached separately
+        cache.get(Authority.ACCESSION, assembly.getGenbank(), loader(assembly));
+        assertEquals(2, loads.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").counter().count());
+        assertEquals(2.0, meterRegistry.get("cache.gets").tag("result", "miss").counter().count());
+        assertEquals(2.0, meterRegistry.get("cache.size").gauge().value());
+    }
+
+    @Test
+    void missingAssembliesAreNotCached() {
+        cache.get(Authority.ACCESSION, "unknown", loader(null));
+        cache.get(Authority.ACCESSION, "unknown", loader(null));
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        AssemblyEntity[] assemblies = new AssemblyEntity[4];
+        for (int i = 0; i < assemblies.length; i++) {
+            assemblies[i] = AssemblyGenerator.generate(i);
+        }
+        for (int i = 0; i < 3; i++) {
+            cache.get(Authority.REFSEQ, assemblies[i].getRefseq(), loader(assemblies[i]));
+        }
+        cache.get(Authority.REFSEQ, assemblies[0].getRefseq(), loader(assemblies[0]));
+        cache.get(Authority.REFSEQ, assemblies[3].getRefseq(), loader(assemblies[3]));
+        assertEquals(3, cache.size());
+        assertEquals(1.0, meterRegistry.get("cache.evictions").counter().count());
+
+        loads.set(0);
+        cache.get(Authority.REFSEQ, assemblies[0].getRefseq(), loader(assemblies[0]));
+        assertEquals(0, loads.get());
+        cache.get(Authority.REFSEQ, assemblies[1].getRefseq(), loader(assemblies[1]));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void invalidatedByMutations() {
+        AssemblyEntity assembly = AssemblyGenerator.generate(1);
+        AssemblyEntity unrelated = AssemblyGenerator.generate(2);
+        cache.get(Authority.GENBANK, unrelated.getGenbank(), loader(unrelated));
+
+        cache.get(Authority.ACCESSION, assembly.getRefseq(), loader(assembly));
+        cache.onAssemblyDeleted(new AssemblyDeletedEvent(null, assembly.getRefseq()));
+        assertEquals(1, cache.size());
+
+        cache.get(Authority.ACCESSION, assembly.getGenbank(), loader(assembly));
+        cache.onAssemblyInserted(new AssemblyInsertedEvent(assembly));
+        assertEquals(1, cache.size());
+
+        cache.get(Authority.GENBANK, assembly.getGenbank(), loader(assembly));
+        cache.get(Authority.REFSEQ, assembly.getRefseq(), loader(assembly));
+        cache.onAssemblyChecksumsUpdated(new AssemblyChecksumsUpdatedEvent(assembly.getGenbank(),
+                                                                           assembly.getRefseq(), "md5", "t"));
+        assertEquals(1, cache.size());
+
+        // Changes made by other nodes are not known in detail
+        cache.onDataVersionChanged(new DataVersionChangedEvent(2));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void disabledCacheAlwaysLoads() {
+        cache = new AssemblyLookupCache(meterRegistry, false, 3);
+        AssemblyEntity assembly = AssemblyGenerator.generate(1);
+        cache.get(Authority.GENBANK, assembly.getGenbank(), loader(assembly));
+        cache.get(Authority.GENBANK, assembly.getGenbank(), loader(assembly));
+        assertEquals(2, loads.get());
+        assertFalse(cache.size() > 0);
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import uk.ac.ebi.eva.contigalias.entitygenerator.AssemblyGenerator;
+import uk.ac.ebi.eva.contigalias.event.AssemblyInsertedEvent;
+import uk.ac.ebi.eva.contigalias.event.DataVersionChangedEvent;
+import uk.ac.ebi.eva.contigalias.repo.DataVersionRepository;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+public class DataVersionTest {
+
+    /**
+     * Counter stored in the database shared by all nodes.
+     */
+    private final AtomicLong storedVersion = new AtomicLong(1);
+
+    private ApplicationEventPublisher publisher;
+
+    private DataVersion dataVersion;
+
+    @BeforeEach
+    void setup() {
+        DataVersionRepository repository = mock(DataVersionRepository.class);
+        when(repository.findVersion()).thenAnswer(invocation -> Optional.of(storedVersion.get()));
+        when(repository.incrementVersion()).thenAnswer(invocation -> {
+            storedVersion.incrementAndGet();
+            return 1;
+        });
+        publisher = mock(ApplicationEventPublisher.class);
+        dataVersion = new DataVersion(repository, publisher, 0);
+        dataVersion.afterPropertiesSet();
+    }
+
+    @Test
+    void localChangesUpdateTagWithoutChangeEvent() {
+        String etag = dataVersion.getEtag();
+        assertEquals("\"1\"", etag);
+        dataVersion.onAssemblyInserted(new AssemblyInsertedEvent(AssemblyGenerator.generate()));
+        assertEquals(2, storedVersion.get());
+        assertNotEquals(etag, dataVersion.getEtag());
+
+        dataVersion.refresh();
+        verifyNoInteractions(publisher);
+    }
+
+    @Test
+    void changesOfOtherNodesPublishedOnRefresh() {
+        // Incremented by another node
+        storedVersion.incrementAndGet();
+        assertEquals(1, dataVersion.getVersion());
+        verifyNoInteractions(publisher);
+
+        dataVersion.refresh();
+        assertEquals(2, dataVersion.getVersion());
+        verify(publisher).publishEvent(isA(DataVersionChangedEvent.class));
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import uk.ac.ebi.eva.contigalias.cache.ResponseCache.CachedResponse;
+import uk.ac.ebi.eva.contigalias.entitygenerator.AssemblyGenerator;
+import uk.ac.ebi.eva.contigalias.event.AssemblyChecksumsUpdatedEvent;
+import uk.ac.ebi.eva.contigalias.event.AssemblyDeletedEvent;
+import uk.ac.ebi.eva.contigalias.event.AssemblyInsertedEvent;
+import uk.ac.ebi.eva.contigalias.event.DataVersionChangedEvent;
+import uk.ac.ebi.eva.contigalias.event.SequenceChecksumsUpdatedEvent;
+import uk.ac.ebi.eva.contigalias.repo.SequenceChecksums;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResponseCacheTest {
+
+    private static final int MEGABYTE = 1024 * 1024;
+
+    private ResponseCache cache;
+
+    @BeforeEach
+    void setup() {
+        cache = new ResponseCache(true, 1, 60);
+    }
+
+    private static CachedResponse response(String body) {
+        return new CachedResponse("application/json", body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void evictLeastRecentlyUsedBeyondMaxBytes() {
+        CachedResponse half = new CachedResponse("application/json", new byte[MEGABYTE / 2]);
+        cache.put("first", half, cache.getGeneration());
+        cache.put("second", half, cache.getGeneration());
+        assertEquals(MEGABYTE, cache.bytes());
+        cache.get("first");
+        cache.put("third", response("{}"), cache.getGeneration());
+        assertTrue(cache.get("first").isPresent());
+        assertFalse(cache.get("second").isPresent());
+        assertTrue(cache.get("third").isPresent());
+
+        cache.put("too-large", new CachedResponse("application/json", new byte[MEGABYTE + 1]), cache.getGeneration());
+        assertFalse(cache.get("too-large").isPresent());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void mutationsInvalidateEverything() {
+        cache.put("/v1/assemblies/GCA_1.1", response("{\"refseq\":\"GCF_1.1\"}"), cache.getGeneration());
+        cache.put("/v1/assemblies/taxid/1", response("{}"), cache.getGeneration());
+
+        long generation = cache.getGeneration();
+        cache.onAssemblyDeleted(new AssemblyDeletedEvent(null, "GCF_2.1"));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.bytes());
+
+        // Responses computed before an invalidation are not cached after it
+        cache.put("/v1/assemblies/GCA_1.1", response("{}"), generation);
+        assertFalse(cache.get("/v1/assemblies/GCA_1.1").isPresent());
+
+        cache.put("/v1/assemblies/GCA_1.1", response("{}"), cache.getGeneration());
+        cache.onAssemblyInserted(new AssemblyInsertedEvent(AssemblyGenerator.generate()));
+        assertEquals(0, cache.size());
+
+        cache.put("/v1/assemblies/GCA_1.1", response("{}"), cache.getGeneration());
+        cache.onAssemblyChecksumsUpdated(new AssemblyChecksumsUpdatedEvent("GCA_2.1", null, "md5", "trunc512"));
+        assertEquals(0, cache.size());
+
+        cache.put("/v1/assemblies/GCA_1.1", response("{}"), cache.getGeneration());
+        cache.onSequenceChecksumsUpdated(new SequenceChecksumsUpdatedEvent(
+                Collections.singletonList(new SequenceChecksums("CM1.1", "md5", "trunc512")), Collections.emptySet()));
+        assertEquals(0, cache.size());
+
+        // Changes made by other nodes
+        cache.put("/v1/assemblies/GCA_1.1", response("{}"), cache.getGeneration());
+        cache.onDataVersionChanged(new DataVersionChangedEvent(2));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void responsesExpire() throws InterruptedException {
+        cache = new ResponseCache(true, 1, 1);
+        cache.put("key", response("{}"), cache.getGeneration());
+        assertTrue(cache.get("key").isPresent());
+        Thread.sleep(1100);
+        assertFalse(cache.get("key").isPresent());
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.bytes());
+    }
+
+    @Test
+    void disabledCacheStoresNothing() {
+        ResponseCache disabled = new ResponseCache(false, 1, 60);
+        disabled.put("key", response("{}"), disabled.getGeneration());
+        assertFalse(disabled.get("key").isPresent());
+    }
+
+}
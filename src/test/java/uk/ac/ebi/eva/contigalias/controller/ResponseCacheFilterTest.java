@@ -0,0 +1,190 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import uk.ac.ebi.eva.contigalias.cache.AssemblyCachePolicy;
+import uk.ac.ebi.eva.contigalias.cache.DataVersion;
+import uk.ac.ebi.eva.contigalias.cache.ResponseCache;
+import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
+import uk.ac.ebi.eva.contigalias.entitygenerator.AssemblyGenerator;
+import uk.ac.ebi.eva.contigalias.repo.AssemblyRepository;
+
+import javax.servlet.Servlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ResponseCacheFilterTest {
+
+    private static final String BODY = "{\"genbank\":\"CM1.1\"}";
+
+    private final AtomicInteger servletCalls = new AtomicInteger();
+
+    private final Servlet servlet = new HttpServlet() {
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            servletCalls.incrementAndGet();
+            cachePolicy.recordAccess(assembly);
+            response.setContentType("application/json");
+            response.getWriter().write(BODY);
+        }
+    };
+
+    private final AssemblyEntity assembly = AssemblyGenerator.generate(1);
+
+    private final AssemblyEntity otherAssembly = AssemblyGenerator.generate(2);
+
+    private DataVersion dataVersion;
+
+    private AssemblyCachePolicy cachePolicy;
+
+    private ConditionalRequestInterceptor interceptor;
+
+    private ResponseCacheFilter filter;
+
+    @BeforeEach
+    void setup() {
+        dataVersion = mock(DataVersion.class);
+        when(dataVersion.getEtag()).thenReturn("\"n1-1\"");
+        cachePolicy = new AssemblyCachePolicy(mock(AssemblyRepository.class), true, 2, 1);
+        ReflectionTestUtils.setField(assembly, "id", 1L);
+        ReflectionTestUtils.setField(otherAssembly, "id", 2L);
+        cachePolicy.recordInsertion(assembly);
+        cachePolicy.recordInsertion(otherAssembly);
+        interceptor = new ConditionalRequestInterceptor(dataVersion, cachePolicy, 300);
+        filter = new ResponseCacheFilter(new ResponseCache(true, 1, 60), interceptor, cachePolicy);
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(servlet));
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setRequestURI(path);
+        return request;
+    }
+
+    @Test
+    void identicalRequestsServedFromCache() throws Exception {
+        MockHttpServletResponse first = perform(request("/v1/chromosomes/genbank/CM1.1"));
+        assertEquals(BODY, first.getContentAsString());
+
+        // Default paging parameters are normalised
+        MockHttpServletRequest explicitPaging = request("/v1/chromosomes/genbank/CM1.1");
+        explicitPaging.setParameter("size", "10");
+        explicitPaging.setParameter("page", "0");
+        MockHttpServletResponse second = perform(explicitPaging);
+        assertEquals(BODY, second.getContentAsString());
+        assertEquals("application/json", second.getContentType());
+        assertEquals(dataVersion.getEtag(), second.getHeader(HttpHeaders.ETAG));
+        assertEquals(1, servletCalls.get());
+
+        MockHttpServletRequest conditional = request("/v1/chromosomes/genbank/CM1.1");
+        conditional.addHeader(HttpHeaders.IF_NONE_MATCH, dataVersion.getEtag());
+        MockHttpServletResponse notModified = perform(conditional);
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, notModified.getStatus());
+        assertEquals("", notModified.getContentAsString());
+
+        MockHttpServletRequest otherPage = request("/v1/chromosomes/genbank/CM1.1");
+        otherPage.setParameter("page", "1");
+        perform(otherPage);
+        assertEquals(2, servletCalls.get());
+    }
+
+    @Test
+    void reusedResponsesRecordedAsAssemblyReads() throws Exception {
+        perform(request("/v1/chromosomes/genbank/CM1.1"));
+        cachePolicy.recordAccess(otherAssembly);
+        // Served from the cache, but still a read of the assembly the response was computed from
+        perform(request("/v1/chromosomes/genbank/CM1.1"));
+        assertEquals(1, servletCalls.get());
+        AssemblyEntity inserted = AssemblyGenerator.generate(3);
+        ReflectionTestUtils.setField(inserted, "id", 3L);
+        assertEquals(Collections.singletonList(otherAssembly.getId()), cachePolicy.recordInsertion(inserted));
+
+        // Answered with an HTTP 304 without reaching any controller
+        MockHttpServletRequest conditional = request("/v1/assemblies/" + assembly.getGenbank());
+        conditional.addHeader(HttpHeaders.IF_NONE_MATCH, dataVersion.getEtag());
+        MockHttpServletResponse notModified = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(conditional, notModified, null));
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, notModified.getStatus());
+        AssemblyEntity last = AssemblyGenerator.generate(4);
+        ReflectionTestUtils.setField(last, "id", 4L);
+        assertEquals(Collections.singletonList(inserted.getId()), cachePolicy.recordInsertion(last));
+    }
+
+    @Test
+    void adminAndAliasTableRequestsNotCached() throws Exception {
+        perform(request("/v1/admin/assemblies/GCA_1.1"));
+        perform(request("/v1/admin/assemblies/GCA_1.1"));
+        perform(request("/v1/assemblies/GCA_1.1/alias-table"));
+        perform(request("/v1/assemblies/GCA_1.1/alias-table"));
+        assertEquals(4, servletCalls.get());
+        assertNotEquals(ResponseCacheFilter.createKey(request("/v1/assemblies/GCA_1.1")),
+                        ResponseCacheFilter.createKey(request("/v1/assemblies/GCA_1.2")));
+    }
+
+    @Test
+    void requestsForOtherHostsNotServedFromCache() throws Exception {
+        perform(request("/v1/chromosomes/genbank/CM1.1"));
+        MockHttpServletRequest otherHost = request("/v1/chromosomes/genbank/CM1.1");
+        otherHost.addHeader(HttpHeaders.HOST, "contig-alias.example.org");
+        perform(otherHost);
+        MockHttpServletRequest forwarded = request("/v1/chromosomes/genbank/CM1.1");
+        forwarded.addHeader("X-Forwarded-Host", "www.example.org");
+        forwarded.addHeader("X-Forwarded-Prefix", "/eva/webservices/contig-alias");
+        perform(forwarded);
+        assertEquals(3, servletCalls.get());
+
+        perform(forwarded);
+        assertEquals(3, servletCalls.get());
+    }
+
+    @Test
+    void assemblyAccessionFoundInPath() {
+        assertEquals("GCA_1.1", ConditionalRequestInterceptor.getAssemblyAccession("/v1/assemblies/GCA_1.1"));
+        assertEquals("GCF_1.1",
+                     ConditionalRequestInterceptor.getAssemblyAccession("/v1/assemblies/GCF_1.1/chromosomes"));
+        assertEquals("GCF_1.1",
+                     ConditionalRequestInterceptor.getAssemblyAccession("/v1/assemblies/refseq/GCF_1.1/chromosomes"));
+        assertEquals("GCA_1.1", ConditionalRequestInterceptor.getAssemblyAccession("/v1/assemblies/insdc/GCA_1.1"));
+        assertNull(ConditionalRequestInterceptor.getAssemblyAccession("/v1/assemblies/taxid/9606"));
+        assertNull(ConditionalRequestInterceptor.getAssemblyAccession("/v1/chromosomes/genbank/CM1.1"));
+    }
+
+}
@@ -26,21 +26,30 @@ import org.springframework.context.annotation.Import;
 import org.springframework.data.web.PagedResourcesAssembler;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.PagedModel;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 
+import uk.ac.ebi.eva.contigalias.cache.AssemblyCachePolicy;
+import uk.ac.ebi.eva.contigalias.cache.DataVersion;
 import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
 import uk.ac.ebi.eva.contigalias.entitygenerator.AssemblyGenerator;
+import uk.ac.ebi.eva.contigalias.service.SequenceChecksumsUpdateReport;
 import uk.ac.ebi.eva.contigalias.test.TestConfiguration;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collections;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -57,6 +66,12 @@ public class AdminControllerIntegrationTest {
     @MockBean
     private AdminHandler mockHandler;
 
+    @MockBean
+    private DataVersion dataVersion;
+
+    @MockBean
+    private AssemblyCachePolicy cachePolicy;
+
     @BeforeEach
     void setUp() throws IOException {
         PagedResourcesAssembler<AssemblyEntity> mockAssemblyAssembler = mock(PagedResourcesAssembler.class);
@@ -86,6 +101,62 @@ public class AdminControllerIntegrationTest {
         assertAssemblyPagedModelResponseValid(request);
     }
 
+    @Test
+    public void deleteAssembliesByTaxid() throws Exception {
+        when(mockHandler.deleteAssembliesByTaxid(entity.getTaxid())).thenReturn(3);
+        this.mockMvc.perform(delete("/v1/admin/assemblies").param("taxid", String.valueOf(entity.getTaxid())))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string("3"));
+    }
+
+    @Test
+    public void deleteAssembliesByAccessions() throws Exception {
+        when(mockHandler.deleteAssembliesByAccessions(Arrays.asList(entity.getGenbank(), entity.getRefseq())))
+                .thenReturn(1);
+        this.mockMvc.perform(delete("/v1/admin/assemblies")
+                                     .contentType(MediaType.APPLICATION_JSON)
+                                     .content("[\"" + entity.getGenbank() + "\",\"" + entity.getRefseq() + "\"]"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string("1"));
+    }
+
+    @Test
+    public void deleteAssembliesNeedsEitherTaxidOrAccessions() throws Exception {
+        this.mockMvc.perform(delete("/v1/admin/assemblies"))
+                    .andExpect(status().isBadRequest());
+        this.mockMvc.perform(delete("/v1/admin/assemblies")
+                                     .param("taxid", String.valueOf(entity.getTaxid()))
+                                     .contentType(MediaType.APPLICATION_JSON)
+                                     .content("[\"" + entity.getGenbank() + "\"]"))
+                    .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void putSequenceChecksums() throws Exception {
+        when(mockHandler.putSequenceChecksums(any(), eq(SequenceChecksumsReader.NDJSON)))
+                .thenReturn(new SequenceChecksumsUpdateReport(2, Collections.singletonList("NC_000000.1")));
+        this.mockMvc.perform(put("/v1/admin/sequences/checksums")
+                                     .contentType(SequenceChecksumsReader.NDJSON)
+                                     .content("{\"accession\":\"NC_000001.11\",\"md5\":\"md5\"}\n"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.updated").value(2))
+                    .andExpect(jsonPath("$.notFound[0]").value("NC_000000.1"));
+    }
+
+    @Test
+    public void putSequenceChecksumsRejectsMalformedBody() throws Exception {
+        when(mockHandler.putSequenceChecksums(any(), eq(SequenceChecksumsReader.TSV)))
+                .thenThrow(new IllegalArgumentException("Line 1 is malformed"));
+        this.mockMvc.perform(put("/v1/admin/sequences/checksums")
+                                     .contentType(SequenceChecksumsReader.TSV)
+                                     .content("a\tb\tc\td\n"))
+                    .andExpect(status().isBadRequest());
+        this.mockMvc.perform(put("/v1/admin/sequences/checksums")
+                                     .contentType(MediaType.APPLICATION_JSON)
+                                     .content("[]"))
+                    .andExpect(status().isUnsupportedMediaType());
+    }
+
     private void assertAssemblyPagedModelResponseValid(ResultActions request) throws Exception {
         String path = "$._embedded.assemblyEntities[0]";
         request.andExpect(status().isOk())
@@ -62,7 +62,7 @@ public class AdminHandlerTest {
         Mockito.when(mockAssemblyAssembler.toModel(any()))
                .thenReturn(assemblyPagedModel);
 
-        handler = new AdminHandler(mockAssemblyService, null, null, mockAssemblyAssembler);
+        handler = new AdminHandler(mockAssemblyService, null, null, null, null, mockAssemblyAssembler);
     }
 
     @Test
@@ -26,9 +26,13 @@ import org.springframework.context.annotation.Import;
 import org.springframework.data.web.PagedResourcesAssembler;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.PagedModel;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 
+import uk.ac.ebi.eva.contigalias.cache.AssemblyCachePolicy;
+import uk.ac.ebi.eva.contigalias.cache.DataVersion;
+import uk.ac.ebi.eva.contigalias.entities.AliasTableEntity;
 import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
 import uk.ac.ebi.eva.contigalias.entities.ChromosomeEntity;
 import uk.ac.ebi.eva.contigalias.entities.ScaffoldEntity;
@@ -36,19 +40,29 @@ import uk.ac.ebi.eva.contigalias.entities.SequenceEntity;
 import uk.ac.ebi.eva.contigalias.entitygenerator.AssemblyGenerator;
 import uk.ac.ebi.eva.contigalias.entitygenerator.ChromosomeGenerator;
 import uk.ac.ebi.eva.contigalias.entitygenerator.ScaffoldGenerator;
+import uk.ac.ebi.eva.contigalias.repo.SequenceCursor;
+import uk.ac.ebi.eva.contigalias.service.AliasTableService;
 import uk.ac.ebi.eva.contigalias.test.TestConfiguration;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static uk.ac.ebi.eva.contigalias.controller.BaseController.DEFAULT_PAGE_NUMBER;
 import static uk.ac.ebi.eva.contigalias.controller.BaseController.DEFAULT_PAGE_REQUEST;
 import static uk.ac.ebi.eva.contigalias.controller.BaseController.DEFAULT_PAGE_SIZE;
+import static uk.ac.ebi.eva.contigalias.controller.BaseController.MAX_PAGE_SIZE;
+import static uk.ac.ebi.eva.contigalias.controller.BaseController.VARY_HEADERS;
 import static uk.ac.ebi.eva.contigalias.controller.contigalias.ContigAliasController.AUTHORITY_INSDC;
 import static uk.ac.ebi.eva.contigalias.controller.contigalias.ContigAliasController.AUTHORITY_REFSEQ;
 import static uk.ac.ebi.eva.contigalias.controller.contigalias.ContigAliasController.NAME_ENA_TYPE;
@@ -77,8 +91,21 @@ public class ContigAliasControllerIntegrationTest {
     @MockBean
     private ContigAliasHandler mockHandler;
 
+    @MockBean
+    private DataVersion dataVersion;
+
+    @MockBean
+    private AssemblyCachePolicy cachePolicy;
+
+    /**
+     * Token of the cursor of the chromosome with id 42.
+     */
+    private static final String TEST_CURSOR = "MDo0Mg";
+
     @BeforeEach
     void setup() {
+        when(dataVersion.getEtag()).thenReturn("\"1\"");
+
         PagedResourcesAssembler<AssemblyEntity> assemblyAssembler = mock(PagedResourcesAssembler.class);
         PagedModel<EntityModel<AssemblyEntity>> assemblyPagedModel = new PagedModel<>(
                 Collections.singletonList(new EntityModel<>(assemblyEntity)), null);
@@ -257,6 +284,85 @@ public class ContigAliasControllerIntegrationTest {
         assertChromosomePagedModelResponseValid(resultActions);
     }
 
+    @Test
+    void conditionalRequests() throws Exception {
+        String etag = dataVersion.getEtag();
+        mockMvc.perform(get("/v1/chromosomes/genbank/{genbank}", chromosomeEntity.getGenbank()))
+               .andExpect(status().isOk())
+               .andExpect(header().string(HttpHeaders.ETAG, etag))
+               .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=300, public"))
+               .andExpect(header().string(HttpHeaders.VARY, String.join(", ", VARY_HEADERS)));
+
+        clearInvocations(mockHandler);
+        mockMvc.perform(get("/v1/chromosomes/genbank/{genbank}", chromosomeEntity.getGenbank())
+                                .header(HttpHeaders.IF_NONE_MATCH, "\"other\", " + etag))
+               .andExpect(status().isNotModified())
+               .andExpect(header().string(HttpHeaders.ETAG, etag))
+               .andExpect(content().bytes(new byte[0]));
+        verifyNoInteractions(mockHandler);
+
+        when(dataVersion.getEtag()).thenReturn("\"2\"");
+        mockMvc.perform(get("/v1/chromosomes/genbank/{genbank}", chromosomeEntity.getGenbank())
+                                .header(HttpHeaders.IF_NONE_MATCH, etag))
+               .andExpect(status().isOk())
+               .andExpect(header().string(HttpHeaders.ETAG, "\"2\""));
+    }
+
+    @Test
+    void getAliasTableByAssemblyAccession() throws Exception {
+        AliasTableEntity table = AliasTableService.createAliasTable(assemblyEntity);
+        when(mockHandler.getAliasTableByAssemblyAccession(assemblyEntity.getGenbank()))
+                .thenReturn(Optional.of(table));
+        byte[] uncompressed = AliasTableService.decompress(table.getContent());
+        String gzipEtag = table.getEtag().replaceFirst("\"$", "-gzip\"");
+
+        mockMvc.perform(get("/v1/assemblies/{accession}/alias-table", assemblyEntity.getGenbank()))
+               .andExpect(status().isOk())
+               .andExpect(header().string(HttpHeaders.ETAG, table.getEtag()))
+               .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+               .andExpect(content().bytes(uncompressed));
+
+        mockMvc.perform(get("/v1/assemblies/{accession}/alias-table", assemblyEntity.getGenbank())
+                                .header(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip"))
+               .andExpect(status().isOk())
+               .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+               .andExpect(header().string(HttpHeaders.ETAG, gzipEtag))
+               .andExpect(content().bytes(table.getContent()));
+
+        for (String etag : Arrays.asList(table.getEtag(), gzipEtag)) {
+            mockMvc.perform(get("/v1/assemblies/{accession}/alias-table", assemblyEntity.getGenbank())
+                                    .header(HttpHeaders.IF_NONE_MATCH, etag))
+                   .andExpect(status().isNotModified())
+                   .andExpect(content().bytes(new byte[0]));
+        }
+
+        mockMvc.perform(get("/v1/assemblies/{accession}/alias-table", assemblyEntity.getRefseq()))
+               .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getSequencesByNamePrefix() throws Exception {
+        String prefix = chromosomeEntity.getUcscName().substring(0, 2);
+        when(mockHandler.getSequencesByNamePrefixAndAssemblyTaxid(prefix, assemblyEntity.getTaxid(),
+                                                                  DEFAULT_PAGE_REQUEST))
+                .thenReturn(new PagedModel<>(Collections.singletonList(new EntityModel<>(chromosomeEntity)), null));
+
+        mockMvc.perform(get("/v1/chromosomes/name/{prefix}/autocomplete", prefix)
+                                .param("taxid", assemblyEntity.getTaxid().toString()))
+               .andExpect(status().isServiceUnavailable());
+
+        when(mockHandler.isSequenceNamePrefixSearchAvailable()).thenReturn(true);
+        ResultActions resultActions = mockMvc.perform(
+                get("/v1/chromosomes/name/{prefix}/autocomplete", prefix)
+                        .param("taxid", assemblyEntity.getTaxid().toString()));
+        assertChromosomePagedModelResponseValid(resultActions);
+
+        mockMvc.perform(get("/v1/chromosomes/name/{prefix}/autocomplete", prefix)
+                                .param("taxid", assemblyEntity.getTaxid().toString())
+                                .param("accession", assemblyEntity.getGenbank()))
+               .andExpect(status().isBadRequest());
+    }
+
     @Test
     void getAssemblyByChromosomeGenbank() throws Exception {
         ResultActions resultActions = mockMvc.perform(
@@ -307,4 +413,40 @@ public class ContigAliasControllerIntegrationTest {
                         .param("authority", AUTHORITY_REFSEQ));
         assertChromosomePagedModelResponseValid(resultActions);
     }
+
+    @Test
+    void getSequencesByAssemblyAccessionRejectsLargePages() throws Exception {
+        mockMvc.perform(get("/v1/assemblies/{accession}/chromosomes", assemblyEntity.getGenbank())
+                                .param("size", String.valueOf(MAX_PAGE_SIZE + 1)))
+               .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getSequencesByAssemblyAccessionWithCursor() throws Exception {
+        PagedModel<EntityModel<SequenceEntity>> pagedModel = new PagedModel<>(
+                Collections.singletonList(new EntityModel<>(chromosomeEntity)), null);
+        when(mockHandler.getSequencesByAssemblyAccession(assemblyEntity.getGenbank(), null, 5))
+                .thenReturn(pagedModel);
+        when(mockHandler.getSequencesByAssemblyAccession(assemblyEntity.getGenbank(),
+                                                         SequenceCursor.fromToken(TEST_CURSOR), 5))
+                .thenReturn(pagedModel);
+
+        assertChromosomePagedModelResponseValid(mockMvc.perform(
+                get("/v1/assemblies/{accession}/chromosomes", assemblyEntity.getGenbank())
+                        .param("cursor", "").param("size", "5")));
+        assertChromosomePagedModelResponseValid(mockMvc.perform(
+                get("/v1/assemblies/{accession}/chromosomes", assemblyEntity.getGenbank())
+                        .param("cursor", TEST_CURSOR).param("size", "5")));
+
+        mockMvc.perform(get("/v1/assemblies/{accession}/chromosomes", assemblyEntity.getGenbank())
+                                .param("cursor", "not a cursor"))
+               .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/v1/assemblies/{accession}/chromosomes", assemblyEntity.getGenbank())
+                                .param("cursor", "").param("page", "1"))
+               .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/v1/assemblies/{accession}/chromosomes", assemblyEntity.getGenbank())
+                                .param("cursor", "").param("size", String.valueOf(Integer.MAX_VALUE)))
+               .andExpect(status().isBadRequest());
+    }
+
 }
@@ -16,6 +16,7 @@
 
 package uk.ac.ebi.eva.contigalias.controller.contigalias;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -23,22 +24,20 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PagedResourcesAssembler;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.PagedModel;
 
 import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
 import uk.ac.ebi.eva.contigalias.entities.ChromosomeEntity;
-import uk.ac.ebi.eva.contigalias.entities.ScaffoldEntity;
 import uk.ac.ebi.eva.contigalias.entities.SequenceEntity;
 import uk.ac.ebi.eva.contigalias.entitygenerator.AssemblyGenerator;
 import uk.ac.ebi.eva.contigalias.entitygenerator.ChromosomeGenerator;
-import uk.ac.ebi.eva.contigalias.entitygenerator.ScaffoldGenerator;
+import uk.ac.ebi.eva.contigalias.index.AliasType;
+import uk.ac.ebi.eva.contigalias.index.NegativeLookupFilter;
+import uk.ac.ebi.eva.contigalias.index.SequenceAliasIndex;
 import uk.ac.ebi.eva.contigalias.service.AssemblyService;
-import uk.ac.ebi.eva.contigalias.service.ChromosomeService;
-import uk.ac.ebi.eva.contigalias.service.ScaffoldService;
+import uk.ac.ebi.eva.contigalias.service.SequenceService;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -54,93 +53,19 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static uk.ac.ebi.eva.contigalias.controller.BaseController.DEFAULT_PAGE_REQUEST;
 import static uk.ac.ebi.eva.contigalias.controller.contigalias.ContigAliasController.NAME_GENBANK_TYPE;
 import static uk.ac.ebi.eva.contigalias.controller.contigalias.ContigAliasController.NAME_UCSC_TYPE;
 
 public class ContigAliasHandlerTest {
 
-    private ContigAliasHandler handler;
-
-    @Nested
-    class ManualPaginationTests {
-
-        private final long TOTAL_CHROMOSOMES = 27;
-
-        @BeforeEach
-        public void setup() {
-            handler = new ContigAliasHandler(null, null, null, null, null);
-        }
-
-        @Test
-        void createScaffoldsPageRequestTestOnlyChromosomes() {
-            PageRequest request = PageRequest.of(1, 10);
-            List<Pageable>[] scaffoldsPageRequest = handler.createScaffoldsPageRequest(TOTAL_CHROMOSOMES, request);
-
-            assertNotNull(scaffoldsPageRequest);
-
-            List<Pageable> chrRequests = scaffoldsPageRequest[0];
-            assertNotNull(chrRequests);
-            assertEquals(1, chrRequests.size());
-
-            Pageable chrRequest = chrRequests.get(0);
-            assertEquals(1, chrRequest.getPageNumber());
-            assertEquals(10, chrRequest.getPageSize());
-
-            List<Pageable> scfRequests = scaffoldsPageRequest[1];
-            assertNotNull(scfRequests);
-            assertEquals(0, scfRequests.size());
-        }
-
-        @Test
-        void createScaffoldsPageRequestTestOnlyScaffolds() {
-            PageRequest request = PageRequest.of(3, 10);
-            List<Pageable>[] scaffoldsPageRequest = handler.createScaffoldsPageRequest(TOTAL_CHROMOSOMES, request);
-
-            assertNotNull(scaffoldsPageRequest);
+    private final SequenceAliasIndex disabledAliasIndex = new SequenceAliasIndex(null, false, 0);
 
-            List<Pageable> chrRequests = scaffoldsPageRequest[0];
-            assertNotNull(chrRequests);
-            assertEquals(0, chrRequests.size());
+    private final NegativeLookupFilter disabledLookupFilter =
+            new NegativeLookupFilter(null, null, null, new SimpleMeterRegistry(), false, 0.01);
 
-            List<Pageable> scfRequests = scaffoldsPageRequest[1];
-            assertNotNull(scfRequests);
-            assertEquals(2, scfRequests.size());
-
-            Pageable scfRequest1 = scfRequests.get(0);
-            assertEquals(0, scfRequest1.getPageNumber());
-            assertEquals(7, scfRequest1.getPageSize());
-
-            Pageable scfRequest2 = scfRequests.get(1);
-            assertEquals(1, scfRequest2.getPageNumber());
-            assertEquals(3, scfRequest2.getPageSize());
-        }
-
-        @Test
-        void createScaffoldsPageRequestTestBothCombined() {
-            PageRequest request = PageRequest.of(2, 10);
-            List<Pageable>[] scaffoldsPageRequest = handler.createScaffoldsPageRequest(TOTAL_CHROMOSOMES, request);
-
-            assertNotNull(scaffoldsPageRequest);
-
-            List<Pageable> chrRequests = scaffoldsPageRequest[0];
-            assertNotNull(chrRequests);
-            assertEquals(1, chrRequests.size());
-
-            Pageable chrRequest = chrRequests.get(0);
-            assertEquals(2, chrRequest.getPageNumber());
-            assertEquals(7, chrRequest.getPageSize());
-
-            List<Pageable> scfRequests = scaffoldsPageRequest[1];
-            assertNotNull(scfRequests);
-            assertEquals(1, scfRequests.size());
-
-            Pageable scfRequest = scfRequests.get(0);
-            assertEquals(0, scfRequest.getPageNumber());
-            assertEquals(3, scfRequest.getPageSize());
-        }
-
-    }
+    private ContigAliasHandler handler;
 
     @Nested
     class AssemblyServiceTests {
@@ -151,15 +76,15 @@ public class ContigAliasHandlerTest {
         void setUp() {
             AssemblyService mockAssemblyService = mock(AssemblyService.class);
             Optional<AssemblyEntity> optionalOfEntity = Optional.of(this.entity);
-            Mockito.when(mockAssemblyService.getAssemblyByAccession(this.entity.getGenbank()))
+            Mockito.when(mockAssemblyService.getAssemblyWithoutSequencesByAccession(this.entity.getGenbank()))
                    .thenReturn(optionalOfEntity);
-            Mockito.when(mockAssemblyService.getAssemblyByAccession(this.entity.getRefseq()))
+            Mockito.when(mockAssemblyService.getAssemblyWithoutSequencesByAccession(this.entity.getRefseq()))
                    .thenReturn(optionalOfEntity);
-            Mockito.when(mockAssemblyService.getAssemblyByGenbank(this.entity.getGenbank()))
+            Mockito.when(mockAssemblyService.getAssemblyWithoutSequencesByGenbank(this.entity.getGenbank()))
                    .thenReturn(optionalOfEntity);
-            Mockito.when(mockAssemblyService.getAssemblyByRefseq(this.entity.getRefseq()))
+            Mockito.when(mockAssemblyService.getAssemblyWithoutSequencesByRefseq(this.entity.getRefseq()))
                    .thenReturn(optionalOfEntity);
-            Mockito.when(mockAssemblyService.getAssemblyByRefseq(this.entity.getRefseq()))
+            Mockito.when(mockAssemblyService.getAssemblyWithoutSequencesByRefseq(this.entity.getRefseq()))
                    .thenReturn(optionalOfEntity);
 
             PagedResourcesAssembler<AssemblyEntity> assembler = mock(PagedResourcesAssembler.class);
@@ -167,7 +92,8 @@ public class ContigAliasHandlerTest {
                     Collections.singletonList(new EntityModel<>(entity)), null);
             Mockito.when(assembler.toModel(any()))
                    .thenReturn(pagedModel);
-            handler = new ContigAliasHandler(mockAssemblyService, null, null, assembler, null);
+            handler = new ContigAliasHandler(mockAssemblyService, null, assembler, null, disabledAliasIndex,
+                                             disabledLookupFilter, null);
         }
 
         @Test
@@ -233,7 +159,8 @@ public class ContigAliasHandlerTest {
             PagedModel<EntityModel<AssemblyEntity>> pagedModel = PagedModel.wrap(entities, null);
             Mockito.when(assembler.toModel(any()))
                    .thenReturn(pagedModel);
-            handler = new ContigAliasHandler(mockAssemblyService, null, null, assembler, null);
+            handler = new ContigAliasHandler(mockAssemblyService, null, assembler, null, disabledAliasIndex,
+                                             disabledLookupFilter, null);
         }
 
         @Test
@@ -265,36 +192,33 @@ public class ContigAliasHandlerTest {
 
         ChromosomeEntity entity = ChromosomeGenerator.generate();
 
+        AssemblyService mockAssemblyService;
+
         @BeforeEach
         void setUp() {
-            ChromosomeService mockChromosomeService = mock(ChromosomeService.class);
-            ScaffoldService mockScaffoldService = mock(ScaffoldService.class);
+            SequenceService mockSequenceService = mock(SequenceService.class);
 
-            Page<ChromosomeEntity> pageOfEntity = new PageImpl<>(Collections.singletonList(entity));
-            Mockito.when(mockChromosomeService.getChromosomesByGenbank(entity.getGenbank(), DEFAULT_PAGE_REQUEST))
+            Page<SequenceEntity> pageOfEntity = new PageImpl<>(Collections.singletonList(entity));
+            Mockito.when(mockSequenceService.getSequencesByGenbank(entity.getGenbank(), DEFAULT_PAGE_REQUEST))
                    .thenReturn(pageOfEntity);
-            Mockito.when(mockChromosomeService.getChromosomesByRefseq(entity.getRefseq(), DEFAULT_PAGE_REQUEST))
+            Mockito.when(mockSequenceService.getSequencesByRefseq(entity.getRefseq(), DEFAULT_PAGE_REQUEST))
                    .thenReturn(pageOfEntity);
 
-            Page<ScaffoldEntity> pageOfEmptyScaffoldEntity = new PageImpl<>(Collections.emptyList());
-            Mockito.when(mockScaffoldService.getScaffoldsByGenbank(entity.getGenbank(), DEFAULT_PAGE_REQUEST))
-                   .thenReturn(pageOfEmptyScaffoldEntity);
-            Mockito.when(mockScaffoldService.getScaffoldsByRefseq(entity.getRefseq(), DEFAULT_PAGE_REQUEST))
-                   .thenReturn(pageOfEmptyScaffoldEntity);
-
             PagedResourcesAssembler<SequenceEntity> mockSequencesAssembler = mock(PagedResourcesAssembler.class);
             PagedModel<EntityModel<SequenceEntity>> sequencePagedModel = new PagedModel<>(
                     Collections.singletonList(new EntityModel<>(entity)), null);
             Mockito.when(mockSequencesAssembler.toModel(any()))
                    .thenReturn(sequencePagedModel);
 
-            handler = new ContigAliasHandler(null, mockChromosomeService, mockScaffoldService, null,
-                                             mockSequencesAssembler);
+            mockAssemblyService = mock(AssemblyService.class);
+            handler = new ContigAliasHandler(mockAssemblyService, mockSequenceService, null, mockSequencesAssembler,
+                                             disabledAliasIndex, disabledLookupFilter, null);
         }
 
         @Test
         public void getChromosomeByGenbank() {
             testChromosomeEntityResponse(handler.getSequencesByGenbank(entity.getGenbank(), DEFAULT_PAGE_REQUEST));
+            verify(mockAssemblyService).recordAccessBySequences(Collections.singletonList(entity));
         }
 
         @Test
@@ -330,72 +254,58 @@ public class ContigAliasHandlerTest {
 
         @BeforeEach
         void setup() {
-            ChromosomeService mockChromosomeService = mock(ChromosomeService.class);
+            SequenceService mockSequenceService = mock(SequenceService.class);
             for (int i = 0; i < CHROMOSOME_LIST_SIZE; i++) {
                 ChromosomeEntity generate = ChromosomeGenerator.generate(i, assemblyEntity);
                 chromosomeEntities.add(generate);
                 List<AssemblyEntity> listOfEntity = Collections.singletonList(this.assemblyEntity);
-                Mockito.when(mockChromosomeService.getAssembliesByChromosomeGenbank(generate.getGenbank()))
+                Mockito.when(mockSequenceService.getAssembliesBySequenceGenbank(generate.getGenbank()))
                        .thenReturn(listOfEntity);
-                Mockito.when(mockChromosomeService.getAssembliesByChromosomeRefseq(generate.getRefseq()))
+                Mockito.when(mockSequenceService.getAssembliesBySequenceRefseq(generate.getRefseq()))
                        .thenReturn(listOfEntity);
             }
-            PageImpl<ChromosomeEntity> pageOfChromosomeEntities = new PageImpl<>(chromosomeEntities);
-            Mockito.when(mockChromosomeService
-                                 .getChromosomesByAssemblyGenbank(assemblyEntity.getGenbank(), DEFAULT_PAGE_REQUEST))
+            Page<SequenceEntity> pageOfChromosomeEntities = new PageImpl<>(new ArrayList<>(chromosomeEntities));
+            Mockito.when(mockSequenceService
+                                 .getSequencesByAssemblyGenbank(assemblyEntity.getGenbank(), DEFAULT_PAGE_REQUEST))
+                   .thenReturn(pageOfChromosomeEntities);
+            Mockito.when(mockSequenceService
+                                 .getSequencesByAssemblyRefseq(assemblyEntity.getRefseq(), DEFAULT_PAGE_REQUEST))
                    .thenReturn(pageOfChromosomeEntities);
-            Mockito.when(mockChromosomeService
-                                 .getChromosomesByAssemblyRefseq(assemblyEntity.getRefseq(), DEFAULT_PAGE_REQUEST))
+            Mockito.when(mockSequenceService
+                                 .getSequencesByAssemblyAccession(assemblyEntity.getGenbank(), DEFAULT_PAGE_REQUEST))
+                   .thenReturn(pageOfChromosomeEntities);
+            Mockito.when(mockSequenceService
+                                 .getSequencesByAssemblyAccession(assemblyEntity.getRefseq(), DEFAULT_PAGE_REQUEST))
                    .thenReturn(pageOfChromosomeEntities);
 
-            AssemblyService mockAssemblyService = mock(AssemblyService.class);
-            Optional<AssemblyEntity> optionalOfAssemblyEntity = Optional.of(this.assemblyEntity);
-            Mockito.when(mockAssemblyService.getAssemblyByAccession(this.assemblyEntity.getGenbank()))
-                   .thenReturn(optionalOfAssemblyEntity);
-            Mockito.when(mockAssemblyService.getAssemblyByAccession(this.assemblyEntity.getRefseq()))
-                   .thenReturn(optionalOfAssemblyEntity);
-            String chrName = chromosomeEntities.get(0)
-                                               .getGenbankSequenceName();
+            String chrName = chromosomeEntities.get(0).getGenbankSequenceName();
             Long asmTaxid = assemblyEntity.getTaxid();
             Mockito.when(
-                    mockChromosomeService.getChromosomesByNameAndAssemblyTaxid(chrName, asmTaxid, DEFAULT_PAGE_REQUEST))
+                    mockSequenceService.getSequencesByNameAndAssemblyTaxid(chrName, AliasType.GENBANK_SEQUENCE_NAME,
+                                                                           asmTaxid, DEFAULT_PAGE_REQUEST))
                    .thenReturn(new PageImpl<>(
                            chromosomeEntities
                                    .stream()
                                    .filter(it -> it.getGenbankSequenceName().equals(chrName) &&
                                            it.getAssembly().getTaxid().equals(asmTaxid))
                                    .collect(Collectors.toList())));
+            Mockito.when(mockSequenceService.getSequencesByNameAndAssemblyAccession(
+                    chrName, AliasType.GENBANK_SEQUENCE_NAME, assemblyEntity.getGenbank(), DEFAULT_PAGE_REQUEST))
+                   .thenReturn(new PageImpl<>(
+                           chromosomeEntities
+                                   .stream()
+                                   .filter(it -> it.getGenbankSequenceName().equals(chrName) &&
+                                           it.getAssembly().equals(assemblyEntity))
+                                   .collect(Collectors.toList())));
 
-            List<ChromosomeEntity> chromosomesByNameAndAssembly = chromosomeEntities
-                    .stream()
-                    .filter(it -> it.getGenbankSequenceName().equals(chrName) &&
-                            it.getAssembly().equals(assemblyEntity))
-                    .collect(Collectors.toList());
-
-            Mockito.when(mockChromosomeService
-                                 .getChromosomesByNameAndAssembly(chrName, assemblyEntity, DEFAULT_PAGE_REQUEST))
-                   .thenReturn(new PageImpl<>(chromosomesByNameAndAssembly));
-
-            Mockito.when(mockChromosomeService
-                                 .getChromosomesByAssemblyAccession(assemblyEntity.getGenbank(), DEFAULT_PAGE_REQUEST))
-                   .thenReturn(pageOfChromosomeEntities);
-
-
-            Mockito.when(mockChromosomeService
-                                 .getChromosomesByAssemblyAccession(assemblyEntity.getRefseq(), DEFAULT_PAGE_REQUEST))
+            String ucscName = chromosomeEntities.get(0).getUcscName();
+            Mockito.when(mockSequenceService.getSequencesByNameAndAssemblyAccession(
+                    ucscName, AliasType.UCSC_NAME, assemblyEntity.getGenbank(), DEFAULT_PAGE_REQUEST))
                    .thenReturn(pageOfChromosomeEntities);
-
-            Mockito.when(mockChromosomeService.getChromosomesByUcscNameAndAssembly(
-                    chromosomeEntities.get(0).getUcscName(), assemblyEntity, DEFAULT_PAGE_REQUEST))
+            Mockito.when(mockSequenceService.getSequencesByNameAndAssemblyTaxid(
+                    ucscName, AliasType.UCSC_NAME, asmTaxid, DEFAULT_PAGE_REQUEST))
                    .thenReturn(pageOfChromosomeEntities);
 
-            Mockito.when(mockChromosomeService.getChromosomesByUcscNameAndAssemblyTaxid(
-                    chromosomeEntities.get(0).getUcscName(), assemblyEntity.getTaxid(), DEFAULT_PAGE_REQUEST))
-                   .thenReturn(pageOfChromosomeEntities);
-
-            Mockito.when(mockAssemblyService.getAssemblyByAccession(assemblyEntity.getGenbank()))
-                   .thenReturn(Optional.of(assemblyEntity));
-
             PagedResourcesAssembler<AssemblyEntity> mockAssemblyAssembler = mock(PagedResourcesAssembler.class);
 
             PagedModel<EntityModel<AssemblyEntity>> assemblyPagedModel = new PagedModel(
@@ -411,46 +321,8 @@ public class ContigAliasHandlerTest {
             Mockito.when(mockSequenceAssembler.toModel(any()))
                    .thenReturn(sequencePagedModel);
 
-            ScaffoldService mockScaffoldService = mock(ScaffoldService.class);
-
-            ScaffoldEntity scaffoldEntity = ScaffoldGenerator.generate(assemblyEntity);
-
-            Page<ScaffoldEntity> pageOfEntity = new PageImpl<>(Collections.singletonList(scaffoldEntity));
-            Mockito.when(mockScaffoldService.getScaffoldsByGenbank(scaffoldEntity.getGenbank(), DEFAULT_PAGE_REQUEST))
-                   .thenReturn(pageOfEntity);
-            Mockito.when(mockScaffoldService.getScaffoldsByRefseq(scaffoldEntity.getRefseq(), DEFAULT_PAGE_REQUEST))
-                   .thenReturn(pageOfEntity);
-            Mockito.when(mockScaffoldService
-                                 .getScaffoldsByAssemblyGenbank(assemblyEntity.getGenbank(), DEFAULT_PAGE_REQUEST))
-                   .thenReturn(pageOfEntity);
-            Mockito.when(
-                    mockScaffoldService.getScaffoldsByAssemblyRefseq(assemblyEntity.getRefseq(), DEFAULT_PAGE_REQUEST))
-                   .thenReturn(pageOfEntity);
-            Mockito.when(mockScaffoldService
-                                 .getScaffoldsByAssemblyAccession(assemblyEntity.getGenbank(), DEFAULT_PAGE_REQUEST))
-                   .thenReturn(pageOfEntity);
-            Mockito.when(mockScaffoldService
-                                 .getScaffoldsByAssemblyAccession(assemblyEntity.getRefseq(), DEFAULT_PAGE_REQUEST))
-                   .thenReturn(pageOfEntity);
-            Mockito.when(mockScaffoldService.getScaffoldsByNameAndAssemblyTaxid(scaffoldEntity.getGenbankSequenceName(), asmTaxid,
-                                                                                DEFAULT_PAGE_REQUEST))
-                   .thenReturn(pageOfEntity);
-            Mockito.when(mockScaffoldService
-                                 .getScaffoldsByUcscNameAndAssemblyTaxid(scaffoldEntity.getUcscName(), asmTaxid,
-                                                                         DEFAULT_PAGE_REQUEST))
-                   .thenReturn(pageOfEntity);
-            Mockito.when(mockScaffoldService.getScaffoldsByNameAndAssembly(scaffoldEntity.getGenbankSequenceName(), assemblyEntity,
-                                                                           DEFAULT_PAGE_REQUEST))
-                   .thenReturn(pageOfEntity);
-
-            PagedResourcesAssembler<ScaffoldEntity> mockScaffoldAssembler = mock(PagedResourcesAssembler.class);
-            PagedModel<EntityModel<ScaffoldEntity>> scaffoldPagedModel = new PagedModel<>(
-                    Collections.singletonList(new EntityModel<>(scaffoldEntity)), null);
-            Mockito.when(mockScaffoldAssembler.toModel(any()))
-                   .thenReturn(scaffoldPagedModel);
-
-            handler = new ContigAliasHandler(mockAssemblyService, mockChromosomeService, mockScaffoldService,
-                                             mockAssemblyAssembler, mockSequenceAssembler);
+            handler = new ContigAliasHandler(mock(AssemblyService.class), mockSequenceService, mockAssemblyAssembler,
+                                             mockSequenceAssembler, disabledAliasIndex, disabledLookupFilter, null);
         }
 
         @AfterEach
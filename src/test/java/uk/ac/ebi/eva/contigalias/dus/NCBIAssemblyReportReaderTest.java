@@ -27,17 +27,20 @@ import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
 import uk.ac.ebi.eva.contigalias.entities.ChromosomeEntity;
 import uk.ac.ebi.eva.contigalias.entities.ScaffoldEntity;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
@@ -152,4 +155,29 @@ class NCBIAssemblyReportReaderTest {
         assertEquals(scaffoldEntity.getUcscName(), scaffold.getUcscName());
     }
 
-}
\ No newline at end of file
+    /**
+     * Loads a synthetic report of scaffolds whose sequence and UCSC names repeat their GenBank accession, and checks that
+     * each scaffold holds a single instance of that value.
+     */
+    @Test
+    void poolRepeatedValuesOfScaffolds() throws IOException {
+        int scaffoldCount = 1000;
+        StringBuilder report = new StringBuilder("# Assembly name:  Synthetic\n");
+        for (int i = 0; i < scaffoldCount; i++) {
+            String genbank = String.format("JAAAAA01%07d.1", i);
+            report.append(genbank).append("\tunplaced-scaffold\tna\tna\t").append(genbank).append("\t=\t")
+                  .append(String.format("NW_%09d.1", i)).append("\tPrimary Assembly\t1000\t")
+                  .append(genbank).append("\n");
+        }
+        NCBIAssemblyReportReader syntheticReader = new NCBIAssemblyReportReader(
+                new InputStreamReader(new ByteArrayInputStream(report.toString().getBytes(StandardCharsets.UTF_8))),
+                true);
+        List<ScaffoldEntity> scaffolds = syntheticReader.getAssemblyEntity().getScaffolds();
+        assertEquals(scaffoldCount, scaffolds.size());
+        for (ScaffoldEntity scaffold : scaffolds) {
+            assertSame(scaffold.getGenbank(), scaffold.getGenbankSequenceName());
+            assertSame(scaffold.getGenbank(), scaffold.getUcscName());
+        }
+    }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.index;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+
+import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
+import uk.ac.ebi.eva.contigalias.entities.ChromosomeEntity;
+import uk.ac.ebi.eva.contigalias.entitygenerator.AssemblyGenerator;
+import uk.ac.ebi.eva.contigalias.entitygenerator.ChromosomeGenerator;
+import uk.ac.ebi.eva.contigalias.event.AssemblyDeletedEvent;
+import uk.ac.ebi.eva.contigalias.event.AssemblyInsertedEvent;
+import uk.ac.ebi.eva.contigalias.event.DataVersionChangedEvent;
+import uk.ac.ebi.eva.contigalias.repo.AssemblyRepository;
+import uk.ac.ebi.eva.contigalias.repo.ChromosomeRepository;
+import uk.ac.ebi.eva.contigalias.repo.PrimaryReads;
+import uk.ac.ebi.eva.contigalias.repo.ScaffoldRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+public class NegativeLookupFilterTest {
+
+    private static final int TEST_ENTITIES_NUMBERS = 1000;
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private final List<ChromosomeEntity> chromosomes = new ArrayList<>();
+
+    private AssemblyRepository mockAssemblyRepository;
+
+    private ChromosomeRepository mockChromosomeRepository;
+
+    private ScaffoldRepository mockScaffoldRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private NegativeLookupFilter filter;
+
+    @BeforeEach
+    void setup() {
+        AssemblyEntity assembly = AssemblyGenerator.generate(0);
+        List<Object[]> aliases = new ArrayList<>();
+        for (int i = 0; i < TEST_ENTITIES_NUMBERS; i++) {
+            ChromosomeEntity chromosome = ChromosomeGenerator.generate(i, assembly);
+            chromosomes.add(chromosome);
+            aliases.add(new Object[]{chromosome.getGenbank(), chromosome.getRefseq(),
+                    chromosome.getGenbankSequenceName(), chromosome.getEnaSequenceName(), chromosome.getUcscName()});
+        }
+        mockAssemblyRepository = mock(AssemblyRepository.class);
+        Mockito.when(mockAssemblyRepository.findAllIdsAndAccessionsOrderById()).thenReturn(
+                Collections.singletonList(new Object[]{1L, assembly.getGenbank(), assembly.getRefseq()}));
+        mockChromosomeRepository = mock(ChromosomeRepository.class);
+        Mockito.when(mockChromosomeRepository.count()).thenReturn((long) TEST_ENTITIES_NUMBERS);
+        Mockito.when(mockChromosomeRepository.findAllAliases(any(Pageable.class))).thenReturn(new SliceImpl<>(aliases));
+        mockScaffoldRepository = mock(ScaffoldRepository.class);
+        Mockito.when(mockScaffoldRepository.findAllAliases(any(Pageable.class)))
+               .thenReturn(new SliceImpl<>(Collections.emptyList()));
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new NegativeLookupFilter(mockAssemblyRepository, mockChromosomeRepository, mockScaffoldRepository,
+                                          meterRegistry, true, FALSE_POSITIVE_RATE);
+    }
+
+    @Test
+    void mightContainEverythingUntilBuilt() {
+        assertTrue(filter.mightContain("unknown"));
+        NegativeLookupFilter disabled = new NegativeLookupFilter(mockAssemblyRepository, mockChromosomeRepository,
+                                                                 mockScaffoldRepository, meterRegistry, false,
+                                                                 FALSE_POSITIVE_RATE);
+        disabled.build();
+        assertTrue(disabled.mightContain("unknown"));
+    }
+
+    @Test
+    void noFalseNegatives() {
+        filter.build();
+        for (ChromosomeEntity chromosome : chromosomes) {
+            assertTrue(filter.mightContain(chromosome.getGenbank()));
+            assertTrue(filter.mightContain(chromosome.getRefseq()));
+            assertTrue(filter.mightContain(chromosome.getGenbankSequenceName()));
+            assertTrue(filter.mightContain(chromosome.getEnaSequenceName()));
+            assertTrue(filter.mightContain(chromosome.getUcscName()));
+        }
+    }
+
+    @Test
+    void rejectsMostUnknownIdentifiers() {
+        filter.build();
+        int lookups = 100000;
+        int falsePositives = 0;
+        for (int i = 0; i < lookups; i++) {
+            if (filter.mightContain("unknown" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < lookups * FALSE_POSITIVE_RATE);
+        assertEquals(lookups - falsePositives,
+                     meterRegistry.get("contigalias.lookup.filter.rejections").counter().count());
+        double expected = meterRegistry.get("contigalias.lookup.filter.false.positive.rate").gauge().value();
+        assertTrue(expected > 0 && expected < FALSE_POSITIVE_RATE);
+        assertTrue(meterRegistry.get("contigalias.lookup.filter.size").gauge().value() > 0);
+    }
+
+    @Test
+    void insertedAssembliesAreAdded() {
+        filter.build();
+        AssemblyEntity assembly = AssemblyGenerator.generate(TEST_ENTITIES_NUMBERS);
+        ChromosomeEntity chromosome = ChromosomeGenerator.generate(TEST_ENTITIES_NUMBERS, assembly);
+        assertFalse(filter.mightContain(assembly.getGenbank()));
+        assertFalse(filter.mightContain(chromosome.getGenbankSequenceName()));
+        filter.onAssemblyInserted(new AssemblyInsertedEvent(assembly));
+        assertTrue(filter.mightContain(assembly.getGenbank()));
+        assertTrue(filter.mightContain(assembly.getRefseq()));
+        assertTrue(filter.mightContain(chromosome.getGenbankSequenceName()));
+    }
+
+    @Test
+    void rebuiltAfterDeletions() {
+        filter.build();
+        filter.onAssemblyDeleted(new AssemblyDeletedEvent("GCA_000000001.1", null));
+        verify(mockAssemblyRepository, timeout(TIMEOUT_MILLIS).times(2)).findAllIdsAndAccessionsOrderById();
+    }
+
+    @Test
+    void builtFromPrimary() {
+        Mockito.when(mockChromosomeRepository.count()).thenAnswer(invocation -> {
+            assertTrue(PrimaryReads.isRequired());
+            return (long) TEST_ENTITIES_NUMBERS;
+        });
+        filter.build();
+        verify(mockChromosomeRepository).count();
+        assertFalse(PrimaryReads.isRequired());
+    }
+
+    @Test
+    void rebuiltWhenOtherNodesChangeData() throws InterruptedException {
+        filter.build();
+        String unknown = "unknown";
+        assertFalse(filter.mightContain(unknown));
+        Mockito.when(mockAssemblyRepository.findAllIdsAndAccessionsOrderById()).thenReturn(
+                Collections.singletonList(new Object[]{2L, unknown, null}));
+
+        filter.onDataVersionChanged(new DataVersionChangedEvent(2));
+        // Identifiers inserted by another node are not rejected while the filter is rebuilt
+        assertTrue(filter.mightContain(unknown));
+        verify(mockAssemblyRepository, timeout(TIMEOUT_MILLIS).times(2)).findAllIdsAndAccessionsOrderById();
+        awaitBuilt();
+        assertTrue(filter.mightContain(unknown));
+        assertFalse(filter.mightContain("absent"));
+    }
+
+    private void awaitBuilt() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (filter.getExpectedFalsePositiveRate() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PrefixTrieTest {
+
+    private static final List<String> KEYS = Arrays.asList("chr1", "chr10", "chr11", "chr2", "chrX", "chr1_random",
+                                                           "HSCHR1_CTG1", "1", "10", "X");
+
+    private PrefixTrie<String> trie;
+
+    @BeforeEach
+    void setup() {
+        trie = new PrefixTrie<>();
+        KEYS.forEach(key -> trie.put(key, key));
+    }
+
+    private List<String> visit(String prefix) {
+        List<String> values = new ArrayList<>();
+        trie.visitPrefix(prefix, values::add);
+        return values;
+    }
+
+    @Test
+    void visitPrefixInLexicographicOrder() {
+        List<String> sorted = new ArrayList<>(KEYS);
+        Collections.sort(sorted);
+        assertEquals(sorted, visit(""));
+        assertEquals(Arrays.asList("chr1", "chr10", "chr11", "chr1_random"), visit("chr1"));
+        assertEquals(Arrays.asList("chr1_random"), visit("chr1_"));
+        assertEquals(Arrays.asList("1", "10"), visit("1"));
+        assertEquals(Collections.emptyList(), visit("chr3"));
+        assertEquals(Collections.emptyList(), visit("chr1_randomized"));
+        assertEquals(Collections.emptyList(), visit("HSCHR2"));
+    }
+
+    @Test
+    void stopVisitingWhenVisitorReturnsFalse() {
+        List<String> values = new ArrayList<>();
+        trie.visitPrefix("chr", value -> values.add(value) && values.size() < 2);
+        assertEquals(Arrays.asList("chr1", "chr10"), values);
+    }
+
+    @Test
+    void multipleValuesPerKey() {
+        trie.put("chr1", "other");
+        assertEquals(Arrays.asList("chr1", "other", "chr10"), visit("chr1").subList(0, 3));
+        assertTrue(trie.remove("chr1", "chr1"));
+        assertEquals(Arrays.asList("other", "chr10", "chr11", "chr1_random"), visit("chr1"));
+    }
+
+    @Test
+    void removeMergesNodes() {
+        int nodeCount = trie.getNodeCount();
+        trie.put("chr12", "chr12");
+        assertTrue(trie.getNodeCount() > nodeCount);
+        assertTrue(trie.remove("chr12", "chr12"));
+        assertEquals(nodeCount, trie.getNodeCount());
+
+        assertFalse(trie.remove("chr", "chr1"));
+        assertFalse(trie.remove("chr1", "chr10"));
+        assertFalse(trie.remove("chr3", "chr3"));
+
+        for (String key : KEYS) {
+            assertTrue(trie.remove(key, key));
+            assertFalse(visit(key).contains(key));
+        }
+        assertEquals(1, trie.getNodeCount());
+        assertEquals(Collections.emptyList(), visit(""));
+    }
+
+}
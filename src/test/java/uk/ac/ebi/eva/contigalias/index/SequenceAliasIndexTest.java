@@ -0,0 +1,310 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
+import uk.ac.ebi.eva.contigalias.entities.ChromosomeEntity;
+import uk.ac.ebi.eva.contigalias.entities.ScaffoldEntity;
+import uk.ac.ebi.eva.contigalias.entities.SequenceEntity;
+import uk.ac.ebi.eva.contigalias.entitygenerator.AssemblyGenerator;
+import uk.ac.ebi.eva.contigalias.entitygenerator.ChromosomeGenerator;
+import uk.ac.ebi.eva.contigalias.entitygenerator.ScaffoldGenerator;
+import uk.ac.ebi.eva.contigalias.event.AssemblyDeletedEvent;
+import uk.ac.ebi.eva.contigalias.event.AssemblyInsertedEvent;
+import uk.ac.ebi.eva.contigalias.event.DataVersionChangedEvent;
+import uk.ac.ebi.eva.contigalias.event.SequenceChecksumsUpdatedEvent;
+import uk.ac.ebi.eva.contigalias.repo.AssemblyRepository;
+import uk.ac.ebi.eva.contigalias.repo.PrimaryReads;
+import uk.ac.ebi.eva.contigalias.repo.SequenceChecksums;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static uk.ac.ebi.eva.contigalias.controller.BaseController.DEFAULT_PAGE_REQUEST;
+
+public class SequenceAliasIndexTest {
+
+    private static final int CHROMOSOMES_PER_ASSEMBLY = 3;
+
+    private static final int SCAFFOLDS_PER_ASSEMBLY = 2;
+
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private final AssemblyEntity assembly = AssemblyGenerator.generate(1);
+
+    private final AssemblyEntity otherAssembly = AssemblyGenerator.generate(2);
+
+    private AssemblyRepository mockRepository;
+
+    private SequenceAliasIndex index;
+
+    @BeforeEach
+    void setup() {
+        populate(assembly, 1);
+        populate(otherAssembly, 2);
+        mockRepository = mock(AssemblyRepository.class);
+        Mockito.when(mockRepository.findAllIds(any(Pageable.class))).thenReturn(new PageImpl<>(Arrays.asList(1L, 2L)));
+        Mockito.when(mockRepository.findAssembliesWithSequencesByIdIn(Arrays.asList(1L, 2L)))
+               .thenReturn(Arrays.asList(assembly, otherAssembly));
+        index = new SequenceAliasIndex(mockRepository, true, 512);
+        index.build();
+    }
+
+    private void populate(AssemblyEntity assembly, long id) {
+        ReflectionTestUtils.setField(assembly, "id", id);
+        for (int i = 0; i < CHROMOSOMES_PER_ASSEMBLY; i++) {
+            ChromosomeGenerator.generate(id * 100 + i, assembly);
+        }
+        for (int i = 0; i < SCAFFOLDS_PER_ASSEMBLY; i++) {
+            ScaffoldGenerator.generate(id * 100 + 50 + i, assembly);
+        }
+    }
+
+    @Test
+    void notAvailableWhenDisabled() {
+        SequenceAliasIndex disabled = new SequenceAliasIndex(mockRepository, false, 512);
+        disabled.build();
+        assertFalse(disabled.isAvailable());
+    }
+
+    @Test
+    void notAvailableWhenOverBudget() {
+        SequenceAliasIndex overBudget = new SequenceAliasIndex(mockRepository, true, 0);
+        overBudget.build();
+        assertFalse(overBudget.isAvailable());
+        assertEquals(0, overBudget.getEstimatedSize());
+    }
+
+    @Test
+    void getSequencesByEveryAliasType() {
+        assertTrue(index.isAvailable());
+        assertTrue(index.getEstimatedSize() > 0);
+        ChromosomeEntity chromosome = assembly.getChromosomes().get(0);
+        for (AliasType type : AliasType.values()) {
+            String alias = new SequenceRecord(chromosome, null).getAlias(type);
+            Page<SequenceEntity> page = index.getSequencesByAlias(type, alias, DEFAULT_PAGE_REQUEST);
+            assertEquals(1, page.getNumberOfElements());
+            SequenceEntity sequence = page.getContent().get(0);
+            assertSequenceIdenticalToEntity(chromosome, sequence);
+            assertNotNull(sequence.getAssembly());
+            assertEquals(assembly.getGenbank(), sequence.getAssembly().getGenbank());
+            assertNull(sequence.getAssembly().getChromosomes());
+        }
+        assertEquals(0, index.getSequencesByAlias(AliasType.GENBANK, "unknown", DEFAULT_PAGE_REQUEST)
+                             .getNumberOfElements());
+    }
+
+    @Test
+    void getSequencesByAssemblyListsChromosomesBeforeScaffolds() {
+        Page<SequenceEntity> page = index.getSequencesByAssemblyAccession(assembly.getRefseq(), DEFAULT_PAGE_REQUEST);
+        List<SequenceEntity> content = page.getContent();
+        assertEquals(CHROMOSOMES_PER_ASSEMBLY + SCAFFOLDS_PER_ASSEMBLY, content.size());
+        for (int i = 0; i < content.size(); i++) {
+            assertEquals(i < CHROMOSOMES_PER_ASSEMBLY, content.get(i) instanceof ChromosomeEntity);
+            assertNull(content.get(i).getAssembly());
+        }
+
+        Page<SequenceEntity> secondPage = index.getSequencesByAssemblyGenbank(assembly.getGenbank(),
+                                                                              PageRequest.of(1, 2));
+        assertEquals(2, secondPage.getNumberOfElements());
+        assertEquals(CHROMOSOMES_PER_ASSEMBLY + SCAFFOLDS_PER_ASSEMBLY, secondPage.getTotalElements());
+        assertTrue(secondPage.hasNext());
+        assertTrue(secondPage.getContent().get(0) instanceof ChromosomeEntity);
+        assertTrue(secondPage.getContent().get(1) instanceof ScaffoldEntity);
+        assertEquals(0, index.getSequencesByAssemblyRefseq(assembly.getRefseq(), PageRequest.of(5, 2))
+                             .getNumberOfElements());
+    }
+
+    @Test
+    void getSequencesByAliasAndAssembly() {
+        ScaffoldEntity scaffold = otherAssembly.getScaffolds().get(0);
+        String name = scaffold.getGenbankSequenceName();
+        assertEquals(1, index.getSequencesByAliasAndAssemblyTaxid(
+                AliasType.GENBANK_SEQUENCE_NAME, name, otherAssembly.getTaxid(), DEFAULT_PAGE_REQUEST)
+                             .getNumberOfElements());
+        assertEquals(0, index.getSequencesByAliasAndAssemblyTaxid(
+                AliasType.GENBANK_SEQUENCE_NAME, name, assembly.getTaxid(), DEFAULT_PAGE_REQUEST)
+                             .getNumberOfElements());
+        assertEquals(1, index.getSequencesByAliasAndAssemblyAccession(
+                AliasType.GENBANK_SEQUENCE_NAME, name, otherAssembly.getGenbank(), DEFAULT_PAGE_REQUEST)
+                             .getNumberOfElements());
+        assertEquals(0, index.getSequencesByAliasAndAssemblyAccession(
+                AliasType.GENBANK_SEQUENCE_NAME, name, assembly.getRefseq(), DEFAULT_PAGE_REQUEST)
+                             .getNumberOfElements());
+        List<AssemblyEntity> assemblies = index.getAssembliesBySequenceAlias(AliasType.REFSEQ, scaffold.getRefseq());
+        assertEquals(1, assemblies.size());
+        assertEquals(otherAssembly.getGenbank(), assemblies.get(0).getGenbank());
+    }
+
+    @Test
+    void insertAndDeleteAssembly() {
+        AssemblyEntity inserted = AssemblyGenerator.generate(3);
+        populate(inserted, 3);
+        String genbank = inserted.getChromosomes().get(0).getGenbank();
+        long sizeBefore = index.getEstimatedSize();
+
+        index.onAssemblyInserted(new AssemblyInsertedEvent(inserted));
+        assertTrue(index.getAssemblyByAccession(inserted.getGenbank()).isPresent());
+        assertEquals(1, index.getSequencesByAlias(AliasType.GENBANK, genbank, DEFAULT_PAGE_REQUEST)
+                             .getNumberOfElements());
+
+        index.onAssemblyDeleted(new AssemblyDeletedEvent(null, inserted.getRefseq()));
+        assertFalse(index.getAssemblyByAccession(inserted.getGenbank()).isPresent());
+        assertEquals(0, index.getSequencesByAlias(AliasType.GENBANK, genbank, DEFAULT_PAGE_REQUEST)
+                             .getNumberOfElements());
+        assertEquals(sizeBefore, index.getEstimatedSize());
+    }
+
+    @Test
+    void updateSequenceChecksums() {
+        String refseq = assembly.getChromosomes().get(1).getRefseq();
+        index.onSequenceChecksumsUpdated(new SequenceChecksumsUpdatedEvent(
+                Collections.singletonList(new SequenceChecksums(refseq, "newMd5", "newTrunc512")),
+                Collections.singleton(assembly.getId())));
+        SequenceEntity sequence = index.getSequencesByAlias(AliasType.REFSEQ, refseq, DEFAULT_PAGE_REQUEST)
+                                       .getContent().get(0);
+        assertEquals("newMd5", sequence.getMd5checksum());
+        assertEquals("newTrunc512", sequence.getTrunc512checksum());
+    }
+
+    @Test
+    void getSequencesByNamePrefix() {
+        // Assembly 1 holds sequences 100 to 102 and 150 to 151, whose names all start with "name1"
+        Page<SequenceEntity> page = index.getSequencesByNamePrefix("name1", DEFAULT_PAGE_REQUEST);
+        assertEquals(CHROMOSOMES_PER_ASSEMBLY + SCAFFOLDS_PER_ASSEMBLY, page.getNumberOfElements());
+        List<SequenceEntity> content = page.getContent();
+        for (int i = 1; i < content.size(); i++) {
+            assertTrue(content.get(i - 1).getGenbankSequenceName()
+                                         .compareTo(content.get(i).getGenbankSequenceName()) < 0);
+            assertNotNull(content.get(i).getAssembly());
+        }
+        assertEquals(CHROMOSOMES_PER_ASSEMBLY, index.getSequencesByNamePrefix("name10", DEFAULT_PAGE_REQUEST)
+                                                    .getNumberOfElements());
+        assertEquals(1, index.getSequencesByNamePrefix("ucsc101", DEFAULT_PAGE_REQUEST).getNumberOfElements());
+        assertEquals(0, index.getSequencesByNamePrefix("unknown", DEFAULT_PAGE_REQUEST).getNumberOfElements());
+
+        // Every sequence matches through its ENA name, but is only listed once
+        assertTrue(index.getSequencesByNamePrefix("ena", PageRequest.of(0, 8)).hasNext());
+        Page<SequenceEntity> secondPage = index.getSequencesByNamePrefix("ena", PageRequest.of(1, 8));
+        assertEquals(2 * (CHROMOSOMES_PER_ASSEMBLY + SCAFFOLDS_PER_ASSEMBLY) - 8, secondPage.getNumberOfElements());
+        assertFalse(secondPage.hasNext());
+
+        assertEquals(CHROMOSOMES_PER_ASSEMBLY + SCAFFOLDS_PER_ASSEMBLY,
+                     index.getSequencesByNamePrefixAndAssemblyAccession("ucsc", otherAssembly.getGenbank(),
+                                                                        DEFAULT_PAGE_REQUEST).getNumberOfElements());
+        assertEquals(0, index.getSequencesByNamePrefixAndAssemblyTaxid("name", -1, DEFAULT_PAGE_REQUEST)
+                             .getNumberOfElements());
+
+        index.onAssemblyDeleted(new AssemblyDeletedEvent(assembly.getGenbank(), null));
+        assertEquals(0, index.getSequencesByNamePrefix("name1", DEFAULT_PAGE_REQUEST).getNumberOfElements());
+        assertEquals(CHROMOSOMES_PER_ASSEMBLY + SCAFFOLDS_PER_ASSEMBLY,
+                     index.getSequencesByNamePrefix("name", DEFAULT_PAGE_REQUEST).getNumberOfElements());
+    }
+
+    @Test
+    void rebuiltFromPrimaryWhenOtherNodesChangeData() {
+        Mockito.when(mockRepository.findAllIds(any(Pageable.class))).thenAnswer(invocation -> {
+            assertTrue(PrimaryReads.isRequired());
+            return new PageImpl<>(Collections.singletonList(2L));
+        });
+        Mockito.when(mockRepository.findAssembliesWithSequencesByIdIn(Collections.singletonList(2L)))
+               .thenReturn(Collections.singletonList(otherAssembly));
+
+        index.onDataVersionChanged(new DataVersionChangedEvent(2));
+        verify(mockRepository, timeout(TIMEOUT_MILLIS)).findAssembliesWithSequencesByIdIn(
+                Collections.singletonList(2L));
+        awaitAvailable();
+        assertFalse(index.getAssemblyByAccession(assembly.getGenbank()).isPresent());
+        assertTrue(index.getAssemblyByAccession(otherAssembly.getGenbank()).isPresent());
+    }
+
+    @Test
+    void insertsNotBlockedByBuild() {
+        AssemblyEntity inserted = AssemblyGenerator.generate(3);
+        populate(inserted, 3);
+        Mockito.when(mockRepository.findAssembliesWithSequencesByIdIn(Arrays.asList(1L, 2L))).thenAnswer(
+                invocation -> {
+                    // Inserted by an admin request while the build reads the database
+                    CompletableFuture.runAsync(() -> index.onAssemblyInserted(new AssemblyInsertedEvent(inserted)))
+                                     .get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                    return Arrays.asList(assembly, otherAssembly);
+                });
+        index.build();
+        assertTrue(index.isAvailable());
+        assertTrue(index.getAssemblyByAccession(inserted.getGenbank()).isPresent());
+        assertTrue(index.getAssemblyByAccession(assembly.getGenbank()).isPresent());
+    }
+
+    @Test
+    void buildRestartedByDeletions() {
+        Mockito.when(mockRepository.findAssembliesWithSequencesByIdIn(Arrays.asList(1L, 2L))).thenAnswer(
+                invocation -> {
+                    // Deleted after the build read it
+                    index.onAssemblyDeleted(new AssemblyDeletedEvent(assembly.getGenbank(), null));
+                    Mockito.when(mockRepository.findAllIds(any(Pageable.class)))
+                           .thenReturn(new PageImpl<>(Collections.singletonList(2L)));
+                    return Arrays.asList(assembly, otherAssembly);
+                });
+        Mockito.when(mockRepository.findAssembliesWithSequencesByIdIn(Collections.singletonList(2L)))
+               .thenReturn(Collections.singletonList(otherAssembly));
+        index.build();
+        awaitAvailable();
+        assertFalse(index.getAssemblyByAccession(assembly.getGenbank()).isPresent());
+        assertTrue(index.getAssemblyByAccession(otherAssembly.getGenbank()).isPresent());
+    }
+
+    private void awaitAvailable() {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!index.isAvailable() && System.currentTimeMillis() < deadline) {
+            Thread.yield();
+        }
+        assertTrue(index.isAvailable());
+    }
+
+    void assertSequenceIdenticalToEntity(SequenceEntity expected, SequenceEntity actual) {
+        assertEquals(expected.getClass(), actual.getClass());
+        assertEquals(expected.getGenbankSequenceName(), actual.getGenbankSequenceName());
+        assertEquals(expected.getEnaSequenceName(), actual.getEnaSequenceName());
+        assertEquals(expected.getGenbank(), actual.getGenbank());
+        assertEquals(expected.getRefseq(), actual.getRefseq());
+        assertEquals(expected.getUcscName(), actual.getUcscName());
+        assertEquals(expected.getMd5checksum(), actual.getMd5checksum());
+        assertEquals(expected.getTrunc512checksum(), actual.getTrunc512checksum());
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.repo;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AccessionConstraintsCheckTest {
+
+    private Connection connection;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AccessionConstraintsCheck check;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:constraints");
+        // Keeps the in-memory database alive between the connections of the check
+        connection = dataSource.getConnection();
+        execute("create table assembly (id bigint primary key, genbank varchar(255), refseq varchar(255))");
+        meterRegistry = new SimpleMeterRegistry();
+        check = new AccessionConstraintsCheck(dataSource, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        execute("drop table assembly");
+        connection.close();
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private double missingConstraints() {
+        return meterRegistry.get(AccessionConstraintsCheck.MISSING_CONSTRAINTS).gauge().value();
+    }
+
+    @Test
+    void missingConstraintsAreReported() throws SQLException {
+        assertEquals(Arrays.asList(AssemblyEntity.GENBANK_CONSTRAINT, AssemblyEntity.REFSEQ_CONSTRAINT),
+                     check.findMissingConstraints());
+        check.afterPropertiesSet();
+        assertEquals(2.0, missingConstraints());
+
+        execute("alter table assembly add constraint " + AssemblyEntity.GENBANK_CONSTRAINT + " unique (genbank)");
+        assertEquals(Arrays.asList(AssemblyEntity.REFSEQ_CONSTRAINT), check.findMissingConstraints());
+    }
+
+    @Test
+    void nothingReportedWithConstraints() throws SQLException {
+        execute("alter table assembly add constraint " + AssemblyEntity.GENBANK_CONSTRAINT + " unique (genbank)");
+        execute("alter table assembly add constraint " + AssemblyEntity.REFSEQ_CONSTRAINT + " unique (refseq)");
+        assertTrue(check.findMissingConstraints().isEmpty());
+        check.afterPropertiesSet();
+        assertEquals(0.0, missingConstraints());
+    }
+
+}
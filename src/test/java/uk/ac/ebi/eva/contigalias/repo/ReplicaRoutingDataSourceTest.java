@@ -0,0 +1,132 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.repo;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private static final String PRIMARY = "jdbc:h2:mem:primary";
+
+    private static final String REPLICA_1 = "jdbc:h2:mem:replica1";
+
+    private static final String REPLICA_2 = "jdbc:h2:mem:replica2";
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        routingDataSource.close();
+    }
+
+    private static DataSource h2(String url) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(url);
+        return dataSource;
+    }
+
+    private ReplicaRoutingDataSource createRoutingDataSource(DataSource... replicas) {
+        Map<String, DataSource> replicasByName = new LinkedHashMap<>();
+        for (DataSource replica : replicas) {
+            replicasByName.put("replica-" + replicasByName.size(), replica);
+        }
+        return new ReplicaRoutingDataSource(h2(PRIMARY), replicasByName, 60, 30, 0);
+    }
+
+    private String connectedUrl() throws SQLException {
+        try (Connection connection = routingDataSource.getConnection()) {
+            return connection.getMetaData().getURL();
+        }
+    }
+
+    @Test
+    void writesGoToPrimary() throws SQLException {
+        routingDataSource = createRoutingDataSource(h2(REPLICA_1));
+        assertEquals(PRIMARY, connectedUrl());
+    }
+
+    @Test
+    void readOnlyTransactionsTakeReplicasInTurn() throws SQLException {
+        routingDataSource = createRoutingDataSource(h2(REPLICA_1), h2(REPLICA_2));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertEquals(REPLICA_1, connectedUrl());
+        assertEquals(REPLICA_2, connectedUrl());
+        assertEquals(REPLICA_1, connectedUrl());
+    }
+
+    @Test
+    void failedReplicaIsSkippedUntilRetry() throws SQLException {
+        DataSource failing = mock(DataSource.class);
+        when(failing.getConnection()).thenThrow(new SQLException("Connection refused"));
+        routingDataSource = createRoutingDataSource(failing, h2(REPLICA_2));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(REPLICA_2, connectedUrl());
+        }
+        verify(failing, times(1)).getConnection();
+        assertEquals(1, routingDataSource.getAvailableReplicaCount());
+    }
+
+    @Test
+    void readsFallBackToPrimaryWithoutAvailableReplica() throws SQLException {
+        DataSource failing = mock(DataSource.class);
+        when(failing.getConnection()).thenThrow(new SQLException("Connection refused"));
+        routingDataSource = createRoutingDataSource(failing);
+        routingDataSource.checkReplicas();
+        assertEquals(0, routingDataSource.getAvailableReplicaCount());
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertEquals(PRIMARY, connectedUrl());
+        verify(failing, times(1)).getConnection();
+    }
+
+    @Test
+    void healthCheckKeepsReachableReplicas() {
+        routingDataSource = createRoutingDataSource(h2(REPLICA_1), h2(REPLICA_2));
+        routingDataSource.checkReplicas();
+        assertEquals(2, routingDataSource.getAvailableReplicaCount());
+    }
+
+    @Test
+    void threadRequiringPrimaryReadsFromPrimary() throws SQLException {
+        routingDataSource = createRoutingDataSource(h2(REPLICA_1));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        PrimaryReads.require();
+        try {
+            assertEquals(PRIMARY, connectedUrl());
+        } finally {
+            PrimaryReads.release();
+        }
+        assertEquals(REPLICA_1, connectedUrl());
+    }
+
+}
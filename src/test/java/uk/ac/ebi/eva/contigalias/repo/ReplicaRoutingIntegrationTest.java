@@ -0,0 +1,132 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.repo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import uk.ac.ebi.eva.contigalias.controller.PrimaryReadInterceptor;
+import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
+import uk.ac.ebi.eva.contigalias.entitygenerator.AssemblyGenerator;
+import uk.ac.ebi.eva.contigalias.entitygenerator.ChromosomeGenerator;
+import uk.ac.ebi.eva.contigalias.service.AssemblyService;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The replica is the test database itself, whose connections opened as a replica set a session variable, so that
+ * transactions can tell which of the primary and the replica they are served by.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(properties = {"config.replicas.enabled=true",
+        "config.replicas.urls=jdbc:h2:mem:testdb;INIT=SET @REPLICA = TRUE",
+        "config.replicas.health-check-interval-seconds=0"})
+public class ReplicaRoutingIntegrationTest {
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private AssemblyService assemblyService;
+
+    @Autowired
+    private PrimaryReadInterceptor interceptor;
+
+    @Autowired
+    private RecentWrites recentWrites;
+
+    private final AssemblyEntity assembly = AssemblyGenerator.generate(900);
+
+    @BeforeEach
+    void setup() {
+        recentWrites.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        PrimaryReads.release();
+        assemblyService.deleteAssembly(assembly);
+    }
+
+    private boolean servedByReplica(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        return template.execute(status -> ((Number) entityManager.createNativeQuery(
+                "select case when @REPLICA is null then 0 else 1 end").getSingleResult()).intValue() == 1);
+    }
+
+    @Test
+    void readOnlyTransactionsAreServedByReplica() {
+        assertTrue(servedByReplica(true));
+        assertFalse(servedByReplica(false));
+    }
+
+    @Test
+    void writesDoNotSendReadsOutsideRequestsToPrimary() {
+        ChromosomeGenerator.generate(901, assembly);
+        assemblyService.insertAssembly(assembly);
+        assertTrue(servedByReplica(true));
+    }
+
+    @Test
+    void requestsFollowingRecentWritesAreServedByPrimary() throws Exception {
+        assertTrue(servedByReplica(true, "/v1/assemblies/" + assembly.getGenbank()));
+        assertFalse(servedByReplica(true, "/v1/admin/assemblies/unrelated"));
+
+        ChromosomeGenerator.generate(902, assembly);
+        assemblyService.insertAssembly(assembly);
+        assertFalse(servedByReplica(true, "/v1/assemblies/" + assembly.getGenbank()));
+        // Lookups that do not name what was written are affected by it all the same
+        assertFalse(servedByReplica(true, "/v1/assemblies/taxid/" + assembly.getTaxid()));
+
+        recentWrites.clear();
+        assertTrue(servedByReplica(true, "/v1/assemblies/taxid/" + assembly.getTaxid()));
+    }
+
+    @Test
+    void markedThreadsAreServedByPrimary() {
+        assertFalse(PrimaryReads.call(() -> servedByReplica(true)));
+        assertTrue(servedByReplica(true));
+    }
+
+    private boolean servedByReplica(boolean readOnly, String requestUri) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", requestUri);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(request, response, null);
+        try {
+            return servedByReplica(readOnly);
+        } finally {
+            interceptor.afterCompletion(request, response, null, null);
+        }
+    }
+
+}
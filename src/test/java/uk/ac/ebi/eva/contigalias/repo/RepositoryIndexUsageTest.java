@@ -0,0 +1,276 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.repo;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import uk.ac.ebi.eva.contigalias.index.AliasType;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static uk.ac.ebi.eva.contigalias.controller.BaseController.DEFAULT_PAGE_REQUEST;
+
+/**
+ * Runs {@code EXPLAIN} on the statements issued by every repository finder and deletion and checks that each table
+ * they touch is accessed through an index lookup, rather than through a scan of the whole table or of its primary key.
+ * <p>
+ * The only scans tolerated are of a table filtered by {@code genbank = ? or refseq = ?}: H2 cannot combine two indexes
+ * to answer a disjunction, whereas PostgreSQL reads both indexes through a bitmap OR.
+ * </p>
+ */
+@ActiveProfiles("test")
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "uk.ac.ebi.eva.contigalias.repo.RepositoryIndexUsageTest$RecordingStatementInspector")
+public class RepositoryIndexUsageTest {
+
+    private static final String ACCESSION = "GCA_000001405.28";
+
+    private static final String NAME = "1";
+
+    private static final long ID = 1;
+
+    /**
+     * Types of the sequence names, null standing for a name of any type.
+     */
+    private static final AliasType[] NAME_TYPES = {null, AliasType.GENBANK_SEQUENCE_NAME, AliasType.UCSC_NAME};
+
+    private static final Pattern TABLE_ACCESS = Pattern.compile(
+            "(?:FROM|JOIN)\\s+\"?PUBLIC\"?\\.\"?(\\w+)\"?(?:\\s+\"?(\\w+)\"?)?\\s*$");
+
+    @Autowired
+    private AssemblyRepository assemblyRepository;
+
+    @Autowired
+    private ChromosomeRepository chromosomeRepository;
+
+    @Autowired
+    private ScaffoldRepository scaffoldRepository;
+
+    @Autowired
+    private SequenceRepository sequenceRepository;
+
+    @Autowired
+    private AliasTableRepository aliasTableRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setup() {
+        RecordingStatementInspector.STATEMENTS.clear();
+    }
+
+    @Test
+    void assemblyFindersUseIndexes() throws SQLException {
+        assemblyRepository.findAssemblyEntityByAccession(ACCESSION);
+        assemblyRepository.existsByGenbankOrRefseq(ACCESSION, ACCESSION);
+        assemblyRepository.findAssemblyEntityByGenbank(ACCESSION);
+        assemblyRepository.findAssemblyEntityByRefseq(ACCESSION);
+        assemblyRepository.findAssemblyProjectionByAccession(ACCESSION);
+        assemblyRepository.findAssemblyProjectionByGenbank(ACCESSION);
+        assemblyRepository.findAssemblyProjectionByRefseq(ACCESSION);
+        assemblyRepository.findAssemblyProjectionsByTaxid(ID, DEFAULT_PAGE_REQUEST);
+        assemblyRepository.findAssemblyWithSequencesByAccession(ACCESSION);
+        assemblyRepository.findAssemblyWithSequencesByGenbank(ACCESSION);
+        assemblyRepository.findAssemblyWithSequencesByRefseq(ACCESSION);
+        assemblyRepository.findAssembliesWithSequencesByIdIn(Collections.singleton(ID));
+        assemblyRepository.findAssemblyProjectionsByIdIn(Collections.singleton(ID));
+        assemblyRepository.findAssemblyProjectionsByGenbankIn(Collections.singleton(ACCESSION));
+        assemblyRepository.findAssemblyProjectionsByRefseqIn(Collections.singleton(ACCESSION));
+        assemblyRepository.findAssemblyProjectionSliceByTaxid(ID, DEFAULT_PAGE_REQUEST);
+        assemblyRepository.findIdsWithoutSequenceAliasesAfter(ID, DEFAULT_PAGE_REQUEST);
+        assemblyRepository.findIdsWithoutAliasTableAfter(ID, DEFAULT_PAGE_REQUEST);
+        assemblyRepository.findIdsWithMissingSequenceTaxidsAfter(ID, 10);
+        assemblyRepository.updateMissingSequenceTaxidsByAssemblyIdIn(Collections.singleton(ID));
+        assemblyRepository.deleteAssembliesByIdIn(Collections.singleton(ID));
+        aliasTableRepository.findAliasTableEntityByAccession(ACCESSION);
+        aliasTableRepository.deleteAliasTableEntityByGenbank(ACCESSION);
+        aliasTableRepository.deleteAliasTableEntityByRefseq(ACCESSION);
+        assertRecordedStatementsUseIndexes();
+    }
+
+    @Test
+    void chromosomeFindersUseIndexes() throws SQLException {
+        chromosomeRepository.findChromosomeEntitiesByGenbankOrRefseq(ACCESSION, ACCESSION, DEFAULT_PAGE_REQUEST);
+        chromosomeRepository.findChromosomeProjectionsByGenbank(ACCESSION, DEFAULT_PAGE_REQUEST);
+        chromosomeRepository.findChromosomeProjectionsByRefseq(ACCESSION, DEFAULT_PAGE_REQUEST);
+        chromosomeRepository.findChromosomeProjectionsByAssemblyGenbank(ACCESSION, DEFAULT_PAGE_REQUEST);
+        chromosomeRepository.findChromosomeProjectionsByAssemblyRefseq(ACCESSION, DEFAULT_PAGE_REQUEST);
+        chromosomeRepository.findChromosomeProjectionsByAssemblyAccession(ACCESSION, DEFAULT_PAGE_REQUEST);
+        chromosomeRepository.findChromosomeProjectionsByGenbankSequenceName(NAME, DEFAULT_PAGE_REQUEST);
+        chromosomeRepository.findChromosomeProjectionsByUcscName(NAME, DEFAULT_PAGE_REQUEST);
+        chromosomeRepository.findChromosomeProjectionsByEnaSequenceName(NAME, DEFAULT_PAGE_REQUEST);
+        chromosomeRepository.findChromosomeProjectionsByGenbankSequenceNameAndAssemblyTaxid(NAME, ID,
+                                                                                           DEFAULT_PAGE_REQUEST);
+        chromosomeRepository.findChromosomeProjectionsByUcscNameAndAssemblyTaxid(NAME, ID, DEFAULT_PAGE_REQUEST);
+        chromosomeRepository.findChromosomeProjectionsByEnaSequenceNameAndAssemblyTaxid(NAME, ID,
+                                                                                        DEFAULT_PAGE_REQUEST);
+        chromosomeRepository.findChromosomeProjectionsByGenbankSequenceNameAndAssemblyId(NAME, ID,
+                                                                                        DEFAULT_PAGE_REQUEST);
+        chromosomeRepository.findChromosomeProjectionsByUcscNameAndAssemblyId(NAME, ID, DEFAULT_PAGE_REQUEST);
+        chromosomeRepository.findChromosomeProjectionsByEnaSequenceNameAndAssemblyId(NAME, ID, DEFAULT_PAGE_REQUEST);
+        chromosomeRepository.findChromosomeProjectionsByAssemblyIdIn(Collections.singleton(ID));
+        chromosomeRepository.findAssemblyProjectionsByChromosomeGenbank(ACCESSION);
+        chromosomeRepository.findAssemblyProjectionsByChromosomeRefseq(ACCESSION);
+        assertRecordedStatementsUseIndexes();
+    }
+
+    @Test
+    void scaffoldFindersUseIndexes() throws SQLException {
+        scaffoldRepository.findScaffoldEntitiesByGenbankOrRefseq(ACCESSION, ACCESSION, DEFAULT_PAGE_REQUEST);
+        scaffoldRepository.findScaffoldProjectionsByGenbank(ACCESSION, DEFAULT_PAGE_REQUEST);
+        scaffoldRepository.findScaffoldProjectionsByRefseq(ACCESSION, DEFAULT_PAGE_REQUEST);
+        scaffoldRepository.findScaffoldProjectionsByAssemblyGenbank(ACCESSION, DEFAULT_PAGE_REQUEST);
+        scaffoldRepository.findScaffoldProjectionsByAssemblyRefseq(ACCESSION, DEFAULT_PAGE_REQUEST);
+        scaffoldRepository.findScaffoldProjectionsByAssemblyAccession(ACCESSION, DEFAULT_PAGE_REQUEST);
+        scaffoldRepository.findScaffoldProjectionsByGenbankSequenceName(NAME, DEFAULT_PAGE_REQUEST);
+        scaffoldRepository.findScaffoldProjectionsByUcscName(NAME, DEFAULT_PAGE_REQUEST);
+        scaffoldRepository.findScaffoldProjectionsByEnaSequenceName(NAME, DEFAULT_PAGE_REQUEST);
+        scaffoldRepository.findScaffoldProjectionsByGenbankSequenceNameAndAssemblyTaxid(NAME, ID,
+                                                                                       DEFAULT_PAGE_REQUEST);
+        scaffoldRepository.findScaffoldProjectionsByUcscNameAndAssemblyTaxid(NAME, ID, DEFAULT_PAGE_REQUEST);
+        scaffoldRepository.findScaffoldProjectionsByEnaSequenceNameAndAssemblyTaxid(NAME, ID, DEFAULT_PAGE_REQUEST);
+        scaffoldRepository.findScaffoldProjectionsByGenbankSequenceNameAndAssemblyId(NAME, ID, DEFAULT_PAGE_REQUEST);
+        scaffoldRepository.findScaffoldProjectionsByUcscNameAndAssemblyId(NAME, ID, DEFAULT_PAGE_REQUEST);
+        scaffoldRepository.findScaffoldProjectionsByEnaSequenceNameAndAssemblyId(NAME, ID, DEFAULT_PAGE_REQUEST);
+        scaffoldRepository.findAssemblyProjectionsByScaffoldGenbank(ACCESSION);
+        scaffoldRepository.findAssemblyProjectionsByScaffoldRefseq(ACCESSION);
+        assertRecordedStatementsUseIndexes();
+    }
+
+    @Test
+    void sequenceFindersUseIndexes() throws SQLException {
+        SequenceCursor cursor = new SequenceCursor(0, ID);
+        sequenceRepository.findSequenceProjectionsByGenbank(ACCESSION, DEFAULT_PAGE_REQUEST);
+        sequenceRepository.findSequenceProjectionsByRefseq(ACCESSION, DEFAULT_PAGE_REQUEST);
+        sequenceRepository.findSequenceProjectionsByAssemblyGenbank(ACCESSION, DEFAULT_PAGE_REQUEST);
+        sequenceRepository.findSequenceProjectionsByAssemblyRefseq(ACCESSION, DEFAULT_PAGE_REQUEST);
+        sequenceRepository.findSequenceProjectionsByAssemblyAccession(ACCESSION, DEFAULT_PAGE_REQUEST);
+        for (AliasType type : NAME_TYPES) {
+            sequenceRepository.findSequenceProjectionsByAlias(NAME, type, DEFAULT_PAGE_REQUEST);
+            sequenceRepository.findSequenceProjectionsByAliasAndAssemblyTaxid(NAME, type, ID, DEFAULT_PAGE_REQUEST);
+            sequenceRepository.findSequenceProjectionsByAliasAndAssemblyAccession(NAME, type, ACCESSION,
+                                                                                  DEFAULT_PAGE_REQUEST);
+            sequenceRepository.findSequenceProjectionsByAliasAfter(NAME, type, cursor, 10);
+            sequenceRepository.findSequenceProjectionsByAliasAndAssemblyTaxidAfter(NAME, type, ID, null, 10);
+            sequenceRepository.findSequenceProjectionsByAliasAndAssemblyAccessionAfter(NAME, type, ACCESSION, null,
+                                                                                       10);
+        }
+        sequenceRepository.findSequenceProjectionsByAssemblyGenbankAfter(ACCESSION, cursor, 10);
+        sequenceRepository.findSequenceProjectionsByAssemblyRefseqAfter(ACCESSION, cursor, 10);
+        sequenceRepository.findSequenceProjectionsByAssemblyAccessionAfter(ACCESSION, cursor, 10);
+        sequenceRepository.findAssemblyProjectionsBySequenceGenbank(ACCESSION);
+        sequenceRepository.findAssemblyProjectionsBySequenceRefseq(ACCESSION);
+        assertRecordedStatementsUseIndexes();
+    }
+
+    private void assertRecordedStatementsUseIndexes() throws SQLException {
+        Set<String> queries = new LinkedHashSet<>();
+        for (String statement : RecordingStatementInspector.STATEMENTS) {
+            String command = statement.trim().toLowerCase(Locale.ROOT);
+            if (command.startsWith("select") || command.startsWith("delete")) {
+                queries.add(statement);
+            }
+        }
+        assertFalse(queries.isEmpty());
+        List<String> scans = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            for (String query : queries) {
+                String plan = explain(connection, query);
+                for (String scan : findScans(query, plan)) {
+                    scans.add(scan + " in " + query + "\n" + plan);
+                }
+            }
+        }
+        assertTrue(scans.isEmpty(), () -> String.join("\n\n", scans));
+    }
+
+    private static String explain(Connection connection, String query) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("explain " + query)) {
+            ParameterMetaData parameters = statement.getParameterMetaData();
+            for (int i = 1; i <= parameters.getParameterCount(); i++) {
+                statement.setObject(i, null);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getString(1);
+            }
+        }
+    }
+
+    /**
+     * H2 prints the access of each table on the line following the table, as {@code /* INDEX: CONDITION *}{@code /}
+     * when it looks rows up through an index and without condition when it reads the whole table or index.
+     *
+     * @return Tables read in full by the plan.
+     */
+    private static List<String> findScans(String query, String plan) {
+        List<String> scans = new ArrayList<>();
+        String[] lines = plan.split("\n");
+        for (int i = 0; i + 1 < lines.length; i++) {
+            Matcher table = TABLE_ACCESS.matcher(lines[i]);
+            String access = lines[i + 1].trim();
+            if (table.find() && access.startsWith("/*") && !access.contains(":")
+                    && !isAccessionDisjunction(query, table.group(2))) {
+                scans.add(table.group(1));
+            }
+        }
+        return scans;
+    }
+
+    private static boolean isAccessionDisjunction(String query, String alias) {
+        if (alias == null) {
+            return false;
+        }
+        String column = Pattern.quote(alias.toLowerCase(Locale.ROOT)) + "\\.";
+        return Pattern.compile(column + "genbank\\s*=\\s*\\?\\d*\\s+or\\s+" + column + "refseq\\s*=",
+                               Pattern.CASE_INSENSITIVE).matcher(query).find();
+    }
+
+    public static class RecordingStatementInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.repo;
+
+import org.junit.jupiter.api.Test;
+import org.postgresql.copy.CopyIn;
+
+import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
+import uk.ac.ebi.eva.contigalias.entities.ChromosomeEntity;
+import uk.ac.ebi.eva.contigalias.entitygenerator.AssemblyGenerator;
+import uk.ac.ebi.eva.contigalias.entitygenerator.ChromosomeGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SequenceBulkLoaderTest {
+
+    private static CopyIn copyWritingTo(ByteArrayOutputStream output) throws SQLException {
+        CopyIn copy = mock(CopyIn.class);
+        doAnswer(invocation -> {
+            output.write(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2));
+            return null;
+        }).when(copy).writeToCopy(any(byte[].class), anyInt(), anyInt());
+        return copy;
+    }
+
+    @Test
+    void rowsAreWrittenInCopyTextFormat() throws SQLException {
+        AssemblyEntity assembly = AssemblyGenerator.generate(1);
+        ChromosomeGenerator.generate(2, assembly).setUcscName("tab\there\\").setMd5checksum(null);
+        ChromosomeGenerator.generate(3, assembly).setUcscName("line\nbreak");
+        List<ChromosomeEntity> chromosomes = assembly.getChromosomes();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        CopyIn copy = copyWritingTo(output);
+
+        SequenceBulkLoader.copy(copy, chromosomes, new long[]{10, 11}, assembly);
+
+        String[] rows = new String(output.toByteArray(), StandardCharsets.UTF_8).split("\n", -1);
+        assertEquals(3, rows.length);
+        assertEquals("", rows[2]);
+        String[] first = rows[0].split("\t", -1);
+        assertEquals(10, first.length);
+        assertEquals("10", first[0]);
+        assertEquals(chromosomes.get(0).getGenbank(), first[3]);
+        assertEquals("tab\\there\\\\", first[5]);
+        assertEquals("\\N", first[6]);
+        assertEquals(Long.toString(assembly.getId()), first[8]);
+        assertEquals(assembly.getTaxid().toString(), first[9]);
+        assertEquals("11", rows[1].split("\t", -1)[0]);
+        assertEquals("line\\nbreak", rows[1].split("\t", -1)[5]);
+        verify(copy).endCopy();
+        verify(copy, never()).cancelCopy();
+    }
+
+    @Test
+    void copyIsCancelledOnFailure() throws SQLException {
+        AssemblyEntity assembly = AssemblyGenerator.generate(1);
+        ChromosomeGenerator.generate(2, assembly);
+        CopyIn copy = mock(CopyIn.class);
+        doThrow(new SQLException("lost connection")).when(copy).writeToCopy(any(byte[].class), anyInt(), anyInt());
+        when(copy.isActive()).thenReturn(true);
+
+        assertThrows(SQLException.class,
+                     () -> SequenceBulkLoader.copy(copy, assembly.getChromosomes(), new long[]{10}, assembly));
+        verify(copy).cancelCopy();
+    }
+
+}
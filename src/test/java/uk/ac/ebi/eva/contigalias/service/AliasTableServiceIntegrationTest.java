@@ -0,0 +1,167 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import uk.ac.ebi.eva.contigalias.entities.AliasTableEntity;
+import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
+import uk.ac.ebi.eva.contigalias.entities.ChromosomeEntity;
+import uk.ac.ebi.eva.contigalias.entitygenerator.AssemblyGenerator;
+import uk.ac.ebi.eva.contigalias.entitygenerator.ChromosomeGenerator;
+import uk.ac.ebi.eva.contigalias.entitygenerator.ScaffoldGenerator;
+import uk.ac.ebi.eva.contigalias.event.SequenceChecksumsUpdatedEvent;
+import uk.ac.ebi.eva.contigalias.repo.AliasTableRepository;
+import uk.ac.ebi.eva.contigalias.repo.AssemblyRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ActiveProfiles("test")
+@SpringBootTest
+public class AliasTableServiceIntegrationTest {
+
+    private static final int CHROMOSOMES = 3;
+
+    private static final int SCAFFOLDS = 2;
+
+    private static final long TIMEOUT_MILLIS = 10000;
+
+    private final AssemblyEntity assembly = AssemblyGenerator.generate(700);
+
+    @Autowired
+    private AliasTableService service;
+
+    @Autowired
+    private AliasTableRepository repository;
+
+    @Autowired
+    private AssemblyRepository assemblyRepository;
+
+    @Autowired
+    private AssemblyService assemblyService;
+
+    @Autowired
+    private ChromosomeService chromosomeService;
+
+    @BeforeEach
+    void setup() {
+        for (int i = 0; i < CHROMOSOMES; i++) {
+            ChromosomeGenerator.generate(710 + i, assembly);
+        }
+        for (int i = 0; i < SCAFFOLDS; i++) {
+            ScaffoldGenerator.generate(720 + i, assembly);
+        }
+        assemblyService.insertAssembly(assembly);
+    }
+
+    @AfterEach
+    void tearDown() {
+        assemblyService.deleteAssemblyByGenbank(assembly.getGenbank());
+    }
+
+    @Test
+    void aliasTableComputedOnInsertion() {
+        assertTrue(repository.findAliasTableEntityByAccession(assembly.getRefseq()).isPresent());
+        Optional<AliasTableEntity> table = service.getAliasTableByAccession(assembly.getGenbank());
+        assertTrue(table.isPresent());
+        assertEquals(CHROMOSOMES + SCAFFOLDS, table.get().getSequenceCount());
+
+        String[] lines = new String(AliasTableService.decompress(table.get().getContent()), StandardCharsets.UTF_8)
+                .split("\n");
+        assertEquals(1 + CHROMOSOMES + SCAFFOLDS, lines.length);
+        assertEquals(AliasTableService.HEADER.trim(), lines[0]);
+        ChromosomeEntity chromosome = assembly.getChromosomes().get(0);
+        String[] columns = lines[1].split("\t");
+        assertEquals("chromosome", columns[0]);
+        assertEquals(chromosome.getGenbank(), columns[1]);
+        assertEquals(chromosome.getRefseq(), columns[2]);
+        assertEquals(chromosome.getGenbankSequenceName(), columns[3]);
+        assertEquals(chromosome.getEnaSequenceName(), columns[4]);
+        assertEquals(chromosome.getUcscName(), columns[5]);
+        assertEquals("scaffold", lines[lines.length - 1].split("\t")[0]);
+    }
+
+    @Test
+    void aliasTableRecomputedAfterChecksumUpdate() throws InterruptedException {
+        String etag = service.getAliasTableByAccession(assembly.getGenbank()).get().getEtag();
+        chromosomeService.putChromosomeChecksumsByAccession(assembly.getChromosomes().get(0).getGenbank(), "md5",
+                                                            "trunc512");
+        assertFalse(repository.findAliasTableEntityByAccession(assembly.getGenbank()).isPresent());
+
+        // The table is computed by the request, then stored in the background
+        AliasTableEntity table = service.getAliasTableByAccession(assembly.getGenbank()).get();
+        assertNotEquals(etag, table.getEtag());
+        assertTrue(new String(AliasTableService.decompress(table.getContent()), StandardCharsets.UTF_8)
+                           .contains("\tmd5\ttrunc512\n"));
+        assertEquals(table.getEtag(), awaitAliasTable().getEtag());
+        assertEquals(0, service.saveMissingAliasTables());
+    }
+
+    @Test
+    void aliasTableSavedAfterLastChecksumUpdate() throws InterruptedException {
+        AliasTableService delayedService = new AliasTableService(repository, assemblyRepository, 1);
+        try {
+            SequenceChecksumsUpdatedEvent event = new SequenceChecksumsUpdatedEvent(
+                    Collections.emptyList(), Collections.singleton(assembly.getId()));
+            delayedService.onSequenceChecksumsUpdated(event);
+            delayedService.onSequenceChecksumsUpdated(event);
+            assertFalse(repository.findAliasTableEntityByAccession(assembly.getGenbank()).isPresent());
+            assertEquals(CHROMOSOMES + SCAFFOLDS, awaitAliasTable().getSequenceCount());
+        } finally {
+            delayedService.destroy();
+        }
+    }
+
+    @Test
+    void missingAliasTablesSaved() {
+        repository.deleteAliasTableEntitiesByAssemblyIdIn(Collections.singleton(assembly.getId()));
+        assertEquals(1, service.saveMissingAliasTables());
+        assertTrue(repository.findAliasTableEntityByAccession(assembly.getGenbank()).isPresent());
+        assertEquals(0, service.saveMissingAliasTables());
+    }
+
+    private AliasTableEntity awaitAliasTable() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        Optional<AliasTableEntity> table = repository.findAliasTableEntityByAccession(assembly.getGenbank());
+        while (!table.isPresent() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            table = repository.findAliasTableEntityByAccession(assembly.getGenbank());
+        }
+        assertTrue(table.isPresent());
+        return table.get();
+    }
+
+    @Test
+    void aliasTableDeletedWithAssembly() {
+        assemblyService.deleteAssemblyByGenbank(assembly.getGenbank());
+        assertFalse(repository.findAliasTableEntityByAccession(assembly.getGenbank()).isPresent());
+        assertFalse(service.getAliasTableByAccession(assembly.getGenbank()).isPresent());
+    }
+
+}
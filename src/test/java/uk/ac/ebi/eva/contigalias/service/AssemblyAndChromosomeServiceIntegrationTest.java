@@ -36,6 +36,7 @@ import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static uk.ac.ebi.eva.contigalias.controller.BaseController.DEFAULT_PAGE_REQUEST;
 
@@ -98,6 +99,20 @@ public class AssemblyAndChromosomeServiceIntegrationTest {
             }
         }
 
+        @Test
+        void getChromosomesByGenbankIncludesAssemblyOnly() {
+            ChromosomeEntity expected = chromosomeEntities.get(1);
+            Page<ChromosomeEntity> page = service.getChromosomesByGenbank(expected.getGenbank(), DEFAULT_PAGE_REQUEST);
+            assertEquals(1, page.getTotalElements());
+            ChromosomeEntity chromosome = page.getContent().get(0);
+            assertChromosomeEntityIdentical(expected, chromosome);
+            AssemblyEntity assembly = chromosome.getAssembly();
+            assertEquals(assemblyEntity.getGenbank(), assembly.getGenbank());
+            assertEquals(assemblyEntity.getTaxid(), assembly.getTaxid());
+            assertNull(assembly.getChromosomes());
+            assertNull(assembly.getScaffolds());
+        }
+
         @Test
         void getChromosomesByAssemblyGenbank() {
             Page<ChromosomeEntity> chromosomes = service.getChromosomesByAssemblyGenbank(
@@ -16,6 +16,9 @@
 
 package uk.ac.ebi.eva.contigalias.service;
 
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -23,26 +26,50 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import uk.ac.ebi.eva.contigalias.cache.AssemblyCachePolicy;
+import uk.ac.ebi.eva.contigalias.cache.AssemblyLookupCache;
 import uk.ac.ebi.eva.contigalias.datasource.AssemblyDataSource;
 import uk.ac.ebi.eva.contigalias.datasource.ENAAssemblyDataSource;
 import uk.ac.ebi.eva.contigalias.datasource.NCBIAssemblyDataSource;
 import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
 import uk.ac.ebi.eva.contigalias.entities.ChromosomeEntity;
+import uk.ac.ebi.eva.contigalias.entities.ScaffoldEntity;
 import uk.ac.ebi.eva.contigalias.entitygenerator.AssemblyGenerator;
+import uk.ac.ebi.eva.contigalias.entitygenerator.ChromosomeGenerator;
+import uk.ac.ebi.eva.contigalias.entitygenerator.ScaffoldGenerator;
+import uk.ac.ebi.eva.contigalias.event.DataVersionChangedEvent;
+import uk.ac.ebi.eva.contigalias.index.NegativeLookupFilter;
 import uk.ac.ebi.eva.contigalias.repo.AssemblyRepository;
+import uk.ac.ebi.eva.contigalias.repo.ChromosomeRepository;
+import uk.ac.ebi.eva.contigalias.repo.SequenceBulkLoader;
 
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static uk.ac.ebi.eva.contigalias.controller.BaseController.DEFAULT_PAGE_REQUEST;
@@ -59,13 +86,41 @@ public class AssemblyServiceIntegrationTest {
     @Autowired
     AssemblyRepository repository;
 
+    @Autowired
+    ChromosomeRepository chromosomeRepository;
+
     @Autowired
     private AssemblyService service;
 
+    @Autowired
+    private ApplicationEventPublisher publisher;
+
+    @Autowired
+    private NegativeLookupFilter lookupFilter;
+
+    @Autowired
+    private AssemblyLookupCache lookupCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private SequenceBulkLoader bulkLoader;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private NCBIAssemblyDataSource mockNcbiDataSource;
+
+    private ENAAssemblyDataSource mockEnaDataSource;
+
     @BeforeEach
     void setup() throws IOException {
-        NCBIAssemblyDataSource mockNcbiDataSource = mock(NCBIAssemblyDataSource.class);
-        ENAAssemblyDataSource mockEnaDataSource = mock(ENAAssemblyDataSource.class);
+        mockNcbiDataSource = mock(NCBIAssemblyDataSource.class);
+        mockEnaDataSource = mock(ENAAssemblyDataSource.class);
         for (int i = 0; i < entities.length; i++) {
             AssemblyEntity generate = AssemblyGenerator.generate(i);
             entities[i] = generate;
@@ -74,7 +129,18 @@ public class AssemblyServiceIntegrationTest {
             Mockito.when(mockNcbiDataSource.getAssemblyByAccession(generate.getRefseq()))
                    .thenReturn(Optional.of(generate));
         }
-        service = new AssemblyService(repository, mockNcbiDataSource, mockEnaDataSource);
+        service = createService(new AssemblyCachePolicy(repository, false, 0, 0), Integer.MAX_VALUE);
+    }
+
+    private AssemblyService createServiceWithCacheLimit(int maxAssemblies, int evictionBatchSize) {
+        AssemblyCachePolicy cachePolicy = new AssemblyCachePolicy(repository, true, maxAssemblies, evictionBatchSize);
+        cachePolicy.load();
+        return createService(cachePolicy, Integer.MAX_VALUE);
+    }
+
+    private AssemblyService createService(AssemblyCachePolicy cachePolicy, int bulkLoadMinSequences) {
+        return new AssemblyService(repository, chromosomeRepository, mockNcbiDataSource, mockEnaDataSource, publisher,
+                                   cachePolicy, lookupFilter, lookupCache, bulkLoader, bulkLoadMinSequences);
     }
 
     @AfterEach
@@ -94,9 +160,7 @@ public class AssemblyServiceIntegrationTest {
 
     @Test
     void cacheLimitTest() throws IOException {
-        int cacheSize = service.getCacheSize();
-        service.setCacheSize(10);
-        service.setEnableCacheLimit(true);
+        service = createServiceWithCacheLimit(10, 1);
 
         String targetGenbank = entities[0].getGenbank();
         service.fetchAndInsertAssembly(targetGenbank);
@@ -123,14 +187,10 @@ public class AssemblyServiceIntegrationTest {
             assertOptionalValid(accession);
             service.deleteAssembly(accession.get());
         }
-
-        service.setCacheSize(cacheSize);
     }
 
     @Test
     void disableCacheLimitTest() throws IOException {
-        int cacheSize = service.getCacheSize();
-        service.setCacheSize(10);
 
         String targetGenbank = entities[0].getGenbank();
         service.fetchAndInsertAssembly(targetGenbank);
@@ -157,8 +217,291 @@ public class AssemblyServiceIntegrationTest {
             assertOptionalValid(accession);
             service.deleteAssembly(accession.get());
         }
+    }
+
+    @Test
+    void cacheEvictsLeastRecentlyUsedTest() throws IOException {
+        service = createServiceWithCacheLimit(10, 1);
+        for (int i = 0; i < TEST_ENTITIES_NUMBERS - 1; i++) {
+            service.fetchAndInsertAssembly(entities[i].getGenbank());
+        }
+
+        // Reading the first assembly makes the second one the least recently used
+        assertOptionalValid(service.getAssemblyByAccession(entities[0].getGenbank()));
+        service.fetchAndInsertAssembly(entities[TEST_ENTITIES_NUMBERS - 1].getGenbank());
 
-        service.setCacheSize(cacheSize);
+        assertOptionalValid(service.getAssemblyByAccession(entities[0].getGenbank()));
+        assertFalse(service.getAssemblyByAccession(entities[1].getGenbank()).isPresent());
+        for (int i = 2; i < TEST_ENTITIES_NUMBERS; i++) {
+            assertOptionalValid(service.getAssemblyByAccession(entities[i].getGenbank()));
+        }
+
+        deleteAllPresent();
+    }
+
+    @Test
+    void cacheKeepsAssembliesReadThroughTheirSequences() throws IOException {
+        service = createServiceWithCacheLimit(10, 1);
+        for (int i = 0; i < TEST_ENTITIES_NUMBERS - 1; i++) {
+            service.fetchAndInsertAssembly(entities[i].getGenbank());
+        }
+
+        // As done by lookups of the sequences of the first assembly, which do not read the assembly itself
+        service.recordAccessByAccession(entities[0].getRefseq());
+        service.fetchAndInsertAssembly(entities[TEST_ENTITIES_NUMBERS - 1].getGenbank());
+
+        assertOptionalValid(service.getAssemblyByAccession(entities[0].getGenbank()));
+        assertFalse(service.getAssemblyByAccession(entities[1].getGenbank()).isPresent());
+
+        deleteAllPresent();
+    }
+
+    @Test
+    void cacheTracksAssembliesInsertedAndDeletedByOtherNodes() throws IOException {
+        AssemblyCachePolicy cachePolicy = new AssemblyCachePolicy(repository, true, 10, 1);
+        cachePolicy.load();
+        service = createService(cachePolicy, Integer.MAX_VALUE);
+        service.fetchAndInsertAssembly(entities[0].getGenbank());
+        assertEquals(1, cachePolicy.size());
+
+        // Inserted through another node sharing the database
+        AssemblyService otherNode = createService(new AssemblyCachePolicy(repository, false, 0, 0),
+                                                  Integer.MAX_VALUE);
+        otherNode.fetchAndInsertAssembly(entities[1].getGenbank());
+        otherNode.fetchAndInsertAssembly(entities[2].getGenbank());
+        otherNode.deleteAssemblyByGenbank(entities[0].getGenbank());
+        cachePolicy.onDataVersionChanged(new DataVersionChangedEvent(2));
+        assertEquals(2, cachePolicy.size());
+
+        deleteAllPresent();
+    }
+
+    @Test
+    void cacheEvictsInBatchesTest() throws IOException {
+        int evictionBatchSize = 3;
+        service = createServiceWithCacheLimit(10, evictionBatchSize);
+        for (int i = 0; i < TEST_ENTITIES_NUMBERS; i++) {
+            service.fetchAndInsertAssembly(entities[i].getGenbank());
+        }
+
+        for (int i = 0; i < TEST_ENTITIES_NUMBERS; i++) {
+            Optional<AssemblyEntity> assembly = service.getAssemblyByAccession(entities[i].getGenbank());
+            assertEquals(i >= evictionBatchSize, assembly.isPresent());
+        }
+        assertEquals(TEST_ENTITIES_NUMBERS - evictionBatchSize, repository.count());
+
+        deleteAllPresent();
+    }
+
+    @Test
+    void sequencesLoadedOnlyWhenNeeded() {
+        AssemblyEntity assembly = AssemblyGenerator.generate(750);
+        ChromosomeGenerator.generate(751, assembly);
+        ChromosomeGenerator.generate(752, assembly);
+        ScaffoldGenerator.generate(753, assembly);
+        service.insertAssembly(assembly);
+
+        AssemblyEntity withSequences = service.getAssemblyByAccession(assembly.getGenbank()).get();
+        assertEquals(2, withSequences.getChromosomes().size());
+        assertEquals(1, withSequences.getScaffolds().size());
+
+        AssemblyEntity withoutSequences = service.getAssemblyWithoutSequencesByAccession(assembly.getGenbank()).get();
+        assertEquals(assembly.getRefseq(), withoutSequences.getRefseq());
+        assertNull(withoutSequences.getChromosomes());
+        assertNull(withoutSequences.getScaffolds());
+
+        AssemblyEntity byTaxid = service.getAssembliesByTaxid(assembly.getTaxid(), DEFAULT_PAGE_REQUEST)
+                                        .getContent().get(0);
+        assertEquals(2, byTaxid.getChromosomes().size());
+        assertNull(byTaxid.getScaffolds());
+
+        service.deleteAssembly(withoutSequences);
+        assertFalse(service.getAssemblyByAccession(assembly.getGenbank()).isPresent());
+    }
+
+    @Test
+    void insertAssemblyBatchesSequenceInserts() {
+        int scaffolds = 5000;
+        AssemblyEntity assembly = AssemblyGenerator.generate(760);
+        ChromosomeGenerator.generate(761, assembly);
+        for (int i = 0; i < scaffolds; i++) {
+            ScaffoldGenerator.generate(762 + i, assembly);
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        statistics.setStatisticsEnabled(true);
+        try {
+            service.insertAssembly(assembly);
+            // Without JDBC batching and hi/lo ids allocated in blocks of 50, there would be one statement per row
+            // plus one sequence call per id
+            assertTrue(statistics.getPrepareStatementCount() < scaffolds / 10,
+                       statistics.getPrepareStatementCount() + " statements prepared");
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+        assertEquals(scaffolds, service.getAssemblyByAccession(assembly.getGenbank()).get().getScaffolds().size());
+        service.deleteAssembly(assembly);
+    }
+
+    @Test
+    void largeAssemblyIsBulkLoaded() {
+        service = createService(new AssemblyCachePolicy(repository, false, 0, 0), 3);
+        AssemblyEntity assembly = AssemblyGenerator.generate(780);
+        ChromosomeGenerator.generate(781, assembly);
+        ChromosomeGenerator.generate(782, assembly);
+        ScaffoldGenerator.generate(783, assembly);
+        service.insertAssembly(assembly);
+
+        AssemblyEntity inserted = service.getAssemblyByAccession(assembly.getGenbank()).get();
+        assertEquals(assembly.getRefseq(), inserted.getRefseq());
+        assertEquals(2, inserted.getChromosomes().size());
+        assertEquals(1, inserted.getScaffolds().size());
+        ScaffoldEntity scaffold = inserted.getScaffolds().get(0);
+        assertEquals(assembly.getScaffolds().get(0).getGenbank(), scaffold.getGenbank());
+        assertEquals(assembly.getScaffolds().get(0).getUcscName(), scaffold.getUcscName());
+        assertNotEquals(inserted.getChromosomes().get(0).getId(), inserted.getChromosomes().get(1).getId());
+        // The generated ids are set on the inserted sequences, as persisting them would
+        assertEquals(inserted.getScaffolds().get(0).getId(), assembly.getScaffolds().get(0).getId());
+        assertEquals(2, chromosomeRepository.findChromosomeProjectionsByAssemblyGenbank(
+                assembly.getGenbank(), DEFAULT_PAGE_REQUEST).getTotalElements());
+        assertEquals(assembly.getTaxid(), inserted.getChromosomes().get(0).getTaxid());
+        assertEquals(1, chromosomeRepository.findChromosomeProjectionsByUcscNameAndAssemblyTaxid(
+                assembly.getChromosomes().get(0).getUcscName(), assembly.getTaxid(), DEFAULT_PAGE_REQUEST)
+                                            .getTotalElements());
+
+        service.deleteAssembly(inserted);
+        assertFalse(service.getAssemblyByAccession(assembly.getGenbank()).isPresent());
+    }
+
+    @Test
+    void duplicateInsertionIsRejectedByConstraints() {
+        AssemblyEntity assembly = AssemblyGenerator.generate(790);
+        ChromosomeGenerator.generate(791, assembly);
+        service.insertAssembly(assembly);
+
+        AssemblyEntity duplicate = AssemblyGenerator.generate(790);
+        ChromosomeGenerator.generate(792, duplicate);
+        assertThrows(IllegalArgumentException.class, () -> service.insertAssembly(duplicate));
+        AssemblyEntity bulkDuplicate = AssemblyGenerator.generate(790).setGenbank(null);
+        ScaffoldGenerator.generate(793, bulkDuplicate);
+        assertThrows(IllegalArgumentException.class,
+                     () -> createService(new AssemblyCachePolicy(repository, false, 0, 0), 1)
+                             .insertAssembly(bulkDuplicate));
+
+        AssemblyEntity inserted = service.getAssemblyByAccession(assembly.getGenbank()).get();
+        assertEquals(1, inserted.getChromosomes().size());
+        assertEquals(0, inserted.getScaffolds().size());
+        assertEquals(1, repository.count());
+        service.deleteAssembly(inserted);
+    }
+
+    @Test
+    void concurrentInsertionsOfSameAssemblyInsertItOnce() throws Exception {
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> insertions = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            AssemblyEntity assembly = AssemblyGenerator.generate(800);
+            ChromosomeGenerator.generate(801 + i, assembly);
+            insertions.add(executor.submit(() -> {
+                start.await();
+                try {
+                    service.insertAssembly(assembly);
+                    return true;
+                } catch (IllegalArgumentException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+        int inserted = 0;
+        for (Future<Boolean> insertion : insertions) {
+            inserted += insertion.get() ? 1 : 0;
+        }
+        executor.shutdown();
+
+        assertEquals(1, inserted);
+        AssemblyEntity assembly = service.getAssemblyByAccession(AssemblyGenerator.generate(800).getGenbank()).get();
+        assertEquals(1, assembly.getChromosomes().size());
+        service.deleteAssembly(assembly);
+    }
+
+    @Test
+    void deleteAssembliesByTaxid() {
+        long taxid = 790;
+        List<AssemblyEntity> assemblies = insertAssembliesWithSequences(790, 3, taxid);
+
+        assertEquals(3, service.deleteAssembliesByTaxid(taxid));
+        for (AssemblyEntity assembly : assemblies) {
+            assertFalse(service.getAssemblyByAccession(assembly.getGenbank()).isPresent());
+            assertEquals(0, chromosomeRepository.findChromosomeProjectionsByAssemblyGenbank(
+                    assembly.getGenbank(), DEFAULT_PAGE_REQUEST).getTotalElements());
+        }
+        assertEquals(0, service.deleteAssembliesByTaxid(taxid));
+    }
+
+    @Test
+    void deleteAssembliesByAccessions() {
+        List<AssemblyEntity> assemblies = insertAssembliesWithSequences(800, 3, 800);
+
+        int deleted = service.deleteAssembliesByAccessions(
+                Arrays.asList(assemblies.get(0).getGenbank(), assemblies.get(1).getRefseq(), "GCA_000000000.0"));
+        assertEquals(2, deleted);
+        assertFalse(service.getAssemblyByAccession(assemblies.get(0).getGenbank()).isPresent());
+        assertFalse(service.getAssemblyByAccession(assemblies.get(1).getGenbank()).isPresent());
+        AssemblyEntity remaining = service.getAssemblyByAccession(assemblies.get(2).getGenbank()).get();
+        assertEquals(1, remaining.getChromosomes().size());
+        assertEquals(1, remaining.getScaffolds().size());
+
+        service.deleteAssembly(remaining);
+    }
+
+    @Test
+    void lookupResultsAreNeverFlushed() {
+        AssemblyEntity assembly = insertAssembliesWithSequences(810, 1, 810).get(0);
+        // The transaction stands for a session kept open around the lookup, in which something else is then written
+        new TransactionTemplate(transactionManager).execute(status -> {
+            AssemblyEntity found = service.getAssemblyByGenbank(assembly.getGenbank()).get();
+            ChromosomeEntity chromosome = found.getChromosomes().get(0);
+            Session session = entityManager.unwrap(Session.class);
+            assertTrue(session.isReadOnly(found));
+            assertTrue(session.isReadOnly(chromosome));
+            found.setName("changed");
+            chromosome.setMd5checksum("changed");
+            entityManager.flush();
+            return null;
+        });
+
+        AssemblyEntity reloaded = repository.findAssemblyProjectionByGenbank(assembly.getGenbank()).get();
+        assertEquals(assembly.getName(), reloaded.getName());
+        // The lookup also strips the assembly from its sequences, which must not be written back either
+        Page<ChromosomeEntity> chromosomes = chromosomeRepository.findChromosomeProjectionsByAssemblyGenbank(
+                assembly.getGenbank(), DEFAULT_PAGE_REQUEST);
+        assertEquals(1, chromosomes.getTotalElements());
+        assertEquals(assembly.getChromosomes().get(0).getMd5checksum(),
+                     chromosomes.getContent().get(0).getMd5checksum());
+
+        service.deleteAssembly(assembly);
+    }
+
+    private List<AssemblyEntity> insertAssembliesWithSequences(long firstId, int count, long taxid) {
+        List<AssemblyEntity> assemblies = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            long id = firstId + 3 * i;
+            AssemblyEntity assembly = AssemblyGenerator.generate(id).setTaxid(taxid);
+            ChromosomeGenerator.generate(id + 1, assembly);
+            ScaffoldGenerator.generate(id + 2, assembly);
+            service.insertAssembly(assembly);
+            assemblies.add(assembly);
+        }
+        return assemblies;
+    }
+
+    private void deleteAllPresent() {
+        for (AssemblyEntity entity : entities) {
+            service.getAssemblyByAccession(entity.getGenbank()).ifPresent(service::deleteAssembly);
+        }
     }
 
     void assertOptionalValid(Optional<AssemblyEntity> optional) {
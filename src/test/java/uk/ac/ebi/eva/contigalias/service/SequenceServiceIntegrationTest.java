@@ -0,0 +1,323 @@
+/*
+ * Copyright 2022 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.contigalias.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import uk.ac.ebi.eva.contigalias.cache.DataVersion;
+import uk.ac.ebi.eva.contigalias.controller.admin.SequenceChecksumsReader;
+import uk.ac.ebi.eva.contigalias.entities.AssemblyEntity;
+import uk.ac.ebi.eva.contigalias.entities.ChromosomeEntity;
+import uk.ac.ebi.eva.contigalias.entities.ScaffoldEntity;
+import uk.ac.ebi.eva.contigalias.entities.SequenceEntity;
+import uk.ac.ebi.eva.contigalias.entitygenerator.AssemblyGenerator;
+import uk.ac.ebi.eva.contigalias.entitygenerator.ChromosomeGenerator;
+import uk.ac.ebi.eva.contigalias.entitygenerator.ScaffoldGenerator;
+import uk.ac.ebi.eva.contigalias.index.AliasType;
+import uk.ac.ebi.eva.contigalias.repo.AliasTableRepository;
+import uk.ac.ebi.eva.contigalias.repo.AssemblyRepository;
+import uk.ac.ebi.eva.contigalias.repo.SequenceCursor;
+import uk.ac.ebi.eva.contigalias.repo.SequenceSlice;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static uk.ac.ebi.eva.contigalias.controller.BaseController.DEFAULT_PAGE_REQUEST;
+
+@ActiveProfiles("test")
+@SpringBootTest
+public class SequenceServiceIntegrationTest {
+
+    private final AssemblyEntity assemblyEntity = AssemblyGenerator.generate(800);
+
+    private final ChromosomeEntity lastChromosome;
+
+    private final ScaffoldEntity firstScaffold;
+
+    @Autowired
+    private SequenceService service;
+
+    @Autowired
+    private AssemblyService assemblyService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AliasTableRepository aliasTableRepository;
+
+    @Autowired
+    private AssemblyRepository assemblyRepository;
+
+    @Autowired
+    private DataVersion dataVersion;
+
+    SequenceServiceIntegrationTest() {
+        ChromosomeGenerator.generate(801, assemblyEntity);
+        ChromosomeGenerator.generate(802, assemblyEntity);
+        lastChromosome = ChromosomeGenerator.generate(803, assemblyEntity);
+        lastChromosome.setEnaSequenceName(lastChromosome.getGenbankSequenceName());
+        firstScaffold = ScaffoldGenerator.generate(804, assemblyEntity);
+        ScaffoldGenerator.generate(805, assemblyEntity);
+    }
+
+    @BeforeEach
+    void setup() {
+        assemblyService.insertAssembly(assemblyEntity);
+    }
+
+    @AfterEach
+    void tearDown() {
+        assemblyService.deleteAssembly(assemblyEntity);
+    }
+
+    @Test
+    void getSequencesByAssemblyAccessionPageSpansChromosomesAndScaffolds() {
+        Page<SequenceEntity> page = service.getSequencesByAssemblyAccession(assemblyEntity.getGenbank(),
+                                                                            PageRequest.of(1, 2));
+        assertEquals(5, page.getTotalElements());
+        assertEquals(3, page.getTotalPages());
+        List<SequenceEntity> sequences = page.getContent();
+        assertEquals(2, sequences.size());
+        assertTrue(sequences.get(0) instanceof ChromosomeEntity);
+        assertEquals(lastChromosome.getGenbank(), sequences.get(0).getGenbank());
+        assertTrue(sequences.get(1) instanceof ScaffoldEntity);
+        assertEquals(firstScaffold.getGenbank(), sequences.get(1).getGenbank());
+        assertNull(sequences.get(1).getAssembly());
+    }
+
+    @Test
+    void getSequencesByAssemblyAccessionTotalsPageFromSequenceCounts() {
+        String counts = "select chromosome_count + scaffold_count from assembly where id = ?";
+        assertEquals(5, jdbcTemplate.queryForObject(counts, Integer.class, assemblyEntity.getId()));
+
+        // A total differing from the actual number of sequences shows that they were not counted
+        jdbcTemplate.update("update assembly set scaffold_count = 7 where id = ?", assemblyEntity.getId());
+        assertEquals(10, service.getSequencesByAssemblyAccession(assemblyEntity.getGenbank(), PageRequest.of(0, 2))
+                                .getTotalElements());
+
+        // Assemblies whose sequences were never counted fall back to counting them, until they are counted at startup
+        jdbcTemplate.update("update assembly set scaffold_count = null where id = ?", assemblyEntity.getId());
+        assertEquals(5, service.getSequencesByAssemblyAccession(assemblyEntity.getGenbank(), PageRequest.of(0, 2))
+                               .getTotalElements());
+        assemblyService.updateMissingSequenceCounts();
+        assertEquals(5, jdbcTemplate.queryForObject(counts, Integer.class, assemblyEntity.getId()));
+    }
+
+    @Test
+    void updateMissingSequenceTaxids() {
+        String missing = "select (select count(*) from chromosome where assembly_id = ? and taxid is null) + " +
+                "(select count(*) from scaffold where assembly_id = ? and taxid is null)";
+        jdbcTemplate.update("update chromosome set taxid = null where assembly_id = ?", assemblyEntity.getId());
+        jdbcTemplate.update("update scaffold set taxid = null where assembly_id = ?", assemblyEntity.getId());
+        assertEquals(5, jdbcTemplate.queryForObject(missing, Integer.class, assemblyEntity.getId(),
+                                                    assemblyEntity.getId()));
+        assemblyService.updateMissingSequenceTaxids();
+        assertEquals(0, jdbcTemplate.queryForObject(missing, Integer.class, assemblyEntity.getId(),
+                                                    assemblyEntity.getId()));
+        assertEquals(assemblyEntity.getTaxid(), jdbcTemplate.queryForObject(
+                "select taxid from chromosome where id = ?", Long.class, lastChromosome.getId()));
+    }
+
+    @Test
+    void getSequencesByAssemblyAccessionAfterCursor() {
+        List<SequenceEntity> expected = service.getSequencesByAssemblyAccession(assemblyEntity.getGenbank(),
+                                                                                DEFAULT_PAGE_REQUEST).getContent();
+        List<SequenceEntity> sequences = new ArrayList<>();
+        SequenceCursor after = null;
+        int slices = 0;
+        do {
+            SequenceSlice slice = service.getSequencesByAssemblyAccession(assemblyEntity.getRefseq(), after, 2);
+            assertTrue(slice.getContent().size() <= 2);
+            sequences.addAll(slice.getContent());
+            after = slice.getNext().map(next -> SequenceCursor.fromToken(next.toToken())).orElse(null);
+            slices++;
+        } while (after != null);
+        assertEquals(3, slices);
+        assertEquals(expected.size(), sequences.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getClass(), sequences.get(i).getClass());
+            assertEquals(expected.get(i).getGenbank(), sequences.get(i).getGenbank());
+        }
+    }
+
+    @Test
+    void getSequencesByNameAfterCursorStopsWithoutEmptySlice() {
+        SequenceSlice slice = service.getSequencesByName(firstScaffold.getGenbankSequenceName(),
+                                                         AliasType.GENBANK_SEQUENCE_NAME, null, 1);
+        assertEquals(1, slice.getContent().size());
+        assertFalse(slice.getNext().isPresent());
+        assertEquals(assemblyEntity.getGenbank(), slice.getContent().get(0).getAssembly().getGenbank());
+    }
+
+    @Test
+    void getSequencesByNameAndAssemblyAccessionIncludesAssembly() {
+        Page<SequenceEntity> page = service.getSequencesByNameAndAssemblyAccession(
+                firstScaffold.getGenbankSequenceName(), AliasType.GENBANK_SEQUENCE_NAME, assemblyEntity.getRefseq(),
+                DEFAULT_PAGE_REQUEST);
+        assertEquals(1, page.getTotalElements());
+        SequenceEntity scaffold = page.getContent().get(0);
+        assertTrue(scaffold instanceof ScaffoldEntity);
+        assertEquals(firstScaffold.getRefseq(), scaffold.getRefseq());
+        assertEquals(firstScaffold.getUcscName(), scaffold.getUcscName());
+        assertEquals(firstScaffold.getEnaSequenceName(), scaffold.getEnaSequenceName());
+        assertEquals(assemblyEntity.getGenbank(), scaffold.getAssembly().getGenbank());
+        assertEquals(assemblyEntity.getTaxid(), scaffold.getAssembly().getTaxid());
+        assertNull(scaffold.getAssembly().getScaffolds());
+    }
+
+    @Test
+    void getSequencesByNameOfAnyType() {
+        Page<SequenceEntity> page = service.getSequencesByName(firstScaffold.getUcscName(), null,
+                                                               DEFAULT_PAGE_REQUEST);
+        assertEquals(1, page.getTotalElements());
+        assertEquals(firstScaffold.getGenbank(), page.getContent().get(0).getGenbank());
+        assertEquals(0, service.getSequencesByName(firstScaffold.getUcscName(), AliasType.GENBANK_SEQUENCE_NAME,
+                                                   DEFAULT_PAGE_REQUEST).getTotalElements());
+
+        // The last chromosome has the same GenBank and ENA name, but is only returned once
+        SequenceSlice slice = service.getSequencesByNameAndAssemblyTaxid(
+                lastChromosome.getGenbankSequenceName(), null, assemblyEntity.getTaxid(), null, 10);
+        assertEquals(1, slice.getContent().size());
+        assertEquals(lastChromosome.getGenbank(), slice.getContent().get(0).getGenbank());
+    }
+
+    @Test
+    void sequenceAliasesFollowAssembly() {
+        String count = "select count(*) from sequence_alias where assembly_id = ?";
+        assertEquals(15, jdbcTemplate.queryForObject(count, Integer.class, assemblyEntity.getId()));
+
+        jdbcTemplate.update("delete from sequence_alias where assembly_id = ?", assemblyEntity.getId());
+        assemblyService.insertMissingSequenceAliases();
+        assertEquals(15, jdbcTemplate.queryForObject(count, Integer.class, assemblyEntity.getId()));
+
+        // Backfilling an assembly whose names were meanwhile inserted by another node skips them
+        assertEquals(0, assemblyRepository.insertSequenceAliasesByAssemblyIdIn(
+                Collections.singleton(assemblyEntity.getId())));
+        assertEquals(15, jdbcTemplate.queryForObject(count, Integer.class, assemblyEntity.getId()));
+
+        assemblyService.deleteAssembly(assemblyEntity);
+        assertEquals(0, jdbcTemplate.queryForObject(count, Integer.class, assemblyEntity.getId()));
+    }
+
+    @Test
+    void getAssembliesBySequenceGenbank() {
+        List<AssemblyEntity> assemblies = service.getAssembliesBySequenceGenbank(firstScaffold.getGenbank());
+        assertEquals(1, assemblies.size());
+        assertEquals(assemblyEntity.getRefseq(), assemblies.get(0).getRefseq());
+        assertEquals(assemblyEntity.getName(), assemblies.get(0).getName());
+    }
+
+    @Test
+    void putSequenceChecksumsFromTsv() {
+        String body = "accession\tmd5\ttrunc512\n" +
+                lastChromosome.getGenbank() + "\tnewMd5\tnewTrunc512\n" +
+                "\n" +
+                firstScaffold.getRefseq() + "\tnewMd5\n" +
+                "unknownAccession\tmd5\ttrunc512\n";
+        assertTrue(aliasTableRepository.findById(assemblyEntity.getId()).isPresent());
+        String etag = dataVersion.getEtag();
+        SequenceChecksumsUpdateReport report = service.putSequenceChecksums(
+                new SequenceChecksumsReader(new BufferedReader(new StringReader(body)), SequenceChecksumsReader.TSV));
+        assertEquals(2, report.getUpdated());
+        assertEquals(Collections.singletonList("unknownAccession"), report.getNotFound());
+        // The batch event carries the assemblies of the updated sequences, whose alias tables are dropped
+        assertFalse(aliasTableRepository.findById(assemblyEntity.getId()).isPresent());
+        assertNotEquals(etag, dataVersion.getEtag());
+
+        SequenceEntity chromosome = service.getSequencesByGenbank(lastChromosome.getGenbank(), DEFAULT_PAGE_REQUEST)
+                                           .getContent().get(0);
+        assertEquals("newMd5", chromosome.getMd5checksum());
+        assertEquals("newTrunc512", chromosome.getTrunc512checksum());
+        SequenceEntity scaffold = service.getSequencesByRefseq(firstScaffold.getRefseq(), DEFAULT_PAGE_REQUEST)
+                                         .getContent().get(0);
+        assertEquals("newMd5", scaffold.getMd5checksum());
+        assertEquals(firstScaffold.getTrunc512checksum(), scaffold.getTrunc512checksum());
+    }
+
+    @Test
+    void putSequenceChecksumsKeepsMissingChecksums() {
+        String tsv = lastChromosome.getGenbank() + "\t\tnewTrunc512\n";
+        service.putSequenceChecksums(
+                new SequenceChecksumsReader(new BufferedReader(new StringReader(tsv)), SequenceChecksumsReader.TSV));
+        SequenceEntity chromosome = service.getSequencesByGenbank(lastChromosome.getGenbank(), DEFAULT_PAGE_REQUEST)
+                                           .getContent().get(0);
+        assertEquals(lastChromosome.getMd5checksum(), chromosome.getMd5checksum());
+        assertEquals("newTrunc512", chromosome.getTrunc512checksum());
+
+        String ndjson = "{\"accession\":\"" + lastChromosome.getGenbank() + "\",\"md5\":\"newMd5\"," +
+                "\"trunc512\":\"\"}\n";
+        service.putSequenceChecksums(new SequenceChecksumsReader(new BufferedReader(new StringReader(ndjson)),
+                                                                 SequenceChecksumsReader.NDJSON));
+        chromosome = service.getSequencesByGenbank(lastChromosome.getGenbank(), DEFAULT_PAGE_REQUEST)
+                            .getContent().get(0);
+        assertEquals("newMd5", chromosome.getMd5checksum());
+        assertEquals("newTrunc512", chromosome.getTrunc512checksum());
+    }
+
+    @Test
+    void putSequenceChecksumsRejectsLineWithoutChecksums() {
+        String body = lastChromosome.getGenbank() + "\tnewMd5\n" + lastChromosome.getRefseq() + "\t\t\n";
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> service
+                .putSequenceChecksums(new SequenceChecksumsReader(new BufferedReader(new StringReader(body)),
+                                                                  SequenceChecksumsReader.TSV)));
+        assertTrue(exception.getMessage().startsWith("Line 2"));
+    }
+
+    @Test
+    void putSequenceChecksumsFromNdjsonKeepsLastChecksumsOfAccession() {
+        String body = "{\"accession\":\"" + firstScaffold.getGenbank() + "\",\"md5\":\"first\"}\n" +
+                "{\"accession\":\"" + firstScaffold.getGenbank() + "\",\"md5\":\"second\"," +
+                "\"trunc512\":\"trunc512\"}\n";
+        SequenceChecksumsUpdateReport report = service.putSequenceChecksums(new SequenceChecksumsReader(
+                new BufferedReader(new StringReader(body)), SequenceChecksumsReader.NDJSON));
+        assertEquals(1, report.getUpdated());
+        assertTrue(report.getNotFound().isEmpty());
+
+        SequenceEntity scaffold = service.getSequencesByGenbank(firstScaffold.getGenbank(), DEFAULT_PAGE_REQUEST)
+                                         .getContent().get(0);
+        assertEquals("second", scaffold.getMd5checksum());
+        assertEquals("trunc512", scaffold.getTrunc512checksum());
+    }
+
+    @Test
+    void putSequenceChecksumsRejectsMalformedLine() {
+        String body = "{\"md5\":\"md5\"}\n";
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> service
+                .putSequenceChecksums(new SequenceChecksumsReader(new BufferedReader(new StringReader(body)),
+                                                                  SequenceChecksumsReader.NDJSON)));
+        assertTrue(exception.getMessage().startsWith("Line 1"));
+    }
+
+}
@@ -18,10 +18,12 @@ package uk.ac.ebi.eva.contigalias.test;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 
+import uk.ac.ebi.eva.contigalias.cache.ResponseCache;
 import uk.ac.ebi.eva.contigalias.controller.authentication.CustomBasicAuthenticationEntryPoint;
+import uk.ac.ebi.eva.contigalias.repo.RecentWrites;
 
 @Configuration
-@Import({CustomBasicAuthenticationEntryPoint.class})
+@Import({CustomBasicAuthenticationEntryPoint.class, RecentWrites.class, ResponseCache.class})
 public class TestConfiguration {
 
 }